@@ -2,7 +2,7 @@ import { useCallback, useEffect, useMemo, useState } from 'react';
 import { useParams, useNavigate, useSearchParams } from 'react-router-dom';
 import { Plus, Activity, Play, X, Lock } from 'lucide-react';
 import { groupsApi, serversApi, scriptsApi } from '../services/api';
-import type { ServerGroupDto, ServerDto, ScriptDto, PingResultDto } from '../types/api';
+import type { ServerGroupDto, ServerDto, ScriptDto, PingResultDto, PingStatus } from '../types/api';
 import { PageHeader } from '../components/PageHeader';
 import { AsyncState } from '../components/AsyncState';
 import { useSafeBack } from '../hooks/useSafeBack';
@@ -15,6 +15,13 @@ import { useActivityFeed } from '../contexts/ActivityFeedContext';
 type PingUiStatus = 'online' | 'offline' | 'unknown';
 type PingFilter = 'all' | 'online' | 'offline' | 'unknown';
 
+function toPingUiStatus(status: PingStatus | undefined): PingUiStatus {
+  if (status === 'UP') {
+    return 'online';
+  }
+  return status === 'DOWN' ? 'offline' : 'unknown';
+}
+
 function normalizePingFilter(value: string | null): PingFilter {
   if (!value) {
     return 'all';
@@ -129,9 +136,11 @@ export function GroupDetail() {
       setError(null);
 
       const onlineCount = groupServers.filter(
-        (server) => result[(server.id ?? 0).toString()] === true
+        (server) => result[(server.id ?? 0).toString()] === 'UP'
+      ).length;
+      const offlineCount = groupServers.filter(
+        (server) => result[(server.id ?? 0).toString()] === 'DOWN'
       ).length;
-      const offlineCount = groupServers.length - onlineCount;
 
       addActivity({
         title: 'Group ping',
@@ -330,12 +339,7 @@ export function GroupDetail() {
     () =>
       groupServers.map((server) => ({
         server,
-        status:
-          pingResults[(server.id ?? 0).toString()] === undefined
-            ? ('unknown' as PingUiStatus)
-            : pingResults[(server.id ?? 0).toString()]
-            ? ('online' as PingUiStatus)
-            : ('offline' as PingUiStatus),
+        status: toPingUiStatus(pingResults[(server.id ?? 0).toString()]),
       })),
     [groupServers, pingResults]
   );
@@ -12,6 +12,7 @@ import type {
   StatsDto,
   PingResultDto,
   ServerPingResponseDto,
+  WavePolicyDto,
 } from '../types/api';
 
 const baseURL = 'https://api.nto.formatis.online/api';
@@ -124,8 +125,8 @@ export const groupsApi = {
     api.post(`/groups/${groupId}/servers/${serverId}`),
   removeServer: (groupId: number, serverId: number) =>
     api.delete(`/groups/${groupId}/servers/${serverId}`),
-  execute: (id: number, scriptId: number) =>
-    api.post<TaskDto[]>(`/groups/${id}/execute`, null, { params: { scriptId } }),
+  execute: (id: number, scriptId: number, policy?: WavePolicyDto) =>
+    api.post<TaskDto[]>(`/groups/${id}/execute`, policy ?? null, { params: { scriptId } }),
   ping: (id: number) => api.get<PingResultDto>(`/groups/${id}/ping`),
   getLastStatus: (id: number) => api.get<TaskDto[]>(`/groups/${id}/status/last`),
 };
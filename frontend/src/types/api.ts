@@ -9,6 +9,22 @@ export interface TaskDto {
   sourceGroupId?: number;
   startedAt?: string;
   finishedAt?: string;
+  timeoutSeconds?: number;
+  groupRunId?: string;
+}
+
+export interface GroupRunDto {
+  id: string;
+  groupId: number;
+  scriptId: number;
+  startedAt: string;
+  finishedAt?: string;
+  totalTasks: number;
+  pendingTasks: number;
+  runningTasks: number;
+  successTasks: number;
+  failedTasks: number;
+  cancelledTasks: number;
 }
 
 export interface BulkTaskRequestDto {
@@ -16,6 +32,14 @@ export interface BulkTaskRequestDto {
   serverIds: number[];
 }
 
+export interface WavePolicyDto {
+  batchSize?: number;
+  batchPercent?: number;
+  maxInFlight?: number;
+  canarySize?: number;
+  maxFailureRatio?: number;
+}
+
 export interface ServerDto {
   id?: number;
   hostname: string;
@@ -23,6 +47,8 @@ export interface ServerDto {
   port?: number;
   username: string;
   password?: string;
+  maxChannels?: number;
+  compression?: boolean;
 }
 
 export interface ScriptDto {
@@ -31,6 +57,7 @@ export interface ScriptDto {
   content?: string;
   ownerName?: string;
   isPublic?: boolean;
+  timeoutSeconds?: number;
 }
 
 export interface ServerGroupDto {
@@ -59,12 +86,82 @@ export interface StatsDto {
   [key: string]: number;
 }
 
+export interface PrewarmStatsDto {
+  concurrency: number;
+  inProgress: number;
+  queued: number;
+  warmed: number;
+  failed: number;
+  failures: Record<number, string>;
+}
+
+export interface SessionPoolStatsDto {
+  maxSessions: number;
+  open: number;
+  idle: number;
+  servers: number;
+  hits: number;
+  misses: number;
+  idleEvictions: number;
+  lruEvictions: number;
+  keepaliveProbes: number;
+  deadSessions: number;
+  reconnects: number;
+}
+
+export interface SessionHealthDto {
+  serverId: number;
+  roundTripMillis: number;
+  checkedAt: string;
+}
+
+export interface HostLivenessDto {
+  serverId: number;
+  alive: boolean;
+  rttMillis: number | null;
+  checkedAt: string;
+  source: 'TCP' | 'SSH';
+}
+
+export interface AdmissionStatsDto {
+  capacity: number;
+  outstanding: number;
+  admittedTasks: number;
+  rejectedBatches: number;
+  rejectedTasks: number;
+}
+
+export interface TaskCacheStatsDto {
+  entries: number;
+  finishedEntries: number;
+  maxFinishedEntries: number;
+  hits: number;
+  misses: number;
+  sizeEvictions: number;
+  ttlEvictions: number;
+}
+
+export interface ScriptCacheStatsDto {
+  entries: number;
+  hits: number;
+  misses: number;
+  bytesFromCache: number;
+  bytesFromDatabase: number;
+}
+
 export interface ServerPingResponseDto {
   serverId: number;
   alive: boolean;
   timestamp: string;
 }
 
+export type PingStatus = 'UP' | 'DOWN' | 'UNKNOWN';
+
 export interface PingResultDto {
-  [key: string]: boolean;
+  [key: string]: PingStatus;
+}
+
+export interface ServerPingStatusDto {
+  serverId: number;
+  status: PingStatus;
 }
@@ -0,0 +1,12 @@
+package nto.application.dto;
+
+import nto.application.dto.base.BaseDto;
+
+public record AdmissionStatsDto(
+    int capacity,
+    int outstanding,
+    long admittedTasks,
+    long rejectedBatches,
+    long rejectedTasks
+) implements BaseDto {
+}
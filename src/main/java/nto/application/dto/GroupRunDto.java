@@ -0,0 +1,21 @@
+package nto.application.dto;
+
+import nto.application.dto.base.BaseDto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record GroupRunDto(
+    UUID id,
+    Long groupId,
+    Long scriptId,
+    LocalDateTime startedAt,
+    LocalDateTime finishedAt,
+    int totalTasks,
+    int pendingTasks,
+    int runningTasks,
+    int successTasks,
+    int failedTasks,
+    int cancelledTasks
+) implements BaseDto {
+}
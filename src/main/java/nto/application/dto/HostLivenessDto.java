@@ -0,0 +1,14 @@
+package nto.application.dto;
+
+import nto.application.dto.base.BaseDto;
+
+import java.time.LocalDateTime;
+
+public record HostLivenessDto(
+    Long serverId,
+    boolean alive,
+    Long rttMillis,
+    LocalDateTime checkedAt,
+    String source
+) implements BaseDto {
+}
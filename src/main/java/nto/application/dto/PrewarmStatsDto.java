@@ -0,0 +1,15 @@
+package nto.application.dto;
+
+import nto.application.dto.base.BaseDto;
+
+import java.util.Map;
+
+public record PrewarmStatsDto(
+    int concurrency,
+    int inProgress,
+    int queued,
+    long warmed,
+    long failed,
+    Map<Long, String> failures
+) implements BaseDto {
+}
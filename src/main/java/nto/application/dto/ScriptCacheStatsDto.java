@@ -0,0 +1,12 @@
+package nto.application.dto;
+
+import nto.application.dto.base.BaseDto;
+
+public record ScriptCacheStatsDto(
+    int entries,
+    long hits,
+    long misses,
+    long bytesFromCache,
+    long bytesFromDatabase
+) implements BaseDto {
+}
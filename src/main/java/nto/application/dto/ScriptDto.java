@@ -1,6 +1,7 @@
 package nto.application.dto;
 
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
 import nto.application.dto.base.BaseDto;
 
 public record ScriptDto(
@@ -10,6 +11,8 @@ public record ScriptDto(
     @NotEmpty
     String content,
     String ownerName,
-    Boolean isPublic
+    Boolean isPublic,
+    @Positive
+    Integer timeoutSeconds
 ) implements BaseDto {
 }
@@ -23,6 +23,11 @@ public record ServerDto(
     @NotBlank(message = "SSH username is required")
     String username,
 
-    String password
+    String password,
+
+    @Min(1) @Max(64)
+    Integer maxChannels,
+
+    Boolean compression
 ) implements BaseDto {
 }
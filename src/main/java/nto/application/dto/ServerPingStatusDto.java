@@ -0,0 +1,10 @@
+package nto.application.dto;
+
+import nto.application.dto.base.BaseDto;
+import nto.core.enums.PingStatus;
+
+public record ServerPingStatusDto(
+    Long serverId,
+    PingStatus status
+) implements BaseDto {
+}
@@ -0,0 +1,11 @@
+package nto.application.dto;
+
+import nto.application.dto.base.BaseDto;
+
+public record ServerQueueDto(
+    Long serverId,
+    int running,
+    int queued,
+    int concurrencyLimit
+) implements BaseDto {
+}
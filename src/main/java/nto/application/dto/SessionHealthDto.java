@@ -0,0 +1,12 @@
+package nto.application.dto;
+
+import nto.application.dto.base.BaseDto;
+
+import java.time.LocalDateTime;
+
+public record SessionHealthDto(
+    Long serverId,
+    long roundTripMillis,
+    LocalDateTime checkedAt
+) implements BaseDto {
+}
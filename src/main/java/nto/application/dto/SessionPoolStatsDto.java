@@ -0,0 +1,18 @@
+package nto.application.dto;
+
+import nto.application.dto.base.BaseDto;
+
+public record SessionPoolStatsDto(
+    int maxSessions,
+    int open,
+    int idle,
+    int servers,
+    long hits,
+    long misses,
+    long idleEvictions,
+    long lruEvictions,
+    long keepaliveProbes,
+    long deadSessions,
+    long reconnects
+) implements BaseDto {
+}
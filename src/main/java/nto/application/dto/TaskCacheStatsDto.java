@@ -0,0 +1,14 @@
+package nto.application.dto;
+
+import nto.application.dto.base.BaseDto;
+
+public record TaskCacheStatsDto(
+    int entries,
+    int finishedEntries,
+    int maxFinishedEntries,
+    long hits,
+    long misses,
+    long sizeEvictions,
+    long ttlEvictions
+) implements BaseDto {
+}
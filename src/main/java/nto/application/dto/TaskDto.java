@@ -4,6 +4,7 @@ import nto.application.dto.base.BaseDto;
 import nto.core.enums.TaskStatus;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 public record TaskDto(
     Long id,
@@ -13,6 +14,8 @@ public record TaskDto(
     Long scriptId,
     Long sourceGroupId,
     LocalDateTime startedAt,
-    LocalDateTime finishedAt
+    LocalDateTime finishedAt,
+    Integer timeoutSeconds,
+    UUID groupRunId
 ) implements BaseDto {
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package nto.application.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * How a group run is rolled out. At most one of {@code batchSize}, {@code batchPercent} and
+ * {@code maxInFlight} sizes the wave; all fields empty means every server starts at once.
+ */
+public record WavePolicyDto(
+    @Positive(message = "Batch size must be positive")
+    Integer batchSize,
+
+    @Positive(message = "Batch percent must be positive")
+    @Max(value = 100, message = "Batch percent cannot exceed 100")
+    Integer batchPercent,
+
+    @Positive(message = "Max in flight must be positive")
+    Integer maxInFlight,
+
+    @Positive(message = "Canary size must be positive")
+    Integer canarySize,
+
+    @DecimalMin(value = "0.0", message = "Failure ratio must be between 0 and 1")
+    @DecimalMax(value = "1.0", message = "Failure ratio must be between 0 and 1")
+    Double maxFailureRatio
+) {
+}
@@ -2,15 +2,20 @@ package nto.application.interfaces.repositories;
 
 import nto.core.entities.ServerEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ServerRepository {
     Optional<ServerEntity> findById(Long id);
 
+    ServerEntity getReferenceById(Long id);
+
     List<ServerEntity> findAllByHostname(String hostname);
 
     List<ServerEntity> findAllById(Iterable<Long> ids);
 
     List<ServerEntity> findAllByOwnerUsername(String username);
+
+    List<ServerEntity> findAllByIdInAndOwnerUsername(Collection<Long> ids, String username);
 }
\ No newline at end of file
@@ -6,9 +6,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.UUID;
 
 public interface TaskRepository {
-    List<TaskEntity> findLatestTasksByGroupId(Long groupId);
+    List<TaskEntity> findAllByGroupRunId(UUID groupRunId);
 
     Page<TaskEntity> findTasksByUserAndStatusJPQL(String username, TaskStatus status,
                                                   Pageable pageable);
@@ -1,12 +1,58 @@
 package nto.application.interfaces.services;
 
+import nto.application.dto.HostLivenessDto;
+import nto.application.dto.PrewarmStatsDto;
+import nto.application.dto.SessionHealthDto;
+import nto.application.dto.SessionPoolStatsDto;
+import nto.core.enums.TaskStatus;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 public interface ScriptExecutor {
 
 
-    void executeAsync(Long taskId);
+    CompletableFuture<TaskStatus> executeAsync(Long taskId);
+
+    /**
+     * Stops a task this executor is running and finishes it as CANCELLED. Returns false if
+     * the executor does not know the task.
+     */
+    boolean cancel(Long taskId);
 
+    /**
+     * Full check: connects and authenticates, so a true result means tasks can run there.
+     */
     boolean ping(Long serverId);
 
+    /**
+     * Non-blocking reachability check; may be answered from cached liveness or a cheaper
+     * probe than {@link #ping}.
+     */
+    CompletableFuture<Boolean> pingAsync(Long serverId);
+
+    /**
+     * Connects to the servers of an upcoming group run ahead of their tasks. Each future
+     * completes once that server's warm-up has settled, whether it connected or not; servers
+     * without an entry need no warm-up.
+     */
+    Map<Long, CompletableFuture<Void>> prewarm(Collection<Long> serverIds);
+
+    PrewarmStatsDto getPrewarmStats();
+
+    SessionPoolStatsDto getSessionPoolStats();
+
+    /**
+     * Latest keepalive round-trip per server with a pooled session.
+     */
+    Collection<SessionHealthDto> getSessionHealth();
+
+    /**
+     * Last known reachability per server, as seen by liveness probes and pings.
+     */
+    Collection<HostLivenessDto> getHostLiveness();
+
 
     long getSuccessCountAtomic();
 
@@ -1,5 +1,6 @@
 package nto.application.interfaces.services;
 
+import nto.application.dto.ScriptCacheStatsDto;
 import nto.application.dto.ScriptDto;
 
 import java.util.List;
@@ -12,4 +13,6 @@ public interface ScriptService {
     List<ScriptDto> getAllScripts();
 
     void deleteScript(Long id);
+
+    ScriptCacheStatsDto getContentCacheStats();
 }
\ No newline at end of file
@@ -1,11 +1,16 @@
 package nto.application.interfaces.services;
 
 import nto.application.dto.BulkCreateServersGroupRequestDto;
+import nto.application.dto.GroupRunDto;
 import nto.application.dto.ServerGroupDto;
 import nto.application.dto.TaskDto;
+import nto.application.dto.WavePolicyDto;
+import nto.core.enums.PingStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 public interface ServerGroupService {
     ServerGroupDto createGroup(ServerGroupDto dto);
@@ -24,9 +29,15 @@ public interface ServerGroupService {
     void removeServerFromGroup(Long groupId, Long serverId);
 
 
-    Map<Long, Boolean> pingGroup(Long groupId);
+    Map<Long, PingStatus> pingGroup(Long groupId);
 
-    List<TaskDto> executeScriptOnGroup(Long groupId, Long scriptId);
+    SseEmitter streamPingGroup(Long groupId);
+
+    List<TaskDto> executeScriptOnGroup(Long groupId, Long scriptId, WavePolicyDto policy);
 
     List<TaskDto> getLastGroupExecutionStatus(Long groupId);
+
+    GroupRunDto getLastGroupRun(Long groupId);
+
+    List<TaskDto> cancelGroupRun(Long groupId, UUID runId);
 }
@@ -1,6 +1,7 @@
 package nto.application.interfaces.services;
 
 import nto.application.dto.ServerDto;
+import nto.application.dto.ServerQueueDto;
 
 import java.util.List;
 
@@ -11,7 +12,13 @@ public interface ServerService {
 
     ServerDto createServer(ServerDto dto);
 
-    boolean checkConnection(Long id);
+    /**
+     * With {@code deep} the server is connected to over SSH; otherwise cached liveness or a
+     * TCP probe of the SSH port decides.
+     */
+    boolean checkConnection(Long id, boolean deep);
+
+    ServerQueueDto getQueueState(Long id);
 
     List<ServerDto> getAllServers();
 
@@ -1,10 +1,14 @@
 package nto.application.interfaces.services;
 
+import nto.application.dto.AdmissionStatsDto;
+import nto.application.dto.TaskCacheStatsDto;
 import nto.application.dto.BulkTaskRequestDto;
 import nto.application.dto.TaskDto;
 import nto.core.enums.TaskStatus;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -24,4 +28,14 @@ public interface TaskService {
     TaskDto getTaskById(Long id);
 
     List<TaskDto> getAllTasks();
+
+    SseEmitter streamOutput(Long id);
+
+    Resource getFullOutput(Long id);
+
+    TaskDto cancelTask(Long id);
+
+    AdmissionStatsDto getAdmissionStats();
+
+    TaskCacheStatsDto getStatusCacheStats();
 }
\ No newline at end of file
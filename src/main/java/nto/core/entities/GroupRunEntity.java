@@ -0,0 +1,60 @@
+package nto.core.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import nto.core.entities.base.BaseEntity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One execution of a script on a server group. The per-status counters are kept up to date by
+ * the task status write-behind; {@code finishedAt} is set when no task is pending or running.
+ */
+@Entity
+@Table(name = "group_runs",
+    indexes = @Index(name = "idx_group_runs_group_started", columnList = "group_id, started_at"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupRunEntity implements BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_id", nullable = false)
+    private ServerGroupEntity group;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "script_id", nullable = false)
+    private ScriptEntity script;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private int totalTasks;
+    private int pendingTasks;
+    private int runningTasks;
+    private int successTasks;
+    private int failedTasks;
+    private int cancelledTasks;
+}
@@ -38,6 +38,8 @@ public class ScriptEntity implements BaseEntity {
     @Column(columnDefinition = "TEXT")
     private String content;
 
+    private Integer timeoutSeconds;
+
     @Column(nullable = false)
     @Builder.Default
     private Boolean isPublic = false;
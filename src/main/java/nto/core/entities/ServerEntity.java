@@ -53,6 +53,10 @@ public class ServerEntity implements BaseEntity {
 
     private String password;
 
+    private Integer maxChannels;
+
+    private Boolean compression;
+
 
     @Builder.Default
     @ManyToMany
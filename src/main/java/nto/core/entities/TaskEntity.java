@@ -7,6 +7,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -20,9 +21,11 @@ import nto.core.enums.TaskStatus;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks",
+    indexes = @Index(name = "idx_tasks_group_run", columnList = "group_run_id"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -40,6 +43,15 @@ public class TaskEntity implements BaseEntity {
     @Column(columnDefinition = "TEXT")
     private String output;
 
+    private String outputBlobRef;
+
+    private Long outputSize;
+
+    private Integer timeoutSeconds;
+
+    @Column(name = "group_run_id")
+    private UUID groupRunId;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
@@ -58,4 +70,8 @@ public class TaskEntity implements BaseEntity {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "source_group_id")
     private ServerGroupEntity sourceGroup;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_run_id", insertable = false, updatable = false)
+    private GroupRunEntity groupRun;
 }
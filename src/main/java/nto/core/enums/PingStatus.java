@@ -0,0 +1,7 @@
+package nto.core.enums;
+
+public enum PingStatus {
+    UP,
+    DOWN,
+    UNKNOWN
+}
@@ -25,4 +25,8 @@ public enum TaskStatus {
     public int getCode() {
         return code;
     }
+
+    public boolean isFinal() {
+        return this == SUCCESS || this == FAILED || this == CANCELLED;
+    }
 }
@@ -1,7 +0,0 @@
-package nto.core.utils.exceptions;
-
-public class ServerBusyException extends RuntimeException {
-    public ServerBusyException(String message) {
-        super(message);
-    }
-}
\ No newline at end of file
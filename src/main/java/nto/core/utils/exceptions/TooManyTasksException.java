@@ -0,0 +1,15 @@
+package nto.core.utils.exceptions;
+
+public class TooManyTasksException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyTasksException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,95 @@
+package nto.infrastructure.cache;
+
+import lombok.RequiredArgsConstructor;
+import nto.infrastructure.repositories.JpaServerGroupRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group and server ids each user owns, so ownership checks do not load entity graphs. A user's
+ * ids are read with one projection query on first use and kept as sorted {@code long[]}s until a
+ * mutation invalidates them. A positive answer is authoritative; callers treat a negative one as
+ * "unknown" and fall back to the database, which also tells a missing entity from a foreign one.
+ */
+@Component
+@RequiredArgsConstructor
+public class OwnershipIndex {
+
+    private final JpaServerGroupRepository groupRepository;
+
+    private final Map<String, Ownership> byUsername = new ConcurrentHashMap<>();
+    private final AtomicLong loads = new AtomicLong();
+
+    public boolean ownsServer(String username, Long serverId) {
+        return serverId != null && ownership(username).ownsServer(serverId);
+    }
+
+    public boolean ownsGroup(String username, Long groupId) {
+        return groupId != null && ownership(username).ownsGroup(groupId);
+    }
+
+    /**
+     * Drops the user's ids once the current transaction commits, or right away outside one.
+     * Dropping them earlier would let a concurrent reader cache the state before the commit.
+     */
+    public void invalidate(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        byUsername.remove(username);
+                    }
+                });
+        } else {
+            byUsername.remove(username);
+        }
+    }
+
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    /**
+     * Loads inside {@code computeIfAbsent}, so an invalidation that arrives during the load waits
+     * for it and then removes the possibly stale result.
+     */
+    private Ownership ownership(String username) {
+        return byUsername.computeIfAbsent(username, this::load);
+    }
+
+    private Ownership load(String username) {
+        loads.incrementAndGet();
+        List<Object[]> rows = groupRepository.findOwnedIdsByOwnerUsername(username);
+        long[] groupIds = rows.stream()
+            .mapToLong(row -> (Long) row[0])
+            .sorted()
+            .distinct()
+            .toArray();
+        long[] serverIds = rows.stream()
+            .filter(row -> row[1] != null)
+            .mapToLong(row -> (Long) row[1])
+            .sorted()
+            .distinct()
+            .toArray();
+        return new Ownership(groupIds, serverIds);
+    }
+
+    private record Ownership(long[] groupIds, long[] serverIds) {
+
+        boolean ownsGroup(long groupId) {
+            return Arrays.binarySearch(groupIds, groupId) >= 0;
+        }
+
+        boolean ownsServer(long serverId) {
+            return Arrays.binarySearch(serverIds, serverId) >= 0;
+        }
+    }
+}
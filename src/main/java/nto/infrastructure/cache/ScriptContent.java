@@ -0,0 +1,14 @@
+package nto.infrastructure.cache;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * What an executor needs of a script, detached from the entity and its owner.
+ */
+public record ScriptContent(Long id, String name, String content, long bytes) {
+
+    public ScriptContent(Long id, String name, String content) {
+        this(id, name, content,
+            content == null ? 0 : content.getBytes(StandardCharsets.UTF_8).length);
+    }
+}
@@ -0,0 +1,92 @@
+package nto.infrastructure.cache;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import nto.application.dto.ScriptCacheStatsDto;
+import nto.core.utils.ErrorMessages;
+import nto.infrastructure.repositories.JpaScriptRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of script content for executors. Tasks are loaded without their script
+ * row, so a group run of a thousand tasks reads the content once instead of once per task.
+ * Scripts cannot be edited, so the id identifies the content; entries are dropped when the
+ * script is deleted. Holds at most {@code nto.cache.scriptContent.maxEntries} scripts.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScriptContentCache {
+
+    private final JpaScriptRepository scriptRepository;
+
+    @Value("${nto.cache.scriptContent.maxEntries:1000}")
+    private int maxEntries;
+
+    private final Map<Long, ScriptContent> byId = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesFromCache = new AtomicLong();
+    private final AtomicLong bytesFromDatabase = new AtomicLong();
+
+    public ScriptContent get(Long scriptId) {
+        ScriptContent cached = byId.get(scriptId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            bytesFromCache.addAndGet(cached.bytes());
+            return cached;
+        }
+        ScriptContent loaded = byId.computeIfAbsent(scriptId, this::load);
+        trimToSize();
+        return loaded;
+    }
+
+    /**
+     * Drops the script once the current transaction commits, or right away outside one.
+     */
+    public void evict(Long scriptId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        byId.remove(scriptId);
+                    }
+                });
+        } else {
+            byId.remove(scriptId);
+        }
+    }
+
+    public ScriptCacheStatsDto getStats() {
+        return new ScriptCacheStatsDto(byId.size(), hits.get(), misses.get(),
+            bytesFromCache.get(), bytesFromDatabase.get());
+    }
+
+    private ScriptContent load(Long scriptId) {
+        ScriptContent loaded = scriptRepository.findContentById(scriptId)
+            .orElseThrow(() -> new EntityNotFoundException(
+                ErrorMessages.SCRIPT_NOT_FOUND.getMessage() + " with id: " + scriptId));
+        misses.incrementAndGet();
+        bytesFromDatabase.addAndGet(loaded.bytes());
+        return loaded;
+    }
+
+    private void trimToSize() {
+        if (maxEntries <= 0) {
+            return;
+        }
+        Iterator<Long> ids = byId.keySet().iterator();
+        while (byId.size() > maxEntries && ids.hasNext()) {
+            ids.next();
+            ids.remove();
+        }
+    }
+}
@@ -1,39 +1,217 @@
 package nto.infrastructure.cache;
 
+import nto.application.dto.TaskCacheStatsDto;
 import nto.core.entities.TaskEntity;
 import nto.core.utils.TaskCacheKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Latest known state of tasks as {@link TaskStatusSnapshot}s, by task id and by
+ * (server, script) pair. Tasks that are still pending or running always stay cached, since
+ * the executor finishes them from here; their number is bounded by admission control. Final
+ * snapshots are kept for {@code nto.cache.taskStatus.ttlSeconds} and at most
+ * {@code nto.cache.taskStatus.maxEntries} of them, oldest dropped first. Output is cut to
+ * {@code nto.cache.taskStatus.previewChars}; callers that need the full text go to the
+ * database.
+ */
 @Component
 public class TaskStatusCache {
-    private final Map<TaskCacheKey, TaskEntity> cache = new ConcurrentHashMap<>();
-    private final Map<Long, TaskEntity> tasksCache = new ConcurrentHashMap<>();
+
+    @Value("${nto.cache.taskStatus.maxEntries:10000}")
+    private int maxEntries;
+
+    @Value("${nto.cache.taskStatus.ttlSeconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${nto.cache.taskStatus.previewChars:4096}")
+    private int previewChars;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<TaskCacheKey, Long> latestByPair = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> taskIdsByServer = new ConcurrentHashMap<>();
+    private final Queue<Entry> finishedOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger finishedCount = new AtomicInteger();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong sizeEvictions = new AtomicLong();
+    private final AtomicLong ttlEvictions = new AtomicLong();
 
     public void put(TaskEntity task) {
         if (task.getServer() != null && task.getScript() != null) {
-            TaskCacheKey key = new TaskCacheKey(task.getServer().getId(), task.getScript().getId());
-            cache.put(key, task);
-            tasksCache.put(task.getId(), task);
+            put(TaskStatusSnapshot.of(task));
         }
     }
 
-    public void evictAllByServerId(Long serverId) {
-        cache.keySet().removeIf(key -> key.serverId().equals(serverId));
+    public void put(TaskStatusSnapshot snapshot) {
+        TaskStatusSnapshot stored = snapshot.withOutputPreview(previewChars);
+        Entry current = entries.get(stored.id());
+        if (current != null && current.snapshot().equals(stored)) {
+            return;
+        }
+        Entry entry = new Entry(stored, System.nanoTime());
+        index(entry, entries.put(stored.id(), entry));
+    }
+
+    /**
+     * Caches a task read from the database unless its state is already cached. A row read
+     * before a newer transition was flushed must not replace the snapshot of that transition.
+     */
+    public void putIfAbsent(TaskEntity task) {
+        if (task.getServer() == null || task.getScript() == null) {
+            return;
+        }
+        TaskStatusSnapshot stored = TaskStatusSnapshot.of(task).withOutputPreview(previewChars);
+        Entry entry = new Entry(stored, System.nanoTime());
+        if (entries.putIfAbsent(stored.id(), entry) == null) {
+            index(entry, null);
+        }
     }
 
-    public TaskEntity get(Long serverId, Long scriptId) {
-        return cache.get(new TaskCacheKey(serverId, scriptId));
+    private void index(Entry entry, Entry previous) {
+        TaskStatusSnapshot stored = entry.snapshot();
+        boolean wasFinal = previous != null && previous.snapshot().isFinal();
+        if (stored.isFinal()) {
+            finishedOrder.offer(entry);
+            if (!wasFinal) {
+                finishedCount.incrementAndGet();
+            }
+        } else if (wasFinal) {
+            finishedCount.decrementAndGet();
+        }
+
+        if (stored.serverId() != null) {
+            taskIdsByServer.computeIfAbsent(stored.serverId(), id -> ConcurrentHashMap.newKeySet())
+                .add(stored.id());
+            if (stored.scriptId() != null) {
+                latestByPair.merge(new TaskCacheKey(stored.serverId(), stored.scriptId()),
+                    stored.id(), Math::max);
+            }
+        }
+        trimToSize();
     }
 
-    public TaskEntity get(Long taskId) {
-        return tasksCache.get(taskId);
+    public TaskStatusSnapshot get(Long serverId, Long scriptId) {
+        Long taskId = latestByPair.get(new TaskCacheKey(serverId, scriptId));
+        if (taskId == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        return get(taskId);
+    }
+
+    public TaskStatusSnapshot get(Long taskId) {
+        Entry entry = entries.get(taskId);
+        if (entry != null && entry.snapshot().isFinal() && isExpired(entry, System.nanoTime())) {
+            if (remove(entry)) {
+                ttlEvictions.incrementAndGet();
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.snapshot();
     }
 
     public void evict(Long serverId, Long scriptId) {
-        cache.remove(new TaskCacheKey(serverId, scriptId));
-        tasksCache.remove(scriptId);
+        Long taskId = latestByPair.remove(new TaskCacheKey(serverId, scriptId));
+        if (taskId != null) {
+            Entry entry = entries.get(taskId);
+            if (entry != null) {
+                remove(entry);
+            }
+        }
+    }
+
+    public void evictAllByServerId(Long serverId) {
+        Set<Long> taskIds = taskIdsByServer.remove(serverId);
+        if (taskIds == null) {
+            return;
+        }
+        for (Long taskId : taskIds) {
+            Entry entry = entries.get(taskId);
+            if (entry != null) {
+                remove(entry);
+            }
+        }
+    }
+
+    public TaskCacheStatsDto getStats() {
+        return new TaskCacheStatsDto(entries.size(), finishedCount.get(), maxEntries,
+            hits.get(), misses.get(), sizeEvictions.get(), ttlEvictions.get());
+    }
+
+    /**
+     * Drops expired final snapshots; they are also dropped lazily when read.
+     */
+    @Scheduled(fixedDelayString = "${nto.cache.taskStatus.sweepIntervalMs:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        Entry oldest;
+        while ((oldest = finishedOrder.peek()) != null && isExpired(oldest, now)) {
+            finishedOrder.poll();
+            if (remove(oldest)) {
+                ttlEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    private void trimToSize() {
+        if (maxEntries <= 0) {
+            return;
+        }
+        Entry oldest;
+        while (finishedCount.get() > maxEntries && (oldest = finishedOrder.poll()) != null) {
+            if (remove(oldest)) {
+                sizeEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes the entry if it is still the current one for its task; stale queue elements of
+     * a task that has been stored again are skipped.
+     */
+    private boolean remove(Entry entry) {
+        TaskStatusSnapshot snapshot = entry.snapshot();
+        if (!entries.remove(snapshot.id(), entry)) {
+            return false;
+        }
+        if (snapshot.isFinal()) {
+            finishedCount.decrementAndGet();
+        }
+        if (snapshot.serverId() != null) {
+            taskIdsByServer.computeIfPresent(snapshot.serverId(), (serverId, taskIds) -> {
+                taskIds.remove(snapshot.id());
+                return taskIds.isEmpty() ? null : taskIds;
+            });
+            if (snapshot.scriptId() != null) {
+                latestByPair.remove(new TaskCacheKey(snapshot.serverId(), snapshot.scriptId()),
+                    snapshot.id());
+            }
+        }
+        return true;
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return ttlSeconds > 0
+            && now - entry.storedNanos() > TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    private record Entry(TaskStatusSnapshot snapshot, long storedNanos) {
     }
-}
\ No newline at end of file
+}
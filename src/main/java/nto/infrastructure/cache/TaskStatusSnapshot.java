@@ -0,0 +1,82 @@
+package nto.infrastructure.cache;
+
+import nto.application.dto.TaskDto;
+import nto.core.entities.TaskEntity;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.services.output.CapturedOutput;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Immutable state of a task at one transition. Holds ids instead of the server, script and
+ * group entities, so it can outlive the persistence context that produced it.
+ * {@code outputTruncated} is set when {@code output} has been cut down to a preview.
+ */
+public record TaskStatusSnapshot(
+    Long id,
+    Long serverId,
+    Long scriptId,
+    Long sourceGroupId,
+    UUID groupRunId,
+    Integer timeoutSeconds,
+    TaskStatus status,
+    String output,
+    boolean outputTruncated,
+    String outputBlobRef,
+    Long outputSize,
+    LocalDateTime createdAt,
+    LocalDateTime startedAt,
+    LocalDateTime finishedAt
+) {
+
+    public static TaskStatusSnapshot of(TaskEntity task) {
+        return new TaskStatusSnapshot(
+            task.getId(),
+            task.getServer() != null ? task.getServer().getId() : null,
+            task.getScript() != null ? task.getScript().getId() : null,
+            task.getSourceGroup() != null ? task.getSourceGroup().getId() : null,
+            task.getGroupRunId(),
+            task.getTimeoutSeconds(),
+            task.getStatus(),
+            task.getOutput(),
+            false,
+            task.getOutputBlobRef(),
+            task.getOutputSize(),
+            task.getCreatedAt(),
+            task.getStartedAt(),
+            task.getFinishedAt()
+        );
+    }
+
+    public TaskStatusSnapshot finish(TaskStatus newStatus, LocalDateTime at,
+                                     CapturedOutput captured) {
+        return new TaskStatusSnapshot(id, serverId, scriptId, sourceGroupId, groupRunId,
+            timeoutSeconds, newStatus, captured.preview(), false, captured.blobRef(),
+            captured.totalBytes(), createdAt, startedAt, at);
+    }
+
+    public TaskStatusSnapshot cancel(LocalDateTime at, String reason) {
+        return new TaskStatusSnapshot(id, serverId, scriptId, sourceGroupId, groupRunId,
+            timeoutSeconds, TaskStatus.CANCELLED, reason, false, outputBlobRef, outputSize,
+            createdAt, startedAt, at);
+    }
+
+    public TaskStatusSnapshot withOutputPreview(int maxChars) {
+        if (output == null || maxChars <= 0 || output.length() <= maxChars) {
+            return this;
+        }
+        return new TaskStatusSnapshot(id, serverId, scriptId, sourceGroupId, groupRunId,
+            timeoutSeconds, status, output.substring(0, maxChars), true, outputBlobRef,
+            outputSize, createdAt, startedAt, finishedAt);
+    }
+
+    public boolean isFinal() {
+        return status != null && status.isFinal();
+    }
+
+    public TaskDto toDto() {
+        return new TaskDto(id, status, output, serverId, scriptId, sourceGroupId, startedAt,
+            finishedAt, timeoutSeconds, groupRunId);
+    }
+}
@@ -0,0 +1,69 @@
+package nto.infrastructure.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class BoundedVirtualThreadExecutor implements Executor, DisposableBean {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.delegate = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(() -> runWithPermit(command));
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        delegate.shutdown();
+        if (!delegate.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Virtual worker tasks still running after shutdown timeout, interrupting");
+            delegate.shutdownNow();
+        }
+    }
+
+    private void runWithPermit(Runnable command) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Virtual worker interrupted while waiting for a concurrency permit");
+            return;
+        }
+        try {
+            command.run();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package nto.infrastructure.config;
 
+import nto.infrastructure.concurrency.BoundedVirtualThreadExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -11,14 +13,40 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig {
 
+    public static final String THREADS_VIRTUAL = "virtual";
+    public static final String THREADS_PLATFORM = "platform";
+
+    // virtual | platform
+    @Value("${nto.executor.threads:platform}")
+    private String threadsMode;
+
+    @Value("${nto.executor.virtual.maxConcurrency:1000}")
+    private int virtualMaxConcurrency;
+
+    @Value("${nto.executor.platform.corePoolSize:50}")
+    private int platformCorePoolSize;
+
+    @Value("${nto.executor.platform.maxPoolSize:100}")
+    private int platformMaxPoolSize;
+
+    @Value("${nto.executor.platform.queueCapacity:1000}")
+    private int platformQueueCapacity;
+
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
+        if (THREADS_VIRTUAL.equalsIgnoreCase(threadsMode)) {
+            return new BoundedVirtualThreadExecutor("NtoVirtualWorker-", virtualMaxConcurrency);
+        }
+        if (!THREADS_PLATFORM.equalsIgnoreCase(threadsMode)) {
+            throw new IllegalStateException("Unknown nto.executor.threads mode: " + threadsMode);
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(50);
-        executor.setMaxPoolSize(100);
-        executor.setQueueCapacity(1000);
+        executor.setCorePoolSize(platformCorePoolSize);
+        executor.setMaxPoolSize(platformMaxPoolSize);
+        executor.setQueueCapacity(platformQueueCapacity);
         executor.setThreadNamePrefix("NtoWorker-");
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+}
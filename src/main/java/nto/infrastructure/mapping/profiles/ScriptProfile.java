@@ -28,7 +28,8 @@ public class ScriptProfile implements MapperProfile<ScriptEntity, ScriptDto> {
             entity.getContent(),
 
             entity.getOwner() != null ? entity.getOwner().getUsername() : null,
-            entity.getIsPublic()
+            entity.getIsPublic(),
+            entity.getTimeoutSeconds()
         );
     }
 
@@ -40,6 +41,7 @@ public class ScriptProfile implements MapperProfile<ScriptEntity, ScriptDto> {
             .name(dto.name())
             .content(dto.content())
             .isPublic(dto.isPublic() != null && dto.isPublic())
+            .timeoutSeconds(dto.timeoutSeconds())
             .build();
     }
 
@@ -50,6 +52,7 @@ public class ScriptProfile implements MapperProfile<ScriptEntity, ScriptDto> {
         if (dto.isPublic() != null) {
             entity.setIsPublic(dto.isPublic());
         }
+        entity.setTimeoutSeconds(dto.timeoutSeconds());
 
     }
 }
\ No newline at end of file
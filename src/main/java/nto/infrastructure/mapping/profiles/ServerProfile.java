@@ -29,7 +29,9 @@ public class ServerProfile implements MapperProfile<ServerEntity, ServerDto> {
             entity.getIpAddress(),
             entity.getPort(),
             sshUsername,
-            entity.getPassword()
+            entity.getPassword(),
+            entity.getMaxChannels(),
+            entity.getCompression()
         );
     }
 
@@ -40,6 +42,8 @@ public class ServerProfile implements MapperProfile<ServerEntity, ServerDto> {
             .ipAddress(dto.ipAddress())
             .port(dto.port())
             .password(dto.password())
+            .maxChannels(dto.maxChannels())
+            .compression(dto.compression())
             .build();
     }
 
@@ -57,5 +61,11 @@ public class ServerProfile implements MapperProfile<ServerEntity, ServerDto> {
         if (dto.password() != null) {
             entity.setPassword(dto.password());
         }
+        if (dto.maxChannels() != null) {
+            entity.setMaxChannels(dto.maxChannels());
+        }
+        if (dto.compression() != null) {
+            entity.setCompression(dto.compression());
+        }
     }
 }
@@ -38,7 +38,9 @@ public class TaskProfile implements MapperProfile<TaskEntity, TaskDto> {
 
             entity.getSourceGroup() != null ? entity.getSourceGroup().getId() : null,
             entity.getStartedAt(),
-            entity.getFinishedAt()
+            entity.getFinishedAt(),
+            entity.getTimeoutSeconds(),
+            entity.getGroupRunId()
         );
     }
 
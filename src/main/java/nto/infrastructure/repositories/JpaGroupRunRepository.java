@@ -0,0 +1,14 @@
+package nto.infrastructure.repositories;
+
+import nto.core.entities.GroupRunEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface JpaGroupRunRepository extends JpaRepository<GroupRunEntity, UUID> {
+
+    Optional<GroupRunEntity> findFirstByGroupIdOrderByStartedAtDesc(Long groupId);
+}
@@ -2,6 +2,7 @@ package nto.infrastructure.repositories;
 
 import nto.application.interfaces.repositories.ScriptRepository;
 import nto.core.entities.ScriptEntity;
+import nto.infrastructure.cache.ScriptContent;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -21,4 +22,8 @@ public interface JpaScriptRepository extends JpaRepository<ScriptEntity, Long>,
 
     @Query("SELECT s FROM ScriptEntity s JOIN FETCH s.owner WHERE s.isPublic = true OR s.owner.username = :username")
     List<ScriptEntity> findAllAvailableForUser(@Param("username") String username);
+
+    @Query("SELECT new nto.infrastructure.cache.ScriptContent(s.id, s.name, s.content) " +
+        "FROM ScriptEntity s WHERE s.id = :id")
+    Optional<ScriptContent> findContentById(@Param("id") Long id);
 }
\ No newline at end of file
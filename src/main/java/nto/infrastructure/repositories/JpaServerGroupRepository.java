@@ -4,6 +4,8 @@ import nto.application.interfaces.repositories.ServerGroupRepository;
 import nto.core.entities.ServerGroupEntity;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,4 +24,8 @@ public interface JpaServerGroupRepository extends JpaRepository<ServerGroupEntit
 
     @EntityGraph(attributePaths = {"servers", "servers.sshUsername", "owner"})
     Optional<ServerGroupEntity> findByOwnerUsernameAndName(String username, String name);
+
+    @Query("SELECT g.id, s.id FROM ServerGroupEntity g LEFT JOIN g.servers s " +
+        "WHERE g.owner.username = :username")
+    List<Object[]> findOwnedIdsByOwnerUsername(@Param("username") String username);
 }
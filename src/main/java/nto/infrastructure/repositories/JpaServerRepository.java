@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,12 +24,24 @@ public interface JpaServerRepository extends JpaRepository<ServerEntity, Long>,
     @EntityGraph(attributePaths = {"groups", "sshUsername"})
     List<ServerEntity> findAll();
 
+    @Query("SELECT s FROM ServerEntity s")
+    List<ServerEntity> findAllWithoutAssociations();
+
     @Override
     @EntityGraph(attributePaths = {"groups", "groups.owner", "sshUsername"})
     Optional<ServerEntity> findById(Long id);
 
+    @Override
+    ServerEntity getReferenceById(Long id);
+
     @Override
     @EntityGraph(attributePaths = {"groups", "sshUsername"})
     @Query("SELECT DISTINCT s FROM ServerEntity s JOIN s.groups g WHERE g.owner.username = :username")
     List<ServerEntity> findAllByOwnerUsername(@Param("username") String username);
+
+    @Override
+    @Query("SELECT DISTINCT s FROM ServerEntity s JOIN s.groups g " +
+        "WHERE s.id IN :ids AND g.owner.username = :username")
+    List<ServerEntity> findAllByIdInAndOwnerUsername(@Param("ids") Collection<Long> ids,
+                                                     @Param("username") String username);
 }
@@ -5,18 +5,24 @@ import nto.core.entities.TaskEntity;
 import nto.core.enums.TaskStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Collection;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface JpaTaskRepository extends JpaRepository<TaskEntity, Long>, TaskRepository {
 
+    @EntityGraph(attributePaths = {"server", "server.sshUsername"})
+    Optional<TaskEntity> findWithExecutionContextById(Long id);
+
     Optional<TaskEntity> findFirstByServerIdAndScriptIdOrderByCreatedAtDesc(Long serverId,
                                                                             Long scriptId);
 
@@ -24,11 +30,17 @@ public interface JpaTaskRepository extends JpaRepository<TaskEntity, Long>, Task
         "WHERE g.owner.username = :username")
     List<TaskEntity> findAllByServerGroupOwnerUsername(@Param("username") String username);
 
-    @Query("SELECT t FROM TaskEntity t WHERE t.sourceGroup.id = :groupId " +
-        "AND t.createdAt = (SELECT MAX(t2.createdAt) FROM TaskEntity t2 WHERE t2.sourceGroup.id = :groupId)")
-    List<TaskEntity> findLatestTasksByGroupId(@Param("groupId") Long groupId);
+    List<TaskEntity> findAllByGroupRunId(UUID groupRunId);
+
+    List<TaskEntity> findAllBySourceGroupIdAndGroupRunId(Long groupId, UUID groupRunId);
+
+    @Query("SELECT DISTINCT t.server.id FROM TaskEntity t WHERE t.createdAt >= :since")
+    List<Long> findServerIdsWithTasksSince(@Param("since") LocalDateTime since);
 
-    boolean existsByServerIdAndStatusIn(Long serverId, Collection<TaskStatus> statuses);
+    @Modifying
+    @Query("UPDATE TaskEntity t SET t.output = :output WHERE t.id = :id AND t.status = :status")
+    int updateOutputIfStatus(@Param("id") Long id, @Param("output") String output,
+                             @Param("status") TaskStatus status);
 
     @Query("SELECT DISTINCT t FROM TaskEntity t " +
         "JOIN t.server s JOIN s.groups g " +
@@ -29,31 +29,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-
-        try {
-            if (!jwtUtils.isAccessToken(jwt)) {
-                filterChain.doFilter(request, response);
-                return;
-            }
-            if (!jwtUtils.isTokenValid(jwt)) {
-                filterChain.doFilter(request, response);
-                return;
-            }
-            username = jwtUtils.extractUsername(jwt);
-        } catch (Exception e) {
-
-            filterChain.doFilter(request, response);
-            return;
-        }
+        final String username = jwtUtils.resolveAccessTokenSubject(authHeader.substring(7));
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
@@ -2,22 +2,34 @@ package nto.infrastructure.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 @Component
 public class JwtUtils {
+    private static final String ACCESS_TYPE = "access";
+
     @Value("${nto.app.jwtSecret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
     private String jwtSecret;
 
@@ -27,6 +39,65 @@ public class JwtUtils {
     @Value("${nto.app.jwtIssuer:nto}")
     private String jwtIssuer;
 
+    @Value("${nto.app.jwtVerifiedCacheMaxEntries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    private Key signingKey;
+    private JwtParser parser;
+
+    private final Map<String, VerifiedToken> verifiedByDigest = new ConcurrentHashMap<>();
+    private final AtomicLong verifiedCacheHits = new AtomicLong();
+    private final AtomicLong verifiedCacheMisses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
+    }
+
+    /**
+     * Returns the subject of a valid, unexpired access token, or {@code null} for anything else.
+     * The token is verified once; afterwards its subject is served from memory, keyed by a SHA-256
+     * digest of the token, until the token's own expiry. Tokens are never revoked before expiry,
+     * so a cached answer is always the one a fresh parse would give.
+     */
+    public String resolveAccessTokenSubject(String token) {
+        long now = System.currentTimeMillis();
+        String digest = digest(token);
+        VerifiedToken cached = verifiedByDigest.get(digest);
+        if (cached != null) {
+            if (now < cached.expiresAtMillis()) {
+                verifiedCacheHits.incrementAndGet();
+                return cached.subject();
+            }
+            verifiedByDigest.remove(digest, cached);
+        }
+        verifiedCacheMisses.incrementAndGet();
+        Claims claims;
+        try {
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (!ACCESS_TYPE.equals(claims.get("typ", String.class)) || claims.getExpiration() == null) {
+            return null;
+        }
+        verifiedByDigest.put(digest, new VerifiedToken(claims.getSubject(),
+            claims.getExpiration().getTime()));
+        trimVerifiedCache(now);
+        return claims.getSubject();
+    }
+
+    public long getVerifiedCacheHits() {
+        return verifiedCacheHits.get();
+    }
+
+    public long getVerifiedCacheMisses() {
+        return verifiedCacheMisses.get();
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -46,7 +117,7 @@ public class JwtUtils {
 
     public String generateAccessToken(String username) {
         Map<String, Object> extraClaims = new HashMap<>();
-        extraClaims.put("typ", "access");
+        extraClaims.put("typ", ACCESS_TYPE);
 
         long now = System.currentTimeMillis();
 
@@ -57,7 +128,7 @@ public class JwtUtils {
             .setIssuedAt(new Date(now))
             .setExpiration(new Date(now + jwtAccessExpirationMs))
             .setIssuer(jwtIssuer)
-            .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+            .signWith(signingKey, SignatureAlgorithm.HS256)
             .compact();
     }
 
@@ -72,7 +143,7 @@ public class JwtUtils {
 
     public boolean isAccessToken(String token) {
         String type = extractClaim(token, claims -> claims.get("typ", String.class));
-        return "access".equals(type);
+        return ACCESS_TYPE.equals(type);
     }
 
     public long getAccessTokenTtlSeconds() {
@@ -80,15 +151,35 @@ public class JwtUtils {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-            .setSigningKey(getSignInKey())
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Drops expired entries first; if the cache is still over its bound, drops arbitrary ones.
+     * Evicting a live token only costs one more parse on its next request.
+     */
+    private void trimVerifiedCache(long now) {
+        if (verifiedCacheMaxEntries <= 0 || verifiedByDigest.size() <= verifiedCacheMaxEntries) {
+            return;
+        }
+        verifiedByDigest.values().removeIf(verified -> now >= verified.expiresAtMillis());
+        Iterator<String> digests = verifiedByDigest.keySet().iterator();
+        while (verifiedByDigest.size() > verifiedCacheMaxEntries && digests.hasNext()) {
+            digests.next();
+            digests.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private record VerifiedToken(String subject, long expiresAtMillis) {
     }
 }
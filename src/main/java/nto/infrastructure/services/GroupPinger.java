@@ -0,0 +1,134 @@
+package nto.infrastructure.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nto.application.dto.ServerPingStatusDto;
+import nto.application.interfaces.services.ScriptExecutor;
+import nto.core.enums.PingStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pings many servers at once. At most {@code nto.ping.concurrency} pings are in flight; each
+ * lane picks the next server as soon as its previous ping settles. A server that has not
+ * answered {@code nto.ping.deadlineMs} after the fan-out started is reported as
+ * {@link PingStatus#UNKNOWN}; servers still queued by then are not pinged at all.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GroupPinger {
+
+    static final String EVENT_PING = "ping";
+    static final String EVENT_END = "end";
+
+    private final ScriptExecutor scriptExecutor;
+
+    @Value("${nto.ping.concurrency:64}")
+    private int concurrency;
+
+    @Value("${nto.ping.deadlineMs:5000}")
+    private long deadlineMs;
+
+    /**
+     * Starts pinging; every future completes normally, with UNKNOWN at the latest at the
+     * deadline.
+     */
+    public Map<Long, CompletableFuture<PingStatus>> start(Collection<Long> serverIds) {
+        Map<Long, CompletableFuture<PingStatus>> results = new LinkedHashMap<>();
+        for (Long serverId : serverIds) {
+            CompletableFuture<PingStatus> result = new CompletableFuture<>();
+            if (deadlineMs > 0) {
+                result.completeOnTimeout(PingStatus.UNKNOWN, deadlineMs, TimeUnit.MILLISECONDS);
+            }
+            results.put(serverId, result);
+        }
+
+        Queue<Long> queue = new ConcurrentLinkedQueue<>(results.keySet());
+        int lanes = concurrency > 0 ? Math.min(concurrency, results.size()) : results.size();
+        for (int i = 0; i < lanes; i++) {
+            runLane(queue, results);
+        }
+        return results;
+    }
+
+    public Map<Long, PingStatus> pingAll(Collection<Long> serverIds) {
+        Map<Long, CompletableFuture<PingStatus>> pings = start(serverIds);
+        Map<Long, PingStatus> results = new LinkedHashMap<>();
+        pings.forEach((serverId, ping) -> results.put(serverId, ping.join()));
+        return results;
+    }
+
+    /**
+     * Sends a {@code ping} event per server as its result comes in, then {@code end}.
+     */
+    public SseEmitter stream(Collection<Long> serverIds) {
+        SseEmitter emitter = new SseEmitter(deadlineMs > 0 ? deadlineMs + 1_000 : 0L);
+        Map<Long, CompletableFuture<PingStatus>> pings = start(serverIds);
+        CompletableFuture<?>[] sent = pings.entrySet().stream()
+            .map(ping -> ping.getValue().thenAccept(status ->
+                send(emitter, EVENT_PING, new ServerPingStatusDto(ping.getKey(), status))))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(sent).whenComplete((done, error) -> {
+            send(emitter, EVENT_END, pings.size());
+            emitter.complete();
+        });
+        return emitter;
+    }
+
+    /**
+     * Pings queued servers one after another. A ping that settles synchronously is followed
+     * in the same loop; an asynchronous one continues the lane from its completion.
+     */
+    private void runLane(Queue<Long> queue, Map<Long, CompletableFuture<PingStatus>> results) {
+        Long serverId;
+        while ((serverId = queue.poll()) != null) {
+            CompletableFuture<PingStatus> result = results.get(serverId);
+            if (result.isDone()) {
+                continue;
+            }
+            CompletableFuture<Boolean> ping = ping(serverId);
+            if (!ping.isDone()) {
+                ping.whenComplete((alive, error) -> {
+                    result.complete(status(alive, error));
+                    runLane(queue, results);
+                });
+                return;
+            }
+            ping.whenComplete((alive, error) -> result.complete(status(alive, error)));
+        }
+    }
+
+    private CompletableFuture<Boolean> ping(Long serverId) {
+        try {
+            return scriptExecutor.pingAsync(serverId);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static PingStatus status(Boolean alive, Throwable error) {
+        if (error != null) {
+            log.warn("Ping failed: {}", error.getMessage());
+        }
+        return error == null && Boolean.TRUE.equals(alive) ? PingStatus.UP : PingStatus.DOWN;
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Ping stream closed by client: {}", e.getMessage());
+        }
+    }
+}
@@ -1,23 +1,28 @@
 package nto.infrastructure.services;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityNotFoundException;
-import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nto.application.dto.HostLivenessDto;
+import nto.application.dto.PrewarmStatsDto;
+import nto.application.dto.SessionHealthDto;
+import nto.application.dto.SessionPoolStatsDto;
 import nto.application.interfaces.repositories.ServerRepository;
 import nto.application.interfaces.services.ScriptExecutor;
 import nto.core.entities.TaskEntity;
 import nto.core.enums.TaskStatus;
-import nto.infrastructure.cache.TaskStatusCache;
-import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.cache.ScriptContentCache;
+import nto.infrastructure.services.output.TaskOutputRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.LockSupport;
@@ -33,16 +38,18 @@ public class MockScriptExecutor implements ScriptExecutor {
     @Value("${nto.mock.executionDelayMs:2000}")
     private long executionDelayMs;
 
-    private final JpaTaskRepository taskRepository;
-    private final TaskStatusCache statusCache;
+    private final TaskStateService taskStateService;
     private final ServerRepository serverRepository;
-    @PersistenceContext
-    private final EntityManager entityManager;
+    private final TaskOutputRegistry outputRegistry;
+    private final ScriptContentCache scriptContentCache;
 
 
     private final AtomicLong atomicCounter = new AtomicLong(0);
     private long unsafeCounter = 0;
 
+    private final Map<Long, Thread> runningTasks = new ConcurrentHashMap<>();
+    private final Set<Long> cancelledTasks = ConcurrentHashMap.newKeySet();
+
     @Override
     public boolean ping(Long serverId) {
         log.info("[Mock] Pinging server {}", serverId);
@@ -53,40 +60,102 @@ public class MockScriptExecutor implements ScriptExecutor {
         return true;
     }
 
+    @Override
+    public CompletableFuture<Boolean> pingAsync(Long serverId) {
+        return CompletableFuture.completedFuture(ping(serverId));
+    }
+
+    @Override
+    public Map<Long, CompletableFuture<Void>> prewarm(Collection<Long> serverIds) {
+        return Map.of();
+    }
+
+    @Override
+    public PrewarmStatsDto getPrewarmStats() {
+        return new PrewarmStatsDto(0, 0, 0, 0, 0, Map.of());
+    }
+
+    @Override
+    public SessionPoolStatsDto getSessionPoolStats() {
+        return new SessionPoolStatsDto(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    @Override
+    public Collection<SessionHealthDto> getSessionHealth() {
+        return List.of();
+    }
+
+    @Override
+    public Collection<HostLivenessDto> getHostLiveness() {
+        return List.of();
+    }
+
     @Override
     @Async("taskExecutor")
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void executeAsync(Long taskId) {
+    public CompletableFuture<TaskStatus> executeAsync(Long taskId) {
         log.info("Starting execution for Task ID: {}", taskId);
-        incrementCounters();
-        TaskEntity task = taskRepository.findById(taskId)
-            .orElseThrow(() -> new EntityNotFoundException("Task not found async: " + taskId));
+        runningTasks.put(taskId, Thread.currentThread());
+        try {
+            incrementCounters();
+            TaskEntity task = taskStateService.markRunning(taskId, "Initializing connection...");
+            if (task.getStatus() != null && task.getStatus().isFinal()) {
+                return CompletableFuture.completedFuture(task.getStatus());
+            }
+            outputRegistry.open(taskId);
+            return CompletableFuture.completedFuture(simulate(task));
+        } finally {
+            runningTasks.remove(taskId);
+            if (cancelledTasks.remove(taskId)) {
+                Thread.interrupted();
+            }
+        }
+    }
 
-        task.setStartedAt(java.time.LocalDateTime.now());
-        updateStatus(task, TaskStatus.RUNNING, "Initializing connection...");
-        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(executionDelayMs));
+    @Override
+    public boolean cancel(Long taskId) {
+        // atomic with the removal in executeAsync, so a finished task's thread is never hit
+        return runningTasks.computeIfPresent(taskId, (id, worker) -> {
+            cancelledTasks.add(id);
+            worker.interrupt();
+            return worker;
+        }) != null;
+    }
 
+    private TaskStatus simulate(TaskEntity task) {
+        Long taskId = task.getId();
+        TaskStatus status = TaskStatus.FAILED;
         try {
-            String fakeOutput = "Connected to " + task.getServer().getHostname() + "\n" +
-                "Executing: " + task.getScript().getName() + "\n" +
-                "Done. Exit code 0.";
-
-            task.setFinishedAt(java.time.LocalDateTime.now());
-            updateStatus(task, TaskStatus.SUCCESS, fakeOutput);
+            String connected = "Connected to " + task.getServer().getHostname() + "\n";
+            outputRegistry.append(taskId, TaskOutputRegistry.STDOUT, connected);
+
+            long timeoutMs = task.getTimeoutSeconds() != null
+                ? TimeUnit.SECONDS.toMillis(task.getTimeoutSeconds())
+                : Long.MAX_VALUE;
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(
+                Math.min(executionDelayMs, timeoutMs)));
+
+            if (cancelledTasks.contains(taskId)) {
+                taskStateService.markFinished(taskId, TaskStatus.CANCELLED, connected + "Cancelled");
+                status = TaskStatus.CANCELLED;
+            } else if (executionDelayMs > timeoutMs) {
+                taskStateService.markFinished(taskId, TaskStatus.FAILED, connected +
+                    "Execution timed out after " + task.getTimeoutSeconds() + " s");
+            } else {
+                String result = "Executing: "
+                    + scriptContentCache.get(task.getScript().getId()).name() + "\n" +
+                    "Done. Exit code 0.";
+                outputRegistry.append(taskId, TaskOutputRegistry.STDOUT, result);
+
+                taskStateService.markFinished(taskId, TaskStatus.SUCCESS, connected + result);
+                status = TaskStatus.SUCCESS;
+            }
         } catch (Exception e) {
             log.error("Task failed", e);
-            task.setFinishedAt(java.time.LocalDateTime.now());
-            updateStatus(task, TaskStatus.FAILED, "Error: " + e.getMessage());
+            taskStateService.markFinished(taskId, TaskStatus.FAILED, "Error: " + e.getMessage());
+        } finally {
+            outputRegistry.complete(taskId, status);
         }
-    }
-
-    private void updateStatus(TaskEntity task, TaskStatus status, String output) {
-        entityManager.merge(task);
-        task.setStatus(status);
-        task.setOutput(output);
-        TaskEntity saved = taskRepository.save(task);
-        statusCache.put(saved);
-        log.info("Task {} -> {}", task.getId(), status);
+        return status;
     }
 
     private void incrementUnsafe(){
@@ -2,12 +2,14 @@ package nto.infrastructure.services;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import nto.application.dto.ScriptCacheStatsDto;
 import nto.application.dto.ScriptDto;
 import nto.application.interfaces.services.MappingService;
 import nto.application.interfaces.services.ScriptService;
 import nto.core.entities.ScriptEntity;
 import nto.core.entities.UserEntity;
 import nto.core.utils.ErrorMessages;
+import nto.infrastructure.cache.ScriptContentCache;
 import nto.infrastructure.repositories.JpaScriptRepository;
 import nto.infrastructure.repositories.JpaUserRepository;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,6 +24,7 @@ public class ScriptServiceImpl implements ScriptService {
     private final JpaUserRepository userRepository;
     private final JpaScriptRepository scriptRepository;
     private final MappingService mappingService;
+    private final ScriptContentCache contentCache;
 
     @Transactional
     public ScriptDto createScript(ScriptDto dto) {
@@ -66,5 +69,11 @@ public class ScriptServiceImpl implements ScriptService {
                 ErrorMessages.SCRIPT_NOT_FOUND.getMessage() + " with id: " + id);
         }
         scriptRepository.deleteById(id);
+        contentCache.evict(id);
+    }
+
+    @Override
+    public ScriptCacheStatsDto getContentCacheStats() {
+        return contentCache.getStats();
     }
 }
@@ -3,36 +3,49 @@ package nto.infrastructure.services;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import nto.application.dto.BulkCreateServersGroupRequestDto;
+import nto.application.dto.GroupRunDto;
 import nto.application.dto.ServerGroupDto;
 import nto.application.dto.ServerDto;
 import nto.application.dto.TaskDto;
+import nto.application.dto.WavePolicyDto;
 import nto.application.interfaces.services.MappingService;
 import nto.application.interfaces.services.ScriptExecutor;
 import nto.application.interfaces.services.ServerGroupService;
 import nto.application.interfaces.services.ServerService;
+import nto.core.entities.GroupRunEntity;
 import nto.core.entities.ScriptEntity;
 import nto.core.entities.ServerEntity;
 import nto.core.entities.ServerGroupEntity;
 import nto.core.entities.TaskEntity;
 import nto.core.entities.UserEntity;
+import nto.core.enums.PingStatus;
 import nto.core.enums.TaskStatus;
 import nto.core.utils.ErrorMessages;
 import nto.core.utils.ServerGroupDefaults;
 import nto.core.utils.exceptions.ResourceConflictException;
+import nto.infrastructure.cache.OwnershipIndex;
 import nto.infrastructure.cache.TaskStatusCache;
+import nto.infrastructure.cache.TaskStatusSnapshot;
+import nto.infrastructure.repositories.JpaGroupRunRepository;
 import nto.infrastructure.repositories.JpaScriptRepository;
 import nto.infrastructure.repositories.JpaServerGroupRepository;
 import nto.infrastructure.repositories.JpaServerRepository;
 import nto.infrastructure.repositories.JpaTaskRepository;
 import nto.infrastructure.repositories.JpaUserRepository;
+import nto.infrastructure.services.dispatch.GroupRunCoordinator;
+import nto.infrastructure.services.dispatch.GroupRunCoordinator.WavePlan;
+import nto.infrastructure.services.dispatch.ServerTaskDispatcher;
+import nto.infrastructure.services.dispatch.TaskAdmissionController;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -44,11 +57,17 @@ public class ServerGroupServiceImpl implements ServerGroupService {
     private final JpaUserRepository userRepository;
     private final JpaScriptRepository scriptRepository;
     private final JpaTaskRepository taskRepository;
+    private final JpaGroupRunRepository groupRunRepository;
 
     private final MappingService mappingService;
     private final ScriptExecutor scriptExecutor;
     private final ServerService serverService;
     private final TaskStatusCache statusCache;
+    private final ServerTaskDispatcher taskDispatcher;
+    private final TaskAdmissionController admissionController;
+    private final GroupRunCoordinator runCoordinator;
+    private final GroupPinger groupPinger;
+    private final OwnershipIndex ownershipIndex;
 
     @Override
     @Transactional
@@ -61,7 +80,9 @@ public class ServerGroupServiceImpl implements ServerGroupService {
         ServerGroupEntity entity = mappingService.mapToEntity(dto, ServerGroupEntity.class);
         entity.setOwner(user);
 
-        return mappingService.mapToDto(groupRepository.save(entity), ServerGroupDto.class);
+        ServerGroupEntity saved = groupRepository.save(entity);
+        ownershipIndex.invalidate(username);
+        return mappingService.mapToDto(saved, ServerGroupDto.class);
     }
 
     @Override
@@ -91,6 +112,7 @@ public class ServerGroupServiceImpl implements ServerGroupService {
             group.getServers().add(server);
             serverRepository.save(server);
         }
+        ownershipIndex.invalidate(username);
 
         return mappingService.mapToDto(getGroupIfOwned(group.getId()), ServerGroupDto.class);
     }
@@ -121,6 +143,7 @@ public class ServerGroupServiceImpl implements ServerGroupService {
 
 
         groupRepository.delete(group);
+        ownershipIndex.invalidate(group.getOwner().getUsername());
     }
 
     @Override
@@ -134,6 +157,7 @@ public class ServerGroupServiceImpl implements ServerGroupService {
         group.getServers().add(server);
 
         serverRepository.save(server);
+        ownershipIndex.invalidate(group.getOwner().getUsername());
     }
 
     @Override
@@ -149,24 +173,27 @@ public class ServerGroupServiceImpl implements ServerGroupService {
         group.getServers().remove(server);
 
         serverRepository.save(server);
+        ownershipIndex.invalidate(group.getOwner().getUsername());
     }
 
     @Override
-    public Map<Long, Boolean> pingGroup(Long groupId) {
-        ServerGroupEntity group = getGroupIfOwned(groupId);
-        Map<Long, Boolean> results = new HashMap<>();
+    public Map<Long, PingStatus> pingGroup(Long groupId) {
+        return groupPinger.pingAll(serverIds(getGroupIfOwned(groupId)));
+    }
 
+    @Override
+    public SseEmitter streamPingGroup(Long groupId) {
+        return groupPinger.stream(serverIds(getGroupIfOwned(groupId)));
+    }
 
-        for (ServerEntity server : group.getServers()) {
-            boolean alive = scriptExecutor.ping(server.getId());
-            results.put(server.getId(), alive);
-        }
-        return results;
+    private static List<Long> serverIds(ServerGroupEntity group) {
+        return group.getServers().stream().map(ServerEntity::getId).toList();
     }
 
     @Override
     @Transactional
-    public List<TaskDto> executeScriptOnGroup(Long groupId, Long scriptId) {
+    public List<TaskDto> executeScriptOnGroup(Long groupId, Long scriptId,
+                                              WavePolicyDto policy) {
         String username = getCurrentUsername();
         ServerGroupEntity group = getGroupIfOwned(groupId);
 
@@ -181,13 +208,24 @@ public class ServerGroupServiceImpl implements ServerGroupService {
             throw new ResourceConflictException("Group is empty");
         }
 
+        WavePlan plan = runCoordinator.plan(policy, group.getServers().size());
 
+        admissionController.admit(group.getServers().size());
+        UUID runId = groupRunRepository.save(GroupRunEntity.builder()
+            .group(group)
+            .script(script)
+            .startedAt(LocalDateTime.now())
+            .totalTasks(group.getServers().size())
+            .pendingTasks(group.getServers().size())
+            .build()).getId();
         List<TaskEntity> tasks = group.getServers().stream()
             .map(server -> TaskEntity.builder()
                 .server(server)
                 .script(script)
                 .sourceGroup(group)
+                .groupRunId(runId)
                 .status(TaskStatus.PENDING)
+                .timeoutSeconds(script.getTimeoutSeconds())
                 .build())
             .collect(Collectors.toList());
 
@@ -196,19 +234,50 @@ public class ServerGroupServiceImpl implements ServerGroupService {
 
         taskRepository.saveAll(savedTasks);
 
-        savedTasks.forEach(task -> {
-            statusCache.put(task);
-            scriptExecutor.executeAsync(task.getId());
-        });
+        savedTasks.forEach(statusCache::put);
+        runCoordinator.start(runId, savedTasks, plan);
 
         return mappingService.mapListToDto(savedTasks, TaskDto.class);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<TaskDto> cancelGroupRun(Long groupId, UUID runId) {
+        ensureGroupOwned(groupId);
+
+        List<TaskEntity> tasks = taskRepository.findAllBySourceGroupIdAndGroupRunId(groupId, runId);
+        if (tasks.isEmpty()) {
+            throw new EntityNotFoundException("Group run not found: " + runId);
+        }
+        runCoordinator.cancelled(runId, tasks.stream().map(TaskEntity::getId).toList());
+
+        return tasks.stream()
+            .map(task -> {
+                if (!currentState(task).isFinal()) {
+                    taskDispatcher.cancel(task.getServer().getId(), task.getId());
+                }
+                TaskStatusSnapshot cached = statusCache.get(task.getId());
+                return cached != null ? cached.toDto() : mappingService.mapToDto(task, TaskDto.class);
+            })
+            .toList();
+    }
+
+
+    private TaskStatusSnapshot currentState(TaskEntity task) {
+        TaskStatusSnapshot cached = statusCache.get(task.getId());
+        return cached != null ? cached : TaskStatusSnapshot.of(task);
+    }
 
     private String getCurrentUsername() {
         return SecurityContextHolder.getContext().getAuthentication().getName();
     }
 
+    private void ensureGroupOwned(Long id) {
+        if (!ownershipIndex.ownsGroup(getCurrentUsername(), id)) {
+            getGroupIfOwned(id);
+        }
+    }
+
     private ServerGroupEntity getGroupIfOwned(Long id) {
         ServerGroupEntity group = groupRepository.findById(id)
             .orElseThrow(() -> new EntityNotFoundException("Group not found"));
@@ -218,11 +287,18 @@ public class ServerGroupServiceImpl implements ServerGroupService {
         return group;
     }
 
+    /**
+     * Trusts the ownership index and leaves the server unloaded until its groups are touched;
+     * the server and its groups' owners are read only when the index does not list it.
+     */
     private ServerEntity getServerIfOwned(Long id) {
+        String username = getCurrentUsername();
+        if (ownershipIndex.ownsServer(username, id)) {
+            return serverRepository.getReferenceById(id);
+        }
         ServerEntity server = serverRepository.findById(id)
             .orElseThrow(
                 () -> new EntityNotFoundException(ErrorMessages.SERVER_NOT_FOUND.getMessage()));
-        String username = getCurrentUsername();
         boolean owned = server.getGroups().stream()
             .anyMatch(group -> group.getOwner() != null
                 && username.equals(group.getOwner().getUsername()));
@@ -236,11 +312,24 @@ public class ServerGroupServiceImpl implements ServerGroupService {
     @Transactional(readOnly = true)
     public List<TaskDto> getLastGroupExecutionStatus(Long groupId) {
 
-        getGroupIfOwned(groupId);
-
+        ensureGroupOwned(groupId);
 
-        List<TaskEntity> tasks = taskRepository.findLatestTasksByGroupId(groupId);
+        List<TaskEntity> tasks = groupRunRepository.findFirstByGroupIdOrderByStartedAtDesc(groupId)
+            .map(run -> taskRepository.findAllByGroupRunId(run.getId()))
+            .orElse(List.of());
 
         return mappingService.mapListToDto(tasks, TaskDto.class);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public GroupRunDto getLastGroupRun(Long groupId) {
+        ensureGroupOwned(groupId);
+
+        GroupRunEntity run = groupRunRepository.findFirstByGroupIdOrderByStartedAtDesc(groupId)
+            .orElseThrow(() -> new EntityNotFoundException("Group has no runs: " + groupId));
+        return new GroupRunDto(run.getId(), groupId, run.getScript().getId(), run.getStartedAt(),
+            run.getFinishedAt(), run.getTotalTasks(), run.getPendingTasks(), run.getRunningTasks(),
+            run.getSuccessTasks(), run.getFailedTasks(), run.getCancelledTasks());
+    }
 }
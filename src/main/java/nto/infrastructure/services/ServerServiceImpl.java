@@ -3,6 +3,7 @@ package nto.infrastructure.services;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import nto.application.dto.ServerDto;
+import nto.application.dto.ServerQueueDto;
 import nto.application.interfaces.services.MappingService;
 import nto.application.interfaces.services.ScriptExecutor;
 import nto.application.interfaces.services.ServerService;
@@ -13,11 +14,13 @@ import nto.core.entities.UserEntity;
 import nto.core.utils.ErrorMessages;
 import nto.core.utils.ServerGroupDefaults;
 import nto.core.utils.exceptions.BadRequestException;
+import nto.infrastructure.cache.OwnershipIndex;
 import nto.infrastructure.cache.TaskStatusCache;
 import nto.infrastructure.repositories.JpaServerGroupRepository;
 import nto.infrastructure.repositories.JpaServerRepository;
 import nto.infrastructure.repositories.JpaSshUsernameRepository;
 import nto.infrastructure.repositories.JpaUserRepository;
+import nto.infrastructure.services.dispatch.ServerTaskDispatcher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -35,6 +38,8 @@ public class ServerServiceImpl implements ServerService {
     private final JpaUserRepository userRepository;
     private final JpaSshUsernameRepository sshUsernameRepository;
     private final TaskStatusCache tasksCache;
+    private final ServerTaskDispatcher taskDispatcher;
+    private final OwnershipIndex ownershipIndex;
 
     @Override
     @Transactional(readOnly = true)
@@ -71,6 +76,9 @@ public class ServerServiceImpl implements ServerService {
                 () -> new EntityNotFoundException(ErrorMessages.SERVER_NOT_FOUND.getMessage()));
         ensureServerOwned(server, username);
         tasksCache.evictAllByServerId(id);
+        server.getGroups().stream()
+            .filter(group -> group.getOwner() != null)
+            .forEach(group -> ownershipIndex.invalidate(group.getOwner().getUsername()));
         serverRepository.deleteById(id);
     }
 
@@ -114,19 +122,24 @@ public class ServerServiceImpl implements ServerService {
         defaultGroup.getServers().add(entity);
 
         ServerEntity saved = serverRepository.save(entity);
+        ownershipIndex.invalidate(username);
 
         return mappingService.mapToDto(saved, ServerDto.class);
     }
 
     @Override
-    public boolean checkConnection(Long id) {
+    public boolean checkConnection(Long id, boolean deep) {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        ServerEntity server = serverRepository.findById(id)
-            .orElseThrow(
-                () -> new EntityNotFoundException(ErrorMessages.SERVER_NOT_FOUND.getMessage()));
+        ensureServerOwned(id, username);
+        return deep ? scriptExecutor.ping(id) : scriptExecutor.pingAsync(id).join();
+    }
 
-        ensureServerOwned(server, username);
-        return scriptExecutor.ping(id);
+    @Override
+    @Transactional(readOnly = true)
+    public ServerQueueDto getQueueState(Long id) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        ensureServerOwned(id, username);
+        return taskDispatcher.getQueueState(id);
     }
 
     private UserEntity getCurrentUser(String username) {
@@ -144,7 +157,20 @@ public class ServerServiceImpl implements ServerService {
                 .build()));
     }
 
+    private void ensureServerOwned(Long id, String username) {
+        if (ownershipIndex.ownsServer(username, id)) {
+            return;
+        }
+        ServerEntity server = serverRepository.findById(id)
+            .orElseThrow(
+                () -> new EntityNotFoundException(ErrorMessages.SERVER_NOT_FOUND.getMessage()));
+        ensureServerOwned(server, username);
+    }
+
     private void ensureServerOwned(ServerEntity server, String username) {
+        if (ownershipIndex.ownsServer(username, server.getId())) {
+            return;
+        }
         boolean owned = server.getGroups().stream()
             .anyMatch(group -> group.getOwner() != null
                 && username.equals(group.getOwner().getUsername()));
@@ -1,59 +1,144 @@
 package nto.infrastructure.services;
 
 import jakarta.persistence.EntityNotFoundException;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nto.application.dto.HostLivenessDto;
+import nto.application.dto.PrewarmStatsDto;
+import nto.application.dto.SessionHealthDto;
+import nto.application.dto.SessionPoolStatsDto;
 import nto.application.interfaces.repositories.ServerRepository;
 import nto.application.interfaces.services.ScriptExecutor;
 import nto.core.entities.ServerEntity;
 import nto.core.entities.TaskEntity;
 import nto.core.enums.TaskStatus;
 import nto.core.utils.ErrorMessages;
-import nto.infrastructure.cache.TaskStatusCache;
-import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.cache.ScriptContent;
+import nto.infrastructure.cache.ScriptContentCache;
+import nto.infrastructure.services.liveness.HostLivenessRegistry;
+import nto.infrastructure.services.output.CapturedOutput;
+import nto.infrastructure.services.output.OutputBlobStore;
+import nto.infrastructure.services.output.TaskOutputCapture;
+import nto.infrastructure.services.output.TaskOutputRegistry;
+import nto.infrastructure.services.output.TaskOutputStream;
+import nto.infrastructure.services.ssh.RemoteScriptCache;
+import nto.infrastructure.services.ssh.RemoteScriptCache.RemoteCommand;
+import nto.infrastructure.services.ssh.SessionLease;
+import nto.infrastructure.services.ssh.SessionPrewarmer;
 import nto.infrastructure.services.ssh.SshSessionManager;
 import org.apache.sshd.client.channel.ChannelExec;
-import org.apache.sshd.client.channel.ClientChannelEvent;
+import org.apache.sshd.client.future.OpenFuture;
 import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.SshConstants;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.util.EnumSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Runs scripts without parking a thread on remote I/O: session connect and auth, channel open
+ * and channel close are MINA futures chained as {@link CompletableFuture}s. Worker threads
+ * from {@code taskExecutor} only pick up the short state and output bookkeeping at both ends.
+ * A run that outlives its deadline, or is cancelled, gets a KILL signal and its channel closed;
+ * the output captured so far is kept. Large scripts are run from the host's
+ * {@link RemoteScriptCache} instead of being sent as the command every time. Tasks for a server
+ * the {@link HostLivenessRegistry} currently knows to be down fail at once instead of waiting
+ * out the connect timeout.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 @ConditionalOnProperty(name = "nto.executor.type", havingValue = "ssh")
 public class SshScriptExecutor implements ScriptExecutor {
-    private final JpaTaskRepository taskRepository;
-    private final TaskStatusCache statusCache;
+
+    static final long CHANNEL_OPEN_TIMEOUT_SECONDS = 15;
+
+    private final TaskStateService taskStateService;
     private final ServerRepository serverRepository;
 
     private final SshSessionManager sessionManager;
+    private final SessionPrewarmer sessionPrewarmer;
+    private final RemoteScriptCache scriptCache;
+    private final ScriptContentCache scriptContentCache;
+    private final HostLivenessRegistry livenessRegistry;
+    private final TaskOutputRegistry outputRegistry;
+    private final OutputBlobStore blobStore;
+    private final Executor taskExecutor;
+
+    @Value("${nto.executor.timeoutSeconds:3600}")
+    private long defaultTimeoutSeconds;
+
+    @Value("${nto.liveness.failFast:true}")
+    private boolean failFastOnDownHosts;
+
+    private final Map<Long, Execution> executions = new ConcurrentHashMap<>();
 
     private final AtomicLong atomicCounter = new AtomicLong(0);
     private long unsafeCounter = 0;
 
-    @Override
-    @Async("taskExecutor")
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void executeAsync(Long taskId) {
-        TaskEntity task = prepareTask(taskId);
+    public SshScriptExecutor(TaskStateService taskStateService, ServerRepository serverRepository,
+                             SshSessionManager sessionManager, SessionPrewarmer sessionPrewarmer,
+                             RemoteScriptCache scriptCache,
+                             ScriptContentCache scriptContentCache,
+                             HostLivenessRegistry livenessRegistry,
+                             TaskOutputRegistry outputRegistry, OutputBlobStore blobStore,
+                             @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.taskStateService = taskStateService;
+        this.serverRepository = serverRepository;
+        this.sessionManager = sessionManager;
+        this.sessionPrewarmer = sessionPrewarmer;
+        this.scriptCache = scriptCache;
+        this.scriptContentCache = scriptContentCache;
+        this.livenessRegistry = livenessRegistry;
+        this.outputRegistry = outputRegistry;
+        this.blobStore = blobStore;
+        this.taskExecutor = taskExecutor;
+    }
 
+    /**
+     * A rejected submission is thrown to the caller, which fails the task; a task that cannot
+     * be prepared, for example because it or its script was deleted, is failed here.
+     */
+    @Override
+    public CompletableFuture<TaskStatus> executeAsync(Long taskId) {
+        Execution execution = new Execution();
+        executions.put(taskId, execution);
+        CompletableFuture<PreparedTask> preparation;
         try {
-            ExecutionResult result = performSshExecution(task);
-            finalizeTask(task, result.status(), result.output());
-            updateMetrics();
-        } catch (Exception e) {
-            handleExecutionError(task, e);
+            preparation = CompletableFuture.supplyAsync(() -> prepareTask(taskId), taskExecutor);
+        } catch (RuntimeException e) {
+            executions.remove(taskId, execution);
+            throw e;
+        }
+        return preparation
+            .handle((prepared, error) -> error != null
+                ? CompletableFuture.completedFuture(failPreparation(taskId, unwrap(error)))
+                : run(prepared, execution))
+            .thenCompose(run -> run)
+            .whenComplete((status, error) -> executions.remove(taskId, execution));
+    }
+
+    @Override
+    public boolean cancel(Long taskId) {
+        Execution execution = executions.get(taskId);
+        if (execution == null) {
+            return false;
         }
+        execution.interrupt(TaskStatus.CANCELLED, "Cancelled");
+        return true;
     }
 
     @Override
@@ -64,87 +149,214 @@ public class SshScriptExecutor implements ScriptExecutor {
             .orElseThrow(() -> new EntityNotFoundException(
                 ErrorMessages.SERVER_NOT_FOUND.getMessage() + serverId));
 
+        boolean alive;
         try {
             ClientSession session = sessionManager.getOrCreateSession(server);
-            return session.isOpen();
+            alive = session.isOpen();
         } catch (Exception e) {
             log.warn("Ping failed for server {}: {}", server.getIpAddress(), e.getMessage());
 
             sessionManager.invalidateSession(serverId);
-            return false;
+            alive = false;
         }
+        livenessRegistry.record(serverId, alive, HostLivenessRegistry.SOURCE_SSH);
+        return alive;
     }
 
-    private TaskEntity prepareTask(Long taskId) {
-        log.info("[SSH] Preparing Task ID: {}", taskId);
-        TaskEntity task = statusCache.get(taskId);
-        if (task == null) {
-            task = taskRepository.findById(taskId)
-                .orElseThrow(() -> new EntityNotFoundException("Task not found: " + taskId));
-        }
+    /**
+     * Looks the server up on a worker thread, since lanes of a group ping continue on the
+     * prober's selector thread, and answers from the liveness registry, which probes the SSH
+     * port only when its entry is stale.
+     */
+    @Override
+    public CompletableFuture<Boolean> pingAsync(Long serverId) {
+        return CompletableFuture.supplyAsync(() -> serverRepository.findById(serverId)
+                .orElseThrow(() -> new EntityNotFoundException(
+                    ErrorMessages.SERVER_NOT_FOUND.getMessage() + serverId)), taskExecutor)
+            .thenCompose(livenessRegistry::check);
+    }
 
-        task.setStartedAt(java.time.LocalDateTime.now());
-        updateStatus(task.getId(), TaskStatus.RUNNING, "Executing via SSH pool...");
-        return task;
+    @Override
+    public Map<Long, CompletableFuture<Void>> prewarm(Collection<Long> serverIds) {
+        return sessionPrewarmer.warmForGroupRun(serverIds);
     }
 
-    private ExecutionResult performSshExecution(TaskEntity task) throws Exception {
-        ServerEntity server = task.getServer();
-        String script = task.getScript().getContent();
+    @Override
+    public PrewarmStatsDto getPrewarmStats() {
+        return sessionPrewarmer.getStats();
+    }
 
-        ClientSession session = sessionManager.getOrCreateSession(server);
+    @Override
+    public SessionPoolStatsDto getSessionPoolStats() {
+        return sessionManager.getStats();
+    }
 
-        try (ChannelExec channel = session.createExecChannel(script);
-             ByteArrayOutputStream stdout = new ByteArrayOutputStream();
-             ByteArrayOutputStream stderr = new ByteArrayOutputStream()) {
+    @Override
+    public Collection<SessionHealthDto> getSessionHealth() {
+        return sessionManager.getHealth();
+    }
 
-            channel.setOut(stdout);
-            channel.setErr(stderr);
-            channel.open().verify(15, TimeUnit.SECONDS);
+    @Override
+    public Collection<HostLivenessDto> getHostLiveness() {
+        return livenessRegistry.getAll();
+    }
 
-            channel.waitFor(EnumSet.of(ClientChannelEvent.CLOSED), 0L);
+    /**
+     * Runs on a worker thread: the task row comes without its script, whose content is read
+     * through {@link ScriptContentCache} so tasks of one run share a single database read.
+     */
+    private PreparedTask prepareTask(Long taskId) {
+        log.info("[SSH] Preparing Task ID: {}", taskId);
+        TaskEntity task = taskStateService.markRunning(taskId, "Executing via SSH pool...");
+        if (task.getStatus() != null && task.getStatus().isFinal()) {
+            return new PreparedTask(task, null);
+        }
+        return new PreparedTask(task, scriptContentCache.get(task.getScript().getId()));
+    }
 
-            int exitCode = (channel.getExitStatus() != null) ? channel.getExitStatus() : -1;
-            String combinedOutput = formatOutput(stdout, stderr, exitCode);
-            TaskStatus status = (exitCode == 0) ? TaskStatus.SUCCESS : TaskStatus.FAILED;
+    private CompletableFuture<TaskStatus> run(PreparedTask prepared, Execution execution) {
+        TaskEntity task = prepared.task();
+        if (task.getStatus() != null && task.getStatus().isFinal()) {
+            return CompletableFuture.completedFuture(task.getStatus());
+        }
+        outputRegistry.open(task.getId());
+        return performSshExecution(task, prepared.script(), execution)
+            .handle((result, error) -> completeTask(task, execution, result, error));
+    }
 
-            return new ExecutionResult(status, combinedOutput);
-        } catch (Exception e) {
-            sessionManager.invalidateSession(server.getId());
-            throw e;
+    private TaskStatus failPreparation(Long taskId, Throwable error) {
+        log.error("[SSH] Could not prepare Task ID: {}", taskId, error);
+        try {
+            taskStateService.markFinished(taskId, TaskStatus.FAILED,
+                "Could not start task: " + error.getMessage());
+        } catch (RuntimeException stateError) {
+            log.warn("[SSH] Could not mark Task ID: {} as failed: {}", taskId,
+                stateError.getMessage());
+        } finally {
+            outputRegistry.complete(taskId, TaskStatus.FAILED);
         }
+        return TaskStatus.FAILED;
     }
 
-    private String formatOutput(ByteArrayOutputStream out, ByteArrayOutputStream err,
-                                int exitCode) {
-        StringBuilder sb = new StringBuilder();
-        String stdOutStr = out.toString(StandardCharsets.UTF_8);
-        String stdErrStr = err.toString(StandardCharsets.UTF_8);
+    private CompletableFuture<ExecutionResult> performSshExecution(TaskEntity task,
+                                                                   ScriptContent script,
+                                                                   Execution execution) {
+        if (execution.isInterrupted()) {
+            return CompletableFuture.failedFuture(new CancellationException());
+        }
+        if (failFastOnDownHosts && livenessRegistry.isKnownDown(task.getServer().getId())) {
+            return CompletableFuture.failedFuture(new IOException(
+                "Server " + task.getServer().getIpAddress() + " is unreachable"));
+        }
+        long timeoutSeconds = task.getTimeoutSeconds() != null
+            ? task.getTimeoutSeconds()
+            : defaultTimeoutSeconds;
+        return sessionManager.acquireChannel(task.getServer())
+            .thenCompose(lease -> {
+                RemoteRun run = new RemoteRun(lease, execution);
+                if (!execution.attach(run)) {
+                    run.close();
+                    return CompletableFuture.failedFuture(new CancellationException());
+                }
+                Long serverId = task.getServer().getId();
+                return scriptCache.prepare(lease.session(), serverId, script.content())
+                    .thenCompose(command -> runCommand(task, run, command, timeoutSeconds)
+                        .whenComplete((result, error) -> {
+                            if (error != null || result.status() == TaskStatus.FAILED) {
+                                scriptCache.forget(serverId, command);
+                            }
+                        }))
+                    .whenComplete((result, error) -> run.close());
+            });
+    }
 
-        if (!stdOutStr.isEmpty()) {
-            sb.append(stdOutStr);
+    private CompletableFuture<ExecutionResult> runCommand(TaskEntity task, RemoteRun run,
+                                                          RemoteCommand command,
+                                                          long timeoutSeconds) {
+        if (run.execution.isInterrupted()) {
+            return CompletableFuture.failedFuture(new CancellationException());
         }
-        if (!stdErrStr.isEmpty()) {
-            if (!sb.isEmpty()) {
-                sb.append("\n");
+        try {
+            ChannelExec channel = run.start(task, command.command());
+            return opened(channel.open())
+                .orTimeout(CHANNEL_OPEN_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .thenCompose(ignored -> run.awaitExit(timeoutSeconds))
+                .thenApplyAsync(run::finish, taskExecutor);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private TaskStatus completeTask(TaskEntity task, Execution execution,
+                                    ExecutionResult result, Throwable error) {
+        TaskStatus status = TaskStatus.FAILED;
+        try {
+            Interruption interruption = execution.interruption.get();
+            if (error != null && interruption != null) {
+                taskStateService.markFinished(task.getId(), interruption.status(),
+                    interruption.reason());
+                status = interruption.status();
+            } else if (error != null) {
+                handleExecutionError(task, unwrap(error));
+            } else {
+                finalizeTask(task, result.status(), result.output());
+                updateMetrics();
+                status = result.status();
             }
-            sb.append("[ERR] ").append(stdErrStr);
+        } finally {
+            outputRegistry.complete(task.getId(), status);
         }
-        sb.append("\nExit Status: ").append(exitCode);
-        return sb.toString();
+        return status;
     }
 
-    private void finalizeTask(TaskEntity task, TaskStatus status, String output) {
-        task.setFinishedAt(java.time.LocalDateTime.now());
-        updateStatus(task.getId(), status, output);
+    private static CompletableFuture<Void> opened(OpenFuture openFuture) {
+        CompletableFuture<Void> opened = new CompletableFuture<>();
+        openFuture.addListener(future -> {
+            if (future.isOpened()) {
+                opened.complete(null);
+            } else {
+                Throwable cause = future.getException();
+                opened.completeExceptionally(cause != null
+                    ? cause
+                    : new IOException("Channel open failed"));
+            }
+        });
+        return opened;
+    }
+
+    /**
+     * Asks the remote side to kill the command (RFC 4254 "signal" request). Servers that do
+     * not support it still end the command when the channel closes.
+     */
+    private static void signal(ChannelExec channel, String signal) {
+        try {
+            Buffer buffer = channel.getSession()
+                .createBuffer(SshConstants.SSH_MSG_CHANNEL_REQUEST, signal.length() + 32);
+            buffer.putUInt(channel.getRecipient());
+            buffer.putString("signal");
+            buffer.putBoolean(false);
+            buffer.putString(signal);
+            channel.writePacket(buffer);
+        } catch (IOException e) {
+            log.debug("[SSH] Could not send {} signal: {}", signal, e.getMessage());
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+            ? error.getCause()
+            : error;
+    }
+
+    private void finalizeTask(TaskEntity task, TaskStatus status, CapturedOutput output) {
+        taskStateService.markFinished(task.getId(), status, output);
         log.info("[SSH] Task ID: {} finished with status: {}", task.getId(), status);
     }
 
-    private void handleExecutionError(TaskEntity task, Exception e) {
+    private void handleExecutionError(TaskEntity task, Throwable e) {
         log.error("[SSH] Critical error during Task ID: {}", task.getId(), e);
-        sessionManager.invalidateSession(task.getServer().getId());
-        task.setFinishedAt(java.time.LocalDateTime.now());
-        updateStatus(task.getId(), TaskStatus.FAILED, "SSH Error: " + e.getMessage());
+        taskStateService.markFinished(task.getId(), TaskStatus.FAILED,
+            "SSH Error: " + e.getMessage());
     }
 
     private void updateMetrics() {
@@ -152,18 +364,6 @@ public class SshScriptExecutor implements ScriptExecutor {
         unsafeCounter++;
     }
 
-    private void updateStatus(Long taskId, TaskStatus status, String output) {
-        log.info("[SSH] _+ Task ID: {} updated to status: {}", taskId, status);
-        TaskEntity task = taskRepository.findById(taskId)
-            .orElseThrow(() -> new EntityNotFoundException("Task not found: " + taskId));
-        task.setStatus(status);
-        task.setOutput(output);
-
-        TaskEntity saved = taskRepository.save(task);
-        log.info("[SSH] _+ Saved Task ID: {} status: {}", saved.getId(), status);
-        statusCache.put(saved);
-    }
-
     @Override
     public long getSuccessCountAtomic() {
         return atomicCounter.get();
@@ -174,6 +374,144 @@ public class SshScriptExecutor implements ScriptExecutor {
         return unsafeCounter;
     }
 
-    private record ExecutionResult(TaskStatus status, String output) {
+    private record ExecutionResult(TaskStatus status, CapturedOutput output) {
+    }
+
+    private record Interruption(TaskStatus status, String reason) {
+    }
+
+    /**
+     * Cancellation handle of one task, registered for the whole {@link #executeAsync} chain.
+     * The first interruption wins; it stops the remote run if there is one, or makes the
+     * chain stop before opening one.
+     */
+    private static final class Execution {
+        private final AtomicReference<Interruption> interruption = new AtomicReference<>();
+        private volatile RemoteRun run;
+
+        private boolean isInterrupted() {
+            return interruption.get() != null;
+        }
+
+        private boolean attach(RemoteRun run) {
+            this.run = run;
+            return !isInterrupted();
+        }
+
+        private void interrupt(TaskStatus status, String reason) {
+            if (interruption.compareAndSet(null, new Interruption(status, reason))) {
+                RemoteRun current = run;
+                if (current != null) {
+                    current.stop();
+                }
+            }
+        }
+    }
+
+    /**
+     * A task loaded for execution with its script content; the content is null if the task is
+     * already final.
+     */
+    private record PreparedTask(TaskEntity task, ScriptContent script) {
+    }
+
+    /**
+     * Everything one remote run holds open: the channel slot, the output capture and the
+     * channel itself. Closed once, whichever way the run ends.
+     */
+    private final class RemoteRun implements AutoCloseable {
+        private final SessionLease lease;
+        private final Execution execution;
+        private final CompletableFuture<Integer> exit = new CompletableFuture<>();
+        private TaskOutputCapture capture;
+        private TaskOutputStream liveOut;
+        private TaskOutputStream liveErr;
+        private ChannelExec channel;
+        private volatile boolean opened;
+
+        private RemoteRun(SessionLease lease, Execution execution) {
+            this.lease = lease;
+            this.execution = execution;
+        }
+
+        private ChannelExec start(TaskEntity task, String command) throws IOException {
+            capture = blobStore.newCapture(task.getId());
+            liveOut = new TaskOutputStream(capture.stdout(), outputRegistry, task.getId(),
+                TaskOutputRegistry.STDOUT);
+            liveErr = new TaskOutputStream(capture.stderr(), outputRegistry, task.getId(),
+                TaskOutputRegistry.STDERR);
+            channel = lease.session().createExecChannel(command);
+            channel.setOut(liveOut);
+            channel.setErr(liveErr);
+            return channel;
+        }
+
+        /**
+         * Completes with the exit status once the channel closes. Past the deadline the
+         * execution is interrupted, which closes the channel and completes it without one.
+         */
+        private CompletableFuture<Integer> awaitExit(long timeoutSeconds) {
+            opened = true;
+            channel.addCloseFutureListener(future -> exit.complete(channel.getExitStatus()));
+            if (timeoutSeconds <= 0) {
+                return exit;
+            }
+            return exit.orTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .exceptionally(timeout -> {
+                    execution.interrupt(TaskStatus.FAILED,
+                        "Execution timed out after " + timeoutSeconds + " s");
+                    return null;
+                });
+        }
+
+        private void stop() {
+            if (channel != null) {
+                if (opened) {
+                    signal(channel, "KILL");
+                }
+                channel.close(true);
+            }
+            exit.complete(null);
+        }
+
+        private ExecutionResult finish(Integer exitStatus) {
+            int exitCode = exitStatus != null ? exitStatus : -1;
+            Interruption interruption = execution.interruption.get();
+            try {
+                if (interruption != null) {
+                    capture.stderr().write(
+                        interruption.reason().getBytes(StandardCharsets.UTF_8));
+                }
+                CapturedOutput output = capture.finish(exitCode);
+                TaskStatus status = interruption != null
+                    ? interruption.status()
+                    : (exitCode == 0) ? TaskStatus.SUCCESS : TaskStatus.FAILED;
+                return new ExecutionResult(status, output);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (channel != null) {
+                channel.close(true);
+            }
+            closeQuietly(liveErr);
+            closeQuietly(liveOut);
+            closeQuietly(capture);
+            lease.close();
+        }
+
+        private void closeQuietly(AutoCloseable closeable) {
+            if (closeable == null) {
+                return;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("[SSH] Error releasing execution resource: {}", e.getMessage());
+            }
+        }
     }
 }
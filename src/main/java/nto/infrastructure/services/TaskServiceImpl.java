@@ -4,30 +4,45 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nto.application.annotations.LogExecutionTime;
+import nto.application.dto.AdmissionStatsDto;
+import nto.application.dto.TaskCacheStatsDto;
 import nto.application.dto.BulkTaskRequestDto;
 import nto.application.dto.TaskDto;
 import nto.application.interfaces.repositories.ScriptRepository;
 import nto.application.interfaces.repositories.ServerRepository;
 import nto.application.interfaces.services.MappingService;
-import nto.application.interfaces.services.ScriptExecutor;
 import nto.application.interfaces.services.TaskService;
 import nto.core.entities.ScriptEntity;
 import nto.core.entities.ServerEntity;
 import nto.core.entities.TaskEntity;
 import nto.core.enums.TaskStatus;
 import nto.core.utils.exceptions.BadRequestException;
-import nto.core.utils.exceptions.ServerBusyException;
+import nto.core.utils.exceptions.ResourceConflictException;
+import nto.infrastructure.cache.OwnershipIndex;
 import nto.infrastructure.cache.TaskStatusCache;
+import nto.infrastructure.cache.TaskStatusSnapshot;
 import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.services.dispatch.GroupRunCoordinator;
+import nto.infrastructure.services.dispatch.ServerTaskDispatcher;
+import nto.infrastructure.services.dispatch.TaskAdmissionController;
+import nto.infrastructure.services.output.OutputBlobStore;
+import nto.infrastructure.services.output.TaskOutputRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -41,7 +56,13 @@ public class TaskServiceImpl implements TaskService {
     private final MappingService mappingService;
     private final ServerRepository serverRepository;
     private final ScriptRepository scriptRepository;
-    private final ScriptExecutor scriptExecutor;
+    private final ServerTaskDispatcher taskDispatcher;
+    private final GroupRunCoordinator runCoordinator;
+    private final TaskOutputRegistry outputRegistry;
+    private final OutputBlobStore blobStore;
+    private final TaskStatusWriter statusWriter;
+    private final TaskAdmissionController admissionController;
+    private final OwnershipIndex ownershipIndex;
 
     @Value("${nto.executor.type:mock}")
     private String executorType;
@@ -50,19 +71,10 @@ public class TaskServiceImpl implements TaskService {
     @Transactional
     @LogExecutionTime
     public TaskDto createTask(TaskDto dto) {
-        if (!"mock".equalsIgnoreCase(executorType)) {
-            List<TaskStatus> activeStatuses = List.of(TaskStatus.PENDING, TaskStatus.RUNNING);
-            if (taskRepository.existsByServerIdAndStatusIn(dto.serverId(), activeStatuses)) {
-                log.warn("Attempt to start task on busy server ID: {}", dto.serverId());
-                throw new ServerBusyException(
-                    "Сервер уже выполняет другую задачу. Дождитесь завершения.");
-            }
-        }
-
         String username = getCurrentUsername();
         ScriptEntity script = getScriptIfAvailable(dto.scriptId(), username);
         ServerEntity server = getServerIfOwned(dto.serverId(), username);
-        return createAndSaveTask(script, server);
+        return createAndSaveTask(script, server, dto.timeoutSeconds());
     }
 
     @Override
@@ -80,13 +92,13 @@ public class TaskServiceImpl implements TaskService {
         String username = getCurrentUsername();
 
 
-        getServerIfOwned(serverId, username);
+        ensureServerOwned(serverId, username);
         getScriptIfAvailable(scriptId, username);
 
 
-        TaskEntity cached = tasksCache.get(serverId, scriptId);
-        if (cached != null) {
-            return mappingService.mapToDto(cached, TaskDto.class);
+        TaskStatusSnapshot cached = tasksCache.get(serverId, scriptId);
+        if (cached != null && !cached.outputTruncated()) {
+            return cached.toDto();
         }
 
 
@@ -104,19 +116,18 @@ public class TaskServiceImpl implements TaskService {
 
         ScriptEntity script = getScriptIfAvailable(dto.scriptId(), username);
 
+        // a server listed twice still gets one task, and must not count as missing
+        List<Long> serverIds = dto.serverIds().stream().distinct().toList();
+        List<ServerEntity> foundServers = "mock".equalsIgnoreCase(executorType)
+            ? serverRepository.findAllById(serverIds)
+            : findOwnedServers(serverIds, username);
 
-        List<ServerEntity> foundServers = serverRepository.findAllById(dto.serverIds());
-
-
-        validateServersExistence(foundServers, dto.serverIds());
 
+        validateServersExistence(foundServers, serverIds);
 
-        if (!"mock".equalsIgnoreCase(executorType)) {
-            foundServers.forEach(server -> validateServerOwnership(server, username));
-        }
-
+        admissionController.admit(foundServers.size());
         List<TaskEntity> tasksToSave = foundServers.stream()
-            .map(server -> buildTask(script, server))
+            .map(server -> buildTask(script, server, null))
             .collect(Collectors.toList());
 
         List<TaskEntity> savedTasks = taskRepository.saveAll(tasksToSave);
@@ -124,7 +135,7 @@ public class TaskServiceImpl implements TaskService {
 
         savedTasks.forEach(task -> {
             tasksCache.put(task);
-            scriptExecutor.executeAsync(task.getId());
+            taskDispatcher.dispatch(task.getServer().getId(), task.getId());
         });
 
         return mappingService.mapListToDto(savedTasks, TaskDto.class);
@@ -140,7 +151,11 @@ public class TaskServiceImpl implements TaskService {
 
 
         validateServerOwnership(task.getServer(), username);
-        tasksCache.put(task);
+        TaskStatusSnapshot pending = pendingState(task);
+        if (pending != null) {
+            return pending.toDto();
+        }
+        tasksCache.putIfAbsent(task);
         return mappingService.mapToDto(task, TaskDto.class);
     }
 
@@ -155,6 +170,90 @@ public class TaskServiceImpl implements TaskService {
         return mappingService.mapListToDto(tasks, TaskDto.class);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public SseEmitter streamOutput(Long id) {
+        String username = getCurrentUsername();
+
+        TaskEntity task = taskRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("Task not found: " + id));
+
+        validateServerOwnership(task.getServer(), username);
+        TaskStatusSnapshot current = currentState(task);
+        return outputRegistry.subscribe(current.id(), current.output(), current.status());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Resource getFullOutput(Long id) {
+        String username = getCurrentUsername();
+
+        TaskEntity task = taskRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("Task not found: " + id));
+
+        validateServerOwnership(task.getServer(), username);
+        TaskStatusSnapshot current = currentState(task);
+        Optional<Path> blob = blobStore.find(current.outputBlobRef());
+        if (blob.isPresent()) {
+            return new FileSystemResource(blob.get());
+        }
+        if (current.outputBlobRef() != null) {
+            // the preview is not the full output, and the blob has expired
+            throw new EntityNotFoundException(
+                "Full output of task " + id + " is no longer available");
+        }
+        return new ByteArrayResource(current.output() == null
+            ? new byte[0]
+            : current.output().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TaskDto cancelTask(Long id) {
+        String username = getCurrentUsername();
+
+        TaskEntity task = taskRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("Task not found: " + id));
+
+        validateServerOwnership(task.getServer(), username);
+        TaskStatus status = currentState(task).status();
+        if (status.isFinal()) {
+            throw new ResourceConflictException("Task " + id + " is already " + status);
+        }
+        if (task.getGroupRunId() != null) {
+            runCoordinator.cancelled(task.getGroupRunId(), List.of(id));
+        }
+        taskDispatcher.cancel(task.getServer().getId(), id);
+        TaskStatusSnapshot pending = pendingState(task);
+        return pending != null ? pending.toDto() : mappingService.mapToDto(task, TaskDto.class);
+    }
+
+    @Override
+    public AdmissionStatsDto getAdmissionStats() {
+        return admissionController.getStats();
+    }
+
+    @Override
+    public TaskCacheStatsDto getStatusCacheStats() {
+        return tasksCache.getStats();
+    }
+
+    /**
+     * The row may lag behind a transition that is still waiting for the write-behind flush;
+     * the cached snapshot is authoritative until then.
+     */
+    private TaskStatusSnapshot pendingState(TaskEntity task) {
+        if (!statusWriter.isPending(task.getId())) {
+            return null;
+        }
+        return tasksCache.get(task.getId());
+    }
+
+    private TaskStatusSnapshot currentState(TaskEntity task) {
+        TaskStatusSnapshot pending = pendingState(task);
+        return pending != null ? pending : TaskStatusSnapshot.of(task);
+    }
+
 
     private String getCurrentUsername() {
         return SecurityContextHolder.getContext().getAuthentication().getName();
@@ -174,7 +273,14 @@ public class TaskServiceImpl implements TaskService {
         return script;
     }
 
+    /**
+     * A server the ownership index knows the user owns is returned as a reference without a
+     * query; only a miss loads the server with its groups to check them.
+     */
     private ServerEntity getServerIfOwned(Long serverId, String username) {
+        if (ownershipIndex.ownsServer(username, serverId)) {
+            return serverRepository.getReferenceById(serverId);
+        }
         ServerEntity server = serverRepository.findById(serverId)
             .orElseThrow(() -> new EntityNotFoundException("Server not found: " + serverId));
 
@@ -182,7 +288,16 @@ public class TaskServiceImpl implements TaskService {
         return server;
     }
 
+    private void ensureServerOwned(Long serverId, String username) {
+        if (!ownershipIndex.ownsServer(username, serverId)) {
+            getServerIfOwned(serverId, username);
+        }
+    }
+
     private void validateServerOwnership(ServerEntity server, String username) {
+        if (ownershipIndex.ownsServer(username, server.getId())) {
+            return;
+        }
         boolean owned = server.getGroups().stream()
             .anyMatch(group -> group.getOwner() != null
                 && username.equals(group.getOwner().getUsername()));
@@ -194,6 +309,27 @@ public class TaskServiceImpl implements TaskService {
         }
     }
 
+    /**
+     * Loads the requested servers the user owns with one query. Only when some are missing is a
+     * second query made, to tell ids that do not exist from servers of other users.
+     */
+    private List<ServerEntity> findOwnedServers(List<Long> serverIds, String username) {
+        List<ServerEntity> owned = serverRepository.findAllByIdInAndOwnerUsername(serverIds,
+            username);
+        if (owned.size() == serverIds.size()) {
+            return owned;
+        }
+        validateServersExistence(serverRepository.findAllById(serverIds), serverIds);
+        Set<Long> ownedIds = owned.stream()
+            .map(ServerEntity::getId)
+            .collect(Collectors.toSet());
+        List<Long> foreignIds = serverIds.stream()
+            .filter(id -> !ownedIds.contains(id))
+            .toList();
+        throw new AccessDeniedException(
+            "Access Denied: Servers " + foreignIds + " do not belong to you.");
+    }
+
     private void validateServersExistence(List<ServerEntity> foundServers,
                                           List<Long> requestedIds) {
         if (foundServers.size() != requestedIds.size()) {
@@ -209,21 +345,25 @@ public class TaskServiceImpl implements TaskService {
         }
     }
 
-    private TaskDto createAndSaveTask(ScriptEntity script, ServerEntity server) {
-        TaskEntity entity = buildTask(script, server);
+    private TaskDto createAndSaveTask(ScriptEntity script, ServerEntity server,
+                                      Integer timeoutSeconds) {
+        admissionController.admit(1);
+        TaskEntity entity = buildTask(script, server, timeoutSeconds);
         TaskEntity saved = taskRepository.save(entity);
 
         tasksCache.put(saved);
-        scriptExecutor.executeAsync(saved.getId());
+        taskDispatcher.dispatch(server.getId(), saved.getId());
 
         return mappingService.mapToDto(saved, TaskDto.class);
     }
 
-    private TaskEntity buildTask(ScriptEntity script, ServerEntity server) {
+    private TaskEntity buildTask(ScriptEntity script, ServerEntity server,
+                                 Integer timeoutSeconds) {
         return TaskEntity.builder()
             .script(script)
             .server(server)
             .status(TaskStatus.PENDING)
+            .timeoutSeconds(timeoutSeconds != null ? timeoutSeconds : script.getTimeoutSeconds())
             .build();
     }
 }
@@ -0,0 +1,118 @@
+package nto.infrastructure.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nto.core.entities.TaskEntity;
+import nto.core.enums.TaskStatus;
+import nto.core.utils.ErrorMessages;
+import nto.infrastructure.cache.TaskStatusCache;
+import nto.infrastructure.cache.TaskStatusSnapshot;
+import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.services.output.CapturedOutput;
+import nto.infrastructure.services.output.TaskOutputRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TaskStateService {
+
+    private final JpaTaskRepository taskRepository;
+    private final TaskStatusCache statusCache;
+    private final TaskStatusWriter statusWriter;
+    // resolved lazily: the registry checkpoints output through this service
+    private final ObjectProvider<TaskOutputRegistry> outputRegistry;
+
+    /**
+     * Moves the task to RUNNING. The execution context is read in its own short read-only
+     * transaction; the returned entity is detached, but its server, SSH username and script
+     * are already loaded, so the remote run can use them without holding a connection. The
+     * state change itself goes through {@link TaskStatusWriter}.
+     * A task that already reached a final state, such as one cancelled while it waited for a
+     * worker, is returned with that status and not started; callers must check for it.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public TaskEntity markRunning(Long taskId, String output) {
+        TaskEntity task = taskRepository.findWithExecutionContextById(taskId)
+            .orElseThrow(() -> new EntityNotFoundException(
+                ErrorMessages.TASK_NOT_FOUND.getMessage() + ": " + taskId));
+        TaskStatusSnapshot cached = statusCache.get(taskId);
+        TaskStatus previous = cached != null ? cached.status() : task.getStatus();
+        if (previous != null && previous.isFinal()) {
+            task.setStatus(previous);
+            log.info("Task ID: {} is already {}, not starting it", taskId, previous);
+            return task;
+        }
+        task.setStartedAt(LocalDateTime.now());
+        task.setStatus(TaskStatus.RUNNING);
+        task.setOutput(output);
+        publish(previous, TaskStatusSnapshot.of(task));
+        return task;
+    }
+
+    public TaskStatusSnapshot markFinished(Long taskId, TaskStatus status, String output) {
+        return markFinished(taskId, status, CapturedOutput.inline(output));
+    }
+
+    /**
+     * Finishes the task. The snapshot cached by {@link #markRunning} is reused, so this
+     * normally touches the database only through the next write-behind flush.
+     */
+    public TaskStatusSnapshot markFinished(Long taskId, TaskStatus status,
+                                           CapturedOutput output) {
+        TaskStatusSnapshot task = current(taskId);
+        return publish(task.status(), task.finish(status, LocalDateTime.now(), output));
+    }
+
+    /**
+     * Cancels a task that no executor is running, such as one still waiting in its server's
+     * queue. A task that has reached a final state in the meantime is left as it is.
+     */
+    public boolean markCancelled(Long taskId, String output) {
+        TaskStatusSnapshot task = current(taskId);
+        if (task.isFinal()) {
+            return false;
+        }
+        publish(task.status(), task.cancel(LocalDateTime.now(), output));
+        return true;
+    }
+
+    public TaskStatus currentStatus(Long taskId) {
+        return current(taskId).status();
+    }
+
+    /**
+     * Stores partial output of a running task. Guarded by status so a late checkpoint never
+     * overwrites the final output.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void checkpointOutput(Long taskId, String output) {
+        taskRepository.updateOutputIfStatus(taskId, output, TaskStatus.RUNNING);
+    }
+
+    private TaskStatusSnapshot current(Long taskId) {
+        TaskStatusSnapshot cached = statusCache.get(taskId);
+        return cached != null ? cached : taskRepository.findById(taskId)
+            .map(TaskStatusSnapshot::of)
+            .orElseThrow(() -> new EntityNotFoundException(
+                ErrorMessages.TASK_NOT_FOUND.getMessage() + ": " + taskId));
+    }
+
+    private TaskStatusSnapshot publish(TaskStatus previous, TaskStatusSnapshot snapshot) {
+        statusCache.put(snapshot);
+        statusWriter.enqueue(snapshot);
+        statusWriter.countRunTransition(snapshot.groupRunId(), previous, snapshot.status());
+        if (snapshot.isFinal()) {
+            outputRegistry.ifAvailable(
+                registry -> registry.finishUnstarted(snapshot.id(), snapshot.status()));
+        }
+        log.info("Task ID: {} -> {}", snapshot.id(), snapshot.status());
+        return snapshot;
+    }
+}
@@ -0,0 +1,240 @@
+package nto.infrastructure.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.cache.TaskStatusSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind for task state transitions. Each transition replaces the task's pending row
+ * image, so several transitions between two flushes collapse into one UPDATE. Pending rows
+ * are written every {@code nto.status.flushIntervalMs} or as soon as
+ * {@code nto.status.maxBatchSize} tasks are dirty, as a single JDBC batch in one transaction.
+ * Until then {@code TaskStatusCache} holds the authoritative state.
+ * Transitions of group-run tasks are also summed per run and applied to the run's status
+ * counters in the same transaction, one UPDATE per run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskStatusWriter {
+
+    // quoted so one statement fits both schemas: the test profile sets auto_quote_keyword, so
+    // H2 gets a lowercase "output" column, and Postgres folds the unquoted prod column to it
+    static final String UPDATE_SQL = "UPDATE tasks SET status = ?, \"output\" = ?, "
+        + "started_at = ?, finished_at = ?, output_blob_ref = ?, output_size = ? WHERE id = ?";
+
+    static final String RUN_COUNTERS_SQL = "UPDATE group_runs SET pending_tasks = pending_tasks + ?, "
+        + "running_tasks = running_tasks + ?, success_tasks = success_tasks + ?, "
+        + "failed_tasks = failed_tasks + ?, cancelled_tasks = cancelled_tasks + ?, "
+        + "finished_at = CASE WHEN pending_tasks + running_tasks + ? = 0 "
+        + "THEN COALESCE(finished_at, ?) ELSE finished_at END WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${nto.status.flushIntervalMs:10}")
+    private long flushIntervalMs;
+
+    @Value("${nto.status.maxBatchSize:500}")
+    private int maxBatchSize;
+
+    private final Queue<Long> dirtyIds = new ConcurrentLinkedQueue<>();
+    private final Map<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Map<UUID, int[]> runDeltas = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NtoStatusWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs,
+            TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    public void enqueue(TaskStatusSnapshot snapshot) {
+        PendingUpdate update = PendingUpdate.of(snapshot);
+        if (pending.put(update.id(), update) != null) {
+            return;
+        }
+        dirtyIds.offer(update.id());
+        if (pendingCount.incrementAndGet() == maxBatchSize && flusher != null
+            && !flusher.isShutdown()) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Moves one task of the run from {@code from} to {@code to} in the run's counters.
+     */
+    public void countRunTransition(UUID runId, TaskStatus from, TaskStatus to) {
+        if (runId == null || from == to) {
+            return;
+        }
+        runDeltas.compute(runId, (id, delta) -> {
+            int[] counts = delta != null ? delta : new int[TaskStatus.values().length];
+            if (from != null) {
+                counts[from.ordinal()]--;
+            }
+            if (to != null) {
+                counts[to.ordinal()]++;
+            }
+            return counts;
+        });
+    }
+
+    public boolean isPending(Long taskId) {
+        return pending.containsKey(taskId);
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Writes everything that is dirty right now. Runs on the flusher thread; callable directly
+     * on shutdown and in tests.
+     */
+    public synchronized int flush() {
+        List<PendingUpdate> batch = new ArrayList<>();
+        Long id;
+        while ((id = dirtyIds.poll()) != null) {
+            PendingUpdate update = pending.remove(id);
+            if (update != null) {
+                pendingCount.decrementAndGet();
+                batch.add(update);
+            }
+        }
+        Map<UUID, int[]> runs = drainRunDeltas();
+        if (batch.isEmpty() && runs.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_SQL,
+                        batch.stream().map(PendingUpdate::toArgs).toList());
+                }
+                if (!runs.isEmpty()) {
+                    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                    jdbcTemplate.batchUpdate(RUN_COUNTERS_SQL, runs.entrySet().stream()
+                        .map(run -> runCounterArgs(run.getKey(), run.getValue(), now))
+                        .toList());
+                }
+            });
+        } catch (RuntimeException e) {
+            batch.forEach(this::requeue);
+            runs.forEach(this::requeueRunDelta);
+            throw e;
+        }
+        return batch.size();
+    }
+
+    private Map<UUID, int[]> drainRunDeltas() {
+        Map<UUID, int[]> drained = new HashMap<>();
+        for (UUID runId : runDeltas.keySet()) {
+            int[] delta = runDeltas.remove(runId);
+            if (delta != null) {
+                drained.put(runId, delta);
+            }
+        }
+        return drained;
+    }
+
+    private void requeueRunDelta(UUID runId, int[] delta) {
+        runDeltas.merge(runId, delta, (current, failed) -> {
+            for (int i = 0; i < current.length; i++) {
+                current[i] += failed[i];
+            }
+            return current;
+        });
+    }
+
+    private static Object[] runCounterArgs(UUID runId, int[] delta, Timestamp now) {
+        int pendingDelta = delta[TaskStatus.PENDING.ordinal()];
+        int runningDelta = delta[TaskStatus.RUNNING.ordinal()];
+        return new Object[]{
+            pendingDelta,
+            runningDelta,
+            delta[TaskStatus.SUCCESS.ordinal()],
+            delta[TaskStatus.FAILED.ordinal()],
+            delta[TaskStatus.CANCELLED.ordinal()],
+            pendingDelta + runningDelta,
+            now,
+            runId
+        };
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Task status flush failed, {} updates kept for retry: {}",
+                pendingCount.get(), e.getMessage());
+        }
+    }
+
+    private void requeue(PendingUpdate update) {
+        if (pending.putIfAbsent(update.id(), update) == null) {
+            pendingCount.incrementAndGet();
+            dirtyIds.offer(update.id());
+        }
+    }
+
+    private record PendingUpdate(Long id, TaskStatus status, String output,
+                                 LocalDateTime startedAt, LocalDateTime finishedAt,
+                                 String outputBlobRef, Long outputSize) {
+
+        static PendingUpdate of(TaskStatusSnapshot snapshot) {
+            return new PendingUpdate(snapshot.id(), snapshot.status(), snapshot.output(),
+                snapshot.startedAt(), snapshot.finishedAt(), snapshot.outputBlobRef(),
+                snapshot.outputSize());
+        }
+
+        Object[] toArgs() {
+            return new Object[]{
+                status == null ? null : status.getCode(),
+                output,
+                startedAt == null ? null : Timestamp.valueOf(startedAt),
+                finishedAt == null ? null : Timestamp.valueOf(finishedAt),
+                outputBlobRef,
+                outputSize,
+                id
+            };
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package nto.infrastructure.services.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+import nto.application.dto.WavePolicyDto;
+import nto.application.interfaces.services.ScriptExecutor;
+import nto.core.entities.TaskEntity;
+import nto.core.enums.TaskStatus;
+import nto.core.utils.exceptions.BadRequestException;
+import nto.infrastructure.services.TaskStateService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Starts group runs. Sessions to every server of the run are pre-warmed first
+ * ({@link ScriptExecutor#prewarm}), and each task is handed to the dispatcher only once its
+ * server's warm-up has settled. At most {@link WavePlan#window()} tasks of a run are in
+ * flight; the next one is released as soon as one finishes, not at fixed intervals. An
+ * optional canary wave runs alone and has to succeed completely before the rest starts. Once
+ * more than {@link WavePlan#maxFailureRatio()} of the run's tasks have failed, the tasks not
+ * yet started are cancelled. Tasks reported through {@link #cancelled} while waiting here are
+ * skipped; since the dispatcher never saw them, their admission reservation is returned here.
+ */
+@Slf4j
+@Component
+public class GroupRunCoordinator {
+
+    private final ServerTaskDispatcher taskDispatcher;
+    private final ScriptExecutor scriptExecutor;
+    private final TaskStateService taskStateService;
+    private final TaskAdmissionController admissionController;
+    private final Executor taskExecutor;
+
+    private static final CompletableFuture<Void> WARM = CompletableFuture.completedFuture(null);
+
+    private final Map<UUID, Rollout> rollouts = new ConcurrentHashMap<>();
+
+    public GroupRunCoordinator(ServerTaskDispatcher taskDispatcher, ScriptExecutor scriptExecutor,
+                               TaskStateService taskStateService,
+                               TaskAdmissionController admissionController,
+                               @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.taskDispatcher = taskDispatcher;
+        this.scriptExecutor = scriptExecutor;
+        this.taskStateService = taskStateService;
+        this.admissionController = admissionController;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Resolves a policy against the group size. Batch size, percentage and max-in-flight all
+     * bound the same sliding window, so only one of them may be given.
+     */
+    public WavePlan plan(WavePolicyDto policy, int servers) {
+        if (policy == null) {
+            return new WavePlan(0, servers, null);
+        }
+        long sizings = Stream.of(policy.batchSize(), policy.batchPercent(), policy.maxInFlight())
+            .filter(Objects::nonNull)
+            .count();
+        if (sizings > 1) {
+            throw new BadRequestException(
+                "Only one of batchSize, batchPercent and maxInFlight can be set");
+        }
+
+        int window = servers;
+        if (policy.batchSize() != null) {
+            window = policy.batchSize();
+        } else if (policy.maxInFlight() != null) {
+            window = policy.maxInFlight();
+        } else if (policy.batchPercent() != null) {
+            window = Math.max(1, (int) Math.ceil(servers * policy.batchPercent() / 100.0));
+        }
+        int canary = policy.canarySize() == null ? 0 : Math.min(policy.canarySize(), servers);
+        return new WavePlan(canary, Math.min(window, servers), policy.maxFailureRatio());
+    }
+
+    /**
+     * Starts the rollout once the tasks are committed. Tasks are released in list order.
+     */
+    public void start(UUID runId, List<TaskEntity> tasks, WavePlan plan) {
+        Rollout rollout = new Rollout(runId, tasks, plan);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        rollouts.put(runId, rollout);
+                        // the dispatcher would defer work registered from here to a
+                        // synchronization that never runs, so start on another thread
+                        CompletableFuture.runAsync(() -> begin(rollout), taskExecutor)
+                            .exceptionally(error -> {
+                                abort(rollout, error);
+                                return null;
+                            });
+                    }
+                });
+            return;
+        }
+        rollouts.put(runId, rollout);
+        begin(rollout);
+    }
+
+    /**
+     * Records cancelled tasks of a run, so those still waiting here are skipped instead of
+     * dispatched. Runs that have already finished are ignored.
+     */
+    public void cancelled(UUID runId, Collection<Long> taskIds) {
+        Rollout rollout = rollouts.get(runId);
+        if (rollout != null) {
+            rollout.cancel(taskIds);
+        }
+    }
+
+    public int getActiveRollouts() {
+        return rollouts.size();
+    }
+
+    private void begin(Rollout rollout) {
+        rollout.warmups = scriptExecutor.prewarm(rollout.serverIds);
+        launch(rollout, rollout.nextWave(true));
+    }
+
+    /**
+     * Gives up on a run whose start failed. Tasks already handed to the dispatcher finish on
+     * their own; the waiting ones are failed, or cancelled if a cancel was reported for them.
+     */
+    private void abort(Rollout rollout, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        log.error("Group run {} could not be started", rollout.runId, cause);
+        Wave wave = rollout.abort();
+        for (TaskEntity task : wave.skipped()) {
+            admissionController.release(1);
+            if (rollout.isCancelled(task.getId())) {
+                taskStateService.markCancelled(task.getId(), null);
+            } else {
+                taskStateService.markFinished(task.getId(), TaskStatus.FAILED,
+                    "Group run could not be started: " + cause.getMessage());
+            }
+        }
+        if (wave.completed()) {
+            rollouts.remove(rollout.runId);
+        }
+    }
+
+    private void onTaskDone(Rollout rollout, TaskStatus status) {
+        launch(rollout, rollout.taskDone(status));
+    }
+
+    /**
+     * Tasks that finish before their callback could be registered, such as rejected ones, are
+     * followed up here in a loop; completing them through the callback would recurse once per
+     * task.
+     */
+    private void launch(Rollout rollout, Wave first) {
+        Queue<Wave> waves = new ArrayDeque<>();
+        waves.add(first);
+        Wave wave;
+        while ((wave = waves.poll()) != null) {
+            for (TaskEntity task : wave.skipped()) {
+                admissionController.release(1);
+                if (wave.haltReason() != null) {
+                    taskStateService.markCancelled(task.getId(), wave.haltReason());
+                }
+            }
+            for (TaskEntity task : wave.started()) {
+                Long serverId = task.getServer().getId();
+                CompletableFuture<TaskStatus> done = rollout.warmups.getOrDefault(serverId, WARM)
+                    .thenCompose(warm -> taskDispatcher.dispatch(serverId, task.getId()))
+                    .handle((status, error) -> error == null ? status : TaskStatus.FAILED);
+                if (done.isDone()) {
+                    waves.add(rollout.taskDone(done.join()));
+                } else {
+                    done.thenAccept(status -> onTaskDone(rollout, status));
+                }
+            }
+            if (wave.completed()) {
+                rollouts.remove(rollout.runId);
+                log.info("Group run {} finished: {} failed of {}", rollout.runId, rollout.failed,
+                    rollout.total);
+            }
+        }
+    }
+
+    public record WavePlan(int canarySize, int window, Double maxFailureRatio) {
+    }
+
+    private record Wave(List<TaskEntity> started, List<TaskEntity> skipped, String haltReason,
+                        boolean completed) {
+    }
+
+    /**
+     * Progress of one run. All fields are guarded by the instance monitor; dispatching
+     * happens outside of it because a dispatched task can complete on the calling thread.
+     */
+    private final class Rollout {
+        private final UUID runId;
+        private final Queue<TaskEntity> waiting;
+        private final WavePlan plan;
+        private final int total;
+        private final Set<Long> serverIds;
+        private final Set<Long> cancelled = new HashSet<>();
+        private volatile Map<Long, CompletableFuture<Void>> warmups = Map.of();
+        private int canaryRemaining;
+        private int inFlight;
+        private int failed;
+        private String haltReason;
+
+        private Rollout(UUID runId, List<TaskEntity> tasks, WavePlan plan) {
+            this.runId = runId;
+            this.waiting = new ArrayDeque<>(tasks);
+            this.plan = plan;
+            this.total = tasks.size();
+            this.serverIds = tasks.stream()
+                .map(task -> task.getServer().getId())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
+        private synchronized void cancel(Collection<Long> taskIds) {
+            cancelled.addAll(taskIds);
+        }
+
+        private synchronized boolean isCancelled(Long taskId) {
+            return cancelled.contains(taskId);
+        }
+
+        private synchronized Wave abort() {
+            List<TaskEntity> skipped = new ArrayList<>(waiting);
+            waiting.clear();
+            return new Wave(List.of(), skipped, null, inFlight == 0);
+        }
+
+        private synchronized Wave taskDone(TaskStatus status) {
+            inFlight--;
+            if (status == TaskStatus.FAILED) {
+                failed++;
+            }
+            if (canaryRemaining > 0) {
+                canaryRemaining--;
+                if (status != TaskStatus.SUCCESS && haltReason == null) {
+                    haltReason = "Skipped: canary wave did not succeed";
+                }
+            }
+            if (haltReason == null && plan.maxFailureRatio() != null
+                && failed > plan.maxFailureRatio() * total) {
+                haltReason = "Skipped: failure ratio above " + plan.maxFailureRatio();
+            }
+            return nextWave(false);
+        }
+
+        private synchronized Wave nextWave(boolean first) {
+            List<TaskEntity> started = new ArrayList<>();
+            List<TaskEntity> skipped = new ArrayList<>();
+            if (haltReason != null) {
+                skipped.addAll(waiting);
+                waiting.clear();
+            } else if (first && plan.canarySize() > 0) {
+                fill(plan.canarySize(), started, skipped);
+                canaryRemaining = inFlight;
+                if (canaryRemaining == 0) {
+                    fill(plan.window(), started, skipped);
+                }
+            } else if (canaryRemaining == 0) {
+                fill(plan.window(), started, skipped);
+            }
+            return new Wave(started, skipped, haltReason, inFlight == 0 && waiting.isEmpty());
+        }
+
+        private void fill(int limit, List<TaskEntity> started, List<TaskEntity> skipped) {
+            while (inFlight < limit && !waiting.isEmpty()) {
+                TaskEntity task = waiting.poll();
+                if (cancelled.contains(task.getId())) {
+                    skipped.add(task);
+                } else {
+                    started.add(task);
+                    inFlight++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package nto.infrastructure.services.dispatch;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nto.application.dto.ServerQueueDto;
+import nto.application.interfaces.services.ScriptExecutor;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.services.TaskStateService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-server FIFO run queues. At most {@code nto.dispatch.perServerConcurrency} tasks run
+ * on a server at once; the rest wait in memory and start when a running task completes.
+ * Queue state is only changed inside {@link Map#compute}, so an idle server's entry can be
+ * dropped without racing a concurrent submit. Cancelling a running task completes its
+ * execution future, which frees the slot for the next queued task. Every task that leaves
+ * the dispatcher, finished or dropped from a queue, returns its {@link TaskAdmissionController}
+ * reservation. {@link #dispatch} returns a future that completes with the task's final status
+ * once it has left the dispatcher, which is what {@link GroupRunCoordinator} paces waves on.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ServerTaskDispatcher {
+
+    private final ScriptExecutor scriptExecutor;
+    private final TaskStateService taskStateService;
+    private final TaskAdmissionController admissionController;
+
+    @Value("${nto.dispatch.perServerConcurrency:1}")
+    private int perServerConcurrency;
+
+    private final Map<Long, ServerQueue> queues = new ConcurrentHashMap<>();
+
+    public CompletableFuture<TaskStatus> dispatch(Long serverId, Long taskId) {
+        QueuedTask task = new QueuedTask(taskId, new CompletableFuture<>());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        enqueue(serverId, task);
+                    }
+                });
+            return task.done();
+        }
+        enqueue(serverId, task);
+        return task.done();
+    }
+
+    /**
+     * Cancels a task wherever it is: a queued task is dropped from its server's queue, a
+     * running one is stopped by the executor. Returns false if the task had already finished.
+     */
+    public boolean cancel(Long serverId, Long taskId) {
+        QueuedTask dequeued = removeWaiting(serverId, taskId);
+        if (dequeued != null) {
+            admissionController.release(1);
+        } else if (scriptExecutor.cancel(taskId)) {
+            return true;
+        }
+        boolean cancelled = taskStateService.markCancelled(taskId, "Cancelled");
+        if (dequeued != null) {
+            dequeued.done().complete(TaskStatus.CANCELLED);
+        }
+        return cancelled;
+    }
+
+    public ServerQueueDto getQueueState(Long serverId) {
+        ServerQueue queue = queues.get(serverId);
+        if (queue == null) {
+            return new ServerQueueDto(serverId, 0, 0, perServerConcurrency);
+        }
+        synchronized (queue) {
+            return new ServerQueueDto(serverId, queue.running, queue.waiting.size(),
+                perServerConcurrency);
+        }
+    }
+
+    private void enqueue(Long serverId, QueuedTask task) {
+        AtomicReference<Boolean> startNow = new AtomicReference<>(false);
+        queues.compute(serverId, (id, queue) -> {
+            ServerQueue current = queue != null ? queue : new ServerQueue();
+            synchronized (current) {
+                if (current.running < perServerConcurrency) {
+                    current.running++;
+                    startNow.set(true);
+                } else {
+                    current.waiting.add(task);
+                }
+            }
+            return current;
+        });
+
+        if (startNow.get()) {
+            start(serverId, task);
+        } else {
+            log.info("Server {} busy, Task ID: {} queued", serverId, task.taskId());
+        }
+    }
+
+    /**
+     * Runs the task and then the server's queued ones. Runs that finish synchronously, such as
+     * rejected submissions, are followed up in this loop rather than from their completion
+     * callback, so a long queue is not drained one stack level per task.
+     */
+    private void start(Long serverId, QueuedTask first) {
+        QueuedTask task = first;
+        while (task != null) {
+            CompletableFuture<TaskStatus> run = submit(task.taskId());
+            if (!run.isDone()) {
+                QueuedTask running = task;
+                run.whenComplete((status, error) -> {
+                    QueuedTask next = onFinished(serverId);
+                    running.done().complete(error == null ? status : TaskStatus.FAILED);
+                    if (next != null) {
+                        start(serverId, next);
+                    }
+                });
+                return;
+            }
+            QueuedTask next = onFinished(serverId);
+            task.done().complete(run.handle((status, error) ->
+                error == null ? status : TaskStatus.FAILED).join());
+            task = next;
+        }
+    }
+
+    private CompletableFuture<TaskStatus> submit(Long taskId) {
+        try {
+            return scriptExecutor.executeAsync(taskId)
+                .whenComplete((status, error) -> {
+                    if (error != null) {
+                        log.error("Task ID: {} completed exceptionally", taskId, error);
+                    }
+                });
+        } catch (RuntimeException e) {
+            log.error("Failed to submit Task ID: {}", taskId, e);
+            markRejected(taskId, e);
+            return CompletableFuture.completedFuture(TaskStatus.FAILED);
+        }
+    }
+
+    /**
+     * Frees the finished task's slot, or hands it to the next queued task, which is returned.
+     */
+    private QueuedTask onFinished(Long serverId) {
+        admissionController.release(1);
+        AtomicReference<QueuedTask> next = new AtomicReference<>();
+        queues.computeIfPresent(serverId, (id, queue) -> {
+            synchronized (queue) {
+                QueuedTask nextTask = queue.waiting.poll();
+                if (nextTask != null) {
+                    next.set(nextTask);
+                    return queue;
+                }
+                queue.running--;
+                return queue.running > 0 ? queue : null;
+            }
+        });
+
+        return next.get();
+    }
+
+    private QueuedTask removeWaiting(Long serverId, Long taskId) {
+        ServerQueue queue = queues.get(serverId);
+        if (queue == null) {
+            return null;
+        }
+        synchronized (queue) {
+            Iterator<QueuedTask> waiting = queue.waiting.iterator();
+            while (waiting.hasNext()) {
+                QueuedTask task = waiting.next();
+                if (task.taskId().equals(taskId)) {
+                    waiting.remove();
+                    return task;
+                }
+            }
+            return null;
+        }
+    }
+
+    private void markRejected(Long taskId, RuntimeException e) {
+        try {
+            taskStateService.markFinished(taskId, TaskStatus.FAILED,
+                "Rejected by executor: " + e.getMessage());
+        } catch (RuntimeException stateError) {
+            log.warn("Could not mark Task ID: {} as failed: {}", taskId,
+                stateError.getMessage());
+        }
+    }
+
+    private record QueuedTask(Long taskId, CompletableFuture<TaskStatus> done) {
+    }
+
+    private static final class ServerQueue {
+        private final Queue<QueuedTask> waiting = new ArrayDeque<>();
+        private int running;
+    }
+}
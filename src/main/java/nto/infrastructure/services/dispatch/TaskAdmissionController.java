@@ -0,0 +1,103 @@
+package nto.infrastructure.services.dispatch;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import nto.application.dto.AdmissionStatsDto;
+import nto.core.utils.exceptions.TooManyTasksException;
+import nto.infrastructure.concurrency.BoundedVirtualThreadExecutor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the number of outstanding tasks (admitted and not yet finished, queued or running).
+ * A batch is admitted whole or rejected before anything is saved, so a full executor never
+ * leaves PENDING rows behind. By default the bound is what {@code taskExecutor} can hold
+ * without rejecting: max pool size plus queue capacity, or the virtual-thread concurrency.
+ */
+@Slf4j
+@Component
+public class TaskAdmissionController {
+
+    private final Executor taskExecutor;
+
+    @Value("${nto.admission.maxOutstanding:0}")
+    private int configuredCapacity;
+
+    @Value("${nto.admission.retryAfterSeconds:5}")
+    private long retryAfterSeconds;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong admittedTasks = new AtomicLong();
+    private final AtomicLong rejectedBatches = new AtomicLong();
+    private final AtomicLong rejectedTasks = new AtomicLong();
+
+    private int capacity;
+
+    public TaskAdmissionController(@Qualifier("taskExecutor") Executor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    @PostConstruct
+    public void init() {
+        capacity = configuredCapacity > 0 ? configuredCapacity : executorCapacity();
+        log.info("Task admission capacity: {} outstanding tasks", capacity);
+    }
+
+    /**
+     * Reserves room for {@code count} tasks or throws {@link TooManyTasksException}. Inside a
+     * transaction the reservation is returned if the transaction does not commit.
+     */
+    public void admit(int count) {
+        int current;
+        do {
+            current = outstanding.get();
+            if (current + count > capacity) {
+                rejectedBatches.incrementAndGet();
+                rejectedTasks.addAndGet(count);
+                throw new TooManyTasksException("Task capacity exhausted: " + current + " of "
+                    + capacity + " outstanding, " + count + " requested", retryAfterSeconds);
+            }
+        } while (!outstanding.compareAndSet(current, current + count));
+        admittedTasks.addAndGet(count);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            release(count);
+                        }
+                    }
+                });
+        }
+    }
+
+    public void release(int count) {
+        outstanding.addAndGet(-count);
+    }
+
+    public AdmissionStatsDto getStats() {
+        return new AdmissionStatsDto(capacity, outstanding.get(), admittedTasks.get(),
+            rejectedBatches.get(), rejectedTasks.get());
+    }
+
+    private int executorCapacity() {
+        if (taskExecutor instanceof ThreadPoolTaskExecutor pool) {
+            return pool.getMaxPoolSize() + pool.getQueueCapacity();
+        }
+        if (taskExecutor instanceof BoundedVirtualThreadExecutor virtual) {
+            return virtual.getMaxConcurrency();
+        }
+        throw new IllegalStateException("Set nto.admission.maxOutstanding for executor "
+            + taskExecutor.getClass().getName());
+    }
+}
@@ -0,0 +1,203 @@
+package nto.infrastructure.services.liveness;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nto.application.dto.HostLivenessDto;
+import nto.core.entities.ServerEntity;
+import nto.infrastructure.repositories.JpaServerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Last known reachability of every server. Entries younger than {@code nto.liveness.ttlMs}
+ * answer pings directly; older ones are refreshed with a {@link TcpProber} connect to the SSH
+ * port, which proves the host is up without paying for a handshake and auth. A full SSH check
+ * is only run on request, and its result is recorded here as well. A background pass every
+ * {@code nto.liveness.probeIntervalMs} re-probes all servers, at most
+ * {@code nto.liveness.maxInFlight} at a time, so the dispatcher can fail tasks for hosts that
+ * are known to be down without waiting for the connect timeout. A host only counts as known
+ * down after {@code nto.liveness.downAfterFailures} failed checks in a row, so one dropped
+ * probe under load does not fail real tasks.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "nto.executor.type", havingValue = "ssh")
+public class HostLivenessRegistry {
+
+    public static final String SOURCE_TCP = "TCP";
+    public static final String SOURCE_SSH = "SSH";
+    private static final int DEFAULT_SSH_PORT = 22;
+
+    private final TcpProber tcpProber;
+    private final JpaServerRepository serverRepository;
+
+    @Value("${nto.liveness.ttlMs:30000}")
+    private long ttlMs;
+
+    @Value("${nto.liveness.probeTimeoutMs:3000}")
+    private long probeTimeoutMs;
+
+    @Value("${nto.liveness.maxInFlight:2000}")
+    private int maxInFlight;
+
+    @Value("${nto.liveness.background:true}")
+    private boolean background;
+
+    @Value("${nto.liveness.downAfterFailures:3}")
+    private int downAfterFailures;
+
+    private final Map<Long, Liveness> entries = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<Boolean>> probing = new ConcurrentHashMap<>();
+
+    /**
+     * Reachability from the registry if fresh, otherwise from a TCP probe. Concurrent callers
+     * for the same server share one probe.
+     */
+    public CompletableFuture<Boolean> check(ServerEntity server) {
+        Liveness current = entries.get(server.getId());
+        if (current != null && current.isFresh(ttlMs)) {
+            return CompletableFuture.completedFuture(current.alive());
+        }
+        return probe(server);
+    }
+
+    public void record(Long serverId, boolean alive, String source) {
+        update(serverId, alive, null, source);
+    }
+
+    /**
+     * True only when a fresh entry says the server is unreachable and the checks before it
+     * failed as well.
+     */
+    public boolean isKnownDown(Long serverId) {
+        Liveness current = entries.get(serverId);
+        return current != null && !current.alive() && current.isFresh(ttlMs)
+            && current.failures() >= Math.max(1, downAfterFailures);
+    }
+
+    public HostLivenessDto get(Long serverId) {
+        Liveness current = entries.get(serverId);
+        return current == null ? null : current.toDto(serverId);
+    }
+
+    public List<HostLivenessDto> getAll() {
+        return entries.entrySet().stream()
+            .map(entry -> entry.getValue().toDto(entry.getKey()))
+            .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${nto.liveness.probeIntervalMs:15000}",
+        initialDelayString = "${nto.liveness.probeIntervalMs:15000}")
+    public void probeAll() {
+        if (!background) {
+            return;
+        }
+        List<ServerEntity> servers = serverRepository.findAllWithoutAssociations();
+        entries.keySet().retainAll(
+            servers.stream().map(ServerEntity::getId).collect(Collectors.toSet()));
+        probeBounded(servers);
+    }
+
+    /**
+     * Probes the servers with at most {@code maxInFlight} connects outstanding; each finished
+     * probe starts the next queued one.
+     */
+    public CompletableFuture<Void> probeBounded(Collection<ServerEntity> servers) {
+        Queue<ServerEntity> queue = new ConcurrentLinkedQueue<>(servers);
+        AtomicInteger remaining = new AtomicInteger(servers.size());
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (servers.isEmpty()) {
+            done.complete(null);
+            return done;
+        }
+        int lanes = maxInFlight > 0 ? Math.min(maxInFlight, servers.size()) : servers.size();
+        for (int i = 0; i < lanes; i++) {
+            runLane(queue, remaining, done);
+        }
+        return done;
+    }
+
+    private void runLane(Queue<ServerEntity> queue, AtomicInteger remaining,
+                         CompletableFuture<Void> done) {
+        ServerEntity server;
+        while ((server = queue.poll()) != null) {
+            CompletableFuture<Boolean> probe = probe(server);
+            if (!probe.isDone()) {
+                probe.whenComplete((alive, error) -> {
+                    settle(remaining, done);
+                    runLane(queue, remaining, done);
+                });
+                return;
+            }
+            settle(remaining, done);
+        }
+    }
+
+    private static void settle(AtomicInteger remaining, CompletableFuture<Void> done) {
+        if (remaining.decrementAndGet() == 0) {
+            done.complete(null);
+        }
+    }
+
+    private CompletableFuture<Boolean> probe(ServerEntity server) {
+        Long serverId = server.getId();
+        CompletableFuture<Boolean> started = new CompletableFuture<>();
+        CompletableFuture<Boolean> running = probing.putIfAbsent(serverId, started);
+        if (running != null) {
+            return running;
+        }
+
+        int port = server.getPort() != null ? server.getPort() : DEFAULT_SSH_PORT;
+        CompletableFuture<Long> connect;
+        try {
+            connect = tcpProber.probe(server.getIpAddress(), port, probeTimeoutMs);
+        } catch (RuntimeException e) {
+            connect = CompletableFuture.failedFuture(e);
+        }
+        connect.whenComplete((rttMillis, error) -> {
+            boolean alive = error == null;
+            update(serverId, alive, rttMillis, SOURCE_TCP);
+            probing.remove(serverId, started);
+            started.complete(alive);
+        });
+        return started;
+    }
+
+    private void update(Long serverId, boolean alive, Long rttMillis, String source) {
+        entries.compute(serverId, (id, previous) -> {
+            if (previous != null && previous.alive() != alive) {
+                log.info("Server {} is now {}", serverId, alive ? "reachable" : "unreachable");
+            }
+            int failures = alive ? 0 : (previous == null ? 0 : previous.failures()) + 1;
+            return new Liveness(alive, System.nanoTime(), LocalDateTime.now(), rttMillis,
+                source, failures);
+        });
+    }
+
+    private record Liveness(boolean alive, long checkedNanos, LocalDateTime checkedAt,
+                            Long rttMillis, String source, int failures) {
+
+        private boolean isFresh(long ttlMs) {
+            return System.nanoTime() - checkedNanos < TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        }
+
+        private HostLivenessDto toDto(Long serverId) {
+            return new HostLivenessDto(serverId, alive, rttMillis, checkedAt, source);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package nto.infrastructure.services.liveness;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that a TCP port accepts connections, without SSH handshake or auth. All probes share
+ * one selector thread: a probe is a non-blocking {@link SocketChannel#connect} registered for
+ * {@code OP_CONNECT}, so thousands can be in flight at once. The connection is closed as soon
+ * as it is established or refused.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "nto.executor.type", havingValue = "ssh")
+public class TcpProber {
+
+    private static final long SELECT_TIMEOUT_MS = 100;
+
+    private final Queue<Probe> registrations = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+    private Thread loop;
+
+    @PostConstruct
+    public void start() throws IOException {
+        selector = Selector.open();
+        loop = Thread.ofPlatform().name("tcp-prober").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        loop.interrupt();
+        selector.wakeup();
+        try {
+            loop.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        selector.close();
+    }
+
+    /**
+     * Completes with the connect time in milliseconds, or exceptionally if the port refused
+     * the connection or did not answer within {@code timeoutMs}.
+     */
+    public CompletableFuture<Long> probe(String host, int port, long timeoutMs) {
+        Probe probe = new Probe(new InetSocketAddress(host, port),
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs), timeoutMs);
+        if (probe.address.isUnresolved()) {
+            probe.result.completeExceptionally(new IOException("Unresolved host: " + host));
+            return probe.result;
+        }
+        registrations.offer(probe);
+        selector.wakeup();
+        return probe.result;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                register();
+                selector.select(SELECT_TIMEOUT_MS);
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    finish(key);
+                }
+                expire();
+            } catch (IOException | RuntimeException e) {
+                log.warn("TCP prober loop error: {}", e.getMessage());
+            }
+        }
+        selector.keys().forEach(key -> fail(key, new IOException("Prober stopped")));
+        registrations.forEach(probe -> probe.result.completeExceptionally(
+            new IOException("Prober stopped")));
+    }
+
+    private void register() {
+        Probe probe;
+        while ((probe = registrations.poll()) != null) {
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                if (channel.connect(probe.address)) {
+                    probe.succeed();
+                    channel.close();
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                }
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(channel);
+                probe.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void finish(SelectionKey key) {
+        Probe probe = (Probe) key.attachment();
+        try {
+            if (((SocketChannel) key.channel()).finishConnect()) {
+                probe.succeed();
+                key.cancel();
+                closeQuietly(key.channel());
+            }
+        } catch (IOException e) {
+            fail(key, e);
+        }
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+        for (SelectionKey key : selector.keys()) {
+            Probe probe = (Probe) key.attachment();
+            if (now - probe.deadlineNanos >= 0) {
+                fail(key, new SocketTimeoutException(
+                    "Connect timed out after " + probe.timeoutMs + " ms"));
+            }
+        }
+    }
+
+    private void fail(SelectionKey key, IOException error) {
+        key.cancel();
+        closeQuietly(key.channel());
+        ((Probe) key.attachment()).result.completeExceptionally(error);
+    }
+
+    private static void closeQuietly(Channel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Error closing probe socket: {}", e.getMessage());
+        }
+    }
+
+    private static final class Probe {
+        private final InetSocketAddress address;
+        private final long startNanos = System.nanoTime();
+        private final long deadlineNanos;
+        private final long timeoutMs;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        private Probe(InetSocketAddress address, long deadlineNanos, long timeoutMs) {
+            this.address = address;
+            this.deadlineNanos = deadlineNanos;
+            this.timeoutMs = timeoutMs;
+        }
+
+        private void succeed() {
+            result.complete(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package nto.infrastructure.services.output;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Result of a finished capture: the text stored in {@code tasks.output} and, when the output
+ * did not fit in memory, the blob holding the full text.
+ */
+public record CapturedOutput(String preview, String blobRef, long totalBytes) {
+
+    public static CapturedOutput inline(String output) {
+        return new CapturedOutput(output, null,
+            output.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    public boolean isSpilled() {
+        return blobRef != null;
+    }
+}
@@ -0,0 +1,147 @@
+package nto.infrastructure.services.output;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Local append-only store for task outputs that exceed the in-memory capture limit.
+ * Blobs are named after the task and referenced from {@code tasks.output_blob_ref}.
+ */
+@Slf4j
+@Component
+public class OutputBlobStore {
+
+    @Value("${nto.output.blobDir:${java.io.tmpdir}/nto-output}")
+    private Path blobDir;
+
+    @Value("${nto.output.memoryLimitBytes:1048576}")
+    private int memoryLimitBytes;
+
+    @Value("${nto.output.previewBytes:16384}")
+    private int previewBytes;
+
+    @Value("${nto.output.blobRetentionDays:30}")
+    private int blobRetentionDays;
+
+    @PostConstruct
+    public void init() throws IOException {
+        blobDir = blobDir.toAbsolutePath().normalize();
+        Files.createDirectories(blobDir);
+    }
+
+    public TaskOutputCapture newCapture(Long taskId) {
+        return new TaskOutputCapture(this, taskId, memoryLimitBytes);
+    }
+
+    public Optional<Path> find(String blobRef) {
+        if (blobRef == null) {
+            return Optional.empty();
+        }
+        Path path = blobDir.resolve(blobRef).normalize();
+        if (!path.startsWith(blobDir) || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(path);
+    }
+
+    @Scheduled(cron = "${nto.output.blobCleanupCron:0 30 3 * * *}")
+    public void deleteExpired() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(blobRetentionDays));
+        try (Stream<Path> files = Files.list(blobDir)) {
+            files.filter(path -> isOlderThan(path, cutoff)).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Output blob cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    Path blobPath(Long taskId) {
+        return blobDir.resolve(blobName(taskId));
+    }
+
+    Path spillPath(Long taskId, String stream) {
+        return blobDir.resolve("task-" + taskId + "." + stream + ".part");
+    }
+
+    CapturedOutput describe(Long taskId, Path blob) throws IOException {
+        try (FileChannel channel = FileChannel.open(blob, StandardOpenOption.READ)) {
+            long size = channel.size();
+            String head = decode(read(channel, 0, (int) Math.min(previewBytes, size)), false);
+            long tailStart = Math.max(previewBytes, size - previewBytes);
+            String tail = decode(read(channel, tailStart, (int) (size - tailStart)), true);
+            String preview = head
+                + "\n\n... [output truncated: " + size + " bytes total, full output at "
+                + "/api/tasks/" + taskId + "/output] ...\n\n"
+                + tail;
+            return new CapturedOutput(preview, blobName(taskId), size);
+        }
+    }
+
+    private static String blobName(Long taskId) {
+        return "task-" + taskId + ".out";
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length)
+        throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(0, length));
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static String decode(ByteBuffer bytes, boolean skipLeadingContinuation) {
+        if (skipLeadingContinuation) {
+            while (bytes.hasRemaining() && (bytes.get(bytes.position()) & 0xC0) == 0x80) {
+                bytes.get();
+            }
+        }
+        try {
+            String text = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(bytes)
+                .toString();
+            return !skipLeadingContinuation && text.endsWith("\uFFFD")
+                ? text.substring(0, text.length() - 1)
+                : text;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete output blob {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package nto.infrastructure.services.output;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps up to {@code memoryLimit} bytes on heap; once exceeded, everything is moved to an
+ * append-only spill file and further writes go straight to disk.
+ */
+final class SpillingBuffer extends OutputStream {
+
+    private final int memoryLimit;
+    private final Path spillFile;
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private OutputStream spill;
+    private long size;
+
+    SpillingBuffer(int memoryLimit, Path spillFile) {
+        this.memoryLimit = memoryLimit;
+        this.spillFile = spillFile;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (spill == null && memory.size() + len > memoryLimit) {
+            spill = new BufferedOutputStream(Files.newOutputStream(spillFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE));
+            memory.writeTo(spill);
+            memory = null;
+        }
+        if (spill != null) {
+            spill.write(b, off, len);
+        } else {
+            memory.write(b, off, len);
+        }
+        size += len;
+    }
+
+    synchronized boolean isSpilled() {
+        return spill != null;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    synchronized String memoryText() {
+        return memory.toString(StandardCharsets.UTF_8);
+    }
+
+    synchronized void transferTo(WritableByteChannel target) throws IOException {
+        if (spill == null) {
+            target.write(ByteBuffer.wrap(memory.toByteArray()));
+            return;
+        }
+        spill.flush();
+        try (FileChannel source = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+            long position = 0;
+            long total = source.size();
+            while (position < total) {
+                position += source.transferTo(position, total - position, target);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (spill != null) {
+            spill.close();
+        }
+        Files.deleteIfExists(spillFile);
+    }
+}
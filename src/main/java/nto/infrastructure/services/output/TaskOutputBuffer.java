@@ -0,0 +1,208 @@
+package nto.infrastructure.services.output;
+
+import lombok.extern.slf4j.Slf4j;
+import nto.core.enums.TaskStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded window over the most recent output of one running task plus the SSE subscribers
+ * attached to it. Oldest chunks are evicted once {@code capacity} characters are exceeded.
+ * Events are queued per subscriber under the monitor and written to the emitters on
+ * {@code sendExecutor}, so appending output never waits for a client; a subscriber that falls
+ * {@code MAX_PENDING_EVENTS} behind is dropped.
+ */
+@Slf4j
+final class TaskOutputBuffer {
+
+    static final String EVENT_SNAPSHOT = "snapshot";
+    static final String EVENT_END = "end";
+    static final int MAX_PENDING_EVENTS = 1024;
+
+    private final int capacity;
+    private final Executor sendExecutor;
+    private final Deque<Chunk> chunks = new ArrayDeque<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private int size;
+    private boolean started;
+    private boolean finished;
+    private boolean dirty;
+
+    TaskOutputBuffer(int capacity, Executor sendExecutor) {
+        this.capacity = Math.max(1, capacity);
+        this.sendExecutor = sendExecutor;
+    }
+
+    synchronized void markStarted() {
+        started = true;
+    }
+
+    synchronized boolean isStarted() {
+        return started;
+    }
+
+    synchronized void append(String stream, String text) {
+        if (finished || text.isEmpty()) {
+            return;
+        }
+        String kept = text.length() > capacity ? text.substring(text.length() - capacity) : text;
+        chunks.addLast(new Chunk(stream, kept));
+        size += kept.length();
+        while (size > capacity) {
+            size -= chunks.removeFirst().text().length();
+        }
+        dirty = true;
+        broadcast(stream, text);
+    }
+
+    synchronized void attach(SseEmitter emitter, Runnable onDetach) {
+        Subscriber subscriber = new Subscriber(emitter);
+        if (!chunks.isEmpty()) {
+            subscriber.send(EVENT_SNAPSHOT, snapshotText());
+        }
+        if (finished) {
+            subscriber.complete();
+            return;
+        }
+        subscribers.add(subscriber);
+        Runnable detach = () -> {
+            subscribers.remove(subscriber);
+            onDetach.run();
+        };
+        emitter.onCompletion(detach);
+        emitter.onTimeout(detach);
+        emitter.onError(error -> detach.run());
+    }
+
+    synchronized void finish(TaskStatus status) {
+        finished = true;
+        broadcast(EVENT_END, status.name());
+        subscribers.forEach(Subscriber::complete);
+        subscribers.clear();
+    }
+
+    synchronized boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * Returns the buffered text if it changed since the last call, otherwise {@code null}.
+     */
+    synchronized String drainCheckpoint() {
+        if (!dirty) {
+            return null;
+        }
+        dirty = false;
+        return snapshotText();
+    }
+
+    private String snapshotText() {
+        StringBuilder sb = new StringBuilder(size);
+        chunks.forEach(chunk -> sb.append(chunk.text()));
+        return sb.toString();
+    }
+
+    private void broadcast(String event, String data) {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.send(event, data)) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    private record Chunk(String stream, String text) {
+    }
+
+    private record Event(String name, String data) {
+    }
+
+    /**
+     * Pending events of one emitter. At most one drain runs at a time, so events reach the
+     * client in the order they were queued.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<Event> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean completing;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private boolean send(String event, String data) {
+            if (closed) {
+                return false;
+            }
+            if (pendingCount.incrementAndGet() > MAX_PENDING_EVENTS) {
+                closed = true;
+                pending.clear();
+                sendExecutor.execute(() -> {
+                    log.debug("Dropping output subscriber: more than {} events behind",
+                        MAX_PENDING_EVENTS);
+                    emitter.completeWithError(
+                        new IOException("Output subscriber fell behind"));
+                });
+                return false;
+            }
+            pending.offer(new Event(event, data));
+            schedule();
+            return true;
+        }
+
+        private void complete() {
+            completing = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Event event;
+                while ((event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    if (!closed) {
+                        deliver(event);
+                    }
+                }
+                if (completing && !closed) {
+                    closed = true;
+                    emitter.complete();
+                }
+                draining.set(false);
+            } while (hasWork() && draining.compareAndSet(false, true));
+        }
+
+        private boolean hasWork() {
+            return !pending.isEmpty() || (completing && !closed);
+        }
+
+        private void deliver(Event event) {
+            try {
+                emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping output subscriber: {}", e.getMessage());
+                closed = true;
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
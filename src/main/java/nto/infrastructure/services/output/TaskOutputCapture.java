@@ -0,0 +1,85 @@
+package nto.infrastructure.services.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Captures stdout and stderr of one task run. Small outputs stay on heap and are formatted
+ * as before; large ones are assembled into a blob file on disk, and only a head/tail
+ * preview is returned for the database.
+ */
+public class TaskOutputCapture implements AutoCloseable {
+
+    private final OutputBlobStore blobStore;
+    private final Long taskId;
+    private final SpillingBuffer stdout;
+    private final SpillingBuffer stderr;
+
+    TaskOutputCapture(OutputBlobStore blobStore, Long taskId, int memoryLimit) {
+        this.blobStore = blobStore;
+        this.taskId = taskId;
+        this.stdout = new SpillingBuffer(memoryLimit, blobStore.spillPath(taskId, "stdout"));
+        this.stderr = new SpillingBuffer(memoryLimit, blobStore.spillPath(taskId, "stderr"));
+    }
+
+    public OutputStream stdout() {
+        return stdout;
+    }
+
+    public OutputStream stderr() {
+        return stderr;
+    }
+
+    public CapturedOutput finish(int exitCode) throws IOException {
+        String exitLine = "\nExit Status: " + exitCode;
+        if (!stdout.isSpilled() && !stderr.isSpilled()) {
+            return CapturedOutput.inline(format(stdout.memoryText(), stderr.memoryText(), exitLine));
+        }
+
+        Path blob = blobStore.blobPath(taskId);
+        try (FileChannel out = FileChannel.open(blob, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            stdout.transferTo(out);
+            if (stderr.size() > 0) {
+                write(out, stdout.size() > 0 ? "\n[ERR] " : "[ERR] ");
+                stderr.transferTo(out);
+            }
+            write(out, exitLine);
+        }
+        return blobStore.describe(taskId, blob);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            stdout.close();
+        } finally {
+            stderr.close();
+        }
+    }
+
+    private static String format(String out, String err, String exitLine) {
+        StringBuilder sb = new StringBuilder(out.length() + err.length() + exitLine.length() + 8);
+        sb.append(out);
+        if (!err.isEmpty()) {
+            if (!sb.isEmpty()) {
+                sb.append("\n");
+            }
+            sb.append("[ERR] ").append(err);
+        }
+        sb.append(exitLine);
+        return sb.toString();
+    }
+
+    private static void write(FileChannel out, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
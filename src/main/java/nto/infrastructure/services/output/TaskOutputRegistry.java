@@ -0,0 +1,145 @@
+package nto.infrastructure.services.output;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.services.TaskStateService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskOutputRegistry {
+
+    public static final String STDOUT = "stdout";
+    public static final String STDERR = "stderr";
+
+    private final TaskStateService taskStateService;
+
+    @Value("${nto.output.bufferChars:65536}")
+    private int bufferChars;
+
+    @Value("${nto.output.streamTimeoutMs:1800000}")
+    private long streamTimeoutMs;
+
+    private final Map<Long, TaskOutputBuffer> buffers = new ConcurrentHashMap<>();
+
+    // SSE writes block on slow clients, so they run here rather than on the output readers
+    private final ExecutorService sendExecutor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("NtoOutputSse-", 0).factory());
+
+    @PreDestroy
+    public void stop() {
+        sendExecutor.shutdown();
+    }
+
+    public void open(Long taskId) {
+        buffers.computeIfAbsent(taskId, this::newBuffer).markStarted();
+    }
+
+    public void append(Long taskId, String stream, String text) {
+        TaskOutputBuffer buffer = buffers.get(taskId);
+        if (buffer != null) {
+            buffer.append(stream, text);
+        }
+    }
+
+    public void complete(Long taskId, TaskStatus status) {
+        TaskOutputBuffer buffer = buffers.remove(taskId);
+        if (buffer != null) {
+            buffer.finish(status);
+        }
+    }
+
+    /**
+     * Ends the streams of a task that reached a final state without being opened, such as one
+     * cancelled or rejected while queued. Buffers of started tasks are completed by their
+     * executor once the last output is in.
+     */
+    public void finishUnstarted(Long taskId, TaskStatus status) {
+        TaskOutputBuffer buffer = buffers.get(taskId);
+        if (buffer != null && !buffer.isStarted() && buffers.remove(taskId, buffer)) {
+            buffer.finish(status);
+        }
+    }
+
+    public boolean isLive(Long taskId) {
+        return buffers.containsKey(taskId);
+    }
+
+    /**
+     * Attaches an SSE subscriber. A live task replays its buffered window and then streams new
+     * chunks. A queued task gets an empty buffer to wait on; its status is read again once the
+     * subscriber is attached, in case the task ended before the buffer existed. Otherwise the
+     * persisted output is sent once and the stream ends.
+     */
+    public SseEmitter subscribe(Long taskId, String persistedOutput, TaskStatus status) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        TaskOutputBuffer buffer = status == TaskStatus.PENDING
+            ? buffers.computeIfAbsent(taskId, this::newBuffer)
+            : buffers.get(taskId);
+
+        if (buffer == null) {
+            sendPersisted(emitter, persistedOutput, status);
+            return emitter;
+        }
+
+        buffer.attach(emitter, () -> dropIfAbandoned(taskId, buffer));
+        if (!buffer.isStarted()) {
+            TaskStatus current = taskStateService.currentStatus(taskId);
+            if (current.isFinal()) {
+                finishUnstarted(taskId, current);
+            }
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${nto.output.checkpointIntervalMs:5000}")
+    public void checkpoint() {
+        buffers.forEach((taskId, buffer) -> {
+            String output = buffer.drainCheckpoint();
+            if (output == null) {
+                return;
+            }
+            try {
+                taskStateService.checkpointOutput(taskId, output);
+            } catch (RuntimeException e) {
+                log.warn("Output checkpoint failed for Task ID: {}: {}", taskId, e.getMessage());
+            }
+        });
+    }
+
+    private void sendPersisted(SseEmitter emitter, String output, TaskStatus status) {
+        try {
+            if (output != null && !output.isEmpty()) {
+                emitter.send(SseEmitter.event().name(TaskOutputBuffer.EVENT_SNAPSHOT).data(output));
+            }
+            if (status != null) {
+                emitter.send(SseEmitter.event().name(TaskOutputBuffer.EVENT_END).data(status.name()));
+            }
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private TaskOutputBuffer newBuffer(Long taskId) {
+        return new TaskOutputBuffer(bufferChars, sendExecutor);
+    }
+
+    private void dropIfAbandoned(Long taskId, TaskOutputBuffer buffer) {
+        if (!buffer.isStarted() && !buffer.hasSubscribers()) {
+            buffers.remove(taskId, buffer);
+        }
+    }
+}
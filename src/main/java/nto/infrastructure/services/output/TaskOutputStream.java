@@ -0,0 +1,84 @@
+package nto.infrastructure.services.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Passes channel bytes through to the capture stream and publishes them to the output
+ * registry as UTF-8 text. Multi-byte sequences split across writes are carried over.
+ * MINA closes channel streams itself when the channel closes, so {@link #close()} is
+ * idempotent and leaves the capture open for its owner to finish.
+ */
+public class TaskOutputStream extends OutputStream {
+
+    private final OutputStream capture;
+    private final TaskOutputRegistry registry;
+    private final Long taskId;
+    private final String stream;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer pending = ByteBuffer.allocate(0);
+    private boolean closed;
+
+    public TaskOutputStream(OutputStream capture, TaskOutputRegistry registry, Long taskId,
+                            String stream) {
+        this.capture = capture;
+        this.registry = registry;
+        this.taskId = taskId;
+        this.stream = stream;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        capture.write(b, off, len);
+
+        ByteBuffer in;
+        if (pending.hasRemaining()) {
+            in = ByteBuffer.allocate(pending.remaining() + len);
+            in.put(pending).put(b, off, len).flip();
+        } else {
+            in = ByteBuffer.wrap(b, off, len);
+        }
+        CharBuffer out = CharBuffer.allocate(in.remaining());
+        decoder.decode(in, out, false);
+        pending = ByteBuffer.allocate(in.remaining()).put(in).flip();
+        publish(out);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        capture.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        CharBuffer out = CharBuffer.allocate(pending.remaining() + 1);
+        decoder.decode(pending, out, true);
+        decoder.flush(out);
+        pending = ByteBuffer.allocate(0);
+        publish(out);
+        capture.flush();
+    }
+
+    private void publish(CharBuffer out) {
+        out.flip();
+        if (out.hasRemaining()) {
+            registry.append(taskId, stream, out.toString());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package nto.infrastructure.services.ssh;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sshd.client.channel.ChannelExec;
+import org.apache.sshd.client.session.ClientSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps large scripts on the hosts instead of sending them as the exec command on every run.
+ * A script of at least {@code nto.ssh.scriptCache.minBytes} is stored once per host under
+ * {@code nto.ssh.scriptCache.dir} as {@code <sha256>.sh} and run by path with the login shell,
+ * which is what interpreted the inline command before. Hashes already confirmed on a server
+ * are remembered; otherwise a {@code test -f} on the same session decides whether the content
+ * is streamed up through {@code cat}. Uploads go to a temporary name and are renamed, so a
+ * concurrent run never sees half a script. A cached run that fails is forgotten and checked
+ * again next time, in case the file was removed on the host.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "nto.executor.type", havingValue = "ssh")
+public class RemoteScriptCache {
+
+    static final long COMMAND_TIMEOUT_SECONDS = 30;
+
+    @Value("${nto.ssh.scriptCache.dir:.cache/nto/scripts}")
+    private String cacheDir;
+
+    @Value("${nto.ssh.scriptCache.minBytes:4096}")
+    private int minBytes;
+
+    private final Map<Long, Set<String>> stored = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves the command that runs {@code content} on the server, uploading it first if
+     * the host does not have it yet.
+     */
+    public CompletableFuture<RemoteCommand> prepare(ClientSession session, Long serverId,
+                                                    String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (minBytes <= 0 || bytes.length < minBytes) {
+            return CompletableFuture.completedFuture(new RemoteCommand(content, null));
+        }
+        String hash = sha256(bytes);
+        String path = cacheDir + "/" + hash + ".sh";
+        RemoteCommand cached = new RemoteCommand("exec \"${SHELL:-/bin/sh}\" " + quote(path),
+            hash);
+        if (isStored(serverId, hash)) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return exec(session, "test -f " + quote(path), null)
+            .thenCompose(present -> {
+                if (present == 0) {
+                    return CompletableFuture.completedFuture(0);
+                }
+                log.info("[SSH] Uploading script {} ({} bytes) to server {}", hash,
+                    bytes.length, serverId);
+                String temp = quote(path + ".tmp.") + "$$";
+                return exec(session, "mkdir -p " + quote(cacheDir) + " && cat > " + temp
+                    + " && mv -f " + temp + " " + quote(path), bytes);
+            })
+            .thenApply(status -> {
+                if (status != 0) {
+                    throw new IllegalStateException(
+                        "Could not store script " + hash + " on server " + serverId
+                            + ", exit status " + status);
+                }
+                stored.computeIfAbsent(serverId, id -> ConcurrentHashMap.newKeySet()).add(hash);
+                return cached;
+            });
+    }
+
+    public void forget(Long serverId, RemoteCommand command) {
+        if (command.contentHash() == null) {
+            return;
+        }
+        Set<String> hashes = stored.get(serverId);
+        if (hashes != null) {
+            hashes.remove(command.contentHash());
+        }
+    }
+
+    public boolean isStored(Long serverId, String hash) {
+        Set<String> hashes = stored.get(serverId);
+        return hashes != null && hashes.contains(hash);
+    }
+
+    /**
+     * Runs a helper command on its own channel and completes with its exit status.
+     */
+    private static CompletableFuture<Integer> exec(ClientSession session, String command,
+                                                   byte[] stdin) {
+        CompletableFuture<Integer> exit = new CompletableFuture<>();
+        ChannelExec channel;
+        try {
+            channel = session.createExecChannel(command);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            if (stdin != null) {
+                channel.setIn(new ByteArrayInputStream(stdin));
+            }
+            channel.addCloseFutureListener(closed -> {
+                Integer status = channel.getExitStatus();
+                exit.complete(status != null ? status : -1);
+            });
+            channel.open().addListener(opened -> {
+                if (!opened.isOpened()) {
+                    Throwable cause = opened.getException();
+                    exit.completeExceptionally(cause != null
+                        ? cause
+                        : new IOException("Channel open failed"));
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            exit.completeExceptionally(e);
+        }
+        return exit.orTimeout(COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .whenComplete((status, error) -> {
+                if (error != null) {
+                    channel.close(true);
+                }
+            });
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    /**
+     * The exec command for one run; {@code contentHash} is set when it runs a cached file.
+     */
+    public record RemoteCommand(String command, String contentHash) {
+    }
+}
@@ -0,0 +1,32 @@
+package nto.infrastructure.services.ssh;
+
+import org.apache.sshd.client.session.ClientSession;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One exec-channel slot on a pooled session. Closing the lease returns the slot; it does not
+ * close the session, which may be carrying other channels.
+ */
+public final class SessionLease implements AutoCloseable {
+
+    private final ClientSession session;
+    private final Runnable releaseAction;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    public SessionLease(ClientSession session, Runnable releaseAction) {
+        this.session = session;
+        this.releaseAction = releaseAction;
+    }
+
+    public ClientSession session() {
+        return session;
+    }
+
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            releaseAction.run();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package nto.infrastructure.services.ssh;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nto.application.dto.PrewarmStatsDto;
+import nto.application.interfaces.repositories.ServerRepository;
+import nto.core.entities.ServerEntity;
+import nto.infrastructure.repositories.JpaTaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opens SSH sessions ahead of the tasks that will need them, so the handshake is off the
+ * first task's critical path. At most {@code nto.ssh.prewarm.concurrency} handshakes run at
+ * once across all callers; the rest wait in a queue and start as earlier ones settle. The
+ * futures handed out always complete normally: a failed warm-up is recorded here, and the
+ * task that follows connects on its own and reports its own result.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "nto.executor.type", havingValue = "ssh")
+public class SessionPrewarmer {
+
+    private final SshSessionManager sessionManager;
+    private final ServerRepository serverRepository;
+    private final JpaTaskRepository taskRepository;
+
+    @Value("${nto.ssh.prewarm.concurrency:32}")
+    private int concurrency;
+
+    @Value("${nto.ssh.prewarm.groupRuns:true}")
+    private boolean groupRuns;
+
+    @Value("${nto.ssh.prewarm.onStartup:false}")
+    private boolean onStartup;
+
+    @Value("${nto.ssh.prewarm.recentActivityHours:24}")
+    private long recentActivityHours;
+
+    private final Queue<Warmup> queued = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inProgress = new AtomicInteger();
+    private final AtomicLong warmed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Map<Long, String> failures = new ConcurrentHashMap<>();
+
+    /**
+     * Pre-warms the servers of a group run. Returns a future per server that completes once
+     * its warm-up has settled, or an empty map if group-run warm-up is switched off.
+     */
+    public Map<Long, CompletableFuture<Void>> warmForGroupRun(Collection<Long> serverIds) {
+        return groupRuns ? warm(serverIds) : Map.of();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmRecentlyActiveServers() {
+        if (!onStartup) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.now().minusHours(recentActivityHours);
+        Collection<Long> serverIds = taskRepository.findServerIdsWithTasksSince(since);
+        log.info("Pre-warming SSH sessions for {} servers active in the last {} h",
+            serverIds.size(), recentActivityHours);
+        warm(serverIds);
+    }
+
+    public Map<Long, CompletableFuture<Void>> warm(Collection<Long> serverIds) {
+        Map<Long, CompletableFuture<Void>> settled = new HashMap<>();
+        if (serverIds.isEmpty()) {
+            return settled;
+        }
+        for (ServerEntity server : serverRepository.findAllById(serverIds)) {
+            Warmup warmup = new Warmup(server, new CompletableFuture<>());
+            settled.put(server.getId(), warmup.settled());
+            queued.offer(warmup);
+        }
+        drain();
+        return settled;
+    }
+
+    public PrewarmStatsDto getStats() {
+        return new PrewarmStatsDto(concurrency, inProgress.get(), queued.size(), warmed.get(),
+            failed.get(), Map.copyOf(failures));
+    }
+
+    /**
+     * Starts queued warm-ups while slots are free. Warm-ups that settle synchronously, such as
+     * a server with an open session already, are handled in this loop rather than by a
+     * callback that would drain again from deeper in the stack.
+     */
+    private void drain() {
+        while (!queued.isEmpty()) {
+            int current = inProgress.get();
+            if (current >= concurrency) {
+                return;
+            }
+            if (!inProgress.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Warmup warmup = queued.poll();
+            if (warmup == null) {
+                inProgress.decrementAndGet();
+                return;
+            }
+            CompletableFuture<?> session = start(warmup);
+            if (session.isDone()) {
+                settle(warmup, session.handle((opened, error) -> error).join());
+            } else {
+                session.whenComplete((opened, error) -> {
+                    settle(warmup, error);
+                    drain();
+                });
+            }
+        }
+    }
+
+    private CompletableFuture<?> start(Warmup warmup) {
+        try {
+            return sessionManager.warmUp(warmup.server());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void settle(Warmup warmup, Throwable error) {
+        Long serverId = warmup.server().getId();
+        if (error == null) {
+            warmed.incrementAndGet();
+            failures.remove(serverId);
+        } else {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            String reason = cause.getMessage() != null ? cause.getMessage()
+                : cause.getClass().getSimpleName();
+            failed.incrementAndGet();
+            failures.put(serverId, reason);
+            log.warn("Pre-warm failed for server {}: {}", serverId, reason);
+        }
+        inProgress.decrementAndGet();
+        warmup.settled().complete(null);
+    }
+
+    private record Warmup(ServerEntity server, CompletableFuture<Void> settled) {
+    }
+}
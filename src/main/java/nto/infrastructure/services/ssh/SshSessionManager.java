@@ -2,44 +2,207 @@ package nto.infrastructure.services.ssh;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nto.application.dto.SessionHealthDto;
+import nto.application.dto.SessionPoolStatsDto;
+import nto.application.interfaces.repositories.ServerRepository;
 import nto.core.entities.ServerEntity;
 import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.future.ConnectFuture;
 import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.AttributeRepository;
+import org.apache.sshd.common.AttributeRepository.AttributeKey;
+import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.SshConstants;
+import org.apache.sshd.common.compression.BuiltinCompressions;
+import org.apache.sshd.common.compression.Compression;
+import org.apache.sshd.common.io.BuiltinIoServiceFactoryFactories;
+import org.apache.sshd.common.session.Session;
+import org.apache.sshd.common.session.SessionListener;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.core.CoreModuleProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Pool of authenticated SSH sessions, one list per server, each session multiplexing up to
+ * {@code maxChannels} exec channels. The pool is bounded: once {@code nto.ssh.pool.maxSessions}
+ * sessions are open, opening another first closes an idle session of the least recently used
+ * server. The cap is soft; if every session is busy, the new one is opened anyway and the
+ * reaper trims the excess later. The reaper also closes sessions idle for longer than
+ * {@code nto.ssh.pool.idleTtlSeconds} and drops the lock of every server left without
+ * sessions. A thread that locked a server whose lock was dropped meanwhile retries with the
+ * current one ({@link #lockServer}).
+ * <p>
+ * A keepalive pass sends an OpenSSH {@code keepalive@openssh.com} global request on the
+ * {@code nto.ssh.keepalive.batchSize} sessions checked longest ago. Any reply, even a refusal,
+ * proves the connection is alive and gives the host's round-trip time; a session that does
+ * not answer within {@code nto.ssh.keepalive.timeoutMs} is evicted and, if it was the
+ * server's last one, reconnected, so tasks do not land on a half-closed connection. The
+ * eviction runs on {@code taskExecutor}: the timeout fires on the JDK's shared delay thread
+ * and the reconnect reads the server from the database.
+ * <p>
+ * The client transport is tuned with {@code nto.ssh.transport.*}; zero keeps MINA's default.
+ * Compression is negotiated during key exchange, so a server's own
+ * {@link ServerEntity#getCompression()} is passed as connection context and applied by a
+ * session listener before the first KEXINIT is sent.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class SshSessionManager {
 
-    private final Map<Long, ClientSession> sessions = new ConcurrentHashMap<>();
+    static final long SESSION_OPEN_TIMEOUT_SECONDS = 10;
+    static final String KEEPALIVE_REQUEST = "keepalive@openssh.com";
+    private static final AttributeKey<Boolean> COMPRESSION = new AttributeKey<>();
+
+    private final ServerRepository serverRepository;
+    private final Executor taskExecutor;
+
+    private final Map<Long, List<PooledSession>> sessions = new ConcurrentHashMap<>();
     private final Map<Long, ReentrantLock> serverLocks = new ConcurrentHashMap<>();
+    // access-ordered, eldest first; guarded by its own monitor
+    private final Map<Long, Boolean> recentServers = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, SessionHealthDto> health = new ConcurrentHashMap<>();
     private SshClient client;
 
+    @Value("${nto.ssh.maxChannelsPerSession:10}")
+    private int defaultMaxChannels;
+
+    @Value("${nto.ssh.pool.maxSessions:1000}")
+    private int maxSessions;
+
+    @Value("${nto.ssh.pool.idleTtlSeconds:300}")
+    private long idleTtlSeconds;
+
+    @Value("${nto.ssh.transport.ioServiceFactory:}")
+    private String ioServiceFactory;
+
+    @Value("${nto.ssh.transport.nioWorkers:0}")
+    private int nioWorkers;
+
+    @Value("${nto.ssh.transport.windowSize:0}")
+    private long windowSize;
+
+    @Value("${nto.ssh.transport.maxPacketSize:0}")
+    private long maxPacketSize;
+
+    @Value("${nto.ssh.transport.heartbeatIntervalMs:0}")
+    private long heartbeatIntervalMs;
+
+    @Value("${nto.ssh.transport.compression:false}")
+    private boolean compression;
+
+    @Value("${nto.ssh.keepalive.batchSize:200}")
+    private int keepaliveBatchSize;
+
+    @Value("${nto.ssh.keepalive.timeoutMs:5000}")
+    private long keepaliveTimeoutMs;
+
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong idleEvictions = new AtomicLong();
+    private final AtomicLong lruEvictions = new AtomicLong();
+    private final AtomicLong keepaliveProbes = new AtomicLong();
+    private final AtomicLong deadSessions = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+
+    public SshSessionManager(ServerRepository serverRepository,
+                             @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.serverRepository = serverRepository;
+        this.taskExecutor = taskExecutor;
+    }
+
     @PostConstruct
     public void init() {
         this.client = SshClient.setUpDefaultClient();
+        configureTransport(client);
         this.client.start();
         log.info("SSH Client started");
     }
 
+    private void configureTransport(SshClient sshClient) {
+        if (ioServiceFactory != null && !ioServiceFactory.isBlank()) {
+            BuiltinIoServiceFactoryFactories factory =
+                BuiltinIoServiceFactoryFactories.fromFactoryName(ioServiceFactory);
+            if (factory == null || !factory.isSupported()) {
+                throw new IllegalStateException(
+                    "SSH IO service factory is not available: " + ioServiceFactory);
+            }
+            sshClient.setIoServiceFactoryFactory(factory.create());
+        }
+        if (nioWorkers > 0) {
+            CoreModuleProperties.NIO_WORKERS.set(sshClient, nioWorkers);
+        }
+        if (windowSize > 0) {
+            CoreModuleProperties.WINDOW_SIZE.set(sshClient, windowSize);
+        }
+        if (maxPacketSize > 0) {
+            CoreModuleProperties.MAX_PACKET_SIZE.set(sshClient, maxPacketSize);
+        }
+        if (heartbeatIntervalMs > 0) {
+            CoreModuleProperties.HEARTBEAT_INTERVAL.set(sshClient,
+                Duration.ofMillis(heartbeatIntervalMs));
+        }
+        sshClient.setCompressionFactories(compressionFactories(compression));
+        sshClient.addSessionListener(new SessionListener() {
+            @Override
+            public void sessionCreated(Session session) {
+                AttributeRepository context = ((ClientSession) session).getConnectionContext();
+                Boolean perServer = context != null ? context.getAttribute(COMPRESSION) : null;
+                if (perServer != null) {
+                    session.setCompressionFactories(compressionFactories(perServer));
+                }
+            }
+        });
+    }
+
+    /**
+     * OpenSSH servers only offer the delayed variant, which starts compressing after auth.
+     */
+    private static List<NamedFactory<Compression>> compressionFactories(boolean enabled) {
+        return enabled
+            ? List.of(BuiltinCompressions.delayedZlib, BuiltinCompressions.zlib,
+                BuiltinCompressions.none)
+            : List.of(BuiltinCompressions.none);
+    }
+
     @PreDestroy
     public void destroy() {
         log.info("Closing all SSH sessions...");
-        for (ClientSession session : sessions.values()) {
-            if (session.isOpen()) {
-                session.close(true);
-            }
+        for (List<PooledSession> pool : sessions.values()) {
+            pool.forEach(PooledSession::close);
         }
         sessions.clear();
+        serverLocks.clear();
+        health.clear();
+        synchronized (recentServers) {
+            recentServers.clear();
+        }
+        openSessions.set(0);
 
         if (client != null && client.isStarted()) {
             client.stop();
@@ -47,54 +210,546 @@ public class SshSessionManager {
         log.info("SSH Client stopped");
     }
 
+    /**
+     * Blocking access to the first pooled session, for callers such as ping that only need a
+     * live connection.
+     */
     public ClientSession getOrCreateSession(ServerEntity server) throws IOException {
+        return await(warmUp(server));
+    }
+
+    /**
+     * Makes sure the server has a session without reserving a channel on it: returns the
+     * first pooled session, connecting one if the pool is empty. Tasks that arrive while it
+     * is still connecting share it through {@link #acquireChannel}.
+     */
+    public CompletableFuture<ClientSession> warmUp(ServerEntity server) {
         Long serverId = server.getId();
 
-        ReentrantLock lock = serverLocks.computeIfAbsent(serverId, id -> new ReentrantLock());
-        lock.lock();
+        ReentrantLock lock = lockServer(serverId);
         try {
-            ClientSession existingSession = sessions.get(serverId);
-
-            if (existingSession != null && existingSession.isOpen() &&
-                !existingSession.isClosed()) {
-                return existingSession;
+            List<PooledSession> pool = prunedPool(serverId);
+            PooledSession pooled;
+            if (pool.isEmpty()) {
+                misses.incrementAndGet();
+                pooled = addSession(server, pool);
+            } else {
+                pooled = pool.getFirst();
+                pooled.touch();
+                hits.incrementAndGet();
             }
+            return pooled.ready;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            log.info("Opening new SSH session for server {}:{}", server.getIpAddress(),
-                server.getPort());
+    /**
+     * Reserves an exec-channel slot without blocking. A session that is still connecting
+     * counts as a candidate, so concurrent callers share it instead of each opening their own.
+     */
+    public CompletableFuture<SessionLease> acquireChannel(ServerEntity server) {
+        Long serverId = server.getId();
+        int maxChannels = resolveMaxChannels(server);
+
+        PooledSession leased;
+        ReentrantLock lock = lockServer(serverId);
+        try {
+            List<PooledSession> pool = prunedPool(serverId);
+            PooledSession target = pool.stream()
+                .filter(pooled -> pooled.leases.get() < maxChannels)
+                .min(Comparator.comparingInt(pooled -> pooled.leases.get()))
+                .orElse(null);
 
-            String sshUsername = server.getSshUsername() != null
-                ? server.getSshUsername().getUsername()
-                : null;
-            if (sshUsername == null || sshUsername.isBlank()) {
-                throw new IllegalStateException("SSH username is not set for server: " + serverId);
+            if (target == null) {
+                misses.incrementAndGet();
+                target = addSession(server, pool);
+                if (pool.size() > 1) {
+                    log.info("Server {} saturated at {} channels per session, opened session #{}",
+                        serverId, maxChannels, pool.size());
+                }
+            } else {
+                hits.incrementAndGet();
             }
 
-            ClientSession newSession = client.connect(
-                sshUsername,
-                server.getIpAddress(),
-                server.getPort()
-            ).verify(10, TimeUnit.SECONDS).getSession();
+            target.leases.incrementAndGet();
+            target.touch();
+            leased = target;
+        } finally {
+            lock.unlock();
+        }
 
-            newSession.addPasswordIdentity(server.getPassword());
-            newSession.auth().verify(10, TimeUnit.SECONDS);
+        return leased.ready
+            .whenComplete((session, error) -> {
+                if (error != null) {
+                    release(serverId, leased);
+                }
+            })
+            .thenApply(session -> new SessionLease(session, () -> release(serverId, leased)));
+    }
 
-            sessions.put(serverId, newSession);
-            return newSession;
+    public int getSessionCount(Long serverId) {
+        List<PooledSession> pool = sessions.get(serverId);
+        return pool == null ? 0 : pool.size();
+    }
 
+    public int getActiveChannelCount(Long serverId) {
+        List<PooledSession> pool = sessions.get(serverId);
+        return pool == null ? 0 : pool.stream().mapToInt(pooled -> pooled.leases.get()).sum();
+    }
+
+    public SessionPoolStatsDto getStats() {
+        int idle = sessions.values().stream()
+            .mapToInt(pool -> (int) pool.stream().filter(PooledSession::isIdle).count())
+            .sum();
+        return new SessionPoolStatsDto(maxSessions, openSessions.get(), idle, sessions.size(),
+            hits.get(), misses.get(), idleEvictions.get(), lruEvictions.get(),
+            keepaliveProbes.get(), deadSessions.get(), reconnects.get());
+    }
+
+    public Collection<SessionHealthDto> getHealth() {
+        return List.copyOf(health.values());
+    }
+
+    /**
+     * Probes the open sessions that were checked longest ago. Replies arrive on MINA's I/O
+     * threads, so a pass never waits for slow hosts.
+     */
+    @Scheduled(fixedDelayString = "${nto.ssh.keepalive.intervalMs:15000}")
+    public void sendKeepalives() {
+        long now = System.nanoTime();
+        sessions.values().stream()
+            .flatMap(List::stream)
+            .filter(PooledSession::isOpen)
+            .sorted(Comparator.comparingLong(pooled -> pooled.lastCheckedNanos - now))
+            .limit(keepaliveBatchSize > 0 ? keepaliveBatchSize : Long.MAX_VALUE)
+            .forEach(this::probe);
+    }
+
+    private void probe(PooledSession pooled) {
+        Long serverId = pooled.serverId;
+        long start = System.nanoTime();
+        pooled.lastCheckedNanos = start;
+        keepaliveProbes.incrementAndGet();
+        heartbeat(pooled.openedSession())
+            .orTimeout(keepaliveTimeoutMs, TimeUnit.MILLISECONDS)
+            .whenComplete((replied, error) -> {
+                if (error == null) {
+                    health.put(serverId, new SessionHealthDto(serverId,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                        LocalDateTime.now()));
+                } else {
+                    scheduleReplacement(pooled, error);
+                }
+            });
+    }
+
+    /**
+     * A rejected replacement is left to the next keepalive pass, which probes the session
+     * again.
+     */
+    private void scheduleReplacement(PooledSession pooled, Throwable error) {
+        try {
+            taskExecutor.execute(() -> replaceDeadSession(pooled, error));
+        } catch (RejectedExecutionException e) {
+            log.warn("Could not schedule replacing the SSH session of server {}: {}",
+                pooled.serverId, e.getMessage());
+        }
+    }
+
+    private void replaceDeadSession(PooledSession pooled, Throwable error) {
+        Long serverId = pooled.serverId;
+        deadSessions.incrementAndGet();
+        log.warn("SSH session to server {} failed keepalive, evicting: {}", serverId,
+            error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+
+        boolean emptied;
+        ReentrantLock lock = lockServer(serverId);
+        try {
+            List<PooledSession> pool = sessions.get(serverId);
+            if (pool == null || !pool.contains(pooled)) {
+                return;
+            }
+            discard(pool, pooled);
+            health.remove(serverId);
+            emptied = pool.isEmpty();
         } finally {
             lock.unlock();
         }
+        if (emptied) {
+            reconnect(serverId);
+        }
+    }
+
+    /**
+     * Opens a new session for a server whose last one died. The server is read again, so a
+     * changed address or password is used; a server deleted meanwhile is left alone.
+     */
+    private void reconnect(Long serverId) {
+        Optional<ServerEntity> server;
+        try {
+            server = serverRepository.findById(serverId);
+        } catch (RuntimeException e) {
+            log.warn("Could not reload server {} to reconnect: {}", serverId, e.getMessage());
+            return;
+        }
+        if (server.isEmpty()) {
+            return;
+        }
+
+        ReentrantLock lock = lockServer(serverId);
+        try {
+            List<PooledSession> pool =
+                sessions.computeIfAbsent(serverId, id -> new CopyOnWriteArrayList<>());
+            if (pool.isEmpty()) {
+                reconnects.incrementAndGet();
+                addSession(server.get(), pool);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static CompletableFuture<Void> heartbeat(ClientSession session) {
+        CompletableFuture<Void> replied = new CompletableFuture<>();
+        try {
+            Buffer buffer = session.createBuffer(SshConstants.SSH_MSG_GLOBAL_REQUEST);
+            buffer.putString(KEEPALIVE_REQUEST);
+            buffer.putBoolean(true);
+            session.request(buffer, KEEPALIVE_REQUEST, (cmd, reply) -> replied.complete(null))
+                .addListener(sent -> {
+                    if (sent.getException() != null) {
+                        replied.completeExceptionally(sent.getException());
+                    }
+                });
+        } catch (IOException | RuntimeException e) {
+            replied.completeExceptionally(e);
+        }
+        return replied;
     }
 
     public void invalidateSession(Long serverId) {
-        ClientSession deadSession = sessions.remove(serverId);
-        if (deadSession != null && !deadSession.isClosed()) {
+        ReentrantLock lock = lockServer(serverId);
+        try {
+            List<PooledSession> invalidated = sessions.remove(serverId);
+            if (invalidated != null) {
+                invalidated.forEach(pooled -> discard(invalidated, pooled));
+            }
+            health.remove(serverId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes sessions nobody has used for {@code nto.ssh.pool.idleTtlSeconds}, forgets
+     * servers that have no sessions left and trims the pool back under its cap. Servers that
+     * are locked right now are skipped until the next pass.
+     */
+    @Scheduled(fixedDelayString = "${nto.ssh.pool.reaperIntervalMs:30000}")
+    public void reapIdleSessions() {
+        long idleBefore = System.nanoTime() - TimeUnit.SECONDS.toNanos(idleTtlSeconds);
+        for (Long serverId : serverLocks.keySet()) {
+            ReentrantLock lock = tryLockServer(serverId);
+            if (lock == null) {
+                continue;
+            }
             try {
-                deadSession.close(true);
-            } catch (Exception e) {
-                log.warn("Error closing dead session for server {}", serverId);
+                List<PooledSession> pool = sessions.getOrDefault(serverId, List.of());
+                for (PooledSession pooled : pool) {
+                    if (!pooled.isUsable()) {
+                        discard(pool, pooled);
+                    } else if (idleTtlSeconds > 0 && pooled.isIdle()
+                        && pooled.lastUsedNanos - idleBefore < 0) {
+                        discard(pool, pooled);
+                        idleEvictions.incrementAndGet();
+                    }
+                }
+                forgetIfEmpty(serverId, lock);
+            } finally {
+                lock.unlock();
             }
         }
+        if (isOverCap(0)) {
+            evictLeastRecentlyUsed(null);
+        }
+    }
+
+    private void release(Long serverId, PooledSession pooled) {
+        ReentrantLock lock = lockServer(serverId);
+        try {
+            int remaining = pooled.leases.decrementAndGet();
+            pooled.touch();
+            List<PooledSession> pool = sessions.get(serverId);
+            if (pool == null || !pool.contains(pooled)) {
+                return;
+            }
+            if (!pooled.isUsable()) {
+                discard(pool, pooled);
+            } else if (remaining == 0 && pool.size() > 1) {
+                discard(pool, pooled);
+                log.debug("Closed surplus idle session for server {}", serverId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<PooledSession> prunedPool(Long serverId) {
+        List<PooledSession> pool = sessions.computeIfAbsent(serverId, id -> new CopyOnWriteArrayList<>());
+        for (PooledSession pooled : pool) {
+            if (!pooled.isUsable()) {
+                discard(pool, pooled);
+            }
+        }
+        synchronized (recentServers) {
+            recentServers.put(serverId, Boolean.TRUE);
+        }
+        return pool;
+    }
+
+    /**
+     * Opens a session for a server whose lock the caller holds, making room under the cap
+     * first.
+     */
+    private PooledSession addSession(ServerEntity server, List<PooledSession> pool) {
+        if (isOverCap(1)) {
+            evictLeastRecentlyUsed(server.getId());
+        }
+        PooledSession pooled = new PooledSession(server.getId(), openSession(server));
+        pool.add(pooled);
+        openSessions.incrementAndGet();
+        return pooled;
+    }
+
+    private void discard(List<PooledSession> pool, PooledSession pooled) {
+        if (pool.remove(pooled)) {
+            openSessions.decrementAndGet();
+        }
+        pooled.close();
+    }
+
+    private boolean isOverCap(int adding) {
+        return maxSessions > 0 && openSessions.get() + adding > maxSessions;
+    }
+
+    /**
+     * Closes idle sessions of the least recently used servers until the pool fits under the
+     * cap again. Only tries the victim's lock, so two servers evicting from each other can
+     * not deadlock; a busy victim is simply passed over.
+     */
+    private void evictLeastRecentlyUsed(Long requestingServerId) {
+        int adding = requestingServerId == null ? 0 : 1;
+        synchronized (recentServers) {
+            Iterator<Long> eldestFirst = recentServers.keySet().iterator();
+            while (eldestFirst.hasNext() && isOverCap(adding)) {
+                Long serverId = eldestFirst.next();
+                if (serverId.equals(requestingServerId)) {
+                    continue;
+                }
+                ReentrantLock lock = tryLockServer(serverId);
+                if (lock == null) {
+                    continue;
+                }
+                try {
+                    List<PooledSession> pool = sessions.getOrDefault(serverId, List.of());
+                    for (PooledSession pooled : pool) {
+                        if (pooled.isIdle() && isOverCap(adding)) {
+                            discard(pool, pooled);
+                            lruEvictions.incrementAndGet();
+                            log.debug("Evicted idle session of server {} to stay under {} sessions",
+                                serverId, maxSessions);
+                        }
+                    }
+                    if (pool.isEmpty()) {
+                        eldestFirst.remove();
+                        sessions.remove(serverId);
+                        serverLocks.remove(serverId, lock);
+                        health.remove(serverId);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void forgetIfEmpty(Long serverId, ReentrantLock lock) {
+        List<PooledSession> pool = sessions.get(serverId);
+        if (pool != null && !pool.isEmpty()) {
+            return;
+        }
+        sessions.remove(serverId);
+        serverLocks.remove(serverId, lock);
+        health.remove(serverId);
+        synchronized (recentServers) {
+            recentServers.remove(serverId);
+        }
+    }
+
+    /**
+     * Connects and authenticates on MINA's I/O threads. The returned future completes with an
+     * authenticated session, or fails after {@link #SESSION_OPEN_TIMEOUT_SECONDS}; a session
+     * that only shows up after the future was settled is closed.
+     */
+    private CompletableFuture<ClientSession> openSession(ServerEntity server) {
+        Long serverId = server.getId();
+        log.info("Opening new SSH session for server {}:{}", server.getIpAddress(),
+            server.getPort());
+
+        String sshUsername = server.getSshUsername() != null
+            ? server.getSshUsername().getUsername()
+            : null;
+        if (sshUsername == null || sshUsername.isBlank()) {
+            return CompletableFuture.failedFuture(
+                new IllegalStateException("SSH username is not set for server: " + serverId));
+        }
+
+        CompletableFuture<ClientSession> opened = new CompletableFuture<>();
+        try {
+            ConnectFuture connecting = server.getCompression() == null
+                ? client.connect(sshUsername, server.getIpAddress(), server.getPort())
+                : client.connect(sshUsername, server.getIpAddress(), server.getPort(),
+                    AttributeRepository.ofKeyValuePair(COMPRESSION, server.getCompression()),
+                    null);
+            connecting.addListener(
+                connected -> authenticate(connected, server.getPassword(), opened));
+        } catch (IOException e) {
+            opened.completeExceptionally(e);
+        }
+        return opened.orTimeout(SESSION_OPEN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void authenticate(ConnectFuture connected, String password,
+                              CompletableFuture<ClientSession> opened) {
+        if (!connected.isConnected()) {
+            opened.completeExceptionally(failure(connected.getException(), "SSH connect failed"));
+            return;
+        }
+
+        ClientSession session = connected.getSession();
+        session.addPasswordIdentity(password);
+        try {
+            session.auth().addListener(auth -> {
+                if (auth.isSuccess() && opened.complete(session)) {
+                    return;
+                }
+                closeQuietly(session);
+                opened.completeExceptionally(failure(auth.getException(), "SSH auth failed"));
+            });
+        } catch (IOException e) {
+            closeQuietly(session);
+            opened.completeExceptionally(e);
+        }
+    }
+
+    private int resolveMaxChannels(ServerEntity server) {
+        Integer perServer = server.getMaxChannels();
+        return Math.max(1, perServer != null ? perServer : defaultMaxChannels);
+    }
+
+    /**
+     * Locks the server's current lock. The reaper drops the lock of a server without
+     * sessions while holding it, so a thread that was waiting on a dropped lock retries.
+     */
+    private ReentrantLock lockServer(Long serverId) {
+        while (true) {
+            ReentrantLock lock = serverLocks.computeIfAbsent(serverId, id -> new ReentrantLock());
+            lock.lock();
+            if (serverLocks.get(serverId) == lock) {
+                return lock;
+            }
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock tryLockServer(Long serverId) {
+        ReentrantLock lock = serverLocks.get(serverId);
+        if (lock == null || !lock.tryLock()) {
+            return null;
+        }
+        if (serverLocks.get(serverId) != lock) {
+            lock.unlock();
+            return null;
+        }
+        return lock;
+    }
+
+    private void closeQuietly(ClientSession session) {
+        if (session.isClosed()) {
+            return;
+        }
+        try {
+            session.close(true);
+        } catch (Exception e) {
+            log.warn("Error closing SSH session: {}", e.getMessage());
+        }
+    }
+
+    private static Throwable failure(Throwable cause, String message) {
+        return cause != null ? cause : new IOException(message);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private final class PooledSession {
+        private final Long serverId;
+        private final CompletableFuture<ClientSession> ready;
+        private final AtomicInteger leases = new AtomicInteger();
+        private volatile long lastUsedNanos = System.nanoTime();
+        private volatile long lastCheckedNanos = lastUsedNanos;
+
+        private PooledSession(Long serverId, CompletableFuture<ClientSession> ready) {
+            this.serverId = serverId;
+            this.ready = ready;
+        }
+
+        private boolean isOpen() {
+            return ready.isDone() && isUsable();
+        }
+
+        private void touch() {
+            lastUsedNanos = System.nanoTime();
+        }
+
+        private boolean isIdle() {
+            return leases.get() == 0 && ready.isDone();
+        }
+
+        private boolean isUsable() {
+            if (!ready.isDone()) {
+                return true;
+            }
+            ClientSession session = openedSession();
+            return session != null && session.isOpen() && !session.isClosed();
+        }
+
+        private void close() {
+            if (!ready.isDone()) {
+                ready.cancel(false);
+                return;
+            }
+            ClientSession session = openedSession();
+            if (session != null) {
+                closeQuietly(session);
+            }
+        }
+
+        private ClientSession openedSession() {
+            return ready.isCompletedExceptionally() ? null : ready.join();
+        }
     }
 }
@@ -4,6 +4,7 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import nto.core.utils.ErrorMessages;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -27,7 +28,7 @@ import nto.core.utils.exceptions.BadRequestException;
 import nto.core.utils.exceptions.DuplicateUsernameException;
 import nto.core.utils.exceptions.InvalidRefreshTokenException;
 import nto.core.utils.exceptions.ResourceConflictException;
-import nto.core.utils.exceptions.ServerBusyException;
+import nto.core.utils.exceptions.TooManyTasksException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -79,11 +80,19 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler({DuplicateUsernameException.class, ResourceConflictException.class,
-        ServerBusyException.class, DataIntegrityViolationException.class})
+        DataIntegrityViolationException.class})
     public ResponseEntity<Map<String, Object>> handleConflict(Exception ex) {
         return buildResponse(HttpStatus.CONFLICT, ex.getMessage(), null);
     }
 
+    @ExceptionHandler(TooManyTasksException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyTasks(TooManyTasksException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(ApiErrorResponseFactory.buildBody(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(),
+                null));
+    }
+
     @ExceptionHandler({EntityNotFoundException.class, NoHandlerFoundException.class,
         NoResourceFoundException.class})
     public ResponseEntity<Map<String, Object>> handleNotFound(Exception ex) {
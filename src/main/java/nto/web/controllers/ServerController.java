@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import nto.application.dto.ServerDto;
+import nto.application.dto.ServerQueueDto;
 import nto.application.interfaces.services.ServerService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -87,9 +88,15 @@ public class ServerController {
     }
 
     @GetMapping("/{id}/ping")
-    @Operation(summary = "Проверка доступности", description = "Пытается установить SSH соединение с сервером")
-    public ResponseEntity<Map<String, Object>> pingServer(@PathVariable Long id) {
-        boolean isAlive = serverService.checkConnection(id);
+    @Operation(
+        summary = "Проверка доступности",
+        description = "По умолчанию отвечает из кэша доступности или TCP-пробой SSH-порта; "
+            + "с deep=true устанавливает SSH соединение с сервером"
+    )
+    public ResponseEntity<Map<String, Object>> pingServer(
+        @PathVariable Long id,
+        @RequestParam(defaultValue = "false") boolean deep) {
+        boolean isAlive = serverService.checkConnection(id, deep);
 
         return ResponseEntity.ok(Map.of(
             "serverId", id,
@@ -97,4 +104,13 @@ public class ServerController {
             "timestamp", java.time.LocalDateTime.now()
         ));
     }
+
+    @GetMapping("/{id}/queue")
+    @Operation(
+        summary = "Очередь задач сервера",
+        description = "Возвращает число выполняемых и ожидающих задач для сервера."
+    )
+    public ResponseEntity<ServerQueueDto> getQueue(@PathVariable Long id) {
+        return ResponseEntity.ok(serverService.getQueueState(id));
+    }
 }
@@ -5,9 +5,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import nto.application.dto.BulkCreateServersGroupRequestDto;
+import nto.application.dto.GroupRunDto;
 import nto.application.dto.ServerGroupDto;
 import nto.application.dto.TaskDto;
+import nto.application.dto.WavePolicyDto;
 import nto.application.interfaces.services.ServerGroupService;
+import nto.core.enums.PingStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,9 +21,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/groups")
@@ -51,6 +57,21 @@ public class ServerGroupController {
         return ResponseEntity.ok(groupService.getLastGroupExecutionStatus(id));
     }
 
+    @GetMapping("/{id}/runs/last")
+    @Operation(summary = "Последний запуск на группе",
+        description = "Возвращает запись последнего массового запуска со счётчиками задач по статусам")
+    public ResponseEntity<GroupRunDto> getLastRun(@PathVariable Long id) {
+        return ResponseEntity.ok(groupService.getLastGroupRun(id));
+    }
+
+    @PostMapping("/{id}/runs/{runId}/cancel")
+    @Operation(summary = "Отменить запуск на группе",
+        description = "Отменяет все ещё не завершённые задачи массового запуска runId")
+    public ResponseEntity<List<TaskDto>> cancelRun(@PathVariable Long id,
+                                                   @PathVariable UUID runId) {
+        return ResponseEntity.ok(groupService.cancelGroupRun(id, runId));
+    }
+
     @GetMapping
     @Operation(summary = "Все группы", description = "Возвращает список групп текущего пользователя")
     public ResponseEntity<List<ServerGroupDto>> getAll() {
@@ -91,17 +112,32 @@ public class ServerGroupController {
 
 
     @GetMapping("/{id}/ping")
-    @Operation(summary = "Пинг группы", description = "Пингует все серверы в группе")
-    public ResponseEntity<Map<Long, Boolean>> pingGroup(@PathVariable Long id) {
+    @Operation(
+        summary = "Пинг группы",
+        description = "Пингует все серверы группы параллельно: UP, DOWN или UNKNOWN, если сервер не ответил до дедлайна."
+    )
+    public ResponseEntity<Map<Long, PingStatus>> pingGroup(@PathVariable Long id) {
         return ResponseEntity.ok(groupService.pingGroup(id));
     }
 
+    @GetMapping(value = "/{id}/ping/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Поток пинга группы",
+        description = "SSE: событие ping по каждому серверу по мере ответа, в конце событие end с числом серверов."
+    )
+    public SseEmitter streamPingGroup(@PathVariable Long id) {
+        return groupService.streamPingGroup(id);
+    }
+
     @PostMapping("/{id}/execute")
-    @Operation(summary = "Запуск скрипта на группе", description = "Создает задачи для всех серверов группы")
+    @Operation(summary = "Запуск скрипта на группе",
+        description = "Создает задачи для всех серверов группы; необязательное тело задает волны "
+            + "(batchSize/batchPercent/maxInFlight, canarySize, maxFailureRatio)")
     public ResponseEntity<List<TaskDto>> executeScript(
         @PathVariable Long id,
-        @RequestParam Long scriptId
+        @RequestParam Long scriptId,
+        @RequestBody(required = false) @Valid WavePolicyDto policy
     ) {
-        return ResponseEntity.ok(groupService.executeScriptOnGroup(id, scriptId));
+        return ResponseEntity.ok(groupService.executeScriptOnGroup(id, scriptId, policy));
     }
 }
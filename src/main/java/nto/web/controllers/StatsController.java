@@ -3,12 +3,22 @@ package nto.web.controllers;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import nto.application.dto.AdmissionStatsDto;
+import nto.application.dto.HostLivenessDto;
+import nto.application.dto.PrewarmStatsDto;
+import nto.application.dto.ScriptCacheStatsDto;
+import nto.application.dto.SessionHealthDto;
+import nto.application.dto.SessionPoolStatsDto;
+import nto.application.dto.TaskCacheStatsDto;
 import nto.application.interfaces.services.ScriptExecutor;
+import nto.application.interfaces.services.ScriptService;
+import nto.application.interfaces.services.TaskService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Collection;
 import java.util.Map;
 
 @RestController
@@ -18,6 +28,8 @@ import java.util.Map;
 public class StatsController {
 
     private final ScriptExecutor scriptExecutor;
+    private final TaskService taskService;
+    private final ScriptService scriptService;
 
     @GetMapping
     @Operation(
@@ -31,4 +43,67 @@ public class StatsController {
             "diff", scriptExecutor.getSuccessCountAtomic() - scriptExecutor.getSuccessCountUnsafe()
         ));
     }
+
+    @GetMapping("/admission")
+    @Operation(
+        summary = "Допуск задач",
+        description = "Ёмкость, число незавершённых задач и счётчики отказов (429) для подбора размера пула."
+    )
+    public ResponseEntity<AdmissionStatsDto> getAdmissionStats() {
+        return ResponseEntity.ok(taskService.getAdmissionStats());
+    }
+
+    @GetMapping("/task-cache")
+    @Operation(
+        summary = "Кэш статусов задач",
+        description = "Число снимков в кэше, попадания/промахи и вытеснения по размеру и TTL."
+    )
+    public ResponseEntity<TaskCacheStatsDto> getStatusCacheStats() {
+        return ResponseEntity.ok(taskService.getStatusCacheStats());
+    }
+
+    @GetMapping("/script-cache")
+    @Operation(
+        summary = "Кэш содержимого скриптов",
+        description = "Число скриптов в кэше, попадания/промахи и байты, отданные из кэша и прочитанные из БД."
+    )
+    public ResponseEntity<ScriptCacheStatsDto> getScriptCacheStats() {
+        return ResponseEntity.ok(scriptService.getContentCacheStats());
+    }
+
+    @GetMapping("/prewarm")
+    @Operation(
+        summary = "Прогрев SSH-сессий",
+        description = "Прогресс и ошибки предварительного подключения к серверам, отдельно от результатов задач."
+    )
+    public ResponseEntity<PrewarmStatsDto> getPrewarmStats() {
+        return ResponseEntity.ok(scriptExecutor.getPrewarmStats());
+    }
+
+    @GetMapping("/ssh-pool")
+    @Operation(
+        summary = "Пул SSH-сессий",
+        description = "Открытые и простаивающие сессии, попадания/промахи пула и число вытеснений по TTL и LRU."
+    )
+    public ResponseEntity<SessionPoolStatsDto> getSessionPoolStats() {
+        return ResponseEntity.ok(scriptExecutor.getSessionPoolStats());
+    }
+
+    @GetMapping("/ssh-pool/hosts")
+    @Operation(
+        summary = "Здоровье SSH-сессий",
+        description = "Последнее время отклика keepalive по каждому серверу с открытой сессией."
+    )
+    public ResponseEntity<Collection<SessionHealthDto>> getSessionHealth() {
+        return ResponseEntity.ok(scriptExecutor.getSessionHealth());
+    }
+
+    @GetMapping("/liveness")
+    @Operation(
+        summary = "Доступность серверов",
+        description = "Последний известный статус каждого сервера по TCP-пробам и пингам, с временем проверки."
+    )
+    public ResponseEntity<Collection<HostLivenessDto>> getHostLiveness() {
+        return ResponseEntity.ok(scriptExecutor.getHostLiveness());
+    }
 }
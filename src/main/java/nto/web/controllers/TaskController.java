@@ -9,8 +9,10 @@ import nto.application.dto.BulkTaskRequestDto;
 import nto.application.dto.TaskDto;
 import nto.application.interfaces.services.TaskService;
 import nto.core.enums.TaskStatus;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -70,6 +73,33 @@ public class TaskController {
         return ResponseEntity.ok(taskService.getTaskById(id));
     }
 
+    @GetMapping(value = "/{id}/output", produces = "text/plain;charset=UTF-8")
+    @Operation(
+        summary = "Полный вывод задачи",
+        description = "Возвращает полный вывод скрипта; большой вывод отдаётся из файлового хранилища, а не из БД."
+    )
+    public ResponseEntity<Resource> getFullOutput(@PathVariable Long id) {
+        return ResponseEntity.ok(taskService.getFullOutput(id));
+    }
+
+    @GetMapping(value = "/{id}/output/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Поток вывода задачи",
+        description = "SSE: сначала буферизованный вывод (snapshot), затем новые фрагменты stdout/stderr, в конце событие end со статусом."
+    )
+    public SseEmitter streamOutput(@PathVariable Long id) {
+        return taskService.streamOutput(id);
+    }
+
+    @PostMapping("/{id}/cancel")
+    @Operation(
+        summary = "Отменить задачу",
+        description = "Убирает задачу из очереди сервера или прерывает удалённое выполнение (KILL и закрытие канала). 409, если задача уже завершена."
+    )
+    public ResponseEntity<TaskDto> cancel(@PathVariable Long id) {
+        return ResponseEntity.ok(taskService.cancelTask(id));
+    }
+
     @GetMapping
     @Operation(summary = "История задач", description = "Список всех запущенных задач")
     public ResponseEntity<List<TaskDto>> getAll() {
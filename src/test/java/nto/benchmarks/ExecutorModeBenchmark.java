@@ -0,0 +1,109 @@
+package nto.benchmarks;
+
+import nto.infrastructure.config.AsyncConfig;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the platform worker pool with the virtual-thread mode on mock tasks that park
+ * for a fixed time, the same way {@code MockScriptExecutor} simulates a remote run. The
+ * virtual mode runs twice: once with a cap equal to the load and once with a cap of a tenth
+ * of it, so tasks wait on the concurrency semaphore; {@code peakActive} shows the cap holding.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class ExecutorModeBenchmark {
+
+    private static final long TASK_DELAY_MS = 200;
+    private static final int[] TASK_COUNTS = {1_000, 10_000};
+    private static final int CAPPED_LOAD_FACTOR = 10;
+
+    @Test
+    void compareExecutorModes() throws Exception {
+        System.out.printf("%-9s %7s %7s %10s %10s %10s %11s %12s%n",
+            "mode", "tasks", "cap", "done", "rejected", "tasks/sec", "peakActive", "peakHeapMB");
+        for (int tasks : TASK_COUNTS) {
+            report(AsyncConfig.THREADS_PLATFORM, tasks, tasks);
+            report(AsyncConfig.THREADS_VIRTUAL, tasks, tasks);
+            report(AsyncConfig.THREADS_VIRTUAL, tasks, tasks / CAPPED_LOAD_FACTOR);
+        }
+    }
+
+    private void report(String mode, int tasks, int virtualCap) throws Exception {
+        Result result = run(mode, tasks, virtualCap);
+        String cap = AsyncConfig.THREADS_VIRTUAL.equals(mode) ? String.valueOf(virtualCap) : "-";
+        System.out.printf("%-9s %7d %7s %10d %10d %10.1f %11d %12.1f%n",
+            mode, tasks, cap, result.completed(), result.rejected(), result.tasksPerSecond(),
+            result.peakActive(), result.peakHeapBytes() / (1024.0 * 1024.0));
+    }
+
+    private Result run(String mode, int tasks, int virtualCap) throws Exception {
+        AsyncConfig config = new AsyncConfig();
+        ReflectionTestUtils.setField(config, "threadsMode", mode);
+        ReflectionTestUtils.setField(config, "virtualMaxConcurrency", virtualCap);
+        ReflectionTestUtils.setField(config, "platformCorePoolSize", 50);
+        ReflectionTestUtils.setField(config, "platformMaxPoolSize", 100);
+        ReflectionTestUtils.setField(config, "platformQueueCapacity", 1000);
+        Executor executor = config.taskExecutor();
+
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong();
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed() - baseline, Math::max);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+            }
+        });
+
+        CountDownLatch done = new CountDownLatch(tasks);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peakActive = new AtomicInteger();
+        long rejected = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            try {
+                executor.execute(() -> {
+                    peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(TASK_DELAY_MS));
+                    active.decrementAndGet();
+                    done.countDown();
+                });
+            } catch (RejectedExecutionException e) {
+                rejected++;
+                done.countDown();
+            }
+        }
+        done.await(5, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - start;
+        sampler.interrupt();
+
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+
+        long completed = tasks - rejected;
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        return new Result(completed, rejected, completed / seconds, peakActive.get(), peak.get());
+    }
+
+    private record Result(long completed, long rejected, double tasksPerSecond, int peakActive,
+                          long peakHeapBytes) {
+    }
+}
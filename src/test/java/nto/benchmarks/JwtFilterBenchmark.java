@@ -0,0 +1,105 @@
+package nto.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import nto.infrastructure.security.JwtAuthenticationFilter;
+import nto.infrastructure.security.JwtUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-request cost of bearer-token authentication in {@link JwtAuthenticationFilter}. The
+ * {@code three-parse} row replays the previous filter, which decoded the secret, built a key and
+ * parser and verified the token three times per request. {@code single-parse} sends a new token
+ * on every request, so each one misses the verified-token cache; {@code cached} reuses one token.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class JwtFilterBenchmark {
+
+    private static final String SECRET =
+        "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final int WARMUP_REQUESTS = 20_000;
+    private static final int MEASURED_REQUESTS = 100_000;
+
+    @Test
+    void compareFilterCost() throws Exception {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtAccessExpirationMs", 900_000L);
+        ReflectionTestUtils.setField(jwtUtils, "jwtIssuer", "nto");
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxEntries",
+            WARMUP_REQUESTS + MEASURED_REQUESTS);
+        jwtUtils.init();
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtils);
+
+        List<String> tokens = new ArrayList<>(WARMUP_REQUESTS + MEASURED_REQUESTS);
+        for (int i = 0; i < WARMUP_REQUESTS + MEASURED_REQUESTS; i++) {
+            tokens.add(jwtUtils.generateAccessToken("user-" + i));
+        }
+        String sharedToken = tokens.get(0);
+
+        System.out.printf("%-13s %10s %12s%n", "path", "requests", "ns/request");
+        report("three-parse", i -> threeParse(tokens.get(i)));
+        report("single-parse", i -> authenticate(filter, tokens.get(i)));
+        report("cached", i -> authenticate(filter, sharedToken));
+        System.out.printf("verified-token cache: %d hits, %d misses%n",
+            jwtUtils.getVerifiedCacheHits(), jwtUtils.getVerifiedCacheMisses());
+    }
+
+    private void report(String path, Request request) throws Exception {
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            request.run(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            request.run(WARMUP_REQUESTS + i);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-13s %10d %12.0f%n", path, MEASURED_REQUESTS,
+            (double) elapsed / MEASURED_REQUESTS);
+    }
+
+    private void authenticate(JwtAuthenticationFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/servers");
+        request.addHeader("Authorization", "Bearer " + token);
+        FilterChain chain = (req, res) -> {
+        };
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            throw new IllegalStateException("Token was not accepted");
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    private String threeParse(String token) {
+        if (!"access".equals(legacyClaims(token).get("typ", String.class))) {
+            throw new IllegalStateException("Token was not accepted");
+        }
+        legacyClaims(token);
+        return legacyClaims(token).getSubject();
+    }
+
+    private Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+            .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        void run(int index) throws Exception;
+    }
+}
@@ -0,0 +1,210 @@
+package nto.benchmarks;
+
+import nto.application.dto.BulkTaskRequestDto;
+import nto.application.dto.TaskDto;
+import nto.application.interfaces.services.ScriptExecutor;
+import nto.application.interfaces.services.TaskService;
+import nto.core.entities.ScriptEntity;
+import nto.core.entities.ServerEntity;
+import nto.core.entities.ServerGroupEntity;
+import nto.core.entities.SshUsernameEntity;
+import nto.core.entities.TaskEntity;
+import nto.core.entities.UserEntity;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.repositories.JpaScriptRepository;
+import nto.infrastructure.repositories.JpaServerGroupRepository;
+import nto.infrastructure.repositories.JpaServerRepository;
+import nto.infrastructure.repositories.JpaSshUsernameRepository;
+import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.repositories.JpaUserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives {@code TaskServiceImpl} and {@code SshScriptExecutor} end to end against an
+ * {@link SshFleetSimulator}: bulk-creates tasks for every simulated host, waits until all of
+ * them finish and reports tasks/sec, p50/p99 latency from task creation to finish, SSH sessions
+ * the fleet saw opened and peak heap growth. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "nto.executor.type=ssh",
+    "nto.executor.threads=virtual",
+    "nto.executor.virtual.maxConcurrency=20000",
+    "nto.ssh.pool.maxSessions=5000",
+    "nto.ssh.scriptCache.minBytes=0",
+    "nto.liveness.background=false",
+    "logging.level.nto=WARN",
+    "logging.level.org.apache.sshd=ERROR"
+})
+@ActiveProfiles("test")
+class SshFleetBenchmark {
+
+    private static final String USERNAME = "fleet-user";
+    private static final int[] FLEET_SIZES = {100, 1_000};
+    private static final int TASKS_PER_HOST = 3;
+    private static final SshFleetSimulator.Behavior BEHAVIOR =
+        new SshFleetSimulator.Behavior(50, 1024, 0.01, 0.0);
+    private static final Set<TaskStatus> FINISHED =
+        EnumSet.of(TaskStatus.SUCCESS, TaskStatus.FAILED, TaskStatus.CANCELLED);
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private ScriptExecutor scriptExecutor;
+    @Autowired
+    private JpaUserRepository userRepository;
+    @Autowired
+    private JpaSshUsernameRepository sshUsernameRepository;
+    @Autowired
+    private JpaServerGroupRepository groupRepository;
+    @Autowired
+    private JpaServerRepository serverRepository;
+    @Autowired
+    private JpaScriptRepository scriptRepository;
+    @Autowired
+    private JpaTaskRepository taskRepository;
+
+    @TempDir
+    private Path tempDir;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void runFleet() throws Exception {
+        UserEntity user = userRepository.saveAndFlush(UserEntity.builder()
+            .username(USERNAME)
+            .password("pw")
+            .build());
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(USERNAME, null, List.of()));
+        SshUsernameEntity sshUsername = sshUsernameRepository.save(SshUsernameEntity.builder()
+            .username("nto")
+            .owner(user)
+            .build());
+        ScriptEntity script = scriptRepository.save(ScriptEntity.builder()
+            .name("fleet")
+            .content("echo ok")
+            .owner(user)
+            .build());
+
+        System.out.printf("%6s %6s %8s %8s %10s %8s %8s %9s %12s%n", "hosts", "tasks", "success",
+            "failed", "tasks/sec", "p50ms", "p99ms", "sessions", "peakHeapMB");
+        for (int hosts : FLEET_SIZES) {
+            Path workDir = Files.createDirectories(tempDir.resolve("fleet-" + hosts));
+            try (SshFleetSimulator fleet = new SshFleetSimulator(hosts, BEHAVIOR, workDir)) {
+                Result result = run(fleet, user, sshUsername, script);
+                System.out.printf("%6d %6d %8d %8d %10.1f %8d %8d %9d %12.1f%n", hosts,
+                    result.tasks(), result.succeeded(), result.failed(),
+                    result.tasksPerSecond(), result.p50Millis(), result.p99Millis(),
+                    fleet.sessionsOpened(), result.peakHeapBytes() / (1024.0 * 1024.0));
+            }
+        }
+        System.out.println("pool: " + scriptExecutor.getSessionPoolStats());
+    }
+
+    private Result run(SshFleetSimulator fleet, UserEntity user, SshUsernameEntity sshUsername,
+                       ScriptEntity script) throws Exception {
+        ServerGroupEntity group = groupRepository.save(ServerGroupEntity.builder()
+            .name("fleet-" + fleet.ports().size())
+            .owner(user)
+            .build());
+        List<ServerEntity> servers = new ArrayList<>();
+        for (int port : fleet.ports()) {
+            servers.add(ServerEntity.builder()
+                .hostname("fleet-" + port)
+                .ipAddress("127.0.0.1")
+                .port(port)
+                .sshUsername(sshUsername)
+                .password(SshFleetSimulator.PASSWORD)
+                .groups(Set.of(group))
+                .build());
+        }
+        List<Long> serverIds = serverRepository.saveAll(servers).stream()
+            .map(ServerEntity::getId)
+            .toList();
+
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong();
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed() - baseline, Math::max);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+            }
+        });
+
+        long start = System.nanoTime();
+        List<Long> taskIds = new ArrayList<>();
+        for (int i = 0; i < TASKS_PER_HOST; i++) {
+            taskService.createTasksBulk(new BulkTaskRequestDto(script.getId(), serverIds))
+                .stream()
+                .map(TaskDto::id)
+                .forEach(taskIds::add);
+        }
+        List<TaskEntity> finished = awaitFinished(taskIds, TimeUnit.MINUTES.toNanos(5));
+        long elapsedNanos = System.nanoTime() - start;
+        sampler.interrupt();
+
+        long[] latencies = finished.stream()
+            .mapToLong(task -> Duration.between(task.getCreatedAt(), task.getFinishedAt())
+                .toMillis())
+            .sorted()
+            .toArray();
+        long succeeded = finished.stream()
+            .filter(task -> task.getStatus() == TaskStatus.SUCCESS)
+            .count();
+        return new Result(taskIds.size(), succeeded, finished.size() - succeeded,
+            finished.size() / (elapsedNanos / 1_000_000_000.0),
+            percentile(latencies, 0.50), percentile(latencies, 0.99), peak.get());
+    }
+
+    private List<TaskEntity> awaitFinished(List<Long> taskIds, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (true) {
+            List<TaskEntity> tasks = taskRepository.findAllById(taskIds);
+            boolean done = tasks.stream().allMatch(task -> FINISHED.contains(task.getStatus()));
+            if (done || System.nanoTime() > deadline) {
+                return tasks.stream()
+                    .filter(task -> FINISHED.contains(task.getStatus()))
+                    .toList();
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private record Result(int tasks, long succeeded, long failed, double tasksPerSecond,
+                          long p50Millis, long p99Millis, long peakHeapBytes) {
+    }
+}
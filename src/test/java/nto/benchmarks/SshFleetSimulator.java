@@ -0,0 +1,182 @@
+package nto.benchmarks;
+
+import org.apache.sshd.common.session.Session;
+import org.apache.sshd.common.session.SessionListener;
+import org.apache.sshd.server.Environment;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.ServerBuilder;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.channel.ChannelSession;
+import org.apache.sshd.server.command.Command;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process fleet of SSH hosts for end-to-end runs of the real MINA client path. One
+ * embedded {@link SshServer} listens on {@code hosts} loopback ports, so every port looks like
+ * a separate server to the client pool. Commands are not executed: each one answers after
+ * {@link Behavior#latencyMs()} with {@link Behavior#outputBytes()} of output, exits 1 for a
+ * {@link Behavior#failureRate()} share of runs and drops the whole session for a
+ * {@link Behavior#disconnectRate()} share. Every host accepts any user with password
+ * {@link #PASSWORD}.
+ */
+public class SshFleetSimulator implements AutoCloseable {
+
+    public static final String PASSWORD = "pw";
+    private static final int RESPONDER_THREADS = 8;
+    private static final int WRITE_CHUNK = 8192;
+
+    private final FleetServer server;
+    private final List<Integer> ports;
+    private final Behavior behavior;
+    private final ScheduledExecutorService responders =
+        Executors.newScheduledThreadPool(RESPONDER_THREADS);
+
+    private final AtomicLong sessionsOpened = new AtomicLong();
+    private final AtomicLong commandsRun = new AtomicLong();
+    private final AtomicLong commandsFailed = new AtomicLong();
+    private final AtomicLong sessionsDropped = new AtomicLong();
+
+    public SshFleetSimulator(int hosts, Behavior behavior, Path workDir) throws IOException {
+        this.behavior = behavior;
+        server = (FleetServer) ServerBuilder.builder().factory(FleetServer::new).build();
+        server.setHost("127.0.0.1");
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(workDir.resolve("host.ser")));
+        server.setPasswordAuthenticator((username, password, session) -> PASSWORD.equals(password));
+        server.setCommandFactory((channel, command) -> new SimulatedCommand());
+        server.addSessionListener(new SessionListener() {
+            @Override
+            public void sessionCreated(Session session) {
+                sessionsOpened.incrementAndGet();
+            }
+        });
+        server.start();
+        for (int i = 1; i < hosts; i++) {
+            server.bindLoopbackPort();
+        }
+        ports = server.getBoundAddresses().stream()
+            .map(address -> ((InetSocketAddress) address).getPort())
+            .sorted()
+            .toList();
+    }
+
+    public List<Integer> ports() {
+        return ports;
+    }
+
+    public long sessionsOpened() {
+        return sessionsOpened.get();
+    }
+
+    public long commandsRun() {
+        return commandsRun.get();
+    }
+
+    public long commandsFailed() {
+        return commandsFailed.get();
+    }
+
+    public long sessionsDropped() {
+        return sessionsDropped.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        responders.shutdownNow();
+        server.stop(true);
+    }
+
+    /**
+     * How every simulated host answers a command.
+     */
+    public record Behavior(long latencyMs, int outputBytes, double failureRate,
+                           double disconnectRate) {
+    }
+
+    private static final class FleetServer extends SshServer {
+
+        private void bindLoopbackPort() throws IOException {
+            acceptor.bind(new InetSocketAddress("127.0.0.1", 0));
+        }
+    }
+
+    private final class SimulatedCommand implements Command {
+        private OutputStream out;
+        private ExitCallback exitCallback;
+
+        @Override
+        public void setInputStream(InputStream in) {
+        }
+
+        @Override
+        public void setOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void setErrorStream(OutputStream err) {
+        }
+
+        @Override
+        public void setExitCallback(ExitCallback callback) {
+            this.exitCallback = callback;
+        }
+
+        @Override
+        public void start(ChannelSession channel, Environment env) {
+            commandsRun.incrementAndGet();
+            responders.schedule(() -> respond(channel), behavior.latencyMs(),
+                TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void destroy(ChannelSession channel) {
+        }
+
+        private void respond(ChannelSession channel) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < behavior.disconnectRate()) {
+                sessionsDropped.incrementAndGet();
+                channel.getSession().close(true);
+                return;
+            }
+            boolean failed = random.nextDouble() < behavior.failureRate();
+            try {
+                writeOutput();
+                if (failed) {
+                    commandsFailed.incrementAndGet();
+                    out.write("simulated failure\n".getBytes(StandardCharsets.UTF_8));
+                }
+                out.flush();
+                exitCallback.onExit(failed ? 1 : 0);
+            } catch (IOException e) {
+                exitCallback.onExit(255, e.getMessage());
+            }
+        }
+
+        private void writeOutput() throws IOException {
+            byte[] chunk = new byte[Math.min(WRITE_CHUNK, Math.max(behavior.outputBytes(), 1))];
+            Arrays.fill(chunk, (byte) 'x');
+            int remaining = behavior.outputBytes();
+            while (remaining > 0) {
+                int length = Math.min(chunk.length, remaining);
+                out.write(chunk, 0, length);
+                remaining -= length;
+            }
+        }
+    }
+}
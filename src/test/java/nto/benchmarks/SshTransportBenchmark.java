@@ -0,0 +1,137 @@
+package nto.benchmarks;
+
+import nto.application.interfaces.repositories.ServerRepository;
+import nto.core.entities.ServerEntity;
+import nto.core.entities.SshUsernameEntity;
+import nto.infrastructure.services.ssh.SshSessionManager;
+import org.apache.sshd.client.channel.ChannelExec;
+import org.apache.sshd.client.channel.ClientChannelEvent;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.shell.ProcessShellFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures how fast large script outputs come back through {@link SshSessionManager} under
+ * different {@code nto.ssh.transport.*} settings, against an in-process MINA server running
+ * {@code /bin/sh}. Loopback has no bandwidth limit, so compression shows its CPU cost here
+ * rather than the saving it brings on a slow link. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class SshTransportBenchmark {
+
+    private static final int OUTPUT_MB = 32;
+    private static final int PARALLEL_COMMANDS = 4;
+    private static final Map<String, String> OUTPUTS = Map.of(
+        "text", "yes 'INFO 2024-01-01 12:00:00 worker-7 processed batch ok' | head -c %d",
+        "random", "head -c %d /dev/urandom");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void compareTransportSettings() throws Exception {
+        SshServer sshd = SshServer.setUpDefaultServer();
+        sshd.setHost("127.0.0.1");
+        sshd.setPort(0);
+        sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(tempDir.resolve("host.ser")));
+        sshd.setPasswordAuthenticator((username, password, session) -> "pw".equals(password));
+        sshd.setCommandFactory((channel, command) ->
+            new ProcessShellFactory(command, "/bin/sh", "-c", command).createShell(channel));
+        sshd.start();
+
+        System.out.printf("%-16s %-7s %10s%n", "settings", "output", "MB/sec");
+        try {
+            for (Settings settings : List.of(
+                new Settings("default", 0, 0, 0, false),
+                new Settings("window-8m", 0, 8L << 20, 64L << 10, false),
+                new Settings("workers-2", 2, 0, 0, false),
+                new Settings("zlib", 0, 0, 0, true),
+                new Settings("zlib+window-8m", 0, 8L << 20, 64L << 10, true))) {
+                for (Map.Entry<String, String> output : OUTPUTS.entrySet()) {
+                    double mbPerSecond = run(sshd.getPort(), settings, output.getValue());
+                    System.out.printf("%-16s %-7s %10.1f%n", settings.name(), output.getKey(),
+                        mbPerSecond);
+                }
+            }
+        } finally {
+            sshd.stop(true);
+        }
+    }
+
+    private double run(int port, Settings settings, String commandFormat) throws Exception {
+        SshSessionManager sessionManager = new SshSessionManager(mock(ServerRepository.class), Runnable::run);
+        ReflectionTestUtils.setField(sessionManager, "nioWorkers", settings.nioWorkers());
+        ReflectionTestUtils.setField(sessionManager, "windowSize", settings.windowSize());
+        ReflectionTestUtils.setField(sessionManager, "maxPacketSize", settings.maxPacketSize());
+        ReflectionTestUtils.setField(sessionManager, "compression", settings.compression());
+        sessionManager.init();
+        try {
+            ClientSession session = sessionManager.getOrCreateSession(server(port));
+            String command = String.format(commandFormat, OUTPUT_MB << 20);
+            AtomicLong received = new AtomicLong();
+
+            long start = System.nanoTime();
+            List<CompletableFuture<Void>> runs = new ArrayList<>();
+            for (int i = 0; i < PARALLEL_COMMANDS; i++) {
+                runs.add(CompletableFuture.runAsync(() -> drain(session, command, received)));
+            }
+            CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new))
+                .get(5, TimeUnit.MINUTES);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            return received.get() / (1024.0 * 1024.0) / seconds;
+        } finally {
+            sessionManager.destroy();
+        }
+    }
+
+    private static void drain(ClientSession session, String command, AtomicLong received) {
+        try (ChannelExec channel = session.createExecChannel(command)) {
+            channel.setOut(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    received.incrementAndGet();
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    received.addAndGet(len);
+                }
+            });
+            channel.open().verify(10, TimeUnit.SECONDS);
+            channel.waitFor(EnumSet.of(ClientChannelEvent.CLOSED), TimeUnit.MINUTES.toMillis(5));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ServerEntity server(int port) {
+        ServerEntity server = new ServerEntity();
+        server.setId(1L);
+        server.setIpAddress("127.0.0.1");
+        server.setPort(port);
+        server.setPassword("pw");
+        server.setSshUsername(SshUsernameEntity.builder().username("nto").build());
+        return server;
+    }
+
+    private record Settings(String name, int nioWorkers, long windowSize, long maxPacketSize,
+                            boolean compression) {
+    }
+}
@@ -0,0 +1,141 @@
+package nto.benchmarks;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts what reaches the driver: every {@code execute*} call is one round-trip (a JDBC batch
+ * counts once), every {@code addBatch} is one statement, executions of prepared
+ * {@code SELECT}s are queries, and commits are transactions. Import {@link Installer} to wrap
+ * the application's data source.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    public void reset() {
+        roundTrips.set(0);
+        statements.set(0);
+        queries.set(0);
+        commits.set(0);
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public long getStatements() {
+        return statements.get();
+    }
+
+    public long getQueries() {
+        return queries.get();
+    }
+
+    public long getCommits() {
+        return commits.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    private Connection countingConnection(Connection target) {
+        return proxy(Connection.class, target, (method, args, result) -> {
+            if ("commit".equals(method.getName())) {
+                commits.incrementAndGet();
+            }
+            boolean query = args != null && args.length > 0 && args[0] instanceof String sql
+                && sql.trim().toLowerCase(Locale.ROOT).startsWith("select");
+            if (result instanceof CallableStatement callable) {
+                return countingStatement(CallableStatement.class, callable, query);
+            }
+            if (result instanceof PreparedStatement prepared) {
+                return countingStatement(PreparedStatement.class, prepared, query);
+            }
+            if (result instanceof Statement statement) {
+                return countingStatement(Statement.class, statement, false);
+            }
+            return result;
+        });
+    }
+
+    private <T extends Statement> T countingStatement(Class<T> type, T target, boolean query) {
+        return proxy(type, target, (method, args, result) -> {
+            String name = method.getName();
+            if ("addBatch".equals(name)) {
+                statements.incrementAndGet();
+            } else if ("executeBatch".equals(name) || "executeLargeBatch".equals(name)) {
+                roundTrips.incrementAndGet();
+            } else if (name.startsWith("execute")) {
+                roundTrips.incrementAndGet();
+                statements.incrementAndGet();
+                if (query) {
+                    queries.incrementAndGet();
+                }
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, AfterCall afterCall) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return afterCall.apply(method, args, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private interface AfterCall {
+        Object apply(Method method, Object[] args, Object result) throws SQLException;
+    }
+
+    @TestConfiguration
+    public static class Installer {
+
+        @Bean
+        static BeanPostProcessor countingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource
+                        && !(bean instanceof StatementCountingDataSource)
+                        ? new StatementCountingDataSource(dataSource)
+                        : bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package nto.benchmarks;
+
+import jakarta.persistence.EntityNotFoundException;
+import nto.core.entities.ScriptEntity;
+import nto.core.entities.ServerEntity;
+import nto.core.entities.ServerGroupEntity;
+import nto.core.entities.TaskEntity;
+import nto.core.entities.UserEntity;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.repositories.JpaScriptRepository;
+import nto.infrastructure.repositories.JpaServerGroupRepository;
+import nto.infrastructure.repositories.JpaServerRepository;
+import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.repositories.JpaUserRepository;
+import nto.infrastructure.services.TaskStateService;
+import nto.infrastructure.services.TaskStatusWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Database traffic of the RUNNING and final transitions for 1k tasks: the previous
+ * find-and-save per transition against {@link TaskStatusWriter}'s coalesced batches.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(StatementCountingDataSource.Installer.class)
+class TaskStatusWriteBenchmark {
+
+    private static final int TASKS = 1_000;
+
+    @Autowired
+    private StatementCountingDataSource dataSource;
+    @Autowired
+    private TaskStateService taskStateService;
+    @Autowired
+    private TaskStatusWriter statusWriter;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JpaUserRepository userRepository;
+    @Autowired
+    private JpaServerGroupRepository groupRepository;
+    @Autowired
+    private JpaServerRepository serverRepository;
+    @Autowired
+    private JpaScriptRepository scriptRepository;
+    @Autowired
+    private JpaTaskRepository taskRepository;
+
+    @Test
+    void compareStatusWrites() {
+        List<Long> directTasks = createPendingTasks("direct");
+        List<Long> batchedTasks = createPendingTasks("batched");
+
+        System.out.printf("%-8s %7s %12s %11s %13s %10s%n",
+            "mode", "tasks", "roundTrips", "statements", "transactions", "millis");
+        report("direct", () -> directTasks.forEach(this::legacyTransitions));
+        report("batched", () -> {
+            batchedTasks.forEach(id -> {
+                taskStateService.markRunning(id, "running");
+                taskStateService.markFinished(id, TaskStatus.SUCCESS, "ok");
+            });
+            awaitFlushed();
+        });
+    }
+
+    private void report(String mode, Runnable run) {
+        dataSource.reset();
+        long start = System.nanoTime();
+        run.run();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.printf("%-8s %7d %12d %11d %13d %10d%n", mode, TASKS,
+            dataSource.getRoundTrips(), dataSource.getStatements(), dataSource.getCommits(),
+            millis);
+    }
+
+    /**
+     * What {@code TaskStateService} did before write-behind: load and save in a transaction
+     * per transition.
+     */
+    private void legacyTransitions(Long taskId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            TaskEntity task = taskRepository.findWithExecutionContextById(taskId)
+                .orElseThrow(EntityNotFoundException::new);
+            task.setStartedAt(LocalDateTime.now());
+            task.setStatus(TaskStatus.RUNNING);
+            task.setOutput("running");
+            taskRepository.save(task);
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            TaskEntity task = taskRepository.findById(taskId)
+                .orElseThrow(EntityNotFoundException::new);
+            task.setFinishedAt(LocalDateTime.now());
+            task.setStatus(TaskStatus.SUCCESS);
+            task.setOutput("ok");
+            taskRepository.save(task);
+        });
+    }
+
+    private void awaitFlushed() {
+        while (statusWriter.getPendingCount() > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        statusWriter.flush();
+    }
+
+    private List<Long> createPendingTasks(String prefix) {
+        UserEntity user = userRepository.saveAndFlush(UserEntity.builder()
+            .username(prefix + "-user")
+            .password("pw")
+            .build());
+        ServerGroupEntity group = groupRepository.save(ServerGroupEntity.builder()
+            .name(prefix + "-group")
+            .owner(user)
+            .build());
+        ScriptEntity script = scriptRepository.save(ScriptEntity.builder()
+            .name(prefix + "-script")
+            .content("true")
+            .owner(user)
+            .build());
+        ServerEntity server = serverRepository.save(ServerEntity.builder()
+            .hostname(prefix + "-srv")
+            .ipAddress("10.0.0.1")
+            .port(22)
+            .groups(Set.of(group))
+            .build());
+
+        List<TaskEntity> tasks = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            tasks.add(TaskEntity.builder()
+                .server(server)
+                .script(script)
+                .status(TaskStatus.PENDING)
+                .build());
+        }
+        return taskRepository.saveAll(tasks).stream().map(TaskEntity::getId).toList();
+    }
+}
@@ -0,0 +1,103 @@
+package nto.config;
+
+import nto.infrastructure.concurrency.BoundedVirtualThreadExecutor;
+import nto.infrastructure.config.AsyncConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncConfigTest {
+
+    @Test
+    void taskExecutorShouldUsePlatformPoolByDefault() {
+        AsyncConfig config = config("platform", 10);
+
+        Executor executor = config.taskExecutor();
+
+        ThreadPoolTaskExecutor pool = assertInstanceOf(ThreadPoolTaskExecutor.class, executor);
+        assertEquals(50, pool.getCorePoolSize());
+        assertEquals(100, pool.getMaxPoolSize());
+        pool.shutdown();
+    }
+
+    @Test
+    void taskExecutorShouldRejectUnknownMode() {
+        AsyncConfig config = config("green", 10);
+
+        assertThrows(IllegalStateException.class, config::taskExecutor);
+    }
+
+    @Test
+    void virtualModeShouldRunTasksOnVirtualThreads() throws Exception {
+        BoundedVirtualThreadExecutor executor = assertInstanceOf(
+            BoundedVirtualThreadExecutor.class, config("virtual", 4).taskExecutor());
+        AtomicBoolean virtual = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            virtual.set(Thread.currentThread().isVirtual());
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(virtual.get());
+        executor.destroy();
+    }
+
+    @Test
+    void virtualModeShouldNeverExceedConcurrencyCap() throws Exception {
+        int cap = 3;
+        int tasks = 30;
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", cap);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(tasks);
+
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                int now = running.incrementAndGet();
+                peak.accumulateAndGet(now, Math::max);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.destroy();
+        assertEquals(cap, peak.get());
+        assertEquals(0, executor.getActiveCount());
+    }
+
+    @Test
+    void boundedExecutorShouldRejectNonPositiveCap() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new BoundedVirtualThreadExecutor("test-", 0));
+    }
+
+    private AsyncConfig config(String mode, int virtualMaxConcurrency) {
+        AsyncConfig config = new AsyncConfig();
+        ReflectionTestUtils.setField(config, "threadsMode", mode);
+        ReflectionTestUtils.setField(config, "virtualMaxConcurrency", virtualMaxConcurrency);
+        ReflectionTestUtils.setField(config, "platformCorePoolSize", 50);
+        ReflectionTestUtils.setField(config, "platformMaxPoolSize", 100);
+        ReflectionTestUtils.setField(config, "platformQueueCapacity", 1000);
+        return config;
+    }
+}
@@ -0,0 +1,111 @@
+package nto.integration;
+
+import nto.application.dto.BulkTaskRequestDto;
+import nto.application.interfaces.services.TaskService;
+import nto.benchmarks.StatementCountingDataSource;
+import nto.core.entities.ScriptEntity;
+import nto.core.entities.ServerEntity;
+import nto.core.entities.ServerGroupEntity;
+import nto.core.entities.UserEntity;
+import nto.infrastructure.repositories.JpaScriptRepository;
+import nto.infrastructure.repositories.JpaServerGroupRepository;
+import nto.infrastructure.repositories.JpaServerRepository;
+import nto.infrastructure.repositories.JpaUserRepository;
+import nto.infrastructure.services.dispatch.ServerTaskDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pins the number of queries {@code createTasksBulk} runs to validate servers, independent of
+ * how many servers the request names. The dispatcher is mocked so no task runs while counting.
+ */
+@SpringBootTest(properties = {
+    "nto.executor.type=ssh",
+    "nto.liveness.background=false"
+})
+@ActiveProfiles("test")
+@Import(StatementCountingDataSource.Installer.class)
+class BulkTaskQueryCountIntegrationTest {
+
+    private static final String USERNAME = "bulk-user";
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private StatementCountingDataSource dataSource;
+    @Autowired
+    private JpaUserRepository userRepository;
+    @Autowired
+    private JpaServerGroupRepository groupRepository;
+    @Autowired
+    private JpaServerRepository serverRepository;
+    @Autowired
+    private JpaScriptRepository scriptRepository;
+    @MockBean
+    private ServerTaskDispatcher taskDispatcher;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void bulkCreateShouldRunConstantNumberOfQueries() {
+        UserEntity user = userRepository.saveAndFlush(UserEntity.builder()
+            .username(USERNAME)
+            .password("pw")
+            .build());
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(USERNAME, null, List.of()));
+        ScriptEntity script = scriptRepository.save(ScriptEntity.builder()
+            .name("bulk")
+            .content("echo ok")
+            .owner(user)
+            .build());
+
+        long smallBatch = queriesFor(script, servers(user, "small", 5));
+        long largeBatch = queriesFor(script, servers(user, "large", 200));
+
+        assertEquals(2, smallBatch);
+        assertEquals(smallBatch, largeBatch);
+    }
+
+    private long queriesFor(ScriptEntity script, List<Long> serverIds) {
+        dataSource.reset();
+        taskService.createTasksBulk(new BulkTaskRequestDto(script.getId(), serverIds));
+        return dataSource.getQueries();
+    }
+
+    private List<Long> servers(UserEntity user, String prefix, int count) {
+        List<ServerGroupEntity> groups = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            groups.add(groupRepository.save(ServerGroupEntity.builder()
+                .name(prefix + "-group-" + i)
+                .owner(user)
+                .build()));
+        }
+        List<ServerEntity> servers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            servers.add(ServerEntity.builder()
+                .hostname(prefix + "-srv-" + i)
+                .ipAddress("10.0.0." + (i % 250 + 1))
+                .port(22)
+                .groups(Set.of(groups.get(i % groups.size())))
+                .build());
+        }
+        return serverRepository.saveAll(servers).stream().map(ServerEntity::getId).toList();
+    }
+}
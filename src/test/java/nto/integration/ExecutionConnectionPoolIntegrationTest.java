@@ -0,0 +1,125 @@
+package nto.integration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import nto.application.interfaces.services.ScriptExecutor;
+import nto.core.entities.ScriptEntity;
+import nto.core.entities.ServerEntity;
+import nto.core.entities.ServerGroupEntity;
+import nto.core.entities.TaskEntity;
+import nto.core.entities.UserEntity;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.repositories.JpaScriptRepository;
+import nto.infrastructure.repositories.JpaServerGroupRepository;
+import nto.infrastructure.repositories.JpaServerRepository;
+import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.repositories.JpaUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+    "nto.executor.threads=platform",
+    "nto.executor.platform.corePoolSize=200",
+    "nto.executor.platform.maxPoolSize=200",
+    "nto.mock.executionDelayMs=8000"
+})
+@ActiveProfiles("test")
+class ExecutionConnectionPoolIntegrationTest {
+
+    private static final int IN_FLIGHT_TASKS = 200;
+
+    @Autowired
+    private ScriptExecutor scriptExecutor;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JpaUserRepository userRepository;
+    @Autowired
+    private JpaServerGroupRepository groupRepository;
+    @Autowired
+    private JpaServerRepository serverRepository;
+    @Autowired
+    private JpaScriptRepository scriptRepository;
+    @Autowired
+    private JpaTaskRepository taskRepository;
+
+    @Test
+    void poolUsageShouldStayFlatWhileTasksAreInFlight() throws Exception {
+        List<Long> taskIds = createPendingTasks();
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+
+        taskIds.forEach(scriptExecutor::executeAsync);
+        awaitStatus(taskIds, TaskStatus.RUNNING, 6_000);
+
+        int peakActive = 0;
+        int peakAwaiting = 0;
+        long samplingDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1_000);
+        while (System.nanoTime() < samplingDeadline) {
+            peakActive = Math.max(peakActive, pool.getActiveConnections());
+            peakAwaiting = Math.max(peakAwaiting, pool.getThreadsAwaitingConnection());
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        assertTrue(peakActive <= 1, "connections held during remote I/O: " + peakActive);
+        assertEquals(0, peakAwaiting);
+        awaitStatus(taskIds, TaskStatus.SUCCESS, 30_000);
+    }
+
+    private List<Long> createPendingTasks() {
+        UserEntity user = userRepository.saveAndFlush(UserEntity.builder()
+            .username("pool-user")
+            .password("pw")
+            .build());
+        ServerGroupEntity group = groupRepository.save(ServerGroupEntity.builder()
+            .name("pool-group")
+            .owner(user)
+            .build());
+        ScriptEntity script = scriptRepository.save(ScriptEntity.builder()
+            .name("sleep")
+            .content("sleep 8")
+            .owner(user)
+            .build());
+
+        List<TaskEntity> tasks = new ArrayList<>();
+        for (int i = 0; i < IN_FLIGHT_TASKS; i++) {
+            ServerEntity server = serverRepository.save(ServerEntity.builder()
+                .hostname("pool-srv-" + i)
+                .ipAddress("10.0.0." + (i % 250 + 1))
+                .port(22)
+                .groups(Set.of(group))
+                .build());
+            tasks.add(TaskEntity.builder()
+                .server(server)
+                .script(script)
+                .status(TaskStatus.PENDING)
+                .build());
+        }
+        return taskRepository.saveAll(tasks).stream().map(TaskEntity::getId).toList();
+    }
+
+    private void awaitStatus(List<Long> taskIds, TaskStatus expected, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (System.nanoTime() < deadline) {
+            long matching = taskRepository.findAllById(taskIds).stream()
+                .filter(task -> task.getStatus() == expected)
+                .count();
+            if (matching == taskIds.size()) {
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        throw new AssertionError("Tasks did not reach " + expected + " within " + timeoutMs + " ms");
+    }
+}
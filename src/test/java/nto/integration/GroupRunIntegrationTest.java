@@ -0,0 +1,125 @@
+package nto.integration;
+
+import nto.application.dto.GroupRunDto;
+import nto.application.dto.TaskDto;
+import nto.application.interfaces.services.ServerGroupService;
+import nto.core.entities.ScriptEntity;
+import nto.core.entities.ServerEntity;
+import nto.core.entities.ServerGroupEntity;
+import nto.core.entities.UserEntity;
+import nto.infrastructure.repositories.JpaScriptRepository;
+import nto.infrastructure.repositories.JpaServerGroupRepository;
+import nto.infrastructure.repositories.JpaServerRepository;
+import nto.infrastructure.repositories.JpaUserRepository;
+import nto.infrastructure.services.TaskStatusWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A group run is recorded before its tasks, the last-status lookup returns the tasks of the
+ * newest run only, and the run's counters follow its tasks to completion.
+ */
+@SpringBootTest(properties = "nto.mock.executionDelayMs=50")
+@ActiveProfiles("test")
+class GroupRunIntegrationTest {
+
+    private static final String USERNAME = "group-run-user";
+    private static final int SERVERS = 4;
+
+    @Autowired
+    private ServerGroupService groupService;
+    @Autowired
+    private TaskStatusWriter statusWriter;
+    @Autowired
+    private JpaUserRepository userRepository;
+    @Autowired
+    private JpaServerGroupRepository groupRepository;
+    @Autowired
+    private JpaServerRepository serverRepository;
+    @Autowired
+    private JpaScriptRepository scriptRepository;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void lastRunShouldCountTasksOfNewestRunOnly() {
+        UserEntity user = userRepository.saveAndFlush(UserEntity.builder()
+            .username(USERNAME)
+            .password("pw")
+            .build());
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(USERNAME, null, List.of()));
+        ScriptEntity script = scriptRepository.save(ScriptEntity.builder()
+            .name("deploy")
+            .content("echo ok")
+            .owner(user)
+            .build());
+        ServerGroupEntity group = groupWithServers(user);
+
+        UUID firstRun = groupService.executeScriptOnGroup(group.getId(), script.getId(), null)
+            .getFirst().groupRunId();
+        awaitFinished(group.getId(), firstRun);
+        UUID secondRun = groupService.executeScriptOnGroup(group.getId(), script.getId(), null)
+            .getFirst().groupRunId();
+        GroupRunDto run = awaitFinished(group.getId(), secondRun);
+
+        assertEquals(script.getId(), run.scriptId());
+        assertEquals(SERVERS, run.totalTasks());
+        assertEquals(SERVERS, run.successTasks());
+        assertEquals(0, run.pendingTasks() + run.runningTasks());
+        assertNotNull(run.finishedAt());
+        List<TaskDto> lastStatus = groupService.getLastGroupExecutionStatus(group.getId());
+        assertEquals(SERVERS, lastStatus.size());
+        assertTrue(lastStatus.stream().allMatch(task -> secondRun.equals(task.groupRunId())));
+    }
+
+    private GroupRunDto awaitFinished(Long groupId, UUID runId) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (System.nanoTime() < deadline) {
+            statusWriter.flush();
+            GroupRunDto run = groupService.getLastGroupRun(groupId);
+            if (runId.equals(run.id()) && run.finishedAt() != null) {
+                return run;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        throw new AssertionError("Group run did not finish: " + runId);
+    }
+
+    private ServerGroupEntity groupWithServers(UserEntity user) {
+        ServerGroupEntity group = groupRepository.save(ServerGroupEntity.builder()
+            .name("runs")
+            .owner(user)
+            .build());
+        List<ServerEntity> servers = new ArrayList<>();
+        for (int i = 0; i < SERVERS; i++) {
+            servers.add(ServerEntity.builder()
+                .hostname("run-srv-" + i)
+                .ipAddress("10.0.1." + (i + 1))
+                .port(22)
+                .groups(Set.of(group))
+                .build());
+        }
+        serverRepository.saveAll(servers);
+        return group;
+    }
+}
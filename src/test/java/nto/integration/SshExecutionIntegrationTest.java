@@ -0,0 +1,326 @@
+package nto.integration;
+
+import nto.application.interfaces.repositories.ServerRepository;
+import nto.core.entities.ScriptEntity;
+import nto.core.entities.ServerEntity;
+import nto.core.entities.SshUsernameEntity;
+import nto.core.entities.TaskEntity;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.cache.ScriptContent;
+import nto.infrastructure.cache.ScriptContentCache;
+import nto.infrastructure.repositories.JpaScriptRepository;
+import nto.infrastructure.services.SshScriptExecutor;
+import nto.infrastructure.services.TaskStateService;
+import nto.infrastructure.services.liveness.HostLivenessRegistry;
+import nto.infrastructure.services.output.CapturedOutput;
+import nto.infrastructure.services.output.OutputBlobStore;
+import nto.infrastructure.services.output.TaskOutputRegistry;
+import nto.infrastructure.services.ssh.RemoteScriptCache;
+import nto.infrastructure.services.ssh.SessionPrewarmer;
+import nto.infrastructure.services.ssh.SshSessionManager;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.kex.KexProposalOption;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.shell.ProcessShellFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs {@link SshScriptExecutor} against an in-process MINA server that executes commands
+ * with {@code /bin/sh}.
+ */
+class SshExecutionIntegrationTest {
+
+    private static final int TASKS = 20;
+
+    @TempDir
+    private Path tempDir;
+
+    private SshServer sshd;
+    private SshSessionManager sessionManager;
+    private RemoteScriptCache scriptCache;
+    private ScriptContentCache scriptContentCache;
+    private final Map<Long, String> scripts = new ConcurrentHashMap<>();
+    private ExecutorService workers;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        sshd = SshServer.setUpDefaultServer();
+        sshd.setHost("127.0.0.1");
+        sshd.setPort(0);
+        sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(tempDir.resolve("host.ser")));
+        sshd.setPasswordAuthenticator((username, password, session) -> "pw".equals(password));
+        sshd.setCommandFactory((channel, command) ->
+            new ProcessShellFactory(command, "/bin/sh", "-c", command).createShell(channel));
+        sshd.start();
+
+        sessionManager = new SshSessionManager(mock(ServerRepository.class), Runnable::run);
+        ReflectionTestUtils.setField(sessionManager, "defaultMaxChannels", 10);
+        sessionManager.init();
+        scriptCache = new RemoteScriptCache();
+        ReflectionTestUtils.setField(scriptCache, "cacheDir", tempDir.resolve("cache").toString());
+        ReflectionTestUtils.setField(scriptCache, "minBytes", 64);
+        JpaScriptRepository scriptRepository = mock(JpaScriptRepository.class);
+        when(scriptRepository.findContentById(any())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            return Optional.of(new ScriptContent(id, "s", scripts.get(id)));
+        });
+        scriptContentCache = new ScriptContentCache(scriptRepository);
+        workers = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        workers.shutdownNow();
+        sessionManager.destroy();
+        sshd.stop(true);
+    }
+
+    @Test
+    void slowScriptsShouldRunConcurrentlyOnTwoWorkerThreads() throws Exception {
+        TaskStateService taskStateService = mock(TaskStateService.class);
+        SshScriptExecutor executor = executor(taskStateService);
+
+        ServerEntity server = server();
+        for (long id = 1; id <= TASKS; id++) {
+            when(taskStateService.markRunning(eq(id), anyString()))
+                .thenReturn(task(id, server, "sleep 1; echo done-" + id));
+        }
+
+        long start = System.nanoTime();
+        List<CompletableFuture<TaskStatus>> runs = new ArrayList<>();
+        for (long id = 1; id <= TASKS; id++) {
+            runs.add(executor.executeAsync(id));
+        }
+        CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        runs.forEach(run -> assertEquals(TaskStatus.SUCCESS, run.join()));
+        assertTrue(elapsedMs < 10_000, "scripts ran one after another: " + elapsedMs + " ms");
+        assertEquals(1, sessionManager.getSessionCount(server.getId()));
+        assertEquals(0, sessionManager.getActiveChannelCount(server.getId()));
+
+        ArgumentCaptor<CapturedOutput> output = ArgumentCaptor.forClass(CapturedOutput.class);
+        verify(taskStateService, timeout(1000)).markFinished(eq(7L), eq(TaskStatus.SUCCESS),
+            output.capture());
+        assertEquals("done-7\n\nExit Status: 0", output.getValue().preview());
+    }
+
+    @Test
+    void nonZeroExitShouldFailTask() throws Exception {
+        TaskStateService taskStateService = mock(TaskStateService.class);
+        SshScriptExecutor executor = executor(taskStateService);
+        when(taskStateService.markRunning(anyLong(), anyString()))
+            .thenReturn(task(1L, server(), "echo oops >&2; exit 3"));
+
+        TaskStatus status = executor.executeAsync(1L).get(10, TimeUnit.SECONDS);
+
+        assertEquals(TaskStatus.FAILED, status);
+        verify(taskStateService).markFinished(1L, TaskStatus.FAILED,
+            CapturedOutput.inline("[ERR] oops\n\nExit Status: 3"));
+    }
+
+    @Test
+    void largeOutputShouldSurviveChannelCloseAndSpillToBlob() throws Exception {
+        TaskStateService taskStateService = mock(TaskStateService.class);
+        SshScriptExecutor executor = executor(taskStateService);
+        when(taskStateService.markRunning(anyLong(), anyString()))
+            .thenReturn(task(2L, server(), "head -c 5000 /dev/zero | tr '\\0' x"));
+
+        TaskStatus status = executor.executeAsync(2L).get(10, TimeUnit.SECONDS);
+
+        assertEquals(TaskStatus.SUCCESS, status);
+        ArgumentCaptor<CapturedOutput> output = ArgumentCaptor.forClass(CapturedOutput.class);
+        verify(taskStateService).markFinished(eq(2L), eq(TaskStatus.SUCCESS), output.capture());
+        assertTrue(output.getValue().isSpilled());
+        assertEquals(5000 + "\nExit Status: 0".length(), output.getValue().totalBytes());
+    }
+
+    @Test
+    void cancelShouldStopHungCommandAndFreeChannel() throws Exception {
+        TaskStateService taskStateService = mock(TaskStateService.class);
+        TaskOutputRegistry outputRegistry = mock(TaskOutputRegistry.class);
+        SshScriptExecutor executor = executor(taskStateService, outputRegistry);
+        ServerEntity server = server();
+        when(taskStateService.markRunning(anyLong(), anyString()))
+            .thenReturn(task(3L, server, "echo started; sleep 60"));
+
+        CompletableFuture<TaskStatus> run = executor.executeAsync(3L);
+        verify(outputRegistry, timeout(5000))
+            .append(eq(3L), eq(TaskOutputRegistry.STDOUT), contains("started"));
+        long start = System.nanoTime();
+        assertTrue(executor.cancel(3L));
+
+        assertEquals(TaskStatus.CANCELLED, run.get(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+        assertEquals(0, sessionManager.getActiveChannelCount(server.getId()));
+        ArgumentCaptor<CapturedOutput> output = ArgumentCaptor.forClass(CapturedOutput.class);
+        verify(taskStateService).markFinished(eq(3L), eq(TaskStatus.CANCELLED), output.capture());
+        assertTrue(output.getValue().preview().contains("[ERR] Cancelled"));
+    }
+
+    @Test
+    void commandPastItsDeadlineShouldFail() throws Exception {
+        TaskStateService taskStateService = mock(TaskStateService.class);
+        SshScriptExecutor executor = executor(taskStateService);
+        ServerEntity server = server();
+        TaskEntity task = task(4L, server, "sleep 60");
+        task.setTimeoutSeconds(1);
+        when(taskStateService.markRunning(anyLong(), anyString())).thenReturn(task);
+
+        TaskStatus status = executor.executeAsync(4L).get(10, TimeUnit.SECONDS);
+
+        assertEquals(TaskStatus.FAILED, status);
+        assertEquals(0, sessionManager.getActiveChannelCount(server.getId()));
+        ArgumentCaptor<CapturedOutput> output = ArgumentCaptor.forClass(CapturedOutput.class);
+        verify(taskStateService).markFinished(eq(4L), eq(TaskStatus.FAILED), output.capture());
+        assertTrue(output.getValue().preview().contains("Execution timed out after 1 s"));
+    }
+
+    @Test
+    void largeScriptShouldBeUploadedOnceAndThenRunByPath() throws Exception {
+        TaskStateService taskStateService = mock(TaskStateService.class);
+        SshScriptExecutor executor = executor(taskStateService);
+        ServerEntity server = server();
+        String script = "# " + "x".repeat(100) + "\necho cached-run";
+        when(taskStateService.markRunning(anyLong(), anyString()))
+            .thenAnswer(invocation -> task(invocation.getArgument(0), server, script));
+
+        assertEquals(TaskStatus.SUCCESS, executor.executeAsync(5L).get(10, TimeUnit.SECONDS));
+        Path cached = tempDir.resolve("cache").resolve(sha256(script) + ".sh");
+        assertEquals(script, Files.readString(cached));
+
+        Files.writeString(cached, "echo from-cache");
+        assertEquals(TaskStatus.SUCCESS, executor.executeAsync(6L).get(10, TimeUnit.SECONDS));
+
+        ArgumentCaptor<CapturedOutput> output = ArgumentCaptor.forClass(CapturedOutput.class);
+        verify(taskStateService).markFinished(eq(5L), eq(TaskStatus.SUCCESS), output.capture());
+        assertEquals("cached-run\n\nExit Status: 0", output.getValue().preview());
+        verify(taskStateService).markFinished(eq(6L), eq(TaskStatus.SUCCESS), output.capture());
+        assertEquals("from-cache\n\nExit Status: 0", output.getValue().preview());
+    }
+
+    @Test
+    void scriptAlreadyOnHostShouldNotBeUploadedAgain() throws Exception {
+        TaskStateService taskStateService = mock(TaskStateService.class);
+        SshScriptExecutor executor = executor(taskStateService);
+        String script = "# " + "y".repeat(100) + "\necho uploaded";
+        Files.createDirectories(tempDir.resolve("cache"));
+        Files.writeString(tempDir.resolve("cache").resolve(sha256(script) + ".sh"),
+            "echo already-there");
+        when(taskStateService.markRunning(anyLong(), anyString()))
+            .thenReturn(task(7L, server(), script));
+
+        assertEquals(TaskStatus.SUCCESS, executor.executeAsync(7L).get(10, TimeUnit.SECONDS));
+
+        ArgumentCaptor<CapturedOutput> output = ArgumentCaptor.forClass(CapturedOutput.class);
+        verify(taskStateService).markFinished(eq(7L), eq(TaskStatus.SUCCESS), output.capture());
+        assertEquals("already-there\n\nExit Status: 0", output.getValue().preview());
+    }
+
+    @Test
+    void compressionShouldBeNegotiatedOnlyForServersThatAskForIt() throws Exception {
+        ServerEntity plain = server();
+        ServerEntity compressed = server();
+        compressed.setId(2L);
+        compressed.setCompression(true);
+
+        ClientSession plainSession = sessionManager.getOrCreateSession(plain);
+        ClientSession compressedSession = sessionManager.getOrCreateSession(compressed);
+
+        assertEquals("none", plainSession.getNegotiatedKexParameter(KexProposalOption.S2CCOMP));
+        assertEquals("zlib@openssh.com",
+            compressedSession.getNegotiatedKexParameter(KexProposalOption.S2CCOMP));
+        assertEquals("hello\n", compressedSession.executeRemoteCommand("echo hello"));
+    }
+
+    @Test
+    void keepaliveShouldRecordRoundTripAgainstRealServer() throws Exception {
+        ReflectionTestUtils.setField(sessionManager, "keepaliveTimeoutMs", 5000L);
+        ServerEntity server = server();
+        sessionManager.warmUp(server).get(10, TimeUnit.SECONDS);
+
+        sessionManager.sendKeepalives();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sessionManager.getHealth().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(server.getId(), sessionManager.getHealth().iterator().next().serverId());
+        assertEquals(0, sessionManager.getStats().deadSessions());
+        assertEquals(1, sessionManager.getSessionCount(server.getId()));
+    }
+
+    private SshScriptExecutor executor(TaskStateService taskStateService) throws Exception {
+        return executor(taskStateService, mock(TaskOutputRegistry.class));
+    }
+
+    private SshScriptExecutor executor(TaskStateService taskStateService,
+                                       TaskOutputRegistry outputRegistry) throws Exception {
+        OutputBlobStore blobStore = new OutputBlobStore();
+        ReflectionTestUtils.setField(blobStore, "blobDir", tempDir.resolve("output"));
+        ReflectionTestUtils.setField(blobStore, "memoryLimitBytes", 1024);
+        ReflectionTestUtils.setField(blobStore, "previewBytes", 64);
+        blobStore.init();
+        return new SshScriptExecutor(taskStateService, mock(ServerRepository.class),
+            sessionManager, mock(SessionPrewarmer.class), scriptCache, scriptContentCache,
+            mock(HostLivenessRegistry.class), outputRegistry, blobStore, workers);
+    }
+
+    private static String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+            .digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private ServerEntity server() {
+        ServerEntity server = new ServerEntity();
+        server.setId(1L);
+        server.setIpAddress("127.0.0.1");
+        server.setPort(sshd.getPort());
+        server.setPassword("pw");
+        server.setSshUsername(SshUsernameEntity.builder().username("nto").build());
+        return server;
+    }
+
+    private TaskEntity task(Long id, ServerEntity server, String content) {
+        scripts.put(id, content);
+        return TaskEntity.builder()
+            .id(id)
+            .server(server)
+            .script(ScriptEntity.builder().id(id).build())
+            .status(TaskStatus.PENDING)
+            .build();
+    }
+}
@@ -0,0 +1,75 @@
+package nto.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import nto.infrastructure.security.JwtUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtUtilsTest {
+
+    private static final String SECRET =
+        "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtAccessExpirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtUtils, "jwtIssuer", "nto");
+        jwtUtils.init();
+    }
+
+    @Test
+    void accessTokenShouldBeVerifiedOnceAndThenServedFromCache() {
+        String token = jwtUtils.generateAccessToken("alice");
+
+        assertEquals("alice", jwtUtils.resolveAccessTokenSubject(token));
+        assertEquals("alice", jwtUtils.resolveAccessTokenSubject(token));
+        assertEquals("alice", jwtUtils.resolveAccessTokenSubject(token));
+
+        assertEquals(1, jwtUtils.getVerifiedCacheMisses());
+        assertEquals(2, jwtUtils.getVerifiedCacheHits());
+    }
+
+    @Test
+    void tamperedTokenShouldBeRejected() {
+        String token = jwtUtils.generateAccessToken("alice");
+        String tampered = token.substring(0, token.length() - 2)
+            + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertNull(jwtUtils.resolveAccessTokenSubject(tampered));
+        assertNull(jwtUtils.resolveAccessTokenSubject("not-a-jwt"));
+    }
+
+    @Test
+    void expiredTokenShouldBeRejected() {
+        ReflectionTestUtils.setField(jwtUtils, "jwtAccessExpirationMs", -60_000L);
+
+        assertNull(jwtUtils.resolveAccessTokenSubject(jwtUtils.generateAccessToken("alice")));
+    }
+
+    @Test
+    void tokenOfAnotherTypeShouldBeRejected() {
+        String token = Jwts.builder()
+            .claim("typ", "refresh")
+            .setSubject("alice")
+            .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+            .compact();
+
+        assertNull(jwtUtils.resolveAccessTokenSubject(token));
+        assertNull(jwtUtils.resolveAccessTokenSubject(token));
+        assertEquals(0, jwtUtils.getVerifiedCacheHits());
+    }
+}
@@ -0,0 +1,90 @@
+package nto.services;
+
+import nto.application.interfaces.services.ScriptExecutor;
+import nto.core.enums.PingStatus;
+import nto.infrastructure.services.GroupPinger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GroupPingerTest {
+
+    @Mock
+    private ScriptExecutor scriptExecutor;
+    @InjectMocks
+    private GroupPinger groupPinger;
+
+    private final Map<Long, CompletableFuture<Boolean>> pings = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(groupPinger, "concurrency", 2);
+        ReflectionTestUtils.setField(groupPinger, "deadlineMs", 5_000L);
+        lenient().when(scriptExecutor.pingAsync(anyLong())).thenAnswer(invocation ->
+            pings.computeIfAbsent(invocation.getArgument(0), id -> new CompletableFuture<>()));
+    }
+
+    @Test
+    void nextServerShouldBePingedAsSoonAsALaneFrees() {
+        Map<Long, CompletableFuture<PingStatus>> results = groupPinger.start(List.of(1L, 2L, 3L));
+
+        verify(scriptExecutor).pingAsync(1L);
+        verify(scriptExecutor).pingAsync(2L);
+        verify(scriptExecutor, never()).pingAsync(3L);
+
+        pings.get(2L).complete(false);
+        verify(scriptExecutor).pingAsync(3L);
+        assertEquals(PingStatus.DOWN, results.get(2L).join());
+        assertFalse(results.get(1L).isDone());
+    }
+
+    @Test
+    void synchronousAnswersShouldNotHoldUpTheLane() {
+        ReflectionTestUtils.setField(groupPinger, "concurrency", 1);
+        when(scriptExecutor.pingAsync(anyLong())).thenReturn(CompletableFuture.completedFuture(true));
+
+        Map<Long, PingStatus> results = groupPinger.pingAll(List.of(1L, 2L, 3L));
+
+        assertEquals(Map.of(1L, PingStatus.UP, 2L, PingStatus.UP, 3L, PingStatus.UP), results);
+    }
+
+    @Test
+    void serversWithoutAnswerByDeadlineShouldBeUnknown() {
+        ReflectionTestUtils.setField(groupPinger, "concurrency", 1);
+        ReflectionTestUtils.setField(groupPinger, "deadlineMs", 50L);
+
+        Map<Long, PingStatus> results = groupPinger.pingAll(List.of(1L, 2L));
+
+        assertEquals(Map.of(1L, PingStatus.UNKNOWN, 2L, PingStatus.UNKNOWN), results);
+        pings.get(1L).complete(true);
+        verify(scriptExecutor, never()).pingAsync(2L);
+    }
+
+    @Test
+    void failedPingShouldCountAsDown() {
+        when(scriptExecutor.pingAsync(1L)).thenThrow(new IllegalStateException("no server"));
+        when(scriptExecutor.pingAsync(2L))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("refused")));
+
+        assertEquals(Map.of(1L, PingStatus.DOWN, 2L, PingStatus.DOWN),
+            groupPinger.pingAll(List.of(1L, 2L)));
+    }
+}
@@ -0,0 +1,224 @@
+package nto.services;
+
+import nto.application.dto.WavePolicyDto;
+import nto.application.interfaces.services.ScriptExecutor;
+import nto.core.entities.ServerEntity;
+import nto.core.entities.TaskEntity;
+import nto.core.enums.TaskStatus;
+import nto.core.utils.exceptions.BadRequestException;
+import nto.infrastructure.services.TaskStateService;
+import nto.infrastructure.services.dispatch.GroupRunCoordinator;
+import nto.infrastructure.services.dispatch.GroupRunCoordinator.WavePlan;
+import nto.infrastructure.services.dispatch.ServerTaskDispatcher;
+import nto.infrastructure.services.dispatch.TaskAdmissionController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GroupRunCoordinatorTest {
+
+    @Mock
+    private ServerTaskDispatcher taskDispatcher;
+    @Mock
+    private ScriptExecutor scriptExecutor;
+    @Mock
+    private TaskStateService taskStateService;
+    @Mock
+    private TaskAdmissionController admissionController;
+    @Mock
+    private Executor taskExecutor;
+    @InjectMocks
+    private GroupRunCoordinator coordinator;
+
+    private final Map<Long, CompletableFuture<TaskStatus>> runs = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(taskDispatcher.dispatch(anyLong(), anyLong())).thenAnswer(invocation ->
+            runs.computeIfAbsent(invocation.getArgument(1), id -> new CompletableFuture<>()));
+    }
+
+    @Test
+    void planShouldResolvePercentOfGroupAndCapCanary() {
+        WavePlan plan = coordinator.plan(new WavePolicyDto(null, 25, null, 50, 0.1), 10);
+
+        assertEquals(new WavePlan(10, 3, 0.1), plan);
+        assertEquals(new WavePlan(0, 10, null), coordinator.plan(null, 10));
+    }
+
+    @Test
+    void planShouldRejectMoreThanOneWaveSize() {
+        assertThrows(BadRequestException.class,
+            () -> coordinator.plan(new WavePolicyDto(5, null, 2, null, null), 10));
+    }
+
+    @Test
+    void nextTaskShouldStartAsSoonAsASlotFrees() {
+        coordinator.start(UUID.randomUUID(), tasks(4), new WavePlan(0, 2, null));
+
+        verify(taskDispatcher).dispatch(1L, 1L);
+        verify(taskDispatcher).dispatch(2L, 2L);
+        verify(taskDispatcher, never()).dispatch(3L, 3L);
+
+        runs.get(2L).complete(TaskStatus.SUCCESS);
+        verify(taskDispatcher).dispatch(3L, 3L);
+        verify(taskDispatcher, never()).dispatch(4L, 4L);
+
+        runs.get(1L).complete(TaskStatus.FAILED);
+        runs.get(3L).complete(TaskStatus.SUCCESS);
+        runs.get(4L).complete(TaskStatus.SUCCESS);
+        assertEquals(0, coordinator.getActiveRollouts());
+        verify(taskStateService, never()).markCancelled(any(), any());
+    }
+
+    @Test
+    void taskShouldBeDispatchedOnlyOnceItsServerIsWarm() {
+        CompletableFuture<Void> warm = new CompletableFuture<>();
+        when(scriptExecutor.prewarm(Set.of(1L, 2L))).thenReturn(Map.of(1L, warm));
+
+        coordinator.start(UUID.randomUUID(), tasks(2), new WavePlan(0, 2, null));
+
+        verify(taskDispatcher, never()).dispatch(1L, 1L);
+        verify(taskDispatcher).dispatch(2L, 2L);
+
+        warm.complete(null);
+        verify(taskDispatcher).dispatch(1L, 1L);
+    }
+
+    @Test
+    void failedCanaryShouldCancelTheRestOfTheRun() {
+        coordinator.start(UUID.randomUUID(), tasks(3), new WavePlan(1, 2, null));
+
+        verify(taskDispatcher).dispatch(1L, 1L);
+        verify(taskDispatcher, times(1)).dispatch(anyLong(), anyLong());
+
+        runs.get(1L).complete(TaskStatus.FAILED);
+
+        verify(taskDispatcher, times(1)).dispatch(anyLong(), anyLong());
+        verify(taskStateService).markCancelled(eq(2L), startsWith("Skipped: canary"));
+        verify(taskStateService).markCancelled(eq(3L), startsWith("Skipped: canary"));
+        verify(admissionController, times(2)).release(1);
+        assertEquals(0, coordinator.getActiveRollouts());
+    }
+
+    @Test
+    void successfulCanaryShouldOpenTheFullWindow() {
+        coordinator.start(UUID.randomUUID(), tasks(4), new WavePlan(1, 2, null));
+
+        runs.get(1L).complete(TaskStatus.SUCCESS);
+
+        verify(taskDispatcher).dispatch(2L, 2L);
+        verify(taskDispatcher).dispatch(3L, 3L);
+        verify(taskDispatcher, never()).dispatch(4L, 4L);
+    }
+
+    @Test
+    void crossingFailureRatioShouldStopStartingTasks() {
+        coordinator.start(UUID.randomUUID(), tasks(4), new WavePlan(0, 1, 0.25));
+
+        runs.get(1L).complete(TaskStatus.FAILED);
+        verify(taskDispatcher).dispatch(2L, 2L);
+
+        runs.get(2L).complete(TaskStatus.FAILED);
+        verify(taskDispatcher, never()).dispatch(3L, 3L);
+        verify(taskStateService).markCancelled(eq(3L), startsWith("Skipped: failure ratio"));
+        verify(taskStateService).markCancelled(eq(4L), startsWith("Skipped: failure ratio"));
+        verify(admissionController, times(2)).release(1);
+    }
+
+    @Test
+    void taskCancelledWhileWaitingShouldBeSkipped() {
+        UUID runId = UUID.randomUUID();
+        coordinator.start(runId, tasks(3), new WavePlan(0, 1, null));
+        coordinator.cancelled(runId, List.of(2L));
+
+        runs.get(1L).complete(TaskStatus.SUCCESS);
+
+        verify(taskDispatcher, never()).dispatch(2L, 2L);
+        verify(taskDispatcher).dispatch(3L, 3L);
+        verify(admissionController).release(1);
+        verify(taskStateService, never()).markCancelled(any(), any());
+    }
+
+    @Test
+    void failedStartShouldFailWaitingTasksAndReleaseAdmission() {
+        UUID runId = UUID.randomUUID();
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(taskExecutor).execute(any());
+        when(scriptExecutor.prewarm(any())).thenAnswer(invocation -> {
+            coordinator.cancelled(runId, List.of(3L));
+            throw new IllegalStateException("no sessions");
+        });
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            coordinator.start(runId, tasks(3), new WavePlan(0, 1, null));
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(taskDispatcher, never()).dispatch(anyLong(), anyLong());
+        verify(admissionController, times(3)).release(1);
+        verify(taskStateService).markFinished(1L, TaskStatus.FAILED,
+            "Group run could not be started: no sessions");
+        verify(taskStateService).markFinished(2L, TaskStatus.FAILED,
+            "Group run could not be started: no sessions");
+        verify(taskStateService).markCancelled(3L, null);
+        assertEquals(0, coordinator.getActiveRollouts());
+    }
+
+    @Test
+    void tasksFinishingSynchronouslyShouldBeFollowedUpWithoutRecursion() {
+        int count = 50_000;
+        when(taskDispatcher.dispatch(anyLong(), anyLong()))
+            .thenReturn(CompletableFuture.completedFuture(TaskStatus.FAILED));
+
+        coordinator.start(UUID.randomUUID(), tasks(count), new WavePlan(0, 1, null));
+
+        verify(taskDispatcher, times(count)).dispatch(anyLong(), anyLong());
+        assertEquals(0, coordinator.getActiveRollouts());
+    }
+
+    private List<TaskEntity> tasks(int count) {
+        return LongStream.rangeClosed(1, count)
+            .mapToObj(id -> {
+                ServerEntity server = new ServerEntity();
+                server.setId(id);
+                return TaskEntity.builder().id(id).server(server).status(TaskStatus.PENDING)
+                    .build();
+            })
+            .toList();
+    }
+}
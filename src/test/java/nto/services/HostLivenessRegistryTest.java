@@ -0,0 +1,133 @@
+package nto.services;
+
+import nto.core.entities.ServerEntity;
+import nto.infrastructure.repositories.JpaServerRepository;
+import nto.infrastructure.services.liveness.HostLivenessRegistry;
+import nto.infrastructure.services.liveness.TcpProber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class HostLivenessRegistryTest {
+
+    private final TcpProber tcpProber = new TcpProber();
+    private HostLivenessRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tcpProber.start();
+        registry = new HostLivenessRegistry(tcpProber, mock(JpaServerRepository.class));
+        ReflectionTestUtils.setField(registry, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(registry, "probeTimeoutMs", 2_000L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        tcpProber.stop();
+    }
+
+    @Test
+    void listeningPortShouldBeAliveAndCachedForTtl() throws Exception {
+        ServerEntity server;
+        try (ServerSocket listener = listen()) {
+            server = server(1L, listener.getLocalPort());
+            assertTrue(registry.check(server).get(5, TimeUnit.SECONDS));
+        }
+
+        assertTrue(registry.check(server).get(5, TimeUnit.SECONDS));
+        assertEquals("TCP", registry.get(1L).source());
+        assertFalse(registry.isKnownDown(1L));
+    }
+
+    @Test
+    void closedPortShouldBeKnownDownAfterRepeatedFailuresUntilStale() throws Exception {
+        ReflectionTestUtils.setField(registry, "downAfterFailures", 2);
+        ServerEntity server = server(2L, closedPort());
+
+        assertFalse(registry.check(server).get(5, TimeUnit.SECONDS));
+        registry.probeBounded(List.of(server)).get(5, TimeUnit.SECONDS);
+        assertTrue(registry.isKnownDown(2L));
+
+        ReflectionTestUtils.setField(registry, "ttlMs", 0L);
+        assertFalse(registry.isKnownDown(2L));
+    }
+
+    @Test
+    void singleFailedProbeShouldNotMarkHostDown() throws Exception {
+        ReflectionTestUtils.setField(registry, "downAfterFailures", 2);
+        ServerEntity server = server(6L, closedPort());
+
+        registry.probeBounded(List.of(server)).get(5, TimeUnit.SECONDS);
+        assertFalse(registry.isKnownDown(6L));
+
+        registry.record(6L, true, HostLivenessRegistry.SOURCE_SSH);
+        registry.probeBounded(List.of(server)).get(5, TimeUnit.SECONDS);
+        assertFalse(registry.get(6L).alive());
+        assertFalse(registry.isKnownDown(6L));
+    }
+
+    @Test
+    void staleEntryShouldBeProbedAgain() throws Exception {
+        try (ServerSocket listener = listen()) {
+            ServerEntity server = server(3L, listener.getLocalPort());
+            registry.record(3L, false, HostLivenessRegistry.SOURCE_SSH);
+            assertFalse(registry.check(server).get(5, TimeUnit.SECONDS));
+
+            ReflectionTestUtils.setField(registry, "ttlMs", 0L);
+            assertTrue(registry.check(server).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void boundedProbeShouldCoverEveryServer() throws Exception {
+        ReflectionTestUtils.setField(registry, "maxInFlight", 1);
+        try (ServerSocket listener = listen()) {
+            registry.probeBounded(List.of(server(4L, listener.getLocalPort()),
+                server(5L, closedPort()))).get(5, TimeUnit.SECONDS);
+        }
+
+        assertTrue(registry.get(4L).alive());
+        assertFalse(registry.get(5L).alive());
+    }
+
+    @Test
+    void proberShouldReportRefusedConnection() throws Exception {
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> tcpProber.probe("127.0.0.1", closedPort(), 2_000).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(IOException.class, error.getCause());
+    }
+
+    private static ServerSocket listen() throws Exception {
+        return new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    private static int closedPort() throws Exception {
+        try (ServerSocket socket = listen()) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static ServerEntity server(Long id, int port) {
+        ServerEntity server = new ServerEntity();
+        server.setId(id);
+        server.setIpAddress("127.0.0.1");
+        server.setPort(port);
+        return server;
+    }
+}
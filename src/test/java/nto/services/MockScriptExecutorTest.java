@@ -1,32 +1,38 @@
 package nto.services;
 
-import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import nto.application.interfaces.repositories.ServerRepository;
 import nto.core.entities.ScriptEntity;
 import nto.core.entities.ServerEntity;
 import nto.core.entities.TaskEntity;
 import nto.core.enums.TaskStatus;
-import nto.infrastructure.cache.TaskStatusCache;
-import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.cache.ScriptContent;
+import nto.infrastructure.cache.ScriptContentCache;
 import nto.infrastructure.services.MockScriptExecutor;
+import nto.infrastructure.services.TaskStateService;
+import nto.infrastructure.services.output.TaskOutputRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,13 +40,13 @@ import static org.mockito.Mockito.when;
 class MockScriptExecutorTest {
 
     @Mock
-    private JpaTaskRepository taskRepository;
-    @Mock
-    private TaskStatusCache statusCache;
+    private TaskStateService taskStateService;
     @Mock
     private ServerRepository serverRepository;
     @Mock
-    private EntityManager entityManager;
+    private TaskOutputRegistry outputRegistry;
+    @Mock
+    private ScriptContentCache scriptContentCache;
 
     @InjectMocks
     private MockScriptExecutor mockScriptExecutor;
@@ -68,23 +74,22 @@ class MockScriptExecutorTest {
         TaskEntity task = TaskEntity.builder()
             .id(10L)
             .server(ServerEntity.builder().hostname("srv").build())
-            .script(ScriptEntity.builder().name("deploy").build())
+            .script(ScriptEntity.builder().id(5L).build())
             .status(TaskStatus.PENDING)
             .build();
 
-        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
-        CopyOnWriteArrayList<TaskStatus> savedStatuses = new CopyOnWriteArrayList<>();
-        when(taskRepository.save(any(TaskEntity.class))).thenAnswer(inv -> {
-            TaskEntity saved = inv.getArgument(0);
-            savedStatuses.add(saved.getStatus());
-            return saved;
-        });
+        when(taskStateService.markRunning(eq(10L), anyString())).thenReturn(task);
+        when(scriptContentCache.get(5L)).thenReturn(new ScriptContent(5L, "deploy", "echo"));
 
         mockScriptExecutor.executeAsync(10L);
 
-        assertEquals(List.of(TaskStatus.RUNNING, TaskStatus.SUCCESS), savedStatuses);
-        verify(entityManager, times(2)).merge(task);
-        verify(statusCache, times(2)).put(any(TaskEntity.class));
+        verify(taskStateService).markFinished(eq(10L), eq(TaskStatus.SUCCESS),
+            startsWith("Connected to srv"));
+        verify(outputRegistry).append(10L, TaskOutputRegistry.STDOUT,
+            "Executing: deploy\nDone. Exit code 0.");
+        verify(outputRegistry).open(10L);
+        verify(outputRegistry).append(10L, TaskOutputRegistry.STDOUT, "Connected to srv\n");
+        verify(outputRegistry).complete(10L, TaskStatus.SUCCESS);
         assertEquals(1L, mockScriptExecutor.getSuccessCountAtomic());
         assertEquals(1L, mockScriptExecutor.getSuccessCountUnsafe());
     }
@@ -94,30 +99,37 @@ class MockScriptExecutorTest {
         TaskEntity task = TaskEntity.builder()
             .id(10L)
             .server(null)
-            .script(ScriptEntity.builder().name("deploy").build())
+            .script(ScriptEntity.builder().id(5L).build())
             .status(TaskStatus.PENDING)
             .build();
 
-        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
-        CopyOnWriteArrayList<TaskStatus> savedStatuses = new CopyOnWriteArrayList<>();
-        when(taskRepository.save(any(TaskEntity.class))).thenAnswer(inv -> {
-            TaskEntity saved = inv.getArgument(0);
-            savedStatuses.add(saved.getStatus());
-            return saved;
-        });
+        when(taskStateService.markRunning(eq(10L), anyString())).thenReturn(task);
 
         mockScriptExecutor.executeAsync(10L);
 
-        assertEquals(List.of(TaskStatus.RUNNING, TaskStatus.FAILED), savedStatuses);
-        verify(entityManager, times(2)).merge(task);
+        verify(taskStateService).markFinished(eq(10L), eq(TaskStatus.FAILED), startsWith("Error: "));
+        verify(taskStateService, never()).markFinished(any(), eq(TaskStatus.SUCCESS), anyString());
+        verify(outputRegistry).complete(10L, TaskStatus.FAILED);
+    }
+
+    @Test
+    void taskCancelledBeforeWorkerStartsShouldNotRun() {
+        TaskEntity task = TaskEntity.builder().id(11L).status(TaskStatus.CANCELLED).build();
+        when(taskStateService.markRunning(eq(11L), anyString())).thenReturn(task);
+
+        assertEquals(TaskStatus.CANCELLED, mockScriptExecutor.executeAsync(11L).join());
+
+        verify(taskStateService, never()).markFinished(any(), any(), anyString());
+        verify(outputRegistry, never()).open(11L);
     }
 
     @Test
     void executeAsyncShouldThrowWhenTaskMissing() {
-        when(taskRepository.findById(77L)).thenReturn(Optional.empty());
+        when(taskStateService.markRunning(eq(77L), anyString()))
+            .thenThrow(new EntityNotFoundException("Task not found: 77"));
 
         assertThrows(EntityNotFoundException.class, () -> mockScriptExecutor.executeAsync(77L));
-        verify(taskRepository, never()).save(any(TaskEntity.class));
+        verify(taskStateService, never()).markFinished(any(), any(), anyString());
     }
 
     @Test
@@ -125,12 +137,12 @@ class MockScriptExecutorTest {
         TaskEntity task = TaskEntity.builder()
             .id(12L)
             .server(ServerEntity.builder().hostname("srv").build())
-            .script(ScriptEntity.builder().name("deploy").build())
+            .script(ScriptEntity.builder().id(5L).build())
             .status(TaskStatus.PENDING)
             .build();
 
-        when(taskRepository.findById(12L)).thenReturn(Optional.of(task));
-        when(taskRepository.save(any(TaskEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(taskStateService.markRunning(eq(12L), anyString())).thenReturn(task);
+        when(scriptContentCache.get(5L)).thenReturn(new ScriptContent(5L, "deploy", "echo"));
 
         try {
             Thread.currentThread().interrupt();
@@ -142,4 +154,49 @@ class MockScriptExecutorTest {
             Thread.interrupted();
         }
     }
+
+    @Test
+    void cancelShouldInterruptRunningTaskAndMarkItCancelled() throws Exception {
+        ReflectionTestUtils.setField(mockScriptExecutor, "executionDelayMs", 60_000L);
+        TaskEntity task = TaskEntity.builder()
+            .id(13L)
+            .server(ServerEntity.builder().hostname("srv").build())
+            .script(ScriptEntity.builder().id(5L).build())
+            .status(TaskStatus.PENDING)
+            .build();
+        CountDownLatch running = new CountDownLatch(1);
+        when(taskStateService.markRunning(eq(13L), anyString())).thenAnswer(invocation -> {
+            running.countDown();
+            return task;
+        });
+
+        CompletableFuture<TaskStatus> result = CompletableFuture.supplyAsync(
+            () -> mockScriptExecutor.executeAsync(13L).join());
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        assertTrue(mockScriptExecutor.cancel(13L));
+
+        assertEquals(TaskStatus.CANCELLED, result.get(5, TimeUnit.SECONDS));
+        verify(taskStateService).markFinished(eq(13L), eq(TaskStatus.CANCELLED),
+            endsWith("Cancelled"));
+        assertFalse(mockScriptExecutor.cancel(13L));
+    }
+
+    @Test
+    void executeAsyncShouldFailTaskThatOutlivesItsTimeout() {
+        ReflectionTestUtils.setField(mockScriptExecutor, "executionDelayMs", 60_000L);
+        TaskEntity task = TaskEntity.builder()
+            .id(14L)
+            .server(ServerEntity.builder().hostname("srv").build())
+            .script(ScriptEntity.builder().id(5L).build())
+            .status(TaskStatus.PENDING)
+            .timeoutSeconds(1)
+            .build();
+        when(taskStateService.markRunning(eq(14L), anyString())).thenReturn(task);
+
+        TaskStatus status = mockScriptExecutor.executeAsync(14L).join();
+
+        assertEquals(TaskStatus.FAILED, status);
+        verify(taskStateService).markFinished(eq(14L), eq(TaskStatus.FAILED),
+            endsWith("Execution timed out after 1 s"));
+    }
 }
@@ -0,0 +1,123 @@
+package nto.services;
+
+import nto.infrastructure.services.output.CapturedOutput;
+import nto.infrastructure.services.output.OutputBlobStore;
+import nto.infrastructure.services.output.TaskOutputCapture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutputBlobStoreTest {
+
+    @TempDir
+    private Path blobDir;
+
+    private OutputBlobStore blobStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        blobStore = new OutputBlobStore();
+        ReflectionTestUtils.setField(blobStore, "blobDir", blobDir);
+        ReflectionTestUtils.setField(blobStore, "memoryLimitBytes", 16);
+        ReflectionTestUtils.setField(blobStore, "previewBytes", 8);
+        ReflectionTestUtils.setField(blobStore, "blobRetentionDays", 7);
+        blobStore.init();
+    }
+
+    @Test
+    void smallOutputShouldStayInline() throws Exception {
+        CapturedOutput output;
+        try (TaskOutputCapture capture = blobStore.newCapture(1L)) {
+            capture.stdout().write("ok".getBytes(StandardCharsets.UTF_8));
+            capture.stderr().write("warn".getBytes(StandardCharsets.UTF_8));
+            output = capture.finish(0);
+        }
+
+        assertEquals(CapturedOutput.inline("ok\n[ERR] warn\nExit Status: 0"), output);
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    void inlineOutputShouldCountUtf8Bytes() throws Exception {
+        CapturedOutput output;
+        try (TaskOutputCapture capture = blobStore.newCapture(4L)) {
+            capture.stdout().write("привет".getBytes(StandardCharsets.UTF_8));
+            output = capture.finish(0);
+        }
+
+        assertFalse(output.isSpilled());
+        assertEquals("привет\nExit Status: 0".getBytes(StandardCharsets.UTF_8).length,
+            output.totalBytes());
+    }
+
+    @Test
+    void largeOutputShouldSpillToBlobWithHeadAndTailPreview() throws Exception {
+        String stdout = "HEAD-" + "m".repeat(40) + "-TAIL";
+        CapturedOutput output;
+        try (TaskOutputCapture capture = blobStore.newCapture(2L)) {
+            capture.stdout().write(stdout.getBytes(StandardCharsets.UTF_8));
+            capture.stderr().write("err".getBytes(StandardCharsets.UTF_8));
+            output = capture.finish(3);
+        }
+
+        String full = stdout + "\n[ERR] err\nExit Status: 3";
+        assertTrue(output.isSpilled());
+        assertEquals(full.length(), output.totalBytes());
+        assertTrue(output.preview().startsWith("HEAD-mmm"));
+        assertTrue(output.preview().endsWith("tatus: 3"));
+        assertTrue(output.preview().contains("/api/tasks/2/output"));
+        Path blob = blobStore.find(output.blobRef()).orElseThrow();
+        assertEquals(full, Files.readString(blob));
+        assertEquals(1, fileCount());
+    }
+
+    @Test
+    void previewShouldNotSplitMultiByteCharacters() throws Exception {
+        CapturedOutput output;
+        try (TaskOutputCapture capture = blobStore.newCapture(3L)) {
+            capture.stdout().write("ааааааааааааааааааааааааа".getBytes(StandardCharsets.UTF_8));
+            output = capture.finish(0);
+        }
+
+        assertFalse(output.preview().contains("�"));
+    }
+
+    @Test
+    void findShouldRejectReferencesOutsideBlobDirectory() throws Exception {
+        Files.writeString(blobDir.resolveSibling("secret.txt"), "secret");
+
+        assertTrue(blobStore.find("../secret.txt").isEmpty());
+        assertTrue(blobStore.find(null).isEmpty());
+    }
+
+    @Test
+    void deleteExpiredShouldRemoveOnlyOldBlobs() throws Exception {
+        Path old = Files.writeString(blobDir.resolve("task-1.out"), "old");
+        Path fresh = Files.writeString(blobDir.resolve("task-2.out"), "fresh");
+        Files.setLastModifiedTime(old, FileTime.from(Instant.now().minus(Duration.ofDays(8))));
+
+        blobStore.deleteExpired();
+
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(fresh));
+    }
+
+    private long fileCount() throws Exception {
+        try (Stream<Path> files = Files.list(blobDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package nto.services;
+
+import nto.infrastructure.cache.OwnershipIndex;
+import nto.infrastructure.repositories.JpaServerGroupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OwnershipIndexTest {
+
+    @Mock
+    private JpaServerGroupRepository groupRepository;
+
+    @InjectMocks
+    private OwnershipIndex ownershipIndex;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void ownershipShouldBeLoadedOnceAndAnsweredFromMemory() {
+        when(groupRepository.findOwnedIdsByOwnerUsername("alice")).thenReturn(List.of(
+            new Object[]{1L, 10L}, new Object[]{1L, 11L}, new Object[]{2L, 10L},
+            new Object[]{3L, null}));
+
+        assertTrue(ownershipIndex.ownsServer("alice", 10L));
+        assertTrue(ownershipIndex.ownsServer("alice", 11L));
+        assertFalse(ownershipIndex.ownsServer("alice", 12L));
+        assertTrue(ownershipIndex.ownsGroup("alice", 3L));
+        assertFalse(ownershipIndex.ownsGroup("alice", 4L));
+
+        assertEquals(1, ownershipIndex.getLoadCount());
+        verify(groupRepository, times(1)).findOwnedIdsByOwnerUsername("alice");
+    }
+
+    @Test
+    void invalidateOutsideTransactionShouldReloadOnNextCheck() {
+        when(groupRepository.findOwnedIdsByOwnerUsername("bob"))
+            .thenReturn(List.of())
+            .thenReturn(List.<Object[]>of(new Object[]{5L, 50L}));
+
+        assertFalse(ownershipIndex.ownsServer("bob", 50L));
+        ownershipIndex.invalidate("bob");
+
+        assertTrue(ownershipIndex.ownsServer("bob", 50L));
+        assertEquals(2, ownershipIndex.getLoadCount());
+    }
+
+    @Test
+    void invalidateInsideTransactionShouldWaitForCompletion() {
+        when(groupRepository.findOwnedIdsByOwnerUsername("carol"))
+            .thenReturn(List.of())
+            .thenReturn(List.<Object[]>of(new Object[]{6L, 60L}));
+        assertFalse(ownershipIndex.ownsServer("carol", 60L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        ownershipIndex.invalidate("carol");
+        assertFalse(ownershipIndex.ownsServer("carol", 60L));
+
+        TransactionSynchronizationManager.getSynchronizations()
+            .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertTrue(ownershipIndex.ownsServer("carol", 60L));
+    }
+}
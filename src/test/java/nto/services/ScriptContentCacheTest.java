@@ -0,0 +1,83 @@
+package nto.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import nto.application.dto.ScriptCacheStatsDto;
+import nto.infrastructure.cache.ScriptContent;
+import nto.infrastructure.cache.ScriptContentCache;
+import nto.infrastructure.repositories.JpaScriptRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScriptContentCacheTest {
+
+    @Mock
+    private JpaScriptRepository scriptRepository;
+
+    @InjectMocks
+    private ScriptContentCache contentCache;
+
+    @Test
+    void contentShouldBeReadOnceAndServedFromCache() {
+        when(scriptRepository.findContentById(1L))
+            .thenReturn(Optional.of(new ScriptContent(1L, "deploy", "echo ok")));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("echo ok", contentCache.get(1L).content());
+        }
+
+        verify(scriptRepository, times(1)).findContentById(1L);
+        ScriptCacheStatsDto stats = contentCache.getStats();
+        assertEquals(1, stats.entries());
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(14, stats.bytesFromCache());
+        assertEquals(7, stats.bytesFromDatabase());
+    }
+
+    @Test
+    void evictedScriptShouldBeReadAgain() {
+        when(scriptRepository.findContentById(2L))
+            .thenReturn(Optional.of(new ScriptContent(2L, "old", "echo 1")))
+            .thenReturn(Optional.of(new ScriptContent(2L, "new", "echo 2")));
+        contentCache.get(2L);
+
+        contentCache.evict(2L);
+
+        assertEquals("echo 2", contentCache.get(2L).content());
+    }
+
+    @Test
+    void cacheShouldHoldAtMostMaxEntries() {
+        ReflectionTestUtils.setField(contentCache, "maxEntries", 1);
+        when(scriptRepository.findContentById(3L))
+            .thenReturn(Optional.of(new ScriptContent(3L, "a", "a")));
+        when(scriptRepository.findContentById(4L))
+            .thenReturn(Optional.of(new ScriptContent(4L, "b", "b")));
+
+        contentCache.get(3L);
+        contentCache.get(4L);
+
+        assertEquals(1, contentCache.getStats().entries());
+    }
+
+    @Test
+    void missingScriptShouldThrow() {
+        when(scriptRepository.findContentById(5L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> contentCache.get(5L));
+        assertEquals(0, contentCache.getStats().entries());
+    }
+}
@@ -5,6 +5,7 @@ import nto.application.dto.ScriptDto;
 import nto.application.interfaces.services.MappingService;
 import nto.core.entities.ScriptEntity;
 import nto.core.entities.UserEntity;
+import nto.infrastructure.cache.ScriptContentCache;
 import nto.infrastructure.repositories.JpaScriptRepository;
 import nto.infrastructure.repositories.JpaUserRepository;
 import nto.infrastructure.services.ScriptServiceImpl;
@@ -39,6 +40,8 @@ class ScriptServiceImplTest {
     private JpaScriptRepository scriptRepository;
     @Mock
     private MappingService mappingService;
+    @Mock
+    private ScriptContentCache contentCache;
 
     @InjectMocks
     private ScriptServiceImpl scriptService;
@@ -54,7 +57,7 @@ class ScriptServiceImplTest {
 
     @Test
     void createScriptShouldPersistWithCurrentOwner() {
-        ScriptDto input = new ScriptDto(null, "deploy", "echo ok", null, false);
+        ScriptDto input = new ScriptDto(null, "deploy", "echo ok", null, false, null);
         UserEntity owner = UserEntity.builder().id(1L).username(TEST_USER).build();
         ScriptEntity mapped = ScriptEntity.builder().name("deploy").content("echo ok").build();
         ScriptEntity saved = ScriptEntity.builder()
@@ -63,7 +66,7 @@ class ScriptServiceImplTest {
             .content("echo ok")
             .owner(owner)
             .build();
-        ScriptDto expected = new ScriptDto(10L, "deploy", "echo ok", TEST_USER, false);
+        ScriptDto expected = new ScriptDto(10L, "deploy", "echo ok", TEST_USER, false, null);
 
         when(userRepository.findByUsername(TEST_USER)).thenReturn(Optional.of(owner));
         when(mappingService.mapToEntity(input, ScriptEntity.class)).thenReturn(mapped);
@@ -78,7 +81,7 @@ class ScriptServiceImplTest {
 
     @Test
     void createScriptShouldThrowWhenUserNotFound() {
-        ScriptDto input = new ScriptDto(null, "deploy", "echo ok", null, false);
+        ScriptDto input = new ScriptDto(null, "deploy", "echo ok", null, false, null);
         when(userRepository.findByUsername(TEST_USER)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> scriptService.createScript(input));
@@ -87,7 +90,7 @@ class ScriptServiceImplTest {
     @Test
     void getScriptByIdShouldMapEntity() {
         ScriptEntity script = ScriptEntity.builder().id(10L).name("deploy").content("echo").build();
-        ScriptDto expected = new ScriptDto(10L, "deploy", "echo", TEST_USER, false);
+        ScriptDto expected = new ScriptDto(10L, "deploy", "echo", TEST_USER, false, null);
 
         when(scriptRepository.findById(10L)).thenReturn(Optional.of(script));
         when(mappingService.mapToDto(script, ScriptDto.class)).thenReturn(expected);
@@ -111,8 +114,8 @@ class ScriptServiceImplTest {
             ScriptEntity.builder().id(2L).name("b").build()
         );
         List<ScriptDto> expected = List.of(
-            new ScriptDto(1L, "a", "", TEST_USER, false),
-            new ScriptDto(2L, "b", "", TEST_USER, true)
+            new ScriptDto(1L, "a", "", TEST_USER, false, null),
+            new ScriptDto(2L, "b", "", TEST_USER, true, null)
         );
 
         when(scriptRepository.findAll()).thenReturn(scripts);
@@ -137,5 +140,6 @@ class ScriptServiceImplTest {
         scriptService.deleteScript(5L);
 
         verify(scriptRepository).deleteById(5L);
+        verify(contentCache).evict(5L);
     }
 }
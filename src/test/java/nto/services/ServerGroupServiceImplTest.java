@@ -2,28 +2,40 @@ package nto.services;
 
 import jakarta.persistence.EntityNotFoundException;
 import nto.application.dto.BulkCreateServersGroupRequestDto;
+import nto.application.dto.GroupRunDto;
 import nto.application.dto.ServerDto;
 import nto.application.dto.ServerGroupDto;
 import nto.application.dto.TaskDto;
+import nto.application.dto.WavePolicyDto;
 import nto.application.interfaces.services.MappingService;
 import nto.application.interfaces.services.ScriptExecutor;
 import nto.application.interfaces.services.ServerService;
+import nto.core.entities.GroupRunEntity;
 import nto.core.entities.ScriptEntity;
 import nto.core.entities.ServerEntity;
 import nto.core.entities.ServerGroupEntity;
 import nto.core.entities.TaskEntity;
 import nto.core.entities.UserEntity;
+import nto.core.enums.PingStatus;
 import nto.core.enums.TaskStatus;
 import nto.core.utils.ServerGroupDefaults;
 import nto.core.utils.exceptions.BadRequestException;
 import nto.core.utils.exceptions.ResourceConflictException;
+import nto.infrastructure.cache.OwnershipIndex;
 import nto.infrastructure.cache.TaskStatusCache;
+import nto.infrastructure.cache.TaskStatusSnapshot;
+import nto.infrastructure.repositories.JpaGroupRunRepository;
 import nto.infrastructure.repositories.JpaScriptRepository;
 import nto.infrastructure.repositories.JpaServerGroupRepository;
 import nto.infrastructure.repositories.JpaServerRepository;
 import nto.infrastructure.repositories.JpaTaskRepository;
 import nto.infrastructure.repositories.JpaUserRepository;
+import nto.infrastructure.services.GroupPinger;
 import nto.infrastructure.services.ServerGroupServiceImpl;
+import nto.infrastructure.services.dispatch.GroupRunCoordinator;
+import nto.infrastructure.services.dispatch.GroupRunCoordinator.WavePlan;
+import nto.infrastructure.services.dispatch.ServerTaskDispatcher;
+import nto.infrastructure.services.dispatch.TaskAdmissionController;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -36,10 +48,13 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -47,6 +62,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
@@ -71,6 +87,8 @@ class ServerGroupServiceImplTest {
     @Mock
     private JpaTaskRepository taskRepository;
     @Mock
+    private JpaGroupRunRepository groupRunRepository;
+    @Mock
     private MappingService mappingService;
     @Mock
     private ScriptExecutor scriptExecutor;
@@ -78,6 +96,16 @@ class ServerGroupServiceImplTest {
     private ServerService serverService;
     @Mock
     private TaskStatusCache statusCache;
+    @Mock
+    private OwnershipIndex ownershipIndex;
+    @Mock
+    private ServerTaskDispatcher taskDispatcher;
+    @Mock
+    private TaskAdmissionController admissionController;
+    @Mock
+    private GroupRunCoordinator runCoordinator;
+    @Mock
+    private GroupPinger groupPinger;
     @InjectMocks
     private ServerGroupServiceImpl groupService;
 
@@ -216,6 +244,25 @@ class ServerGroupServiceImplTest {
         assertTrue(server.getGroups().contains(group));
         assertTrue(group.getServers().contains(server));
         verify(serverRepository).save(server);
+        verify(ownershipIndex).invalidate(TEST_USERNAME);
+    }
+
+    @Test
+    void addServerToGroupShouldNotLoadServerGraphWhenIndexKnowsOwner() {
+        ServerGroupEntity group = group("ops", user(TEST_USERNAME));
+        group.setId(100L);
+        ServerEntity server = serverOwnedBy(TEST_USERNAME);
+        server.setId(200L);
+
+        when(groupRepository.findById(100L)).thenReturn(Optional.of(group));
+        when(ownershipIndex.ownsServer(TEST_USERNAME, 200L)).thenReturn(true);
+        when(serverRepository.getReferenceById(200L)).thenReturn(server);
+
+        groupService.addServerToGroup(100L, 200L);
+
+        assertTrue(server.getGroups().contains(group));
+        verify(serverRepository, never()).findById(any());
+        verify(serverRepository).save(server);
     }
 
     @Test
@@ -305,29 +352,29 @@ class ServerGroupServiceImplTest {
         group.setServers(new HashSet<>(List.of(server1, server2)));
 
         when(groupRepository.findById(groupId)).thenReturn(Optional.of(group));
-        when(scriptExecutor.ping(10L)).thenReturn(true);
-        when(scriptExecutor.ping(20L)).thenReturn(false);
+        when(groupPinger.pingAll(argThat(ids -> Set.copyOf(ids).equals(Set.of(10L, 20L)))))
+            .thenReturn(Map.of(10L, PingStatus.UP, 20L, PingStatus.DOWN));
 
-        Map<Long, Boolean> results = groupService.pingGroup(groupId);
+        Map<Long, PingStatus> results = groupService.pingGroup(groupId);
 
         assertNotNull(results);
         assertEquals(2, results.size());
-        assertTrue(results.get(10L));
-        assertFalse(results.get(20L));
+        assertEquals(PingStatus.UP, results.get(10L));
+        assertEquals(PingStatus.DOWN, results.get(20L));
     }
 
     @Test
     void createGroupWithServersBulkShouldCreateGroupAndAttachServers() {
         UserEntity owner = user(TEST_USERNAME);
 
-        ServerDto firstServerRequest = new ServerDto(null, "srv-1", "10.0.0.1", 22, "root", "pw1");
-        ServerDto secondServerRequest = new ServerDto(null, "srv-2", "10.0.0.2", 22, "root", "pw2");
+        ServerDto firstServerRequest = new ServerDto(null, "srv-1", "10.0.0.1", 22, "root", "pw1", null, null);
+        ServerDto secondServerRequest = new ServerDto(null, "srv-2", "10.0.0.2", 22, "root", "pw2", null, null);
         BulkCreateServersGroupRequestDto requestDto = new BulkCreateServersGroupRequestDto(
             "bulk-group", List.of(firstServerRequest, secondServerRequest)
         );
 
-        ServerDto firstCreatedServer = new ServerDto(10L, "srv-1", "10.0.0.1", 22, "root", "pw1");
-        ServerDto secondCreatedServer = new ServerDto(20L, "srv-2", "10.0.0.2", 22, "root", "pw2");
+        ServerDto firstCreatedServer = new ServerDto(10L, "srv-1", "10.0.0.1", 22, "root", "pw1", null, null);
+        ServerDto secondCreatedServer = new ServerDto(20L, "srv-2", "10.0.0.2", 22, "root", "pw2", null, null);
 
         ServerEntity firstServerEntity = serverOwnedBy(TEST_USERNAME);
         firstServerEntity.setId(10L);
@@ -366,13 +413,13 @@ class ServerGroupServiceImplTest {
     @Test
     void createGroupWithServersBulkShouldThrowWhenCreatedServerMissingInRepository() {
         UserEntity owner = user(TEST_USERNAME);
-        ServerDto serverRequest = new ServerDto(null, "srv-1", "10.0.0.1", 22, "root", "pw1");
+        ServerDto serverRequest = new ServerDto(null, "srv-1", "10.0.0.1", 22, "root", "pw1", null, null);
         BulkCreateServersGroupRequestDto requestDto = new BulkCreateServersGroupRequestDto(
             "bulk-group", List.of(serverRequest)
         );
         ServerGroupEntity savedGroup = group("bulk-group", owner);
         savedGroup.setId(100L);
-        ServerDto createdServer = new ServerDto(10L, "srv-1", "10.0.0.1", 22, "root", "pw1");
+        ServerDto createdServer = new ServerDto(10L, "srv-1", "10.0.0.1", 22, "root", "pw1", null, null);
 
         when(userRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(owner));
         when(groupRepository.findByOwnerUsernameAndName(TEST_USERNAME, "bulk-group"))
@@ -392,7 +439,7 @@ class ServerGroupServiceImplTest {
         UserEntity owner = user(TEST_USERNAME);
 
         BulkCreateServersGroupRequestDto requestDto = new BulkCreateServersGroupRequestDto(
-            "bulk-group", List.of(new ServerDto(null, "srv-1", "10.0.0.1", 22, "root", "pw1"))
+            "bulk-group", List.of(new ServerDto(null, "srv-1", "10.0.0.1", 22, "root", "pw1", null, null))
         );
 
         ServerGroupEntity existingGroup = group("bulk-group", owner);
@@ -413,8 +460,8 @@ class ServerGroupServiceImplTest {
     void createGroupWithServersBulkShouldPropagateExceptionFromServerCreation() {
         UserEntity owner = user(TEST_USERNAME);
 
-        ServerDto firstServerRequest = new ServerDto(null, "srv-1", "10.0.0.1", 22, "root", "pw1");
-        ServerDto secondServerRequest = new ServerDto(null, "srv-2", "10.0.0.2", 22, "root", "pw2");
+        ServerDto firstServerRequest = new ServerDto(null, "srv-1", "10.0.0.1", 22, "root", "pw1", null, null);
+        ServerDto secondServerRequest = new ServerDto(null, "srv-2", "10.0.0.2", 22, "root", "pw2", null, null);
         BulkCreateServersGroupRequestDto requestDto = new BulkCreateServersGroupRequestDto(
             "bulk-group", List.of(firstServerRequest, secondServerRequest)
         );
@@ -422,7 +469,7 @@ class ServerGroupServiceImplTest {
         ServerGroupEntity savedGroup = group("bulk-group", owner);
         savedGroup.setId(100L);
 
-        ServerDto firstCreatedServer = new ServerDto(10L, "srv-1", "10.0.0.1", 22, "root", "pw1");
+        ServerDto firstCreatedServer = new ServerDto(10L, "srv-1", "10.0.0.1", 22, "root", "pw1", null, null);
         ServerEntity firstServerEntity = serverOwnedBy(TEST_USERNAME);
         firstServerEntity.setId(10L);
 
@@ -452,7 +499,7 @@ class ServerGroupServiceImplTest {
         when(groupRepository.findById(500L)).thenReturn(Optional.of(group));
         when(scriptRepository.findById(99L)).thenReturn(Optional.empty());
 
-        assertThrows(EntityNotFoundException.class, () -> groupService.executeScriptOnGroup(500L, 99L));
+        assertThrows(EntityNotFoundException.class, () -> groupService.executeScriptOnGroup(500L, 99L, null));
     }
 
     @Test
@@ -472,7 +519,7 @@ class ServerGroupServiceImplTest {
         when(groupRepository.findById(500L)).thenReturn(Optional.of(group));
         when(scriptRepository.findById(99L)).thenReturn(Optional.of(script));
 
-        assertThrows(AccessDeniedException.class, () -> groupService.executeScriptOnGroup(500L, 99L));
+        assertThrows(AccessDeniedException.class, () -> groupService.executeScriptOnGroup(500L, 99L, null));
     }
 
     @Test
@@ -491,7 +538,7 @@ class ServerGroupServiceImplTest {
         when(groupRepository.findById(500L)).thenReturn(Optional.of(group));
         when(scriptRepository.findById(99L)).thenReturn(Optional.of(script));
 
-        assertThrows(ResourceConflictException.class, () -> groupService.executeScriptOnGroup(500L, 99L));
+        assertThrows(ResourceConflictException.class, () -> groupService.executeScriptOnGroup(500L, 99L, null));
     }
 
     @Test
@@ -528,40 +575,132 @@ class ServerGroupServiceImplTest {
             .build();
 
         List<TaskDto> expected = List.of(
-            new TaskDto(10L, TaskStatus.PENDING, null, 1L, 99L, 500L, null, null),
-            new TaskDto(11L, TaskStatus.PENDING, null, 2L, 99L, 500L, null, null)
+            new TaskDto(10L, TaskStatus.PENDING, null, 1L, 99L, 500L, null, null, null, null),
+            new TaskDto(11L, TaskStatus.PENDING, null, 2L, 99L, 500L, null, null, null, null)
         );
 
         when(groupRepository.findById(500L)).thenReturn(Optional.of(group));
         when(scriptRepository.findById(99L)).thenReturn(Optional.of(script));
         when(taskRepository.saveAll(any())).thenReturn(List.of(t1, t2));
         when(mappingService.mapListToDto(List.of(t1, t2), TaskDto.class)).thenReturn(expected);
+        WavePlan plan = new WavePlan(0, 2, null);
+        when(runCoordinator.plan(null, 2)).thenReturn(plan);
+        UUID runId = stubGroupRunSave();
 
-        List<TaskDto> result = groupService.executeScriptOnGroup(500L, 99L);
+        List<TaskDto> result = groupService.executeScriptOnGroup(500L, 99L, null);
 
         assertEquals(expected, result);
         verify(taskRepository, times(2)).saveAll(any());
         verify(statusCache).put(t1);
         verify(statusCache).put(t2);
-        verify(scriptExecutor).executeAsync(10L);
-        verify(scriptExecutor).executeAsync(11L);
+        verify(admissionController).admit(2);
+        verify(runCoordinator).start(eq(runId), eq(List.of(t1, t2)), eq(plan));
+
+        ArgumentCaptor<GroupRunEntity> runCaptor = ArgumentCaptor.forClass(GroupRunEntity.class);
+        verify(groupRunRepository).save(runCaptor.capture());
+        assertEquals(group, runCaptor.getValue().getGroup());
+        assertEquals(script, runCaptor.getValue().getScript());
+        assertNotNull(runCaptor.getValue().getStartedAt());
+        assertEquals(2, runCaptor.getValue().getTotalTasks());
+        assertEquals(2, runCaptor.getValue().getPendingTasks());
 
         ArgumentCaptor<List<TaskEntity>> captor = ArgumentCaptor.forClass(List.class);
         verify(taskRepository, times(2)).saveAll(captor.capture());
         assertEquals(2, captor.getValue().size());
+        List<TaskEntity> built = captor.getAllValues().getFirst();
+        assertEquals(runId, built.getFirst().getGroupRunId());
+        assertEquals(runId, built.getLast().getGroupRunId());
     }
 
     @Test
-    void getLastGroupExecutionStatusShouldReadRepositoryAndMap() {
+    void executeScriptOnGroupShouldHandWavedRunToCoordinator() {
+        ServerGroupEntity group = group("ops", user(TEST_USERNAME));
+        group.setId(500L);
+        ServerEntity s1 = serverOwnedBy(TEST_USERNAME);
+        s1.setId(1L);
+        ServerEntity s2 = serverOwnedBy(TEST_USERNAME);
+        s2.setId(2L);
+        group.getServers().addAll(List.of(s1, s2));
+        ScriptEntity script = ScriptEntity.builder()
+            .id(99L)
+            .content("echo")
+            .isPublic(true)
+            .owner(user(TEST_USERNAME))
+            .build();
+        TaskEntity t1 = TaskEntity.builder().id(10L).server(s1).script(script).build();
+        TaskEntity t2 = TaskEntity.builder().id(11L).server(s2).script(script).build();
+        WavePolicyDto policy = new WavePolicyDto(null, null, 1, null, null);
+        WavePlan plan = new WavePlan(0, 1, null);
+
+        when(groupRepository.findById(500L)).thenReturn(Optional.of(group));
+        when(scriptRepository.findById(99L)).thenReturn(Optional.of(script));
+        when(taskRepository.saveAll(any())).thenReturn(List.of(t1, t2));
+        when(runCoordinator.plan(policy, 2)).thenReturn(plan);
+        UUID runId = stubGroupRunSave();
+
+        groupService.executeScriptOnGroup(500L, 99L, policy);
+
+        verify(admissionController).admit(2);
+        verify(runCoordinator).start(eq(runId), eq(List.of(t1, t2)), eq(plan));
+        verify(taskDispatcher, never()).dispatch(any(), any());
+    }
+
+    @Test
+    void cancelGroupRunShouldCancelOnlyUnfinishedTasks() {
         ServerGroupEntity group = group("ops", user(TEST_USERNAME));
         group.setId(77L);
+        UUID runId = UUID.randomUUID();
+        ServerEntity s1 = serverOwnedBy(TEST_USERNAME);
+        s1.setId(1L);
+        ServerEntity s2 = serverOwnedBy(TEST_USERNAME);
+        s2.setId(2L);
+        TaskEntity running = TaskEntity.builder().id(10L).server(s1).sourceGroup(group)
+            .groupRunId(runId).status(TaskStatus.RUNNING).build();
+        TaskEntity done = TaskEntity.builder().id(11L).server(s2)
+            .status(TaskStatus.SUCCESS).build();
+        List<TaskDto> expected = List.of(
+            new TaskDto(10L, TaskStatus.CANCELLED, null, 1L, null, 77L, null, null, null, runId),
+            new TaskDto(11L, TaskStatus.SUCCESS, null, 2L, null, 77L, null, null, null, runId)
+        );
+
+        when(groupRepository.findById(77L)).thenReturn(Optional.of(group));
+        when(taskRepository.findAllBySourceGroupIdAndGroupRunId(77L, runId))
+            .thenReturn(List.of(running, done));
+        when(statusCache.get(10L)).thenReturn(null,
+            TaskStatusSnapshot.of(running).cancel(null, null));
+        when(mappingService.mapToDto(done, TaskDto.class)).thenReturn(expected.get(1));
+
+        assertEquals(expected, groupService.cancelGroupRun(77L, runId));
+        verify(runCoordinator).cancelled(runId, List.of(10L, 11L));
+        verify(taskDispatcher).cancel(1L, 10L);
+        verify(taskDispatcher, never()).cancel(2L, 11L);
+    }
+
+    @Test
+    void cancelGroupRunShouldThrowForUnknownRun() {
+        ServerGroupEntity group = group("ops", user(TEST_USERNAME));
+        group.setId(77L);
+        UUID runId = UUID.randomUUID();
+        when(groupRepository.findById(77L)).thenReturn(Optional.of(group));
+        when(taskRepository.findAllBySourceGroupIdAndGroupRunId(77L, runId)).thenReturn(List.of());
+
+        assertThrows(EntityNotFoundException.class, () -> groupService.cancelGroupRun(77L, runId));
+    }
+
+    @Test
+    void getLastGroupExecutionStatusShouldReadTasksOfLatestRun() {
+        ServerGroupEntity group = group("ops", user(TEST_USERNAME));
+        group.setId(77L);
+        UUID runId = UUID.randomUUID();
         TaskEntity task = TaskEntity.builder().id(1L).status(TaskStatus.SUCCESS).build();
         List<TaskDto> expected = List.of(
-            new TaskDto(1L, TaskStatus.SUCCESS, "ok", null, null, null, null, null)
+            new TaskDto(1L, TaskStatus.SUCCESS, "ok", null, null, null, null, null, null, runId)
         );
 
         when(groupRepository.findById(77L)).thenReturn(Optional.of(group));
-        when(taskRepository.findLatestTasksByGroupId(77L)).thenReturn(List.of(task));
+        when(groupRunRepository.findFirstByGroupIdOrderByStartedAtDesc(77L))
+            .thenReturn(Optional.of(GroupRunEntity.builder().id(runId).build()));
+        when(taskRepository.findAllByGroupRunId(runId)).thenReturn(List.of(task));
         when(mappingService.mapListToDto(List.of(task), TaskDto.class)).thenReturn(expected);
 
         List<TaskDto> result = groupService.getLastGroupExecutionStatus(77L);
@@ -569,6 +708,53 @@ class ServerGroupServiceImplTest {
         assertEquals(expected, result);
     }
 
+    @Test
+    void getLastGroupRunShouldReturnCountersOfLatestRun() {
+        ServerGroupEntity group = group("ops", user(TEST_USERNAME));
+        group.setId(77L);
+        UUID runId = UUID.randomUUID();
+        LocalDateTime startedAt = LocalDateTime.of(2026, 1, 1, 12, 0);
+        GroupRunEntity run = GroupRunEntity.builder()
+            .id(runId)
+            .group(group)
+            .script(ScriptEntity.builder().id(99L).build())
+            .startedAt(startedAt)
+            .totalTasks(5)
+            .pendingTasks(1)
+            .runningTasks(2)
+            .successTasks(1)
+            .failedTasks(1)
+            .build();
+
+        when(groupRepository.findById(77L)).thenReturn(Optional.of(group));
+        when(groupRunRepository.findFirstByGroupIdOrderByStartedAtDesc(77L))
+            .thenReturn(Optional.of(run));
+
+        assertEquals(new GroupRunDto(runId, 77L, 99L, startedAt, null, 5, 1, 2, 1, 1, 0),
+            groupService.getLastGroupRun(77L));
+    }
+
+    @Test
+    void getLastGroupRunShouldThrowWhenGroupHasNoRuns() {
+        ServerGroupEntity group = group("ops", user(TEST_USERNAME));
+        group.setId(77L);
+        when(groupRepository.findById(77L)).thenReturn(Optional.of(group));
+        when(groupRunRepository.findFirstByGroupIdOrderByStartedAtDesc(77L))
+            .thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> groupService.getLastGroupRun(77L));
+    }
+
+    private UUID stubGroupRunSave() {
+        UUID runId = UUID.randomUUID();
+        when(groupRunRepository.save(any())).thenAnswer(invocation -> {
+            GroupRunEntity run = invocation.getArgument(0);
+            run.setId(runId);
+            return run;
+        });
+        return runId;
+    }
+
     private UserEntity user(String username) {
         return UserEntity.builder().id(1L).username(username).build();
     }
@@ -2,6 +2,7 @@ package nto.services;
 
 import jakarta.persistence.EntityNotFoundException;
 import nto.application.dto.ServerDto;
+import nto.application.dto.ServerQueueDto;
 import nto.application.interfaces.services.MappingService;
 import nto.application.interfaces.services.ScriptExecutor;
 import nto.core.entities.ServerEntity;
@@ -10,12 +11,14 @@ import nto.core.entities.SshUsernameEntity;
 import nto.core.entities.UserEntity;
 import nto.core.utils.ServerGroupDefaults;
 import nto.core.utils.exceptions.BadRequestException;
+import nto.infrastructure.cache.OwnershipIndex;
 import nto.infrastructure.cache.TaskStatusCache;
 import nto.infrastructure.repositories.JpaServerGroupRepository;
 import nto.infrastructure.repositories.JpaServerRepository;
 import nto.infrastructure.repositories.JpaSshUsernameRepository;
 import nto.infrastructure.repositories.JpaUserRepository;
 import nto.infrastructure.services.ServerServiceImpl;
+import nto.infrastructure.services.dispatch.ServerTaskDispatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,8 +33,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
@@ -60,6 +65,10 @@ class ServerServiceImplTest {
     private JpaSshUsernameRepository sshUsernameRepository;
     @Mock
     private TaskStatusCache tasksCache;
+    @Mock
+    private OwnershipIndex ownershipIndex;
+    @Mock
+    private ServerTaskDispatcher taskDispatcher;
 
     @InjectMocks
     private ServerServiceImpl serverService;
@@ -77,8 +86,8 @@ class ServerServiceImplTest {
     void getAllServersShouldMapOwnedServers() {
         List<ServerEntity> entities = List.of(serverOwnedBy(TEST_USER), serverOwnedBy(TEST_USER));
         List<ServerDto> expected = List.of(
-            new ServerDto(1L, "srv1", "10.0.0.1", 22, "root", "pw"),
-            new ServerDto(2L, "srv2", "10.0.0.2", 22, "root", "pw")
+            new ServerDto(1L, "srv1", "10.0.0.1", 22, "root", "pw", null, null),
+            new ServerDto(2L, "srv2", "10.0.0.2", 22, "root", "pw", null, null)
         );
 
         when(serverRepository.findAllByOwnerUsername(TEST_USER)).thenReturn(entities);
@@ -94,7 +103,7 @@ class ServerServiceImplTest {
         when(serverRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class,
-            () -> serverService.updateServer(1L, new ServerDto(null, "s", "10.0.0.1", 22, "root", "pw")));
+            () -> serverService.updateServer(1L, new ServerDto(null, "s", "10.0.0.1", 22, "root", "pw", null, null)));
     }
 
     @Test
@@ -105,7 +114,7 @@ class ServerServiceImplTest {
         when(serverRepository.findById(1L)).thenReturn(Optional.of(server));
 
         assertThrows(AccessDeniedException.class,
-            () -> serverService.updateServer(1L, new ServerDto(null, "s", "10.0.0.1", 22, "root", "pw")));
+            () -> serverService.updateServer(1L, new ServerDto(null, "s", "10.0.0.1", 22, "root", "pw", null, null)));
     }
 
     @Test
@@ -114,7 +123,7 @@ class ServerServiceImplTest {
         server.setId(1L);
         UserEntity owner = UserEntity.builder().id(7L).username(TEST_USER).build();
         SshUsernameEntity ssh = SshUsernameEntity.builder().id(8L).owner(owner).username("root").build();
-        ServerDto dto = new ServerDto(null, "updated", "10.0.0.3", 2222, "root", "newpw");
+        ServerDto dto = new ServerDto(null, "updated", "10.0.0.3", 2222, "root", "newpw", null, null);
 
         when(serverRepository.findById(1L)).thenReturn(Optional.of(server));
         when(userRepository.findByUsername(TEST_USER)).thenReturn(Optional.of(owner));
@@ -131,7 +140,7 @@ class ServerServiceImplTest {
         ServerEntity server = serverOwnedBy(TEST_USER);
         server.setId(1L);
         UserEntity owner = UserEntity.builder().id(7L).username(TEST_USER).build();
-        ServerDto dto = new ServerDto(null, "updated", "10.0.0.3", 2222, " ", "newpw");
+        ServerDto dto = new ServerDto(null, "updated", "10.0.0.3", 2222, " ", "newpw", null, null);
 
         when(serverRepository.findById(1L)).thenReturn(Optional.of(server));
         when(userRepository.findByUsername(TEST_USER)).thenReturn(Optional.of(owner));
@@ -174,7 +183,7 @@ class ServerServiceImplTest {
     void getServerByIdShouldMapWhenOwned() {
         ServerEntity server = serverOwnedBy(TEST_USER);
         server.setId(10L);
-        ServerDto expected = new ServerDto(10L, "srv", "10.0.0.1", 22, "root", "pw");
+        ServerDto expected = new ServerDto(10L, "srv", "10.0.0.1", 22, "root", "pw", null, null);
 
         when(serverRepository.findById(10L)).thenReturn(Optional.of(server));
         when(mappingService.mapToDto(server, ServerDto.class)).thenReturn(expected);
@@ -228,7 +237,7 @@ class ServerServiceImplTest {
     @Test
     void getServersByHostnameShouldMapRepositoryResult() {
         List<ServerEntity> entities = List.of(serverOwnedBy(TEST_USER));
-        List<ServerDto> expected = List.of(new ServerDto(1L, "srv", "10.0.0.1", 22, "root", "pw"));
+        List<ServerDto> expected = List.of(new ServerDto(1L, "srv", "10.0.0.1", 22, "root", "pw", null, null));
 
         when(serverRepository.findAllByHostname("srv")).thenReturn(entities);
         when(mappingService.mapListToDto(entities, ServerDto.class)).thenReturn(expected);
@@ -240,7 +249,7 @@ class ServerServiceImplTest {
 
     @Test
     void createServerShouldThrowWhenCurrentUserMissing() {
-        ServerDto input = new ServerDto(null, "srv", "10.0.0.1", 22, "root", "pw");
+        ServerDto input = new ServerDto(null, "srv", "10.0.0.1", 22, "root", "pw", null, null);
 
         when(userRepository.findByUsername(TEST_USER)).thenReturn(Optional.empty());
 
@@ -251,7 +260,7 @@ class ServerServiceImplTest {
     void createServerShouldThrowWhenUsernameMissing() {
         UserEntity owner = UserEntity.builder().id(1L).username(TEST_USER).build();
         ServerEntity mapped = ServerEntity.builder().groups(new HashSet<>()).build();
-        ServerDto input = new ServerDto(null, "srv", "10.0.0.1", 22, null, "pw");
+        ServerDto input = new ServerDto(null, "srv", "10.0.0.1", 22, null, "pw", null, null);
 
         when(userRepository.findByUsername(TEST_USER)).thenReturn(Optional.of(owner));
         when(mappingService.mapToEntity(input, ServerEntity.class)).thenReturn(mapped);
@@ -272,8 +281,8 @@ class ServerServiceImplTest {
         SshUsernameEntity ssh = SshUsernameEntity.builder().id(8L).owner(owner).username("root").build();
         ServerEntity mapped = ServerEntity.builder().groups(new HashSet<>()).build();
         ServerEntity saved = ServerEntity.builder().id(44L).groups(new HashSet<>()).build();
-        ServerDto input = new ServerDto(null, "srv", "10.0.0.1", 22, "root", "pw");
-        ServerDto expected = new ServerDto(44L, "srv", "10.0.0.1", 22, "root", "pw");
+        ServerDto input = new ServerDto(null, "srv", "10.0.0.1", 22, "root", "pw", null, null);
+        ServerDto expected = new ServerDto(44L, "srv", "10.0.0.1", 22, "root", "pw", null, null);
 
         when(userRepository.findByUsername(TEST_USER)).thenReturn(Optional.of(owner));
         when(mappingService.mapToEntity(input, ServerEntity.class)).thenReturn(mapped);
@@ -303,7 +312,7 @@ class ServerServiceImplTest {
         SshUsernameEntity newSsh = SshUsernameEntity.builder().id(8L).owner(owner).username("root").build();
         ServerEntity mapped = ServerEntity.builder().groups(new HashSet<>()).build();
         ServerEntity saved = ServerEntity.builder().id(44L).groups(new HashSet<>()).build();
-        ServerDto input = new ServerDto(null, "srv", "10.0.0.1", 22, "root", "pw");
+        ServerDto input = new ServerDto(null, "srv", "10.0.0.1", 22, "root", "pw", null, null);
 
         when(userRepository.findByUsername(TEST_USER)).thenReturn(Optional.of(owner));
         when(mappingService.mapToEntity(input, ServerEntity.class)).thenReturn(mapped);
@@ -325,7 +334,7 @@ class ServerServiceImplTest {
     void updateServerShouldSaveWithoutResolvingSshUsernameWhenUsernameNull() {
         ServerEntity server = serverOwnedBy(TEST_USER);
         server.setId(1L);
-        ServerDto dto = new ServerDto(null, "updated", "10.0.0.3", 2222, null, "newpw");
+        ServerDto dto = new ServerDto(null, "updated", "10.0.0.3", 2222, null, "newpw", null, null);
 
         when(serverRepository.findById(1L)).thenReturn(Optional.of(server));
 
@@ -344,17 +353,29 @@ class ServerServiceImplTest {
         when(serverRepository.findById(50L)).thenReturn(Optional.of(server));
         when(scriptExecutor.ping(50L)).thenReturn(true);
 
-        boolean result = serverService.checkConnection(50L);
+        boolean result = serverService.checkConnection(50L, true);
 
         assertTrue(result);
         verify(scriptExecutor).ping(50L);
     }
 
+    @Test
+    void shallowCheckConnectionShouldNotOpenSshSession() {
+        ServerEntity server = serverOwnedBy(TEST_USER);
+        server.setId(50L);
+
+        when(serverRepository.findById(50L)).thenReturn(Optional.of(server));
+        when(scriptExecutor.pingAsync(50L)).thenReturn(CompletableFuture.completedFuture(false));
+
+        assertFalse(serverService.checkConnection(50L, false));
+        verify(scriptExecutor, never()).ping(any());
+    }
+
     @Test
     void checkConnectionShouldThrowWhenServerMissing() {
         when(serverRepository.findById(50L)).thenReturn(Optional.empty());
 
-        assertThrows(EntityNotFoundException.class, () -> serverService.checkConnection(50L));
+        assertThrows(EntityNotFoundException.class, () -> serverService.checkConnection(50L, true));
         verify(scriptExecutor, never()).ping(any());
     }
 
@@ -364,10 +385,43 @@ class ServerServiceImplTest {
         server.setId(50L);
         when(serverRepository.findById(50L)).thenReturn(Optional.of(server));
 
-        assertThrows(AccessDeniedException.class, () -> serverService.checkConnection(50L));
+        assertThrows(AccessDeniedException.class, () -> serverService.checkConnection(50L, true));
         verify(scriptExecutor, never()).ping(any());
     }
 
+    @Test
+    void getQueueStateShouldReturnDispatcherState() {
+        ServerEntity server = serverOwnedBy(TEST_USER);
+        server.setId(50L);
+        ServerQueueDto expected = new ServerQueueDto(50L, 1, 3, 1);
+
+        when(serverRepository.findById(50L)).thenReturn(Optional.of(server));
+        when(taskDispatcher.getQueueState(50L)).thenReturn(expected);
+
+        assertEquals(expected, serverService.getQueueState(50L));
+    }
+
+    @Test
+    void getQueueStateShouldSkipServerLoadWhenIndexKnowsOwner() {
+        ServerQueueDto expected = new ServerQueueDto(50L, 0, 0, 0);
+
+        when(ownershipIndex.ownsServer(TEST_USER, 50L)).thenReturn(true);
+        when(taskDispatcher.getQueueState(50L)).thenReturn(expected);
+
+        assertEquals(expected, serverService.getQueueState(50L));
+        verify(serverRepository, never()).findById(any());
+    }
+
+    @Test
+    void getQueueStateShouldThrowWhenServerNotOwned() {
+        ServerEntity server = serverOwnedBy("other");
+        server.setId(50L);
+        when(serverRepository.findById(50L)).thenReturn(Optional.of(server));
+
+        assertThrows(AccessDeniedException.class, () -> serverService.getQueueState(50L));
+        verify(taskDispatcher, never()).getQueueState(any());
+    }
+
     private ServerEntity serverOwnedBy(String username) {
         UserEntity owner = UserEntity.builder().id(99L).username(username).build();
         ServerGroupEntity group = ServerGroupEntity.builder()
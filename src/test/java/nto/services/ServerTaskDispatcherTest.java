@@ -0,0 +1,181 @@
+package nto.services;
+
+import nto.application.dto.ServerQueueDto;
+import nto.application.interfaces.services.ScriptExecutor;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.services.TaskStateService;
+import nto.infrastructure.services.dispatch.ServerTaskDispatcher;
+import nto.infrastructure.services.dispatch.TaskAdmissionController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ServerTaskDispatcherTest {
+
+    @Mock
+    private ScriptExecutor scriptExecutor;
+    @Mock
+    private TaskStateService taskStateService;
+    @Mock
+    private TaskAdmissionController admissionController;
+    @InjectMocks
+    private ServerTaskDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dispatcher, "perServerConcurrency", 1);
+    }
+
+    @Test
+    void dispatchShouldQueueTasksForBusyServerAndStartThemInOrder() {
+        CompletableFuture<TaskStatus> first = new CompletableFuture<>();
+        CompletableFuture<TaskStatus> second = new CompletableFuture<>();
+        CompletableFuture<TaskStatus> third = new CompletableFuture<>();
+        when(scriptExecutor.executeAsync(1L)).thenReturn(first);
+        when(scriptExecutor.executeAsync(2L)).thenReturn(second);
+        when(scriptExecutor.executeAsync(3L)).thenReturn(third);
+
+        CompletableFuture<TaskStatus> firstDone = dispatcher.dispatch(10L, 1L);
+        CompletableFuture<TaskStatus> secondDone = dispatcher.dispatch(10L, 2L);
+        dispatcher.dispatch(10L, 3L);
+
+        assertEquals(new ServerQueueDto(10L, 1, 2, 1), dispatcher.getQueueState(10L));
+        verify(scriptExecutor, never()).executeAsync(2L);
+
+        first.complete(TaskStatus.SUCCESS);
+        verify(scriptExecutor).executeAsync(2L);
+        verify(scriptExecutor, never()).executeAsync(3L);
+        assertEquals(new ServerQueueDto(10L, 1, 1, 1), dispatcher.getQueueState(10L));
+
+        second.completeExceptionally(new IllegalStateException("boom"));
+        verify(scriptExecutor).executeAsync(3L);
+        assertEquals(TaskStatus.SUCCESS, firstDone.join());
+        assertEquals(TaskStatus.FAILED, secondDone.join());
+
+        third.complete(TaskStatus.FAILED);
+        assertEquals(new ServerQueueDto(10L, 0, 0, 1), dispatcher.getQueueState(10L));
+        verify(admissionController, times(3)).release(1);
+    }
+
+    @Test
+    void dispatchShouldRunDifferentServersIndependently() {
+        when(scriptExecutor.executeAsync(any())).thenReturn(new CompletableFuture<>());
+
+        dispatcher.dispatch(10L, 1L);
+        dispatcher.dispatch(20L, 2L);
+
+        verify(scriptExecutor).executeAsync(1L);
+        verify(scriptExecutor).executeAsync(2L);
+        assertEquals(0, dispatcher.getQueueState(10L).queued());
+        assertEquals(0, dispatcher.getQueueState(20L).queued());
+    }
+
+    @Test
+    void dispatchShouldHonourConfiguredConcurrency() {
+        ReflectionTestUtils.setField(dispatcher, "perServerConcurrency", 2);
+        when(scriptExecutor.executeAsync(any())).thenReturn(new CompletableFuture<>());
+
+        dispatcher.dispatch(10L, 1L);
+        dispatcher.dispatch(10L, 2L);
+        dispatcher.dispatch(10L, 3L);
+
+        assertEquals(new ServerQueueDto(10L, 2, 1, 2), dispatcher.getQueueState(10L));
+    }
+
+    @Test
+    void dispatchShouldFailRejectedTaskAndStartNext() {
+        when(scriptExecutor.executeAsync(1L)).thenReturn(new CompletableFuture<>());
+        when(scriptExecutor.executeAsync(2L)).thenThrow(new TaskRejectedException("full"));
+        when(scriptExecutor.executeAsync(3L)).thenReturn(new CompletableFuture<>());
+        ReflectionTestUtils.setField(dispatcher, "perServerConcurrency", 3);
+
+        dispatcher.dispatch(10L, 1L);
+        dispatcher.dispatch(10L, 2L);
+        dispatcher.dispatch(10L, 3L);
+
+        verify(taskStateService).markFinished(eq(2L), eq(TaskStatus.FAILED),
+            startsWith("Rejected by executor"));
+        assertEquals(new ServerQueueDto(10L, 2, 0, 3), dispatcher.getQueueState(10L));
+    }
+
+    @Test
+    void synchronouslyFinishedQueueShouldBeDrainedWithoutRecursion() throws Exception {
+        int queued = 5_000;
+        CompletableFuture<TaskStatus> first = new CompletableFuture<>();
+        when(scriptExecutor.executeAsync(any())).thenAnswer(invocation ->
+            invocation.<Long>getArgument(0) == 0L
+                ? first
+                : CompletableFuture.completedFuture(TaskStatus.CANCELLED));
+
+        dispatcher.dispatch(10L, 0L);
+        CompletableFuture<TaskStatus> last = null;
+        for (long taskId = 1; taskId <= queued; taskId++) {
+            last = dispatcher.dispatch(10L, taskId);
+        }
+        first.complete(TaskStatus.SUCCESS);
+
+        assertEquals(TaskStatus.CANCELLED, last.get(10, TimeUnit.SECONDS));
+        assertEquals(new ServerQueueDto(10L, 0, 0, 1), dispatcher.getQueueState(10L));
+        verify(admissionController, times(queued + 1)).release(1);
+    }
+
+    @Test
+    void cancelShouldDropQueuedTaskWithoutTouchingExecutor() {
+        when(scriptExecutor.executeAsync(1L)).thenReturn(new CompletableFuture<>());
+        when(taskStateService.markCancelled(eq(2L), any())).thenReturn(true);
+        dispatcher.dispatch(10L, 1L);
+        CompletableFuture<TaskStatus> queued = dispatcher.dispatch(10L, 2L);
+
+        assertTrue(dispatcher.cancel(10L, 2L));
+
+        assertEquals(TaskStatus.CANCELLED, queued.join());
+        verify(scriptExecutor, never()).cancel(any());
+        verify(admissionController).release(1);
+        assertEquals(new ServerQueueDto(10L, 1, 0, 1), dispatcher.getQueueState(10L));
+    }
+
+    @Test
+    void cancelShouldStopRunningTaskAndStartNextOneWhenItCompletes() {
+        CompletableFuture<TaskStatus> first = new CompletableFuture<>();
+        when(scriptExecutor.executeAsync(1L)).thenReturn(first);
+        when(scriptExecutor.executeAsync(2L)).thenReturn(new CompletableFuture<>());
+        when(scriptExecutor.cancel(1L)).thenAnswer(invocation -> first.complete(TaskStatus.CANCELLED));
+        dispatcher.dispatch(10L, 1L);
+        dispatcher.dispatch(10L, 2L);
+
+        assertTrue(dispatcher.cancel(10L, 1L));
+
+        verify(taskStateService, never()).markCancelled(any(), any());
+        verify(scriptExecutor).executeAsync(2L);
+    }
+
+    @Test
+    void cancelShouldMarkTaskNobodyIsRunning() {
+        when(scriptExecutor.cancel(5L)).thenReturn(false);
+        when(taskStateService.markCancelled(eq(5L), any())).thenReturn(false);
+
+        assertFalse(dispatcher.cancel(10L, 5L));
+
+        verify(taskStateService).markCancelled(eq(5L), any());
+    }
+}
@@ -0,0 +1,124 @@
+package nto.services;
+
+import nto.application.dto.PrewarmStatsDto;
+import nto.application.interfaces.repositories.ServerRepository;
+import nto.core.entities.ServerEntity;
+import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.services.ssh.SessionPrewarmer;
+import nto.infrastructure.services.ssh.SshSessionManager;
+import org.apache.sshd.client.session.ClientSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SessionPrewarmerTest {
+
+    @Mock
+    private SshSessionManager sessionManager;
+    @Mock
+    private ServerRepository serverRepository;
+    @Mock
+    private JpaTaskRepository taskRepository;
+    @InjectMocks
+    private SessionPrewarmer prewarmer;
+
+    private final Map<Long, CompletableFuture<ClientSession>> handshakes = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(prewarmer, "concurrency", 2);
+        ReflectionTestUtils.setField(prewarmer, "groupRuns", true);
+    }
+
+    @Test
+    void warmShouldKeepHandshakesWithinConcurrencyAndRecordFailures() {
+        List<ServerEntity> servers = List.of(server(1L), server(2L), server(3L));
+        when(serverRepository.findAllById(List.of(1L, 2L, 3L))).thenReturn(servers);
+        when(sessionManager.warmUp(any())).thenAnswer(invocation -> handshakes.computeIfAbsent(
+            invocation.<ServerEntity>getArgument(0).getId(), id -> new CompletableFuture<>()));
+
+        Map<Long, CompletableFuture<Void>> settled = prewarmer.warm(List.of(1L, 2L, 3L));
+
+        verify(sessionManager, never()).warmUp(servers.get(2));
+        assertEquals(new PrewarmStatsDto(2, 2, 1, 0, 0, Map.of()), prewarmer.getStats());
+
+        handshakes.get(1L).completeExceptionally(new IOException("Connection refused"));
+        assertTrue(settled.get(1L).isDone());
+        assertFalse(settled.get(1L).isCompletedExceptionally());
+        verify(sessionManager).warmUp(servers.get(2));
+
+        handshakes.get(2L).complete(mock(ClientSession.class));
+        handshakes.get(3L).complete(mock(ClientSession.class));
+
+        assertTrue(settled.values().stream().allMatch(CompletableFuture::isDone));
+        assertEquals(new PrewarmStatsDto(2, 0, 0, 2, 1, Map.of(1L, "Connection refused")),
+            prewarmer.getStats());
+    }
+
+    @Test
+    void warmUpsSettlingSynchronouslyShouldBeDrainedWithoutRecursion() {
+        List<Long> ids = LongStream.rangeClosed(1, 50_000).boxed().toList();
+        when(serverRepository.findAllById(ids))
+            .thenReturn(ids.stream().map(this::server).toList());
+        when(sessionManager.warmUp(any()))
+            .thenReturn(CompletableFuture.completedFuture(mock(ClientSession.class)));
+
+        Map<Long, CompletableFuture<Void>> settled = prewarmer.warm(ids);
+
+        assertTrue(settled.values().stream().allMatch(CompletableFuture::isDone));
+        assertEquals(new PrewarmStatsDto(2, 0, 0, ids.size(), 0, Map.of()), prewarmer.getStats());
+    }
+
+    @Test
+    void groupRunWarmUpShouldBeSkippedWhenDisabled() {
+        ReflectionTestUtils.setField(prewarmer, "groupRuns", false);
+
+        assertTrue(prewarmer.warmForGroupRun(List.of(1L)).isEmpty());
+
+        verifyNoInteractions(serverRepository, sessionManager);
+    }
+
+    @Test
+    void startupWarmUpShouldOnlyRunWhenEnabled() {
+        prewarmer.warmRecentlyActiveServers();
+        verifyNoInteractions(taskRepository);
+
+        ReflectionTestUtils.setField(prewarmer, "onStartup", true);
+        when(taskRepository.findServerIdsWithTasksSince(any())).thenReturn(List.of(5L));
+        when(serverRepository.findAllById(anyList())).thenReturn(List.of(server(5L)));
+        when(sessionManager.warmUp(any())).thenReturn(new CompletableFuture<>());
+
+        prewarmer.warmRecentlyActiveServers();
+
+        verify(sessionManager).warmUp(any());
+    }
+
+    private ServerEntity server(Long id) {
+        ServerEntity server = new ServerEntity();
+        server.setId(id);
+        return server;
+    }
+}
@@ -7,35 +7,53 @@ import nto.core.entities.ServerEntity;
 import nto.core.entities.SshUsernameEntity;
 import nto.core.entities.TaskEntity;
 import nto.core.enums.TaskStatus;
-import nto.infrastructure.cache.TaskStatusCache;
-import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.cache.ScriptContent;
+import nto.infrastructure.cache.ScriptContentCache;
 import nto.infrastructure.services.SshScriptExecutor;
+import nto.infrastructure.services.TaskStateService;
+import nto.infrastructure.services.liveness.HostLivenessRegistry;
+import nto.infrastructure.services.output.CapturedOutput;
+import nto.infrastructure.services.output.OutputBlobStore;
+import nto.infrastructure.services.output.TaskOutputRegistry;
+import nto.infrastructure.services.ssh.RemoteScriptCache;
+import nto.infrastructure.services.ssh.SessionLease;
+import nto.infrastructure.services.ssh.SessionPrewarmer;
 import nto.infrastructure.services.ssh.SshSessionManager;
 import org.apache.sshd.client.channel.ChannelExec;
-import org.apache.sshd.client.channel.ClientChannelEvent;
 import org.apache.sshd.client.future.OpenFuture;
 import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.future.CloseFuture;
+import org.apache.sshd.common.future.SshFutureListener;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.EnumSet;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -46,17 +64,40 @@ import static org.mockito.Mockito.when;
 class SshScriptExecutorTest {
 
     @Mock
-    private JpaTaskRepository taskRepository;
-    @Mock
-    private TaskStatusCache statusCache;
+    private TaskStateService taskStateService;
     @Mock
     private ServerRepository serverRepository;
     @Mock
     private SshSessionManager sessionManager;
+    @Mock
+    private SessionPrewarmer sessionPrewarmer;
+    @Mock
+    private ScriptContentCache scriptContentCache;
+    @Mock
+    private HostLivenessRegistry livenessRegistry;
+    @Mock
+    private TaskOutputRegistry outputRegistry;
+    @Spy
+    private OutputBlobStore blobStore = new OutputBlobStore();
 
-    @InjectMocks
     private SshScriptExecutor sshScriptExecutor;
 
+    @TempDir
+    private Path blobDir;
+
+    @BeforeEach
+    void setUpBlobStore() throws Exception {
+        ReflectionTestUtils.setField(blobStore, "blobDir", blobDir);
+        ReflectionTestUtils.setField(blobStore, "memoryLimitBytes", 1024);
+        ReflectionTestUtils.setField(blobStore, "previewBytes", 64);
+        blobStore.init();
+        lenient().when(scriptContentCache.get(44L))
+            .thenReturn(new ScriptContent(44L, "s", "echo ok"));
+        sshScriptExecutor = new SshScriptExecutor(taskStateService, serverRepository,
+            sessionManager, sessionPrewarmer, new RemoteScriptCache(), scriptContentCache,
+            livenessRegistry, outputRegistry, blobStore, Runnable::run);
+    }
+
     @Test
     void pingShouldReturnTrueWhenSessionIsOpen() throws Exception {
         Long serverId = 1L;
@@ -74,6 +115,7 @@ class SshScriptExecutorTest {
 
         assertTrue(isAlive);
         verify(sessionManager, never()).invalidateSession(serverId);
+        verify(livenessRegistry).record(serverId, true, HostLivenessRegistry.SOURCE_SSH);
     }
 
     @Test
@@ -90,6 +132,7 @@ class SshScriptExecutorTest {
 
         assertFalse(isAlive);
         verify(sessionManager, times(1)).invalidateSession(serverId);
+        verify(livenessRegistry).record(serverId, false, HostLivenessRegistry.SOURCE_SSH);
     }
 
     @Test
@@ -106,73 +149,71 @@ class SshScriptExecutorTest {
         ChannelExec channel = mock(ChannelExec.class);
         OpenFuture openFuture = mock(OpenFuture.class);
 
-        when(statusCache.get(9L)).thenReturn(null);
-        when(taskRepository.findById(9L)).thenReturn(Optional.of(task));
-        CopyOnWriteArrayList<TaskStatus> savedStatuses = new CopyOnWriteArrayList<>();
-        when(taskRepository.save(any(TaskEntity.class))).thenAnswer(invocation -> {
-            TaskEntity saved = invocation.getArgument(0);
-            savedStatuses.add(saved.getStatus());
-            return saved;
-        });
-        when(sessionManager.getOrCreateSession(task.getServer())).thenReturn(session);
+        when(taskStateService.markRunning(eq(9L), anyString())).thenReturn(task);
+        when(sessionManager.acquireChannel(task.getServer()))
+            .thenReturn(CompletableFuture.completedFuture(new SessionLease(session, () -> { })));
         when(session.createExecChannel("echo ok")).thenReturn(channel);
-        when(channel.open()).thenReturn(openFuture);
-        when(openFuture.verify(eq(15L), eq(TimeUnit.SECONDS))).thenReturn(openFuture);
-        when(channel.waitFor(eq(EnumSet.of(ClientChannelEvent.CLOSED)), eq(0L)))
-            .thenReturn(EnumSet.of(ClientChannelEvent.CLOSED));
+        stubRemoteRun(channel, openFuture);
         when(channel.getExitStatus()).thenReturn(0);
 
         sshScriptExecutor.executeAsync(9L);
 
-        assertEquals(List.of(TaskStatus.RUNNING, TaskStatus.SUCCESS), savedStatuses);
+        verify(taskStateService).markFinished(eq(9L), eq(TaskStatus.SUCCESS),
+            any(CapturedOutput.class));
+        verify(outputRegistry).open(9L);
+        verify(outputRegistry).complete(9L, TaskStatus.SUCCESS);
         assertEquals(1L, sshScriptExecutor.getSuccessCountAtomic());
         assertEquals(1L, sshScriptExecutor.getSuccessCountUnsafe());
-        verify(statusCache, times(2)).put(any(TaskEntity.class));
     }
 
     @Test
-    void executeAsyncShouldFailAndInvalidateSessionOnSshError() throws Exception {
+    void executeAsyncShouldFailWhenSessionCannotBeAcquired() throws Exception {
         TaskEntity task = taskWithIds(10L, 101L);
 
-        when(statusCache.get(10L)).thenReturn(task);
-        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
-        CopyOnWriteArrayList<TaskStatus> savedStatuses = new CopyOnWriteArrayList<>();
-        when(taskRepository.save(any(TaskEntity.class))).thenAnswer(invocation -> {
-            TaskEntity saved = invocation.getArgument(0);
-            savedStatuses.add(saved.getStatus());
-            return saved;
-        });
-        when(sessionManager.getOrCreateSession(task.getServer())).thenThrow(new RuntimeException("no route"));
+        when(taskStateService.markRunning(eq(10L), anyString())).thenReturn(task);
+        when(sessionManager.acquireChannel(task.getServer()))
+            .thenReturn(CompletableFuture.failedFuture(new IOException("no route")));
 
         sshScriptExecutor.executeAsync(10L);
 
-        assertEquals(List.of(TaskStatus.RUNNING, TaskStatus.FAILED), savedStatuses);
-        verify(sessionManager).invalidateSession(101L);
-        verify(statusCache, times(2)).put(any(TaskEntity.class));
+        verify(taskStateService).markFinished(10L, TaskStatus.FAILED, "SSH Error: no route");
     }
 
     @Test
-    void executeAsyncShouldInvalidateSessionWhenChannelExecutionFails() throws Exception {
+    void executeAsyncShouldFailFastWhenServerIsKnownDown() {
+        TaskEntity task = taskWithIds(11L, 104L);
+        ReflectionTestUtils.setField(sshScriptExecutor, "failFastOnDownHosts", true);
+
+        when(taskStateService.markRunning(eq(11L), anyString())).thenReturn(task);
+        when(livenessRegistry.isKnownDown(104L)).thenReturn(true);
+
+        sshScriptExecutor.executeAsync(11L);
+
+        verify(taskStateService).markFinished(eq(11L), eq(TaskStatus.FAILED), anyString());
+        verify(sessionManager, never()).acquireChannel(any());
+    }
+
+    @Test
+    void executeAsyncShouldReleaseLeaseWithoutInvalidatingSessionWhenChannelFails()
+        throws Exception {
         TaskEntity task = taskWithIds(13L, 103L);
         ClientSession session = mock(ClientSession.class);
         ChannelExec channel = mock(ChannelExec.class);
-        CopyOnWriteArrayList<TaskStatus> savedStatuses = new CopyOnWriteArrayList<>();
-
-        when(statusCache.get(13L)).thenReturn(task);
-        when(taskRepository.findById(13L)).thenReturn(Optional.of(task));
-        when(taskRepository.save(any(TaskEntity.class))).thenAnswer(invocation -> {
-            TaskEntity saved = invocation.getArgument(0);
-            savedStatuses.add(saved.getStatus());
-            return saved;
-        });
-        when(sessionManager.getOrCreateSession(task.getServer())).thenReturn(session);
+        AtomicBoolean released = new AtomicBoolean();
+
+        when(taskStateService.markRunning(eq(13L), anyString())).thenReturn(task);
+        when(sessionManager.acquireChannel(task.getServer()))
+            .thenReturn(CompletableFuture.completedFuture(
+                new SessionLease(session, () -> released.set(true))));
         when(session.createExecChannel("echo ok")).thenReturn(channel);
         when(channel.open()).thenThrow(new RuntimeException("open failed"));
 
         sshScriptExecutor.executeAsync(13L);
 
-        assertEquals(List.of(TaskStatus.RUNNING, TaskStatus.FAILED), savedStatuses);
-        verify(sessionManager, times(2)).invalidateSession(103L);
+        verify(taskStateService).markFinished(eq(13L), eq(TaskStatus.FAILED), anyString());
+        verify(sessionManager, never()).invalidateSession(any());
+        verify(session, never()).close(true);
+        assertTrue(released.get());
     }
 
     @Test
@@ -181,41 +222,35 @@ class SshScriptExecutorTest {
         ClientSession session = mock(ClientSession.class);
         ChannelExec channel = mock(ChannelExec.class);
         OpenFuture openFuture = mock(OpenFuture.class);
-        CopyOnWriteArrayList<TaskStatus> savedStatuses = new CopyOnWriteArrayList<>();
-        CopyOnWriteArrayList<String> savedOutputs = new CopyOnWriteArrayList<>();
-
-        when(statusCache.get(12L)).thenReturn(task);
-        when(taskRepository.findById(12L)).thenReturn(Optional.of(task));
-        when(taskRepository.save(any(TaskEntity.class))).thenAnswer(invocation -> {
-            TaskEntity saved = invocation.getArgument(0);
-            savedStatuses.add(saved.getStatus());
-            savedOutputs.add(saved.getOutput());
-            return saved;
-        });
-        when(sessionManager.getOrCreateSession(task.getServer())).thenReturn(session);
+
+        when(taskStateService.markRunning(eq(12L), anyString())).thenReturn(task);
+        when(sessionManager.acquireChannel(task.getServer()))
+            .thenReturn(CompletableFuture.completedFuture(new SessionLease(session, () -> { })));
         when(session.createExecChannel("echo ok")).thenReturn(channel);
         doAnswer(invocation -> {
-            ((ByteArrayOutputStream) invocation.getArgument(0))
+            ((OutputStream) invocation.getArgument(0))
                 .write("stdout".getBytes(StandardCharsets.UTF_8));
             return null;
-        }).when(channel).setOut(any(ByteArrayOutputStream.class));
+        }).when(channel).setOut(any(OutputStream.class));
         doAnswer(invocation -> {
-            ((ByteArrayOutputStream) invocation.getArgument(0))
+            ((OutputStream) invocation.getArgument(0))
                 .write("stderr".getBytes(StandardCharsets.UTF_8));
             return null;
-        }).when(channel).setErr(any(ByteArrayOutputStream.class));
-        when(channel.open()).thenReturn(openFuture);
-        when(openFuture.verify(eq(15L), eq(TimeUnit.SECONDS))).thenReturn(openFuture);
-        when(channel.waitFor(eq(EnumSet.of(ClientChannelEvent.CLOSED)), eq(0L)))
-            .thenReturn(EnumSet.of(ClientChannelEvent.CLOSED));
+        }).when(channel).setErr(any(OutputStream.class));
+        stubRemoteRun(channel, openFuture);
         when(channel.getExitStatus()).thenReturn(null);
 
         sshScriptExecutor.executeAsync(12L);
 
-        assertEquals(List.of(TaskStatus.RUNNING, TaskStatus.FAILED), savedStatuses);
-        assertTrue(savedOutputs.get(1).contains("stdout"));
-        assertTrue(savedOutputs.get(1).contains("[ERR] stderr"));
-        assertTrue(savedOutputs.get(1).contains("Exit Status: -1"));
+        ArgumentCaptor<CapturedOutput> output = ArgumentCaptor.forClass(CapturedOutput.class);
+        verify(taskStateService).markFinished(eq(12L), eq(TaskStatus.FAILED), output.capture());
+        assertTrue(output.getValue().preview().contains("stdout"));
+        assertTrue(output.getValue().preview().contains("[ERR] stderr"));
+        assertTrue(output.getValue().preview().contains("Exit Status: -1"));
+        assertFalse(output.getValue().isSpilled());
+        verify(outputRegistry).append(12L, TaskOutputRegistry.STDOUT, "stdout");
+        verify(outputRegistry).append(12L, TaskOutputRegistry.STDERR, "stderr");
+        verify(outputRegistry).complete(12L, TaskStatus.FAILED);
     }
 
     @Test
@@ -224,49 +259,166 @@ class SshScriptExecutorTest {
         ClientSession session = mock(ClientSession.class);
         ChannelExec channel = mock(ChannelExec.class);
         OpenFuture openFuture = mock(OpenFuture.class);
-        CopyOnWriteArrayList<String> savedOutputs = new CopyOnWriteArrayList<>();
-
-        when(statusCache.get(14L)).thenReturn(task);
-        when(taskRepository.findById(14L)).thenReturn(Optional.of(task));
-        when(taskRepository.save(any(TaskEntity.class))).thenAnswer(invocation -> {
-            TaskEntity saved = invocation.getArgument(0);
-            savedOutputs.add(saved.getOutput());
-            return saved;
-        });
-        when(sessionManager.getOrCreateSession(task.getServer())).thenReturn(session);
+
+        when(taskStateService.markRunning(eq(14L), anyString())).thenReturn(task);
+        when(sessionManager.acquireChannel(task.getServer()))
+            .thenReturn(CompletableFuture.completedFuture(new SessionLease(session, () -> { })));
         when(session.createExecChannel("echo ok")).thenReturn(channel);
         doAnswer(invocation -> {
-            ((ByteArrayOutputStream) invocation.getArgument(0))
+            ((OutputStream) invocation.getArgument(0))
                 .write("stderr-only".getBytes(StandardCharsets.UTF_8));
             return null;
-        }).when(channel).setErr(any(ByteArrayOutputStream.class));
-        when(channel.open()).thenReturn(openFuture);
-        when(openFuture.verify(eq(15L), eq(TimeUnit.SECONDS))).thenReturn(openFuture);
-        when(channel.waitFor(eq(EnumSet.of(ClientChannelEvent.CLOSED)), eq(0L)))
-            .thenReturn(EnumSet.of(ClientChannelEvent.CLOSED));
+        }).when(channel).setErr(any(OutputStream.class));
+        stubRemoteRun(channel, openFuture);
         when(channel.getExitStatus()).thenReturn(1);
 
         sshScriptExecutor.executeAsync(14L);
 
-        assertEquals("[ERR] stderr-only\nExit Status: 1", savedOutputs.get(1));
+        verify(taskStateService).markFinished(14L, TaskStatus.FAILED,
+            CapturedOutput.inline("[ERR] stderr-only\nExit Status: 1"));
     }
 
     @Test
-    void executeAsyncShouldThrowWhenTaskMissingDuringStatusUpdate() {
-        when(statusCache.get(12L)).thenReturn(taskWithIds(12L, 102L));
-        when(taskRepository.findById(12L)).thenReturn(Optional.empty());
+    void executeAsyncShouldSpillLargeOutputToBlobAndStorePreview() throws Exception {
+        TaskEntity task = taskWithIds(15L, 105L);
+        ClientSession session = mock(ClientSession.class);
+        ChannelExec channel = mock(ChannelExec.class);
+        OpenFuture openFuture = mock(OpenFuture.class);
+        String chatty = "x".repeat(5000);
 
-        assertThrows(EntityNotFoundException.class, () -> sshScriptExecutor.executeAsync(12L));
-        verify(taskRepository, never()).save(any(TaskEntity.class));
+        when(taskStateService.markRunning(eq(15L), anyString())).thenReturn(task);
+        when(sessionManager.acquireChannel(task.getServer()))
+            .thenReturn(CompletableFuture.completedFuture(new SessionLease(session, () -> { })));
+        when(session.createExecChannel("echo ok")).thenReturn(channel);
+        doAnswer(invocation -> {
+            ((OutputStream) invocation.getArgument(0))
+                .write(chatty.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(channel).setOut(any(OutputStream.class));
+        stubRemoteRun(channel, openFuture);
+        when(channel.getExitStatus()).thenReturn(0);
+
+        sshScriptExecutor.executeAsync(15L);
+
+        ArgumentCaptor<CapturedOutput> output = ArgumentCaptor.forClass(CapturedOutput.class);
+        verify(taskStateService).markFinished(eq(15L), eq(TaskStatus.SUCCESS), output.capture());
+        CapturedOutput captured = output.getValue();
+        assertTrue(captured.isSpilled());
+        assertTrue(captured.preview().length() < 1000);
+        assertTrue(captured.preview().endsWith("Exit Status: 0"));
+        Path blob = blobStore.find(captured.blobRef()).orElseThrow();
+        assertEquals(chatty + "\nExit Status: 0", Files.readString(blob));
     }
 
     @Test
-    void executeAsyncShouldThrowWhenTaskIsAbsentDuringPreparation() {
-        when(statusCache.get(11L)).thenReturn(null);
-        when(taskRepository.findById(11L)).thenReturn(Optional.empty());
+    void executeAsyncShouldFailTaskWhenItIsAbsentDuringPreparation() throws Exception {
+        when(taskStateService.markRunning(eq(11L), anyString()))
+            .thenThrow(new EntityNotFoundException("Task not found: 11"));
+        when(taskStateService.markFinished(eq(11L), eq(TaskStatus.FAILED), anyString()))
+            .thenThrow(new EntityNotFoundException("Task not found: 11"));
+
+        CompletableFuture<TaskStatus> result = sshScriptExecutor.executeAsync(11L);
+
+        assertEquals(TaskStatus.FAILED, result.get(1, TimeUnit.SECONDS));
+        verify(outputRegistry).complete(11L, TaskStatus.FAILED);
+        verify(sessionManager, never()).acquireChannel(any());
+        assertFalse(sshScriptExecutor.cancel(11L));
+    }
 
-        assertThrows(EntityNotFoundException.class, () -> sshScriptExecutor.executeAsync(11L));
-        verify(taskRepository, never()).save(any(TaskEntity.class));
+    @Test
+    void executeAsyncShouldFailTaskWhenScriptCannotBeRead() throws Exception {
+        TaskEntity task = taskWithIds(12L, 102L);
+        when(taskStateService.markRunning(eq(12L), anyString())).thenReturn(task);
+        when(scriptContentCache.get(44L))
+            .thenThrow(new EntityNotFoundException("Script not found: 44"));
+
+        CompletableFuture<TaskStatus> result = sshScriptExecutor.executeAsync(12L);
+
+        assertEquals(TaskStatus.FAILED, result.get(1, TimeUnit.SECONDS));
+        verify(taskStateService).markFinished(12L, TaskStatus.FAILED,
+            "Could not start task: Script not found: 44");
+        verify(outputRegistry).complete(12L, TaskStatus.FAILED);
+        verify(outputRegistry, never()).open(12L);
+    }
+
+    @Test
+    void rejectedSubmissionShouldNotLeaveExecutionRegistered() {
+        sshScriptExecutor = new SshScriptExecutor(taskStateService, serverRepository,
+            sessionManager, sessionPrewarmer, new RemoteScriptCache(), scriptContentCache,
+            livenessRegistry, outputRegistry, blobStore, command -> {
+                throw new RejectedExecutionException("full");
+            });
+
+        assertThrows(RejectedExecutionException.class, () -> sshScriptExecutor.executeAsync(13L));
+
+        assertFalse(sshScriptExecutor.cancel(13L));
+    }
+
+    @Test
+    void executeAsyncShouldFailWhenChannelDoesNotOpen() throws Exception {
+        TaskEntity task = taskWithIds(16L, 106L);
+        ClientSession session = mock(ClientSession.class);
+        ChannelExec channel = mock(ChannelExec.class);
+        OpenFuture openFuture = mock(OpenFuture.class);
+        AtomicBoolean released = new AtomicBoolean();
+
+        when(taskStateService.markRunning(eq(16L), anyString())).thenReturn(task);
+        when(sessionManager.acquireChannel(task.getServer()))
+            .thenReturn(CompletableFuture.completedFuture(
+                new SessionLease(session, () -> released.set(true))));
+        when(session.createExecChannel("echo ok")).thenReturn(channel);
+        when(channel.open()).thenReturn(openFuture);
+        when(openFuture.isOpened()).thenReturn(false);
+        when(openFuture.getException()).thenReturn(new IOException("channel refused"));
+        doAnswer(invocation -> {
+            invocation.<SshFutureListener<OpenFuture>>getArgument(0).operationComplete(openFuture);
+            return openFuture;
+        }).when(openFuture).addListener(any());
+
+        TaskStatus status = sshScriptExecutor.executeAsync(16L).get(5, TimeUnit.SECONDS);
+
+        assertEquals(TaskStatus.FAILED, status);
+        verify(taskStateService).markFinished(16L, TaskStatus.FAILED,
+            "SSH Error: channel refused");
+        verify(channel).close(true);
+        verify(channel, never()).addCloseFutureListener(any());
+        assertTrue(released.get());
+    }
+
+    @Test
+    void cancelWhileAcquiringChannelShouldReleaseLeaseAndMarkCancelled() throws Exception {
+        TaskEntity task = taskWithIds(17L, 107L);
+        ClientSession session = mock(ClientSession.class);
+        CompletableFuture<SessionLease> acquiring = new CompletableFuture<>();
+        AtomicBoolean released = new AtomicBoolean();
+
+        when(taskStateService.markRunning(eq(17L), anyString())).thenReturn(task);
+        when(sessionManager.acquireChannel(task.getServer())).thenReturn(acquiring);
+
+        CompletableFuture<TaskStatus> result = sshScriptExecutor.executeAsync(17L);
+        assertTrue(sshScriptExecutor.cancel(17L));
+        acquiring.complete(new SessionLease(session, () -> released.set(true)));
+
+        assertEquals(TaskStatus.CANCELLED, result.get(5, TimeUnit.SECONDS));
+        verify(taskStateService).markFinished(17L, TaskStatus.CANCELLED, "Cancelled");
+        verify(outputRegistry).complete(17L, TaskStatus.CANCELLED);
+        verify(session, never()).createExecChannel(anyString());
+        assertTrue(released.get());
+        assertFalse(sshScriptExecutor.cancel(17L));
+    }
+
+    private void stubRemoteRun(ChannelExec channel, OpenFuture openFuture) throws Exception {
+        when(channel.open()).thenReturn(openFuture);
+        when(openFuture.isOpened()).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<SshFutureListener<OpenFuture>>getArgument(0).operationComplete(openFuture);
+            return openFuture;
+        }).when(openFuture).addListener(any());
+        doAnswer(invocation -> {
+            invocation.<SshFutureListener<CloseFuture>>getArgument(0)
+                .operationComplete(mock(CloseFuture.class));
+            return null;
+        }).when(channel).addCloseFutureListener(any());
     }
 
     private TaskEntity taskWithIds(Long taskId, Long serverId) {
@@ -278,12 +430,7 @@ class SshScriptExecutorTest {
         server.setPassword("pw");
         server.setSshUsername(SshUsernameEntity.builder().username("root").build());
 
-        ScriptEntity script = ScriptEntity.builder()
-            .id(44L)
-            .name("s")
-            .content("echo ok")
-            .isPublic(true)
-            .build();
+        ScriptEntity script = ScriptEntity.builder().id(44L).build();
 
         return TaskEntity.builder()
             .id(taskId)
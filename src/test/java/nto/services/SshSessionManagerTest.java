@@ -1,38 +1,65 @@
 package nto.services;
 
+import nto.application.dto.SessionHealthDto;
+import nto.application.dto.SessionPoolStatsDto;
+import nto.application.interfaces.repositories.ServerRepository;
 import nto.core.entities.ServerEntity;
 import nto.core.entities.SshUsernameEntity;
+import nto.infrastructure.services.ssh.SessionLease;
 import nto.infrastructure.services.ssh.SshSessionManager;
 import org.apache.sshd.client.SshClient;
 import org.apache.sshd.client.future.AuthFuture;
 import org.apache.sshd.client.future.ConnectFuture;
 import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.SshConstants;
+import org.apache.sshd.common.future.GlobalRequestFuture;
+import org.apache.sshd.common.future.SshFuture;
+import org.apache.sshd.common.future.SshFutureListener;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyByte;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class SshSessionManagerTest {
 
+    private static final String KEEPALIVE = "keepalive@openssh.com";
+
+    private final ServerRepository serverRepository = mock(ServerRepository.class);
+
     @Test
     void initShouldCreateAndStartClient() {
-        SshSessionManager manager = new SshSessionManager();
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
 
         manager.init();
 
@@ -43,32 +70,27 @@ class SshSessionManagerTest {
     }
 
     @Test
-    void destroyShouldCloseSessionsAndStopClient() {
-        SshSessionManager manager = new SshSessionManager();
-        ClientSession openSession = mock(ClientSession.class);
-        ClientSession closedSession = mock(ClientSession.class);
-        when(openSession.isOpen()).thenReturn(true);
-        when(closedSession.isOpen()).thenReturn(false);
-
-        Map<Long, ClientSession> sessions = sessions(manager);
-        sessions.put(1L, openSession);
-        sessions.put(2L, closedSession);
-
-        SshClient client = mock(SshClient.class);
+    void destroyShouldCloseSessionsAndStopClient() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession first = openSession();
+        ClientSession second = openSession();
+        SshClient client = clientReturning(manager, first, second);
+        manager.getOrCreateSession(server(1L, "root"));
+        manager.getOrCreateSession(server(2L, "root"));
+        when(second.isClosed()).thenReturn(true);
         when(client.isStarted()).thenReturn(true);
-        ReflectionTestUtils.setField(manager, "client", client);
 
         manager.destroy();
 
-        verify(openSession).close(true);
-        verify(closedSession, never()).close(true);
+        verify(first).close(true);
+        verify(second, never()).close(true);
         verify(client).stop();
-        assertTrue(sessions.isEmpty());
+        assertTrue(sessions(manager).isEmpty());
     }
 
     @Test
     void destroyShouldSkipStoppingWhenClientIsNull() {
-        SshSessionManager manager = new SshSessionManager();
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
 
         manager.destroy();
 
@@ -77,7 +99,7 @@ class SshSessionManagerTest {
 
     @Test
     void destroyShouldSkipStoppingWhenClientIsNotStarted() {
-        SshSessionManager manager = new SshSessionManager();
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
         SshClient client = mock(SshClient.class);
         when(client.isStarted()).thenReturn(false);
         ReflectionTestUtils.setField(manager, "client", client);
@@ -89,76 +111,51 @@ class SshSessionManagerTest {
 
     @Test
     void getOrCreateSessionShouldReturnExistingOpenSession() throws IOException {
-        SshSessionManager manager = new SshSessionManager();
-        SshClient client = mock(SshClient.class);
-        ReflectionTestUtils.setField(manager, "client", client);
-
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession existing = openSession();
+        SshClient client = clientReturning(manager, existing);
         ServerEntity server = server(1L, "root");
-        ClientSession existing = mock(ClientSession.class);
-        when(existing.isOpen()).thenReturn(true);
-        when(existing.isClosed()).thenReturn(false);
-        sessions(manager).put(1L, existing);
+        manager.getOrCreateSession(server);
 
         ClientSession result = manager.getOrCreateSession(server);
 
         assertSame(existing, result);
-        verify(client, never()).connect(anyString(), anyString(), anyInt());
+        verify(client, times(1)).connect(anyString(), anyString(), anyInt());
     }
 
     @Test
     void getOrCreateSessionShouldReplaceExistingSessionWhenItIsClosed() throws IOException {
-        SshSessionManager manager = new SshSessionManager();
-        SshClient client = mock(SshClient.class);
-        ReflectionTestUtils.setField(manager, "client", client);
-
-        ConnectFuture connectFuture = mock(ConnectFuture.class);
-        ClientSession existing = mock(ClientSession.class);
-        ClientSession session = mock(ClientSession.class);
-        AuthFuture authFuture = mock(AuthFuture.class);
-
-        when(existing.isOpen()).thenReturn(true);
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession existing = openSession();
+        ClientSession replacement = openSession();
+        clientReturning(manager, existing, replacement);
+        manager.getOrCreateSession(server(1L, "root"));
         when(existing.isClosed()).thenReturn(true);
-        sessions(manager).put(1L, existing);
-
-        when(client.connect("root", "10.0.0.1", 22)).thenReturn(connectFuture);
-        when(connectFuture.verify(eq(10L), eq(TimeUnit.SECONDS))).thenReturn(connectFuture);
-        when(connectFuture.getSession()).thenReturn(session);
-        when(session.auth()).thenReturn(authFuture);
-        when(authFuture.verify(eq(10L), eq(TimeUnit.SECONDS))).thenReturn(authFuture);
 
         ClientSession result = manager.getOrCreateSession(server(1L, "root"));
 
-        assertSame(session, result);
+        assertSame(replacement, result);
+        assertEquals(1, manager.getSessionCount(1L));
     }
 
     @Test
     void getOrCreateSessionShouldReplaceExistingSessionWhenItIsNotOpen() throws IOException {
-        SshSessionManager manager = new SshSessionManager();
-        SshClient client = mock(SshClient.class);
-        ReflectionTestUtils.setField(manager, "client", client);
-
-        ConnectFuture connectFuture = mock(ConnectFuture.class);
-        ClientSession existing = mock(ClientSession.class);
-        ClientSession session = mock(ClientSession.class);
-        AuthFuture authFuture = mock(AuthFuture.class);
-
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession existing = openSession();
+        ClientSession replacement = openSession();
+        clientReturning(manager, existing, replacement);
+        manager.getOrCreateSession(server(1L, "root"));
         when(existing.isOpen()).thenReturn(false);
-        sessions(manager).put(1L, existing);
-
-        when(client.connect("root", "10.0.0.1", 22)).thenReturn(connectFuture);
-        when(connectFuture.verify(eq(10L), eq(TimeUnit.SECONDS))).thenReturn(connectFuture);
-        when(connectFuture.getSession()).thenReturn(session);
-        when(session.auth()).thenReturn(authFuture);
-        when(authFuture.verify(eq(10L), eq(TimeUnit.SECONDS))).thenReturn(authFuture);
 
         ClientSession result = manager.getOrCreateSession(server(1L, "root"));
 
-        assertSame(session, result);
+        assertSame(replacement, result);
+        verify(existing).close(true);
     }
 
     @Test
     void getOrCreateSessionShouldThrowWhenUsernameMissing() {
-        SshSessionManager manager = new SshSessionManager();
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
         ReflectionTestUtils.setField(manager, "client", mock(SshClient.class));
 
         ServerEntity server = server(1L, null);
@@ -168,7 +165,7 @@ class SshSessionManagerTest {
 
     @Test
     void getOrCreateSessionShouldThrowWhenUsernameBlank() {
-        SshSessionManager manager = new SshSessionManager();
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
         ReflectionTestUtils.setField(manager, "client", mock(SshClient.class));
 
         ServerEntity server = server(1L, " ");
@@ -178,48 +175,307 @@ class SshSessionManagerTest {
 
     @Test
     void getOrCreateSessionShouldCreateAndCacheNewSession() throws IOException {
-        SshSessionManager manager = new SshSessionManager();
-        SshClient client = mock(SshClient.class);
-        ReflectionTestUtils.setField(manager, "client", client);
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession session = openSession();
+        clientReturning(manager, session);
 
-        ConnectFuture connectFuture = mock(ConnectFuture.class);
-        ClientSession session = mock(ClientSession.class);
-        AuthFuture authFuture = mock(AuthFuture.class);
+        ClientSession result = manager.getOrCreateSession(server(2L, "root"));
 
-        when(client.connect("root", "10.0.0.1", 22)).thenReturn(connectFuture);
-        when(connectFuture.verify(eq(10L), eq(TimeUnit.SECONDS))).thenReturn(connectFuture);
-        when(connectFuture.getSession()).thenReturn(session);
-        when(session.auth()).thenReturn(authFuture);
-        when(authFuture.verify(eq(10L), eq(TimeUnit.SECONDS))).thenReturn(authFuture);
+        assertSame(session, result);
+        assertEquals(1, manager.getSessionCount(2L));
+        verify(session).addPasswordIdentity("pw");
+    }
+
+    @Test
+    void warmedSessionShouldBeReusedByFirstChannelWithoutReservingOne() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession session = openSession();
+        SshClient client = clientReturning(manager, session);
+        ServerEntity server = server(1L, "root");
 
-        ServerEntity server = server(2L, "root");
+        assertSame(session, manager.warmUp(server).join());
+        assertEquals(0, manager.getActiveChannelCount(1L));
 
-        ClientSession result = manager.getOrCreateSession(server);
+        SessionLease lease = manager.acquireChannel(server).join();
 
-        assertSame(session, result);
-        assertEquals(session, sessions(manager).get(2L));
-        verify(session).addPasswordIdentity("pw");
+        assertSame(session, lease.session());
+        assertEquals(1, manager.getSessionCount(1L));
+        verify(client, times(1)).connect(anyString(), anyString(), anyInt());
     }
 
     @Test
-    void invalidateSessionShouldCloseAndRemoveOpenSession() {
-        SshSessionManager manager = new SshSessionManager();
-        ClientSession session = mock(ClientSession.class);
-        when(session.isClosed()).thenReturn(false);
-        sessions(manager).put(5L, session);
+    void poolAtCapShouldEvictIdleSessionOfLeastRecentlyUsedServer() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ReflectionTestUtils.setField(manager, "maxSessions", 2);
+        ClientSession first = openSession();
+        ClientSession second = openSession();
+        ClientSession third = openSession();
+        clientReturning(manager, first, second, third);
+        manager.warmUp(server(1L, "root")).join();
+        manager.warmUp(server(2L, "root")).join();
+        manager.warmUp(server(1L, "root")).join();
+
+        manager.warmUp(server(3L, "root")).join();
+
+        verify(second).close(true);
+        verify(first, never()).close(true);
+        assertEquals(0, manager.getSessionCount(2L));
+        assertEquals(new SessionPoolStatsDto(2, 2, 2, 2, 1, 3, 0, 1, 0, 0, 0), manager.getStats());
+    }
 
-        manager.invalidateSession(5L);
+    @Test
+    void poolAtCapShouldNotEvictBusySessions() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ReflectionTestUtils.setField(manager, "maxSessions", 1);
+        ClientSession first = openSession();
+        ClientSession second = openSession();
+        clientReturning(manager, first, second);
+        manager.acquireChannel(server(1L, "root")).join();
+
+        manager.warmUp(server(2L, "root")).join();
+
+        verify(first, never()).close(true);
+        assertEquals(2, manager.getStats().open());
+        assertEquals(0, manager.getStats().lruEvictions());
+    }
+
+    @Test
+    void reaperShouldCloseExpiredIdleSessionsAndForgetTheirServers() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ReflectionTestUtils.setField(manager, "idleTtlSeconds", 60L);
+        ClientSession idle = openSession();
+        ClientSession busy = openSession();
+        clientReturning(manager, idle, busy);
+        manager.warmUp(server(1L, "root")).join();
+        SessionLease lease = manager.acquireChannel(server(2L, "root")).join();
+        for (Long serverId : List.of(1L, 2L)) {
+            ReflectionTestUtils.setField(sessions(manager).get(serverId).getFirst(),
+                "lastUsedNanos", System.nanoTime() - TimeUnit.MINUTES.toNanos(2));
+        }
+
+        manager.reapIdleSessions();
+
+        verify(idle).close(true);
+        verify(busy, never()).close(true);
+        assertFalse(sessions(manager).containsKey(1L));
+        assertEquals(Set.of(2L), serverLocks(manager).keySet());
+        assertEquals(1, manager.getStats().idleEvictions());
 
+        lease.close();
+        assertEquals(1, manager.getSessionCount(2L));
+    }
+
+    @Test
+    void keepaliveReplyShouldRecordRoundTripPerServer() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ReflectionTestUtils.setField(manager, "keepaliveTimeoutMs", 1000L);
+        ClientSession session = openSession();
+        clientReturning(manager, session);
+        answerKeepalive(session, true);
+        manager.warmUp(server(1L, "root")).join();
+
+        manager.sendKeepalives();
+
+        SessionHealthDto health = manager.getHealth().iterator().next();
+        assertEquals(1L, health.serverId());
+        assertEquals(1, manager.getStats().keepaliveProbes());
+        verify(session, never()).close(true);
+    }
+
+    @Test
+    void unansweredKeepaliveShouldEvictAndReconnectLastSession() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ReflectionTestUtils.setField(manager, "keepaliveTimeoutMs", 50L);
+        ClientSession dead = openSession();
+        ClientSession replacement = openSession();
+        clientReturning(manager, dead, replacement);
+        answerKeepalive(dead, false);
+        manager.warmUp(server(1L, "root")).join();
+        ServerEntity changed = server(1L, "root");
+        changed.setPassword("rotated");
+        when(serverRepository.findById(1L)).thenReturn(Optional.of(changed));
+
+        manager.sendKeepalives();
+
+        verify(dead, timeout(2000)).close(true);
+        verify(replacement, timeout(2000)).auth();
+        verify(replacement).addPasswordIdentity("rotated");
+        assertEquals(1, manager.getSessionCount(1L));
+        assertTrue(manager.getHealth().isEmpty());
+        SessionPoolStatsDto stats = manager.getStats();
+        assertEquals(1, stats.deadSessions());
+        assertEquals(1, stats.reconnects());
+        assertEquals(1, stats.open());
+    }
+
+    @Test
+    void unansweredKeepaliveShouldNotReconnectDeletedServer() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ReflectionTestUtils.setField(manager, "keepaliveTimeoutMs", 50L);
+        ClientSession dead = openSession();
+        SshClient client = clientReturning(manager, dead);
+        answerKeepalive(dead, false);
+        manager.warmUp(server(1L, "root")).join();
+        when(serverRepository.findById(1L)).thenReturn(Optional.empty());
+
+        manager.sendKeepalives();
+
+        verify(dead, timeout(2000)).close(true);
+        verify(serverRepository, timeout(2000)).findById(1L);
+        verify(client, times(1)).connect("root", "10.0.0.1", 22);
+        assertEquals(0, manager.getSessionCount(1L));
+        assertEquals(0, manager.getStats().reconnects());
+    }
+
+    @Test
+    void keepaliveTimeoutShouldReconnectOnTaskExecutorNotDelayThread() throws IOException {
+        ExecutorService worker = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("reconnect-worker").factory());
+        SshSessionManager manager = new SshSessionManager(serverRepository, worker);
+        ReflectionTestUtils.setField(manager, "keepaliveTimeoutMs", 50L);
+        ClientSession dead = openSession();
+        ClientSession replacement = openSession();
+        clientReturning(manager, dead, replacement);
+        answerKeepalive(dead, false);
+        manager.warmUp(server(1L, "root")).join();
+        AtomicReference<String> reloadThread = new AtomicReference<>();
+        when(serverRepository.findById(1L)).thenAnswer(invocation -> {
+            reloadThread.set(Thread.currentThread().getName());
+            return Optional.of(server(1L, "root"));
+        });
+
+        try {
+            manager.sendKeepalives();
+
+            verify(replacement, timeout(2000)).auth();
+            assertEquals("reconnect-worker", reloadThread.get());
+        } finally {
+            worker.shutdownNow();
+        }
+    }
+
+    @Test
+    void keepaliveShouldProbeSessionsCheckedLongestAgoFirst() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ReflectionTestUtils.setField(manager, "keepaliveBatchSize", 1);
+        ReflectionTestUtils.setField(manager, "keepaliveTimeoutMs", 1000L);
+        ClientSession first = openSession();
+        ClientSession second = openSession();
+        clientReturning(manager, first, second);
+        answerKeepalive(first, true);
+        answerKeepalive(second, true);
+        manager.warmUp(server(1L, "root")).join();
+        manager.warmUp(server(2L, "root")).join();
+
+        manager.sendKeepalives();
+        manager.sendKeepalives();
+
+        verify(first).request(any(Buffer.class), eq(KEEPALIVE), any());
+        verify(second).request(any(Buffer.class), eq(KEEPALIVE), any());
+    }
+
+    @Test
+    void acquireChannelShouldMultiplexUpToLimitOnOneSession() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ReflectionTestUtils.setField(manager, "defaultMaxChannels", 3);
+        ClientSession session = openSession();
+        SshClient client = clientReturning(manager, session);
+        ServerEntity server = server(1L, "root");
+
+        SessionLease first = manager.acquireChannel(server).join();
+        SessionLease second = manager.acquireChannel(server).join();
+        SessionLease third = manager.acquireChannel(server).join();
+
+        assertSame(session, first.session());
+        assertSame(session, third.session());
+        assertEquals(1, manager.getSessionCount(1L));
+        assertEquals(3, manager.getActiveChannelCount(1L));
+        verify(client, times(1)).connect(anyString(), anyString(), anyInt());
+
+        second.close();
+        second.close();
+        assertEquals(2, manager.getActiveChannelCount(1L));
+    }
+
+    @Test
+    void acquireChannelShouldOpenAnotherSessionWhenSaturated() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession first = openSession();
+        ClientSession second = openSession();
+        clientReturning(manager, first, second);
+        ServerEntity server = server(1L, "root");
+        server.setMaxChannels(2);
+
+        manager.acquireChannel(server).join();
+        manager.acquireChannel(server).join();
+        SessionLease overflow = manager.acquireChannel(server).join();
+
+        assertSame(second, overflow.session());
+        assertEquals(2, manager.getSessionCount(1L));
+
+        overflow.close();
+
+        verify(second).close(true);
+        verify(first, never()).close(true);
+        assertEquals(1, manager.getSessionCount(1L));
+    }
+
+    @Test
+    void releasingLeaseShouldKeepSessionForSiblingChannels() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ReflectionTestUtils.setField(manager, "defaultMaxChannels", 10);
+        ClientSession session = openSession();
+        clientReturning(manager, session);
+        ServerEntity server = server(1L, "root");
+
+        SessionLease failed = manager.acquireChannel(server).join();
+        SessionLease sibling = manager.acquireChannel(server).join();
+        failed.close();
+
+        verify(session, never()).close(true);
+        assertEquals(1, manager.getActiveChannelCount(1L));
+        assertSame(session, sibling.session());
+    }
+
+    @Test
+    void releasingLeaseOnDeadSessionShouldDropItFromPool() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession session = openSession();
+        clientReturning(manager, session);
+
+        SessionLease lease = manager.acquireChannel(server(1L, "root")).join();
+        when(session.isOpen()).thenReturn(false);
+        lease.close();
+
+        assertEquals(0, manager.getSessionCount(1L));
         verify(session).close(true);
+    }
+
+    @Test
+    void invalidateSessionShouldCloseAndRemoveAllServerSessions() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession first = openSession();
+        ClientSession second = openSession();
+        clientReturning(manager, first, second);
+        ServerEntity server = server(5L, "root");
+        server.setMaxChannels(1);
+        manager.acquireChannel(server).join();
+        manager.acquireChannel(server).join();
+
+        manager.invalidateSession(5L);
+
+        verify(first).close(true);
+        verify(second).close(true);
         assertTrue(sessions(manager).isEmpty());
     }
 
     @Test
-    void invalidateSessionShouldSkipCloseForAlreadyClosedSession() {
-        SshSessionManager manager = new SshSessionManager();
-        ClientSession session = mock(ClientSession.class);
+    void invalidateSessionShouldSkipCloseForAlreadyClosedSession() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession session = openSession();
+        clientReturning(manager, session);
+        manager.getOrCreateSession(server(5L, "root"));
         when(session.isClosed()).thenReturn(true);
-        sessions(manager).put(5L, session);
 
         manager.invalidateSession(5L);
 
@@ -229,7 +485,7 @@ class SshSessionManagerTest {
 
     @Test
     void invalidateSessionShouldDoNothingWhenSessionMissing() {
-        SshSessionManager manager = new SshSessionManager();
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
 
         manager.invalidateSession(5L);
 
@@ -237,12 +493,12 @@ class SshSessionManagerTest {
     }
 
     @Test
-    void invalidateSessionShouldSwallowCloseExceptions() {
-        SshSessionManager manager = new SshSessionManager();
-        ClientSession session = mock(ClientSession.class);
-        when(session.isClosed()).thenReturn(false);
+    void invalidateSessionShouldSwallowCloseExceptions() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession session = openSession();
+        clientReturning(manager, session);
+        manager.getOrCreateSession(server(5L, "root"));
         doThrow(new RuntimeException("boom")).when(session).close(true);
-        sessions(manager).put(5L, session);
 
         manager.invalidateSession(5L);
 
@@ -250,9 +506,132 @@ class SshSessionManagerTest {
         assertTrue(sessions(manager).isEmpty());
     }
 
+    @Test
+    void acquireChannelShouldShareSessionThatIsStillConnecting() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ReflectionTestUtils.setField(manager, "defaultMaxChannels", 10);
+        SshClient client = mock(SshClient.class);
+        ConnectFuture connectFuture = mock(ConnectFuture.class);
+        AuthFuture authFuture = mock(AuthFuture.class);
+        ClientSession session = openSession();
+        AtomicReference<SshFutureListener<ConnectFuture>> pendingConnect = new AtomicReference<>();
+        when(client.connect("root", "10.0.0.1", 22)).thenReturn(connectFuture);
+        when(connectFuture.addListener(any())).thenAnswer(invocation -> {
+            pendingConnect.set(invocation.getArgument(0));
+            return connectFuture;
+        });
+        when(connectFuture.isConnected()).thenReturn(true);
+        when(connectFuture.getSession()).thenReturn(session);
+        when(session.auth()).thenReturn(authFuture);
+        completeOnListen(authFuture);
+        when(authFuture.isSuccess()).thenReturn(true);
+        ReflectionTestUtils.setField(manager, "client", client);
+        ServerEntity server = server(1L, "root");
+
+        CompletableFuture<SessionLease> first = manager.acquireChannel(server);
+        CompletableFuture<SessionLease> second = manager.acquireChannel(server);
+
+        assertFalse(first.isDone());
+        assertEquals(1, manager.getSessionCount(1L));
+        assertEquals(2, manager.getActiveChannelCount(1L));
+        pendingConnect.get().operationComplete(connectFuture);
+
+        assertSame(session, first.join().session());
+        assertSame(session, second.join().session());
+        verify(client, times(1)).connect(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void acquireChannelShouldFailAndFreeSlotWhenConnectFails() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        SshClient client = mock(SshClient.class);
+        ConnectFuture connectFuture = mock(ConnectFuture.class);
+        when(client.connect("root", "10.0.0.1", 22)).thenReturn(connectFuture);
+        completeOnListen(connectFuture);
+        when(connectFuture.isConnected()).thenReturn(false);
+        when(connectFuture.getException()).thenReturn(new IOException("refused"));
+        ReflectionTestUtils.setField(manager, "client", client);
+
+        CompletableFuture<SessionLease> lease = manager.acquireChannel(server(1L, "root"));
+
+        CompletionException error = assertThrows(CompletionException.class, lease::join);
+        assertEquals("refused", error.getCause().getMessage());
+        assertEquals(0, manager.getSessionCount(1L));
+    }
+
+    @Test
+    void getOrCreateSessionShouldCloseSessionWhenAuthFails() throws IOException {
+        SshSessionManager manager = new SshSessionManager(serverRepository, Runnable::run);
+        ClientSession session = openSession();
+        SshClient client = clientReturning(manager, session);
+        AuthFuture rejected = mock(AuthFuture.class);
+        completeOnListen(rejected);
+        when(rejected.isSuccess()).thenReturn(false);
+        when(session.auth()).thenReturn(rejected);
+
+        IOException error = assertThrows(IOException.class,
+            () -> manager.getOrCreateSession(server(1L, "root")));
+
+        assertEquals("SSH auth failed", error.getMessage());
+        verify(session).close(true);
+        verify(client).connect("root", "10.0.0.1", 22);
+    }
+
+    private SshClient clientReturning(SshSessionManager manager, ClientSession first,
+                                      ClientSession... rest) throws IOException {
+        SshClient client = mock(SshClient.class);
+        ConnectFuture connectFuture = mock(ConnectFuture.class);
+        AuthFuture authFuture = mock(AuthFuture.class);
+
+        when(client.connect("root", "10.0.0.1", 22)).thenReturn(connectFuture);
+        completeOnListen(connectFuture);
+        when(connectFuture.isConnected()).thenReturn(true);
+        when(connectFuture.getSession()).thenReturn(first, rest);
+        completeOnListen(authFuture);
+        when(authFuture.isSuccess()).thenReturn(true);
+        when(first.auth()).thenReturn(authFuture);
+        for (ClientSession session : rest) {
+            when(session.auth()).thenReturn(authFuture);
+        }
+
+        ReflectionTestUtils.setField(manager, "client", client);
+        return client;
+    }
+
+    private static void answerKeepalive(ClientSession session, boolean reply) throws IOException {
+        when(session.createBuffer(anyByte())).thenAnswer(invocation -> new ByteArrayBuffer());
+        when(session.request(any(Buffer.class), eq(KEEPALIVE), any()))
+            .thenAnswer(invocation -> {
+                if (reply) {
+                    invocation.<GlobalRequestFuture.ReplyHandler>getArgument(2)
+                        .accept(SshConstants.SSH_MSG_REQUEST_FAILURE, null);
+                }
+                return mock(GlobalRequestFuture.class);
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <F extends SshFuture<F>> void completeOnListen(F future) {
+        when(future.addListener(any())).thenAnswer(invocation -> {
+            invocation.<SshFutureListener<F>>getArgument(0).operationComplete(future);
+            return future;
+        });
+    }
+
+    private ClientSession openSession() {
+        ClientSession session = mock(ClientSession.class);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, List<?>> sessions(SshSessionManager manager) {
+        return (Map<Long, List<?>>) ReflectionTestUtils.getField(manager, "sessions");
+    }
+
     @SuppressWarnings("unchecked")
-    private Map<Long, ClientSession> sessions(SshSessionManager manager) {
-        return (Map<Long, ClientSession>) ReflectionTestUtils.getField(manager, "sessions");
+    private Map<Long, ?> serverLocks(SshSessionManager manager) {
+        return (Map<Long, ?>) ReflectionTestUtils.getField(manager, "serverLocks");
     }
 
     private ServerEntity server(Long id, String sshUsername) {
@@ -0,0 +1,80 @@
+package nto.services;
+
+import nto.application.dto.AdmissionStatsDto;
+import nto.core.utils.exceptions.TooManyTasksException;
+import nto.infrastructure.concurrency.BoundedVirtualThreadExecutor;
+import nto.infrastructure.services.dispatch.TaskAdmissionController;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskAdmissionControllerTest {
+
+    @Test
+    void capacityShouldDefaultToWhatThreadPoolCanHoldWithoutRejecting() {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setMaxPoolSize(100);
+        pool.setQueueCapacity(1000);
+
+        assertEquals(1100, controller(pool, 0).getStats().capacity());
+    }
+
+    @Test
+    void capacityShouldFollowVirtualConcurrencyLimit() throws Exception {
+        BoundedVirtualThreadExecutor virtual = new BoundedVirtualThreadExecutor("test-", 7);
+        try {
+            assertEquals(7, controller(virtual, 0).getStats().capacity());
+        } finally {
+            virtual.destroy();
+        }
+    }
+
+    @Test
+    void admitShouldRejectWholeBatchThatDoesNotFit() {
+        TaskAdmissionController controller = controller(Runnable::run, 10);
+        controller.admit(8);
+
+        TooManyTasksException error = assertThrows(TooManyTasksException.class,
+            () -> controller.admit(3));
+
+        assertEquals(5, error.getRetryAfterSeconds());
+        assertEquals(new AdmissionStatsDto(10, 8, 8, 1, 3), controller.getStats());
+
+        controller.release(1);
+        controller.admit(3);
+        assertEquals(10, controller.getStats().outstanding());
+    }
+
+    @Test
+    void admitShouldReturnReservationWhenTransactionRollsBack() {
+        TaskAdmissionController controller = controller(Runnable::run, 10);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            controller.admit(4);
+            assertEquals(4, controller.getStats().outstanding());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(0, controller.getStats().outstanding());
+    }
+
+    private TaskAdmissionController controller(Executor executor,
+                                               int configuredCapacity) {
+        TaskAdmissionController controller = new TaskAdmissionController(executor);
+        ReflectionTestUtils.setField(controller, "configuredCapacity", configuredCapacity);
+        ReflectionTestUtils.setField(controller, "retryAfterSeconds", 5L);
+        controller.init();
+        return controller;
+    }
+}
@@ -0,0 +1,161 @@
+package nto.services;
+
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.services.TaskStateService;
+import nto.infrastructure.services.output.TaskOutputRegistry;
+import nto.infrastructure.services.output.TaskOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskOutputRegistryTest {
+
+    @Mock
+    private TaskStateService taskStateService;
+    @InjectMocks
+    private TaskOutputRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "bufferChars", 1024);
+        ReflectionTestUtils.setField(registry, "streamTimeoutMs", 1000L);
+    }
+
+    @Test
+    void checkpointShouldPersistOnlyChangedBuffers() {
+        registry.open(1L);
+        registry.append(1L, TaskOutputRegistry.STDOUT, "line 1\n");
+        registry.append(1L, TaskOutputRegistry.STDERR, "oops\n");
+
+        registry.checkpoint();
+        registry.checkpoint();
+
+        verify(taskStateService, times(1)).checkpointOutput(1L, "line 1\noops\n");
+    }
+
+    @Test
+    void bufferShouldKeepOnlyMostRecentWindow() {
+        ReflectionTestUtils.setField(registry, "bufferChars", 4);
+        registry.open(2L);
+        registry.append(2L, TaskOutputRegistry.STDOUT, "abc");
+        registry.append(2L, TaskOutputRegistry.STDOUT, "def");
+
+        registry.checkpoint();
+
+        verify(taskStateService).checkpointOutput(2L, "def");
+    }
+
+    @Test
+    void completeShouldDropBufferAndStopCheckpoints() {
+        registry.open(3L);
+        registry.append(3L, TaskOutputRegistry.STDOUT, "partial");
+
+        registry.complete(3L, TaskStatus.SUCCESS);
+        registry.append(3L, TaskOutputRegistry.STDOUT, "late");
+        registry.checkpoint();
+
+        assertFalse(registry.isLive(3L));
+        verify(taskStateService, never()).checkpointOutput(any(), anyString());
+    }
+
+    @Test
+    void subscribeToQueuedTaskShouldWaitForItsOutput() {
+        when(taskStateService.currentStatus(4L)).thenReturn(TaskStatus.PENDING);
+        registry.subscribe(4L, null, TaskStatus.PENDING);
+        assertTrue(registry.isLive(4L));
+
+        registry.open(4L);
+        registry.append(4L, TaskOutputRegistry.STDOUT, "started");
+        registry.checkpoint();
+        registry.complete(4L, TaskStatus.SUCCESS);
+
+        verify(taskStateService).checkpointOutput(4L, "started");
+        assertFalse(registry.isLive(4L));
+    }
+
+    @Test
+    void queuedTaskEndingWithoutStartShouldReleaseSubscribers() {
+        when(taskStateService.currentStatus(8L)).thenReturn(TaskStatus.PENDING);
+        registry.subscribe(8L, null, TaskStatus.PENDING);
+        registry.open(9L);
+
+        registry.finishUnstarted(8L, TaskStatus.CANCELLED);
+        registry.finishUnstarted(9L, TaskStatus.CANCELLED);
+
+        assertFalse(registry.isLive(8L));
+        assertTrue(registry.isLive(9L));
+    }
+
+    @Test
+    void subscribeShouldNotWaitForTaskThatEndedBeforeBufferExisted() {
+        when(taskStateService.currentStatus(10L)).thenReturn(TaskStatus.SUCCESS);
+
+        registry.subscribe(10L, null, TaskStatus.PENDING);
+
+        assertFalse(registry.isLive(10L));
+    }
+
+    @Test
+    void subscribeToFinishedTaskShouldNotCreateBuffer() {
+        registry.subscribe(5L, "done", TaskStatus.SUCCESS);
+
+        assertFalse(registry.isLive(5L));
+    }
+
+    @Test
+    void outputStreamShouldDecodeMultiByteCharactersSplitAcrossWrites() throws Exception {
+        TaskOutputRegistry target = mock(TaskOutputRegistry.class);
+        ByteArrayOutputStream capture = new ByteArrayOutputStream();
+        byte[] bytes = "привет".getBytes(StandardCharsets.UTF_8);
+
+        try (TaskOutputStream stream = new TaskOutputStream(capture, target, 6L,
+            TaskOutputRegistry.STDOUT)) {
+            stream.write(bytes, 0, 3);
+            stream.write(bytes, 3, bytes.length - 3);
+        }
+
+        ArgumentCaptor<String> chunks = ArgumentCaptor.forClass(String.class);
+        verify(target, atLeastOnce()).append(eq(6L), eq(TaskOutputRegistry.STDOUT),
+            chunks.capture());
+        assertEquals("привет", String.join("", chunks.getAllValues()));
+        assertEquals("привет", capture.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void outputStreamCloseShouldBeIdempotentAndKeepCaptureOpen() throws Exception {
+        TaskOutputRegistry target = mock(TaskOutputRegistry.class);
+        OutputStream capture = mock(OutputStream.class);
+        TaskOutputStream stream = new TaskOutputStream(capture, target, 7L,
+            TaskOutputRegistry.STDERR);
+        stream.write(new byte[]{(byte) 0xD0}, 0, 1);
+
+        stream.close();
+        stream.close();
+
+        verify(target, times(1)).append(7L, TaskOutputRegistry.STDERR, "\uFFFD");
+        verify(capture, never()).close();
+    }
+}
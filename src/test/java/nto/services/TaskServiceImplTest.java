@@ -6,7 +6,6 @@ import nto.application.dto.TaskDto;
 import nto.application.interfaces.repositories.ScriptRepository;
 import nto.application.interfaces.repositories.ServerRepository;
 import nto.application.interfaces.services.MappingService;
-import nto.application.interfaces.services.ScriptExecutor;
 import nto.core.entities.ScriptEntity;
 import nto.core.entities.ServerEntity;
 import nto.core.entities.ServerGroupEntity;
@@ -14,10 +13,19 @@ import nto.core.entities.TaskEntity;
 import nto.core.entities.UserEntity;
 import nto.core.enums.TaskStatus;
 import nto.core.utils.exceptions.BadRequestException;
-import nto.core.utils.exceptions.ServerBusyException;
+import nto.core.utils.exceptions.ResourceConflictException;
+import nto.core.utils.exceptions.TooManyTasksException;
+import nto.infrastructure.cache.OwnershipIndex;
 import nto.infrastructure.cache.TaskStatusCache;
+import nto.infrastructure.cache.TaskStatusSnapshot;
 import nto.infrastructure.repositories.JpaTaskRepository;
 import nto.infrastructure.services.TaskServiceImpl;
+import nto.infrastructure.services.TaskStatusWriter;
+import nto.infrastructure.services.dispatch.GroupRunCoordinator;
+import nto.infrastructure.services.dispatch.ServerTaskDispatcher;
+import nto.infrastructure.services.dispatch.TaskAdmissionController;
+import nto.infrastructure.services.output.OutputBlobStore;
+import nto.infrastructure.services.output.TaskOutputRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,6 +33,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -34,20 +43,28 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -60,13 +77,25 @@ class TaskServiceImplTest {
     @Mock
     private TaskStatusCache statusCache;
     @Mock
+    private OwnershipIndex ownershipIndex;
+    @Mock
     private MappingService mappingService;
     @Mock
     private ServerRepository serverRepository;
     @Mock
     private ScriptRepository scriptRepository;
     @Mock
-    private ScriptExecutor scriptExecutor;
+    private ServerTaskDispatcher taskDispatcher;
+    @Mock
+    private GroupRunCoordinator runCoordinator;
+    @Mock
+    private TaskOutputRegistry outputRegistry;
+    @Mock
+    private OutputBlobStore blobStore;
+    @Mock
+    private TaskStatusWriter statusWriter;
+    @Mock
+    private TaskAdmissionController admissionController;
     @InjectMocks
     private TaskServiceImpl taskService;
 
@@ -81,25 +110,10 @@ class TaskServiceImplTest {
     }
 
     @Test
-    void createTaskShouldThrowServerBusyExceptionWhenServerHasActiveTasks() {
-        ReflectionTestUtils.setField(taskService, "executorType", "ssh");
-
-        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 10L, 20L, null, null, null);
-        List<TaskStatus> activeStatuses = List.of(TaskStatus.PENDING, TaskStatus.RUNNING);
-
-        when(taskRepository.existsByServerIdAndStatusIn(inputDto.serverId(), activeStatuses))
-            .thenReturn(true);
-
-        assertThrows(ServerBusyException.class, () -> taskService.createTask(inputDto));
-
-        verify(scriptRepository, never()).findById(any());
-    }
-
-    @Test
-    void createTaskShouldCreateAndStartTaskWhenExecutorIsNotMockAndServerIsIdle() {
+    void createTaskShouldQueueTaskWithoutBusyCheckWhenExecutorIsNotMock() {
         ReflectionTestUtils.setField(taskService, "executorType", "ssh");
 
-        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null);
+        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null, null, null);
         ScriptEntity script = scriptOwnedBy(TEST_USER, false);
         script.setId(22L);
         ServerEntity server = serverOwnedBy(TEST_USER);
@@ -111,11 +125,8 @@ class TaskServiceImplTest {
             .script(script)
             .status(TaskStatus.PENDING)
             .build();
-        TaskDto expectedDto = new TaskDto(56L, TaskStatus.PENDING, null, 11L, 22L, null, null, null);
+        TaskDto expectedDto = new TaskDto(56L, TaskStatus.PENDING, null, 11L, 22L, null, null, null, null, null);
 
-        when(taskRepository.existsByServerIdAndStatusIn(
-            inputDto.serverId(), List.of(TaskStatus.PENDING, TaskStatus.RUNNING)))
-            .thenReturn(false);
         when(scriptRepository.findById(22L)).thenReturn(Optional.of(script));
         when(serverRepository.findById(11L)).thenReturn(Optional.of(server));
         when(taskRepository.save(any(TaskEntity.class))).thenReturn(savedTask);
@@ -125,12 +136,12 @@ class TaskServiceImplTest {
 
         assertEquals(expectedDto, result);
         verify(statusCache).put(savedTask);
-        verify(scriptExecutor).executeAsync(56L);
+        verify(taskDispatcher).dispatch(11L, 56L);
     }
 
     @Test
     void createTaskShouldCreateAndStartTaskWhenDataIsValid() {
-        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null);
+        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null, null, null);
         ScriptEntity script = scriptOwnedBy(TEST_USER, false);
         script.setId(22L);
         ServerEntity server = serverOwnedBy(TEST_USER);
@@ -143,7 +154,7 @@ class TaskServiceImplTest {
             .status(TaskStatus.PENDING)
             .build();
 
-        TaskDto expectedDto = new TaskDto(55L, TaskStatus.PENDING, null, 11L, 22L, null, null, null);
+        TaskDto expectedDto = new TaskDto(55L, TaskStatus.PENDING, null, 11L, 22L, null, null, null, null, null);
 
         when(scriptRepository.findById(22L)).thenReturn(Optional.of(script));
         when(serverRepository.findById(11L)).thenReturn(Optional.of(server));
@@ -154,12 +165,37 @@ class TaskServiceImplTest {
 
         assertEquals(expectedDto, result);
         verify(statusCache).put(savedTask);
-        verify(scriptExecutor).executeAsync(55L);
+        verify(taskDispatcher).dispatch(11L, 55L);
+    }
+
+    @Test
+    void createTaskShouldUseServerReferenceWhenIndexKnowsOwner() {
+        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null, null, null);
+        ScriptEntity script = scriptOwnedBy(TEST_USER, false);
+        script.setId(22L);
+        ServerEntity reference = new ServerEntity();
+        reference.setId(11L);
+        TaskEntity savedTask = TaskEntity.builder()
+            .id(57L)
+            .server(reference)
+            .script(script)
+            .status(TaskStatus.PENDING)
+            .build();
+
+        when(scriptRepository.findById(22L)).thenReturn(Optional.of(script));
+        when(ownershipIndex.ownsServer(TEST_USER, 11L)).thenReturn(true);
+        when(serverRepository.getReferenceById(11L)).thenReturn(reference);
+        when(taskRepository.save(any(TaskEntity.class))).thenReturn(savedTask);
+
+        taskService.createTask(inputDto);
+
+        verify(serverRepository, never()).findById(any());
+        verify(taskDispatcher).dispatch(11L, 57L);
     }
 
     @Test
     void createTaskShouldThrowWhenScriptIsPrivateAndNotOwned() {
-        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 33L, null, null, null);
+        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 33L, null, null, null, null, null);
         ScriptEntity privateScript = scriptOwnedBy("other", false);
 
         when(scriptRepository.findById(33L)).thenReturn(Optional.of(privateScript));
@@ -170,7 +206,7 @@ class TaskServiceImplTest {
 
     @Test
     void createTaskShouldAllowPublicScriptOwnedByAnotherUser() {
-        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 33L, null, null, null);
+        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 33L, null, null, null, null, null);
         ScriptEntity publicScript = scriptOwnedBy("other", true);
         publicScript.setId(33L);
         ServerEntity server = serverOwnedBy(TEST_USER);
@@ -181,7 +217,7 @@ class TaskServiceImplTest {
             .script(publicScript)
             .status(TaskStatus.PENDING)
             .build();
-        TaskDto expectedDto = new TaskDto(57L, TaskStatus.PENDING, null, 11L, 33L, null, null, null);
+        TaskDto expectedDto = new TaskDto(57L, TaskStatus.PENDING, null, 11L, 33L, null, null, null, null, null);
 
         when(scriptRepository.findById(33L)).thenReturn(Optional.of(publicScript));
         when(serverRepository.findById(11L)).thenReturn(Optional.of(server));
@@ -195,7 +231,7 @@ class TaskServiceImplTest {
 
     @Test
     void createTaskShouldThrowWhenServerIsNotOwned() {
-        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null);
+        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null, null, null);
         ScriptEntity script = scriptOwnedBy(TEST_USER, false);
         script.setId(22L);
         ServerEntity foreignServer = serverOwnedBy("other");
@@ -210,7 +246,7 @@ class TaskServiceImplTest {
 
     @Test
     void createTaskShouldThrowWhenServerNotFound() {
-        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null);
+        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null, null, null);
         ScriptEntity script = scriptOwnedBy(TEST_USER, false);
         script.setId(22L);
 
@@ -223,7 +259,7 @@ class TaskServiceImplTest {
 
     @Test
     void createTaskShouldThrowWhenServerGroupOwnerMissing() {
-        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null);
+        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null, null, null);
         ScriptEntity script = scriptOwnedBy(TEST_USER, false);
         script.setId(22L);
         ServerEntity server = serverWithGroupWithoutOwner();
@@ -238,7 +274,7 @@ class TaskServiceImplTest {
 
     @Test
     void createTaskShouldThrowWhenScriptNotFound() {
-        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null);
+        TaskDto inputDto = new TaskDto(null, TaskStatus.PENDING, null, 11L, 22L, null, null, null, null, null);
         when(scriptRepository.findById(22L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> taskService.createTask(inputDto));
@@ -247,7 +283,7 @@ class TaskServiceImplTest {
     @Test
     void getTasksWithFiltersShouldMapPageContent() {
         TaskEntity entity = TaskEntity.builder().id(1L).status(TaskStatus.SUCCESS).build();
-        TaskDto dto = new TaskDto(1L, TaskStatus.SUCCESS, "ok", 1L, 2L, null, null, null);
+        TaskDto dto = new TaskDto(1L, TaskStatus.SUCCESS, "ok", 1L, 2L, null, null, null, null, null);
         Pageable pageable = PageRequest.of(0, 10);
         Page<TaskEntity> page = new PageImpl<>(List.of(entity), pageable, 1);
 
@@ -273,19 +309,34 @@ class TaskServiceImplTest {
             .script(script)
             .status(TaskStatus.RUNNING)
             .build();
-        TaskDto dto = new TaskDto(9L, TaskStatus.RUNNING, null, 7L, 5L, null, null, null);
+        TaskDto dto = new TaskDto(9L, TaskStatus.RUNNING, null, 7L, 5L, null, null, null, null, null);
 
         when(serverRepository.findById(7L)).thenReturn(Optional.of(server));
         when(scriptRepository.findById(5L)).thenReturn(Optional.of(script));
-        when(statusCache.get(7L, 5L)).thenReturn(cached);
-        when(mappingService.mapToDto(cached, TaskDto.class)).thenReturn(dto);
+        when(statusCache.get(7L, 5L)).thenReturn(TaskStatusSnapshot.of(cached));
 
         TaskDto result = taskService.getLastStatus(7L, 5L);
 
         assertEquals(dto, result);
+        verifyNoInteractions(mappingService);
         verify(taskRepository, never()).findFirstByServerIdAndScriptIdOrderByCreatedAtDesc(any(), any());
     }
 
+    @Test
+    void getLastStatusShouldSkipServerLoadWhenIndexKnowsOwner() {
+        ScriptEntity script = scriptOwnedBy(TEST_USER, false);
+        script.setId(5L);
+
+        when(ownershipIndex.ownsServer(TEST_USER, 7L)).thenReturn(true);
+        when(scriptRepository.findById(5L)).thenReturn(Optional.of(script));
+        when(statusCache.get(7L, 5L)).thenReturn(null);
+        when(taskRepository.findFirstByServerIdAndScriptIdOrderByCreatedAtDesc(7L, 5L))
+            .thenReturn(Optional.empty());
+
+        assertNull(taskService.getLastStatus(7L, 5L));
+        verify(serverRepository, never()).findById(any());
+    }
+
     @Test
     void getLastStatusShouldReadRepositoryWhenCacheMiss() {
         ScriptEntity script = scriptOwnedBy(TEST_USER, false);
@@ -298,7 +349,7 @@ class TaskServiceImplTest {
             .script(script)
             .status(TaskStatus.SUCCESS)
             .build();
-        TaskDto dto = new TaskDto(10L, TaskStatus.SUCCESS, "done", 7L, 5L, null, null, null);
+        TaskDto dto = new TaskDto(10L, TaskStatus.SUCCESS, "done", 7L, 5L, null, null, null, null, null);
 
         when(serverRepository.findById(7L)).thenReturn(Optional.of(server));
         when(scriptRepository.findById(5L)).thenReturn(Optional.of(script));
@@ -355,12 +406,32 @@ class TaskServiceImplTest {
         foreignServer.setId(1L);
 
         when(scriptRepository.findById(8L)).thenReturn(Optional.of(script));
+        when(serverRepository.findAllByIdInAndOwnerUsername(dto.serverIds(), TEST_USER))
+            .thenReturn(List.of());
         when(serverRepository.findAllById(dto.serverIds())).thenReturn(List.of(foreignServer));
 
         assertThrows(AccessDeniedException.class, () -> taskService.createTasksBulk(dto));
         verify(taskRepository, never()).saveAll(any());
     }
 
+    @Test
+    void createTasksBulkShouldReportMissingServersBeforeForeignOnes() {
+        ReflectionTestUtils.setField(taskService, "executorType", "ssh");
+
+        BulkTaskRequestDto dto = new BulkTaskRequestDto(8L, List.of(1L, 2L));
+        ScriptEntity script = scriptOwnedBy(TEST_USER, false);
+        ServerEntity foreignServer = serverOwnedBy("other");
+        foreignServer.setId(1L);
+
+        when(scriptRepository.findById(8L)).thenReturn(Optional.of(script));
+        when(serverRepository.findAllByIdInAndOwnerUsername(dto.serverIds(), TEST_USER))
+            .thenReturn(List.of());
+        when(serverRepository.findAllById(dto.serverIds())).thenReturn(List.of(foreignServer));
+
+        assertThrows(BadRequestException.class, () -> taskService.createTasksBulk(dto));
+        verify(taskRepository, never()).saveAll(any());
+    }
+
     @Test
     void createTasksBulkShouldValidateOwnershipAndProceedWhenExecutorIsNotMock() {
         ReflectionTestUtils.setField(taskService, "executorType", "ssh");
@@ -378,11 +449,12 @@ class TaskServiceImplTest {
             .status(TaskStatus.PENDING)
             .build();
         List<TaskDto> mapped = List.of(
-            new TaskDto(100L, TaskStatus.PENDING, null, 1L, 8L, null, null, null)
+            new TaskDto(100L, TaskStatus.PENDING, null, 1L, 8L, null, null, null, null, null)
         );
 
         when(scriptRepository.findById(8L)).thenReturn(Optional.of(script));
-        when(serverRepository.findAllById(dto.serverIds())).thenReturn(List.of(ownedServer));
+        when(serverRepository.findAllByIdInAndOwnerUsername(dto.serverIds(), TEST_USER))
+            .thenReturn(List.of(ownedServer));
         when(taskRepository.saveAll(any())).thenReturn(List.of(savedTask));
         when(mappingService.mapListToDto(List.of(savedTask), TaskDto.class)).thenReturn(mapped);
 
@@ -390,7 +462,35 @@ class TaskServiceImplTest {
 
         assertEquals(mapped, result);
         verify(statusCache).put(savedTask);
-        verify(scriptExecutor).executeAsync(100L);
+        verify(taskDispatcher).dispatch(1L, 100L);
+    }
+
+    @Test
+    void createTasksBulkShouldCreateOneTaskPerServerWhenIdsRepeat() {
+        ReflectionTestUtils.setField(taskService, "executorType", "ssh");
+
+        BulkTaskRequestDto dto = new BulkTaskRequestDto(8L, List.of(1L, 1L));
+        ScriptEntity script = scriptOwnedBy(TEST_USER, false);
+        script.setId(8L);
+        ServerEntity ownedServer = serverOwnedBy(TEST_USER);
+        ownedServer.setId(1L);
+        TaskEntity savedTask = TaskEntity.builder()
+            .id(101L)
+            .script(script)
+            .server(ownedServer)
+            .status(TaskStatus.PENDING)
+            .build();
+
+        when(scriptRepository.findById(8L)).thenReturn(Optional.of(script));
+        when(serverRepository.findAllByIdInAndOwnerUsername(List.of(1L), TEST_USER))
+            .thenReturn(List.of(ownedServer));
+        when(taskRepository.saveAll(any())).thenReturn(List.of(savedTask));
+
+        taskService.createTasksBulk(dto);
+
+        verify(admissionController).admit(1);
+        verify(taskDispatcher).dispatch(1L, 101L);
+        verify(serverRepository, never()).findAllById(any());
     }
 
     @Test
@@ -420,8 +520,8 @@ class TaskServiceImplTest {
             .build();
 
         List<TaskDto> mapped = List.of(
-            new TaskDto(100L, TaskStatus.PENDING, null, 1L, 8L, null, null, null),
-            new TaskDto(101L, TaskStatus.PENDING, null, 2L, 8L, null, null, null)
+            new TaskDto(100L, TaskStatus.PENDING, null, 1L, 8L, null, null, null, null, null),
+            new TaskDto(101L, TaskStatus.PENDING, null, 2L, 8L, null, null, null, null, null)
         );
 
         when(scriptRepository.findById(8L)).thenReturn(Optional.of(script));
@@ -434,14 +534,33 @@ class TaskServiceImplTest {
         assertEquals(mapped, result);
         verify(statusCache).put(taskOne);
         verify(statusCache).put(taskTwo);
-        verify(scriptExecutor).executeAsync(100L);
-        verify(scriptExecutor).executeAsync(101L);
+        verify(admissionController).admit(2);
+        verify(taskDispatcher).dispatch(1L, 100L);
+        verify(taskDispatcher).dispatch(2L, 101L);
 
         ArgumentCaptor<List<TaskEntity>> captor = ArgumentCaptor.forClass(List.class);
         verify(taskRepository).saveAll(captor.capture());
         assertEquals(2, captor.getValue().size());
     }
 
+    @Test
+    void createTasksBulkShouldSaveNothingWhenBatchIsNotAdmitted() {
+        BulkTaskRequestDto dto = new BulkTaskRequestDto(8L, List.of(1L, 2L));
+        ScriptEntity script = scriptOwnedBy(TEST_USER, false);
+        ServerEntity serverOne = serverOwnedBy(TEST_USER);
+        serverOne.setId(1L);
+        ServerEntity serverTwo = serverOwnedBy(TEST_USER);
+        serverTwo.setId(2L);
+
+        when(scriptRepository.findById(8L)).thenReturn(Optional.of(script));
+        when(serverRepository.findAllById(dto.serverIds())).thenReturn(List.of(serverOne, serverTwo));
+        doThrow(new TooManyTasksException("full", 5)).when(admissionController).admit(2);
+
+        assertThrows(TooManyTasksException.class, () -> taskService.createTasksBulk(dto));
+        verify(taskRepository, never()).saveAll(any());
+        verify(taskDispatcher, never()).dispatch(any(), any());
+    }
+
     @Test
     void getTaskByIdShouldThrowWhenTaskDoesNotExist() {
         when(taskRepository.findById(42L)).thenReturn(Optional.empty());
@@ -451,7 +570,7 @@ class TaskServiceImplTest {
     }
 
     @Test
-    void getTaskByIdShouldPutToCacheAndMap() {
+    void getTaskByIdShouldCacheRowUnlessCachedAndMap() {
         ServerEntity server = serverOwnedBy(TEST_USER);
         server.setId(1L);
         ScriptEntity script = scriptOwnedBy(TEST_USER, false);
@@ -462,7 +581,7 @@ class TaskServiceImplTest {
             .script(script)
             .status(TaskStatus.SUCCESS)
             .build();
-        TaskDto dto = new TaskDto(3L, TaskStatus.SUCCESS, "ok", 1L, 2L, null, null, null);
+        TaskDto dto = new TaskDto(3L, TaskStatus.SUCCESS, "ok", 1L, 2L, null, null, null, null, null);
 
         when(taskRepository.findById(3L)).thenReturn(Optional.of(task));
         when(mappingService.mapToDto(task, TaskDto.class)).thenReturn(dto);
@@ -470,7 +589,151 @@ class TaskServiceImplTest {
         TaskDto result = taskService.getTaskById(3L);
 
         assertEquals(dto, result);
-        verify(statusCache).put(task);
+        verify(statusCache).putIfAbsent(task);
+        verify(statusCache, never()).put(any(TaskEntity.class));
+    }
+
+    @Test
+    void getTaskByIdShouldPreferCachedStateWhileWriteIsPending() {
+        ServerEntity server = serverOwnedBy(TEST_USER);
+        TaskEntity stored = TaskEntity.builder().id(5L).server(server)
+            .status(TaskStatus.RUNNING).build();
+        TaskEntity cached = TaskEntity.builder().id(5L).server(server)
+            .status(TaskStatus.SUCCESS).build();
+        TaskDto dto = new TaskDto(5L, TaskStatus.SUCCESS, null, server.getId(), null, null, null,
+            null, null, null);
+
+        when(taskRepository.findById(5L)).thenReturn(Optional.of(stored));
+        when(statusWriter.isPending(5L)).thenReturn(true);
+        when(statusCache.get(5L)).thenReturn(TaskStatusSnapshot.of(cached));
+
+        TaskDto result = taskService.getTaskById(5L);
+
+        assertEquals(dto, result);
+        verify(statusCache, never()).put(any(TaskEntity.class));
+        verify(statusCache, never()).putIfAbsent(any(TaskEntity.class));
+    }
+
+    @Test
+    void cancelTaskShouldHandOwnedActiveTaskToDispatcher() {
+        ServerEntity server = serverOwnedBy(TEST_USER);
+        server.setId(1L);
+        TaskEntity task = TaskEntity.builder().id(6L).server(server)
+            .status(TaskStatus.RUNNING).build();
+        TaskDto dto = new TaskDto(6L, TaskStatus.RUNNING, null, 1L, null, null, null, null, null, null);
+
+        when(taskRepository.findById(6L)).thenReturn(Optional.of(task));
+        when(mappingService.mapToDto(task, TaskDto.class)).thenReturn(dto);
+
+        assertEquals(dto, taskService.cancelTask(6L));
+        verify(taskDispatcher).cancel(1L, 6L);
+        verify(runCoordinator, never()).cancelled(any(), any());
+    }
+
+    @Test
+    void cancelTaskShouldTellCoordinatorAboutGroupRunTask() {
+        ServerEntity server = serverOwnedBy(TEST_USER);
+        server.setId(1L);
+        UUID runId = UUID.randomUUID();
+        TaskEntity task = TaskEntity.builder().id(8L).server(server).groupRunId(runId)
+            .status(TaskStatus.PENDING).build();
+        when(taskRepository.findById(8L)).thenReturn(Optional.of(task));
+
+        taskService.cancelTask(8L);
+
+        verify(runCoordinator).cancelled(runId, List.of(8L));
+        verify(taskDispatcher).cancel(1L, 8L);
+    }
+
+    @Test
+    void cancelTaskShouldRejectFinishedTask() {
+        ServerEntity server = serverOwnedBy(TEST_USER);
+        TaskEntity task = TaskEntity.builder().id(7L).server(server)
+            .status(TaskStatus.SUCCESS).build();
+        when(taskRepository.findById(7L)).thenReturn(Optional.of(task));
+
+        assertThrows(ResourceConflictException.class, () -> taskService.cancelTask(7L));
+        verify(taskDispatcher, never()).cancel(any(), any());
+    }
+
+    @Test
+    void streamOutputShouldSubscribeOwnedTask() {
+        ServerEntity server = serverOwnedBy(TEST_USER);
+        server.setId(1L);
+        TaskEntity task = TaskEntity.builder()
+            .id(3L)
+            .server(server)
+            .output("partial")
+            .status(TaskStatus.RUNNING)
+            .build();
+        SseEmitter emitter = new SseEmitter();
+
+        when(taskRepository.findById(3L)).thenReturn(Optional.of(task));
+        when(outputRegistry.subscribe(3L, "partial", TaskStatus.RUNNING)).thenReturn(emitter);
+
+        assertSame(emitter, taskService.streamOutput(3L));
+    }
+
+    @Test
+    void streamOutputShouldRejectForeignTask() {
+        ServerEntity server = serverOwnedBy("other");
+        server.setId(1L);
+        TaskEntity task = TaskEntity.builder().id(3L).server(server).build();
+
+        when(taskRepository.findById(3L)).thenReturn(Optional.of(task));
+
+        assertThrows(AccessDeniedException.class, () -> taskService.streamOutput(3L));
+        verify(outputRegistry, never()).subscribe(any(), any(), any());
+    }
+
+    @Test
+    void getFullOutputShouldServeBlobWhenOutputWasSpilled() throws Exception {
+        ServerEntity server = serverOwnedBy(TEST_USER);
+        TaskEntity task = TaskEntity.builder()
+            .id(3L)
+            .server(server)
+            .output("preview")
+            .outputBlobRef("task-3.out")
+            .build();
+        Path blob = Files.createTempFile("task-3", ".out");
+        Files.writeString(blob, "full output");
+
+        when(taskRepository.findById(3L)).thenReturn(Optional.of(task));
+        when(blobStore.find("task-3.out")).thenReturn(Optional.of(blob));
+
+        Resource result = taskService.getFullOutput(3L);
+
+        assertEquals("full output", result.getContentAsString(StandardCharsets.UTF_8));
+        Files.delete(blob);
+    }
+
+    @Test
+    void getFullOutputShouldReportExpiredBlobInsteadOfPreview() {
+        ServerEntity server = serverOwnedBy(TEST_USER);
+        TaskEntity task = TaskEntity.builder()
+            .id(5L)
+            .server(server)
+            .output("preview")
+            .outputBlobRef("task-5.out")
+            .build();
+
+        when(taskRepository.findById(5L)).thenReturn(Optional.of(task));
+        when(blobStore.find("task-5.out")).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> taskService.getFullOutput(5L));
+    }
+
+    @Test
+    void getFullOutputShouldFallBackToStoredOutput() throws Exception {
+        ServerEntity server = serverOwnedBy(TEST_USER);
+        TaskEntity task = TaskEntity.builder().id(4L).server(server).output("short").build();
+
+        when(taskRepository.findById(4L)).thenReturn(Optional.of(task));
+        when(blobStore.find(null)).thenReturn(Optional.empty());
+
+        Resource result = taskService.getFullOutput(4L);
+
+        assertEquals("short", result.getContentAsString(StandardCharsets.UTF_8));
     }
 
     @Test
@@ -479,8 +742,8 @@ class TaskServiceImplTest {
         TaskEntity t2 = TaskEntity.builder().id(2L).status(TaskStatus.SUCCESS).build();
         List<TaskEntity> entities = List.of(t1, t2);
         List<TaskDto> mapped = List.of(
-            new TaskDto(1L, TaskStatus.PENDING, null, null, null, null, null, null),
-            new TaskDto(2L, TaskStatus.SUCCESS, null, null, null, null, null, null)
+            new TaskDto(1L, TaskStatus.PENDING, null, null, null, null, null, null, null, null),
+            new TaskDto(2L, TaskStatus.SUCCESS, null, null, null, null, null, null, null, null)
         );
 
         when(taskRepository.findAllByServerGroupOwnerUsername(TEST_USER)).thenReturn(entities);
@@ -0,0 +1,182 @@
+package nto.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import nto.core.entities.TaskEntity;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.cache.TaskStatusCache;
+import nto.infrastructure.cache.TaskStatusSnapshot;
+import nto.infrastructure.repositories.JpaTaskRepository;
+import nto.infrastructure.services.TaskStateService;
+import nto.infrastructure.services.TaskStatusWriter;
+import nto.infrastructure.services.output.CapturedOutput;
+import nto.infrastructure.services.output.TaskOutputRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskStateServiceTest {
+
+    @Mock
+    private JpaTaskRepository taskRepository;
+    @Mock
+    private TaskStatusCache statusCache;
+    @Mock
+    private TaskStatusWriter statusWriter;
+    @Mock
+    private ObjectProvider<TaskOutputRegistry> outputRegistry;
+
+    @InjectMocks
+    private TaskStateService taskStateService;
+
+    @Test
+    void markRunningShouldLoadExecutionContextAndPersistRunningState() {
+        TaskEntity task = TaskEntity.builder().id(1L).status(TaskStatus.PENDING).build();
+        when(taskRepository.findWithExecutionContextById(1L)).thenReturn(Optional.of(task));
+
+        TaskEntity result = taskStateService.markRunning(1L, "starting");
+
+        assertSame(task, result);
+        assertEquals(TaskStatus.RUNNING, task.getStatus());
+        assertEquals("starting", task.getOutput());
+        assertNotNull(task.getStartedAt());
+        assertNull(task.getFinishedAt());
+        TaskStatusSnapshot expected = TaskStatusSnapshot.of(task);
+        verify(statusCache).put(expected);
+        verify(statusWriter).enqueue(expected);
+        verify(taskRepository, never()).save(any(TaskEntity.class));
+    }
+
+    @Test
+    void markRunningShouldNotStartTaskCancelledBeforeWorkerStarts() {
+        TaskEntity task = TaskEntity.builder().id(4L).status(TaskStatus.PENDING).build();
+        when(taskRepository.findWithExecutionContextById(4L)).thenReturn(Optional.of(task));
+        when(statusCache.get(4L)).thenReturn(TaskStatusSnapshot.of(task).cancel(null, "Cancelled"));
+
+        TaskEntity result = taskStateService.markRunning(4L, "starting");
+
+        assertEquals(TaskStatus.CANCELLED, result.getStatus());
+        assertNull(result.getStartedAt());
+        verify(statusCache, never()).put(any(TaskStatusSnapshot.class));
+        verify(statusWriter, never()).enqueue(any(TaskStatusSnapshot.class));
+    }
+
+    @Test
+    void markRunningShouldThrowWhenTaskMissing() {
+        when(taskRepository.findWithExecutionContextById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class,
+            () -> taskStateService.markRunning(2L, "starting"));
+        verify(statusWriter, never()).enqueue(any(TaskStatusSnapshot.class));
+    }
+
+    @Test
+    void markFinishedShouldReuseCachedTaskWithoutDatabaseRead() {
+        TaskEntity task = TaskEntity.builder().id(3L).status(TaskStatus.RUNNING).build();
+        when(statusCache.get(3L)).thenReturn(TaskStatusSnapshot.of(task));
+
+        TaskStatusSnapshot result = taskStateService.markFinished(3L, TaskStatus.FAILED, "boom");
+
+        assertEquals(TaskStatus.FAILED, result.status());
+        assertEquals("boom", result.output());
+        assertNotNull(result.finishedAt());
+        assertEquals(TaskStatus.RUNNING, task.getStatus());
+        verify(statusCache).put(result);
+        verify(statusWriter).enqueue(result);
+        verify(taskRepository, never()).findById(any());
+    }
+
+    @Test
+    void transitionsOfGroupRunTaskShouldBeCountedForTheRun() {
+        UUID runId = UUID.randomUUID();
+        TaskEntity task = TaskEntity.builder().id(8L).groupRunId(runId)
+            .status(TaskStatus.PENDING).build();
+        when(taskRepository.findWithExecutionContextById(8L)).thenReturn(Optional.of(task));
+
+        taskStateService.markRunning(8L, "starting");
+        when(statusCache.get(8L)).thenReturn(TaskStatusSnapshot.of(task));
+        taskStateService.markFinished(8L, TaskStatus.SUCCESS, "ok");
+
+        verify(statusWriter).countRunTransition(runId, TaskStatus.PENDING, TaskStatus.RUNNING);
+        verify(statusWriter).countRunTransition(runId, TaskStatus.RUNNING, TaskStatus.SUCCESS);
+    }
+
+    @Test
+    void markFinishedShouldLoadTaskOnCacheMiss() {
+        TaskEntity task = TaskEntity.builder().id(7L).status(TaskStatus.PENDING).build();
+        when(taskRepository.findById(7L)).thenReturn(Optional.of(task));
+
+        taskStateService.markFinished(7L, TaskStatus.FAILED, "rejected");
+
+        ArgumentCaptor<TaskStatusSnapshot> written = ArgumentCaptor.forClass(TaskStatusSnapshot.class);
+        verify(statusWriter).enqueue(written.capture());
+        assertEquals(7L, written.getValue().id());
+        assertEquals(TaskStatus.FAILED, written.getValue().status());
+    }
+
+    @Test
+    void markFinishedShouldStorePreviewAndBlobReferenceForSpilledOutput() {
+        TaskEntity task = TaskEntity.builder().id(6L).status(TaskStatus.RUNNING).build();
+        when(statusCache.get(6L)).thenReturn(TaskStatusSnapshot.of(task));
+
+        TaskStatusSnapshot result = taskStateService.markFinished(6L, TaskStatus.SUCCESS,
+            new CapturedOutput("head...tail", "task-6.out", 5_000_000L));
+
+        assertEquals("head...tail", result.output());
+        assertEquals("task-6.out", result.outputBlobRef());
+        assertEquals(5_000_000L, result.outputSize());
+    }
+
+    @Test
+    void markFinishedShouldThrowWhenTaskMissing() {
+        when(taskRepository.findById(4L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class,
+            () -> taskStateService.markFinished(4L, TaskStatus.SUCCESS, "ok"));
+        verify(statusWriter, never()).enqueue(any(TaskStatusSnapshot.class));
+    }
+
+    @Test
+    void markCancelledShouldEndOutputStreamsOfUnstartedTask() {
+        TaskOutputRegistry registry = mock(TaskOutputRegistry.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TaskOutputRegistry>>getArgument(0).accept(registry);
+            return null;
+        }).when(outputRegistry).ifAvailable(any());
+        when(statusCache.get(6L)).thenReturn(TaskStatusSnapshot.of(
+            TaskEntity.builder().id(6L).status(TaskStatus.PENDING).build()));
+
+        assertTrue(taskStateService.markCancelled(6L, "Cancelled"));
+
+        verify(registry).finishUnstarted(6L, TaskStatus.CANCELLED);
+    }
+
+    @Test
+    void checkpointOutputShouldOnlyTouchRunningTasks() {
+        taskStateService.checkpointOutput(5L, "partial");
+
+        verify(taskRepository).updateOutputIfStatus(5L, "partial", TaskStatus.RUNNING);
+        verify(statusCache, never()).put(any(TaskStatusSnapshot.class));
+    }
+}
@@ -0,0 +1,146 @@
+package nto.services;
+
+import nto.application.dto.TaskCacheStatsDto;
+import nto.core.entities.ScriptEntity;
+import nto.core.entities.ServerEntity;
+import nto.core.entities.TaskEntity;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.cache.TaskStatusCache;
+import nto.infrastructure.cache.TaskStatusSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskStatusCacheTest {
+
+    private TaskStatusCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TaskStatusCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 3600L);
+        ReflectionTestUtils.setField(cache, "previewChars", 8);
+    }
+
+    @Test
+    void sizeLimitShouldEvictOldestFinishedTasksOnly() {
+        cache.put(snapshot(1L, 1L, TaskStatus.RUNNING, null));
+        cache.put(snapshot(2L, 2L, TaskStatus.SUCCESS, null));
+        cache.put(snapshot(3L, 3L, TaskStatus.FAILED, null));
+        cache.put(snapshot(4L, 4L, TaskStatus.SUCCESS, null));
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+        assertNotNull(cache.get(4L));
+        TaskCacheStatsDto stats = cache.getStats();
+        assertEquals(3, stats.entries());
+        assertEquals(2, stats.finishedEntries());
+        assertEquals(1, stats.sizeEvictions());
+    }
+
+    @Test
+    void expiredFinishedTasksShouldBeDroppedButRunningKept() throws Exception {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 1L);
+        cache.put(snapshot(1L, 1L, TaskStatus.RUNNING, null));
+        cache.put(snapshot(2L, 2L, TaskStatus.SUCCESS, null));
+        cache.put(snapshot(3L, 3L, TaskStatus.SUCCESS, null));
+
+        Thread.sleep(1_100);
+        cache.evictExpired();
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNull(cache.get(3L));
+        assertEquals(2, cache.getStats().ttlEvictions());
+    }
+
+    @Test
+    void evictByPairShouldDropTheTaskSnapshot() {
+        cache.put(snapshot(1L, 1L, TaskStatus.SUCCESS, null));
+
+        cache.evict(1L, 10L);
+
+        assertNull(cache.get(1L, 10L));
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.getStats().entries());
+    }
+
+    @Test
+    void evictAllByServerIdShouldDropEveryTaskOfThatServer() {
+        cache.put(snapshot(1L, 1L, TaskStatus.RUNNING, null));
+        cache.put(snapshot(2L, 1L, TaskStatus.SUCCESS, null));
+        cache.put(snapshot(3L, 2L, TaskStatus.SUCCESS, null));
+
+        cache.evictAllByServerId(1L);
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+        assertEquals(1, cache.getStats().finishedEntries());
+    }
+
+    @Test
+    void pairShouldResolveToLatestTask() {
+        cache.put(snapshot(5L, 1L, TaskStatus.SUCCESS, null));
+        cache.put(snapshot(4L, 1L, TaskStatus.FAILED, null));
+
+        assertEquals(5L, cache.get(1L, 10L).id());
+        assertNull(cache.get(1L, 11L));
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(1, cache.getStats().misses());
+    }
+
+    @Test
+    void rowReadBeforeFlushShouldNotReplaceNewerSnapshot() {
+        cache.put(snapshot(1L, 1L, TaskStatus.CANCELLED, null));
+        TaskEntity staleRow = TaskEntity.builder()
+            .id(1L)
+            .server(ServerEntity.builder().id(1L).build())
+            .script(ScriptEntity.builder().id(10L).build())
+            .status(TaskStatus.PENDING)
+            .build();
+
+        cache.putIfAbsent(staleRow);
+
+        assertEquals(TaskStatus.CANCELLED, cache.get(1L).status());
+        assertEquals(1, cache.getStats().finishedEntries());
+    }
+
+    @Test
+    void rowShouldBeCachedWhenNothingIsCached() {
+        cache.putIfAbsent(TaskEntity.builder()
+            .id(2L)
+            .server(ServerEntity.builder().id(1L).build())
+            .script(ScriptEntity.builder().id(10L).build())
+            .status(TaskStatus.SUCCESS)
+            .build());
+
+        assertEquals(TaskStatus.SUCCESS, cache.get(1L, 10L).status());
+        assertEquals(1, cache.getStats().finishedEntries());
+    }
+
+    @Test
+    void longOutputShouldBeCutToPreview() {
+        cache.put(snapshot(1L, 1L, TaskStatus.SUCCESS, "0123456789"));
+        cache.put(snapshot(2L, 1L, TaskStatus.SUCCESS, "short"));
+
+        TaskStatusSnapshot cut = cache.get(1L);
+        assertEquals("01234567", cut.output());
+        assertTrue(cut.outputTruncated());
+        assertFalse(cache.get(2L).outputTruncated());
+    }
+
+    private static TaskStatusSnapshot snapshot(Long id, Long serverId, TaskStatus status,
+                                               String output) {
+        return new TaskStatusSnapshot(id, serverId, 10L, null, null, null, status, output,
+            false, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,156 @@
+package nto.services;
+
+import nto.core.entities.TaskEntity;
+import nto.core.enums.TaskStatus;
+import nto.infrastructure.cache.TaskStatusSnapshot;
+import nto.infrastructure.services.TaskStatusWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskStatusWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TaskStatusWriter statusWriter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(statusWriter, "maxBatchSize", 500);
+        lenient().doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void flushShouldCoalesceTransitionsOfSameTaskIntoOneRow() {
+        TaskEntity task = TaskEntity.builder().id(1L).status(TaskStatus.RUNNING).build();
+        statusWriter.enqueue(TaskStatusSnapshot.of(task));
+        task.setStatus(TaskStatus.SUCCESS);
+        task.setOutput("done");
+        statusWriter.enqueue(TaskStatusSnapshot.of(task));
+        statusWriter.enqueue(TaskStatusSnapshot.of(
+            TaskEntity.builder().id(2L).status(TaskStatus.RUNNING).build()));
+
+        assertEquals(2, statusWriter.flush());
+
+        ArgumentCaptor<List<Object[]>> rows = rowsCaptor();
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        Object[] first = rows.getValue().get(0);
+        assertEquals(TaskStatus.SUCCESS.getCode(), first[0]);
+        assertEquals("done", first[1]);
+        assertEquals(1L, first[first.length - 1]);
+        assertFalse(statusWriter.isPending(1L));
+        assertEquals(0, statusWriter.getPendingCount());
+    }
+
+    @Test
+    void flushShouldSkipDatabaseWhenNothingIsPending() {
+        assertEquals(0, statusWriter.flush());
+
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    @Test
+    void failedFlushShouldKeepUpdatesForRetry() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenThrow(new DataAccessResourceFailureException("db down"));
+        statusWriter.enqueue(TaskStatusSnapshot.of(
+            TaskEntity.builder().id(3L).status(TaskStatus.FAILED).build()));
+
+        assertThrows(DataAccessResourceFailureException.class, statusWriter::flush);
+
+        assertTrue(statusWriter.isPending(3L));
+        assertEquals(1, statusWriter.getPendingCount());
+    }
+
+    @Test
+    void failedFlushShouldNotOverwriteNewerTransition() {
+        TaskEntity task = TaskEntity.builder().id(4L).status(TaskStatus.RUNNING).build();
+        statusWriter.enqueue(TaskStatusSnapshot.of(task));
+        doAnswer(invocation -> {
+            task.setStatus(TaskStatus.SUCCESS);
+            statusWriter.enqueue(TaskStatusSnapshot.of(task));
+            throw new DataAccessResourceFailureException("db down");
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        assertThrows(DataAccessResourceFailureException.class, statusWriter::flush);
+        doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        assertEquals(1, statusWriter.flush());
+        ArgumentCaptor<List<Object[]>> rows = rowsCaptor();
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(TaskStatus.SUCCESS.getCode(), rows.getValue().get(0)[0]);
+    }
+
+    @Test
+    void flushShouldApplySummedRunTransitionsAsOneRowPerRun() {
+        UUID runId = UUID.randomUUID();
+        statusWriter.countRunTransition(runId, TaskStatus.PENDING, TaskStatus.RUNNING);
+        statusWriter.countRunTransition(runId, TaskStatus.PENDING, TaskStatus.RUNNING);
+        statusWriter.countRunTransition(runId, TaskStatus.RUNNING, TaskStatus.SUCCESS);
+        statusWriter.countRunTransition(runId, TaskStatus.PENDING, TaskStatus.PENDING);
+
+        assertEquals(0, statusWriter.flush());
+
+        ArgumentCaptor<List<Object[]>> rows = rowsCaptor();
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE group_runs"), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        Object[] run = rows.getValue().get(0);
+        assertEquals(-2, run[0]);
+        assertEquals(1, run[1]);
+        assertEquals(1, run[2]);
+        assertEquals(0, run[3]);
+        assertEquals(0, run[4]);
+        assertEquals(-1, run[5]);
+        assertEquals(runId, run[run.length - 1]);
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("UPDATE tasks"), anyList());
+
+        assertEquals(0, statusWriter.flush());
+        verify(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Object[]>> rowsCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
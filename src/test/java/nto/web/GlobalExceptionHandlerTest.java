@@ -7,7 +7,7 @@ import nto.core.utils.ErrorMessages;
 import nto.core.utils.exceptions.BadRequestException;
 import nto.core.utils.exceptions.InvalidRefreshTokenException;
 import nto.core.utils.exceptions.ResourceConflictException;
-import nto.core.utils.exceptions.ServerBusyException;
+import nto.core.utils.exceptions.TooManyTasksException;
 import nto.web.advice.GlobalExceptionHandler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,6 +32,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -123,11 +124,12 @@ class GlobalExceptionHandlerTest {
     }
 
     @Test
-    void shouldReturnConflictForServerBusy() throws Exception {
-        mockMvc.perform(get("/test/busy"))
-            .andExpect(status().isConflict())
-            .andExpect(jsonPath("$.status").value(409))
-            .andExpect(jsonPath("$.error").value("Server is busy"));
+    void shouldReturnTooManyRequestsWithRetryAfterForRejectedBatch() throws Exception {
+        mockMvc.perform(get("/test/too-many"))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"))
+            .andExpect(jsonPath("$.status").value(429))
+            .andExpect(jsonPath("$.error").value("Task queue is full"));
     }
 
     @Test
@@ -196,9 +198,9 @@ class GlobalExceptionHandlerTest {
             throw new ResourceConflictException("Conflict");
         }
 
-        @GetMapping("/test/busy")
-        void busy() {
-            throw new ServerBusyException("Server is busy");
+        @GetMapping("/test/too-many")
+        void tooMany() {
+            throw new TooManyTasksException("Task queue is full", 5);
         }
 
         @GetMapping("/test/refresh-invalid")
@@ -20,7 +20,7 @@ class ServerControllerTest {
         ServerService serverService = mock(ServerService.class);
         ServerController controller = new ServerController(serverService);
         List<ServerDto> servers = List.of(
-            new ServerDto(1L, "srv-a", "10.0.0.1", 22, "root", "pw")
+            new ServerDto(1L, "srv-a", "10.0.0.1", 22, "root", "pw", null, null)
         );
         when(serverService.getAllServers()).thenReturn(servers);
 
@@ -35,9 +35,9 @@ class ServerControllerTest {
         ServerService serverService = mock(ServerService.class);
         ServerController controller = new ServerController(serverService);
         List<ServerDto> servers = List.of(
-            new ServerDto(1L, "alpha", "10.0.0.1", 22, "root", "pw"),
-            new ServerDto(2L, null, "10.0.0.2", 22, "root", "pw"),
-            new ServerDto(3L, "beta", "10.0.0.3", 22, "root", "pw")
+            new ServerDto(1L, "alpha", "10.0.0.1", 22, "root", "pw", null, null),
+            new ServerDto(2L, null, "10.0.0.2", 22, "root", "pw", null, null),
+            new ServerDto(3L, "beta", "10.0.0.3", 22, "root", "pw", null, null)
         );
         when(serverService.getAllServers()).thenReturn(servers);
 